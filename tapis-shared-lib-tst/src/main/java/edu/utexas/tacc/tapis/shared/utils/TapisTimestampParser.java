@@ -0,0 +1,230 @@
+package edu.utexas.tacc.tapis.shared.utils;
+
+import java.time.LocalDateTime;
+
+/**
+ * Parser for Tapis timestamp strings that does not use exceptions for invalid input.
+ * Scans the string once without creating intermediate strings, formatters or exceptions.
+ *
+ * Supported formats, any of which may be followed by Z:
+ *   yyyy[-MM[-dd[THH[:mm[:ss[.fffffffff]]]]]][+HH:MM|-HH:MM]
+ * where the fraction has up to 9 digits.
+ * Examples:
+ *   2020-04-29T20:15:52.123456-06:00
+ *   2020-04-29T20:15:52Z
+ *   2020-04-29T20-06:00
+ *   2020-04-29-06:00
+ *   2020-04Z
+ *   2020
+ * Rules:
+ *  - If no timezone info is present then it defaults to UTC
+ *  - Missing information defaults to the earliest time,
+ *    e.g. 2020 represents 2020-01-01T00:00:00.000000Z
+ *  - The date must exist, e.g. 2021-02-29 is invalid. Hours are 00 to 23 and seconds are 00 to 59.
+ *  - An offset is applied for every format, so the result is always in UTC.
+ *
+ * NOTE: LocalDateTime is used for compatibility with DB/SQL, it is not local but UTC.
+ */
+public final class TapisTimestampParser
+{
+  /* **************************************************************************** */
+  /*                                  Constants                                   */
+  /* **************************************************************************** */
+  // Limits for offsets, as for java.time.ZoneOffset
+  private static final int MAX_OFFSET_SECONDS = 18 * 3600;
+
+  private static final int[] NANO_SCALE = {1_000_000_000, 100_000_000, 10_000_000, 1_000_000, 100_000, 10_000,
+                                           1_000, 100, 10, 1};
+
+  /* **************************************************************************** */
+  /*                                 Constructors                                 */
+  /* **************************************************************************** */
+  private TapisTimestampParser() { }
+
+  /* **************************************************************************** */
+  /*                                Public Methods                                */
+  /* **************************************************************************** */
+  /**
+   * Convert a string into a LocalDateTime, a timestamp in UTC.
+   * @param timeStr string representing a Tapis timestamp
+   * @return the time in UTC or null if the string is not a valid Tapis timestamp
+   */
+  public static LocalDateTime tryParse(CharSequence timeStr)
+  {
+    var fields = new Fields();
+    if (timeStr == null || !scan(timeStr, 0, timeStr.length(), fields)) return null;
+    return fields.toUTC();
+  }
+
+  /**
+   * Check if a string is a valid Tapis timestamp
+   * @param timeStr string to check
+   * @return true if valid, else false
+   */
+  public static boolean isValid(CharSequence timeStr)
+  {
+    return timeStr != null && scan(timeStr, 0, timeStr.length(), new Fields());
+  }
+
+  /**
+   * Check if part of a string is a valid Tapis timestamp, e.g. a value in a list, without extracting it
+   * @param s string containing the value
+   * @param start index of the first character of the value
+   * @param end index following the last character of the value
+   * @return true if valid, else false
+   */
+  public static boolean isValid(CharSequence s, int start, int end)
+  {
+    return scan(s, start, end, new Fields());
+  }
+
+  /* **************************************************************************** */
+  /*                               Private Methods                                */
+  /* **************************************************************************** */
+  /*
+   * Scan the characters from start to end into fields. Return false if they are not a valid timestamp.
+   */
+  private static boolean scan(CharSequence s, int start, int end, Fields f)
+  {
+    // A trailing Z is accepted after any format, including one with an offset, and means UTC if no offset
+    if (end > start && s.charAt(end - 1) == 'Z') end--;
+
+    // Year
+    int pos = start + 4;
+    if (end < pos) return false;
+    for (int i = start; i < pos; i++)
+    {
+      if (!isDigit(s.charAt(i))) return false;
+      f.year = f.year * 10 + (s.charAt(i) - '0');
+    }
+
+    // Month and day, unless the dash starts an offset
+    if (pos < end && s.charAt(pos) == '-' && !isOffsetAt(s, pos, end))
+    {
+      if ((f.month = digits2(s, pos + 1, end)) < 0) return false;
+      pos += 3;
+      if (pos < end && s.charAt(pos) == '-' && !isOffsetAt(s, pos, end))
+      {
+        if ((f.day = digits2(s, pos + 1, end)) < 0) return false;
+        pos += 3;
+        // Time
+        if (pos < end && (s.charAt(pos) == 'T' || s.charAt(pos) == 't'))
+        {
+          if ((f.hour = digits2(s, pos + 1, end)) < 0) return false;
+          pos += 3;
+          if (pos < end && s.charAt(pos) == ':')
+          {
+            if ((f.minute = digits2(s, pos + 1, end)) < 0) return false;
+            pos += 3;
+            if (pos < end && s.charAt(pos) == ':')
+            {
+              if ((f.second = digits2(s, pos + 1, end)) < 0) return false;
+              pos += 3;
+              if (pos < end && s.charAt(pos) == '.')
+              {
+                // Fraction of up to 9 digits, may be empty
+                int fracStart = ++pos;
+                int frac = 0;
+                while (pos < end && isDigit(s.charAt(pos)))
+                {
+                  if (pos - fracStart == 9) return false;
+                  frac = frac * 10 + (s.charAt(pos++) - '0');
+                }
+                f.nano = frac * NANO_SCALE[pos - fracStart];
+              }
+            }
+          }
+        }
+      }
+    }
+
+    // Optional offset
+    if (pos < end)
+    {
+      char c = s.charAt(pos);
+      if (c == '+' || c == '-')
+      {
+        int hours = digits2(s, pos + 1, end);
+        if (hours < 0 || pos + 3 >= end || s.charAt(pos + 3) != ':') return false;
+        int minutes = digits2(s, pos + 4, end);
+        if (minutes < 0 || minutes > 59) return false;
+        pos += 6;
+        int total = hours * 3600 + minutes * 60;
+        if (total > MAX_OFFSET_SECONDS) return false;
+        f.offsetSeconds = (c == '-') ? -total : total;
+      }
+    }
+    if (pos != end) return false;
+
+    // Check ranges
+    if (f.month < 1 || f.month > 12) return false;
+    if (f.day < 1 || f.day > lengthOfMonth(f.year, f.month)) return false;
+    if (f.hour > 23 || f.minute > 59 || f.second > 59) return false;
+    return true;
+  }
+
+  /*
+   * Check for the start of an offset, i.e. +HH: or -HH:
+   */
+  private static boolean isOffsetAt(CharSequence s, int pos, int end)
+  {
+    char c = s.charAt(pos);
+    return (c == '+' || c == '-') && pos + 3 < end && s.charAt(pos + 3) == ':';
+  }
+
+  /*
+   * Value of the 2 digits at pos, or -1 if not 2 digits
+   */
+  private static int digits2(CharSequence s, int pos, int end)
+  {
+    if (pos + 1 >= end) return -1;
+    char c1 = s.charAt(pos);
+    char c2 = s.charAt(pos + 1);
+    if (!isDigit(c1) || !isDigit(c2)) return -1;
+    return (c1 - '0') * 10 + (c2 - '0');
+  }
+
+  private static boolean isDigit(char c) { return c >= '0' && c <= '9'; }
+
+  private static int lengthOfMonth(int year, int month)
+  {
+    switch (month)
+    {
+      case 2: return isLeapYear(year) ? 29 : 28;
+      case 4: case 6: case 9: case 11: return 30;
+      default: return 31;
+    }
+  }
+
+  /*
+   * Same rule as java.time.Year.isLeap
+   */
+  private static boolean isLeapYear(int year)
+  {
+    return ((year & 3) == 0) && ((year % 100) != 0 || (year % 400) == 0);
+  }
+
+  /* **************************************************************************** */
+  /*                                    Fields                                    */
+  /* **************************************************************************** */
+  /*
+   * Fields of a timestamp, defaulted to the earliest time
+   */
+  private static final class Fields
+  {
+    private int year;
+    private int month = 1;
+    private int day = 1;
+    private int hour;
+    private int minute;
+    private int second;
+    private int nano;
+    private int offsetSeconds;
+
+    private LocalDateTime toUTC()
+    {
+      var t = LocalDateTime.of(year, month, day, hour, minute, second, nano);
+      return (offsetSeconds == 0) ? t : t.minusSeconds(offsetSeconds);
+    }
+  }
+}
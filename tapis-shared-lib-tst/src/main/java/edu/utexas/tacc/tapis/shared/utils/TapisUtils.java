@@ -18,9 +18,6 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE;
-
-import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -75,27 +72,6 @@ public class TapisUtils
 
   // Formatter for converting an Instant into a string for SQL
   private static final DateTimeFormatter UTC_OUT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.nnnnnn");
-  // Formatters for converting string to Instant for patterns:
-  //   yyyy-MM-ddTHH:mm:ss.nnnnnn+HH:MM, e.g. 2200-04-29T14:15:00.123456+01:00
-  //   yyyy-MM-ddTHH:mm+HH:MM, e.g. 2200-04-29T14:15+01:00
-  //   yyyy-MM-ddTHH+HH:MM, e.g. 2200-04-29T14+01:00
-  private static final DateTimeFormatter[] UTC_IN_FORMATTERS = {
-    new DateTimeFormatterBuilder().parseCaseInsensitive().append(ISO_LOCAL_DATE)
-            .appendLiteral('T').appendPattern("HH").appendLiteral(":").appendPattern("mm")
-            .appendLiteral(":").appendPattern("ss").appendLiteral(".").appendPattern("nnnnnn")
-            .optionalStart().appendOffset("+HH:MM", "Z").toFormatter(),
-    new DateTimeFormatterBuilder().parseCaseInsensitive().append(ISO_LOCAL_DATE)
-          .appendLiteral('T').appendPattern("HH").appendLiteral(":").appendPattern("mm")
-          .optionalStart().appendOffset("+HH:MM", "Z").toFormatter(),
-    new DateTimeFormatterBuilder().parseCaseInsensitive().append(ISO_LOCAL_DATE)
-          .appendLiteral('T').appendPattern("HH")
-          .optionalStart().appendOffset("+HH:MM", "Z").toFormatter()
-    // NOTE: Tried a builder and ofPattern to handle requirement to support timezone when no hour:minute
-    // specified but could not find something that worked. So explicit check is done in getUTCTimeFromString
-    //    DateTimeFormatter.ofPattern("yyyy-MM-ddZZZZ"),
-    //    new DateTimeFormatterBuilder().parseCaseInsensitive().append(ISO_LOCAL_DATE)
-    //          .appendOffset("+HH:MM", "+00:00").toFormatter(),
-  };
 
   /* **************************************************************************** */
   /*                                    Fields                                    */
@@ -232,8 +208,8 @@ public class TapisUtils
    *  - Missing information defaults to the earliest time,
    *    e.g. 2020 represents 2020-01-01T00:00:00.000000Z
    * Examples of valid Tapis timestamp formats:
-   * 2020-04-29T20:15:52:123456-06:00
-   * 2020-04-29T20:15:52:12Z
+   * 2020-04-29T20:15:52.123456-06:00
+   * 2020-04-29T20:15:52.12Z
    * 2020-04-29T20:15:52-06:00
    * 2020-04-29T20:15-06:00
    * 2020-04-29T20-06:00
@@ -241,6 +217,7 @@ public class TapisUtils
    * 2020-04-29
    * 2020-04
    * 2020
+   * Use TapisTimestampParser.tryParse to check a string without the cost of an exception when it is invalid.
    * @param timeStr String representing a valid Tapis timestamp
    * @return the time represented by the string using the above rules
    * @throws DateTimeParseException if string is not a valid timestamp
@@ -248,73 +225,9 @@ public class TapisUtils
   public static LocalDateTime getUTCTimeFromString(String timeStr) throws DateTimeParseException
   {
     if (StringUtils.isBlank(timeStr)) throw new DateTimeParseException("Empty timestamp string", "", 0);
-    // If there is a trailing Z strip
-    // it off. In most cases the formatter does not handle it.
-    if (timeStr.endsWith("Z")) timeStr = timeStr.substring(0, timeStr.length()-1);
-    if (timeStr.length() < 4) throw new DateTimeParseException("Less than 4 characters in string", timeStr, 0);
-    // If 4, 7 or 10 characters convert to earliest time.
-    if (timeStr.length() == 4)
-    {
-      // Must be yyyy
-      timeStr += "-01-01T00:00:00";
-    }
-    else if (timeStr.length() == 7)
-    {
-      // Must be yyyy-MM
-      timeStr += "-01T00:00:00";
-    }
-    else if (timeStr.length() == 10)
-    {
-      // Must be yyyy-MM-dd or yyyy+HH:MM
-      if (timeStr.charAt(7) != ':') timeStr += "T00:00:00";
-      else
-      {
-        var tmpStr = timeStr.substring(0,4) + "-01-01T00:00:00" + timeStr.substring(4,10);
-        timeStr = tmpStr;
-      }
-    }
-    // Cannot get DateTimeFormatter working for a date (no HH:mm) when there is a timezone offset,
-    //   so do explicit checks here.
-    else if (timeStr.length() == 13)
-    {
-      // Check for yyyy-MM+HH:MM
-      if (timeStr.charAt(10) == ':' && (timeStr.charAt(7) == '+' || timeStr.charAt(7) == '-'))
-      {
-        var tmpStr = timeStr.substring(0, 7) + "-01T00:00:00" + timeStr.substring(7, 13);
-        timeStr = tmpStr;
-      }
-    }
-    else if (timeStr.length() == 16)
-    {
-      // Check for yyyy-MM-dd+HH:MM
-      if (timeStr.charAt(13) == ':' && (timeStr.charAt(10) == '+' || timeStr.charAt(10) == '-'))
-      {
-        var tmpStr = timeStr.substring(0, 10) + "T00:00:00" + timeStr.substring(10, 16);
-        timeStr = tmpStr;
-      }
-    }
-
-    // Attempt to convert the string into a timestamp
-    // First try to parse as an Instant
-    try {
-      return LocalDateTime.ofInstant(Instant.parse(timeStr),ZoneOffset.UTC);
-    }
-    catch (DateTimeParseException e) { }
-    // Now try general LocalDateTime
-    try {
-      return LocalDateTime.parse(timeStr);
-    }
-    catch (DateTimeParseException e) { }
-    // Try various formats using a DateTimeFormatter with LocalDateTime
-    for (DateTimeFormatter formatter : UTC_IN_FORMATTERS)
-    {
-      try
-      {
-        return LocalDateTime.parse(timeStr, formatter);
-      }
-      catch (DateTimeParseException e) { }
-    }
-    throw new DateTimeParseException("Not a valid Tapis Timestamp", timeStr, 0);
+    LocalDateTime t = TapisTimestampParser.tryParse(timeStr);
+    if (t == null) throw new DateTimeParseException("Not a valid Tapis Timestamp", timeStr, 0);
+    return t;
   }
 
   /* ---------------------------------------------------------------------------- */
@@ -31,6 +31,8 @@ import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
 
+import edu.utexas.tacc.tapis.shared.utils.TapisTimestampParser;
+
 import java.lang.reflect.Type;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -82,6 +84,31 @@ public class LocalDateTimeConverter implements JsonSerializer<LocalDateTime>, Js
   public LocalDateTime deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
       throws JsonParseException
   {
-    return FORMATTER.parse(json.getAsString(), LocalDateTime::from);
+    // An ISO local date-time without an offset is parsed the same way by the faster Tapis parser.
+    // Anything else, including offsets and partial dates that the Tapis parser also accepts, is left
+    // to the formatter so that the accepted input does not change.
+    String str = json.getAsString();
+    if (isLocalDateTimeShape(str))
+    {
+      LocalDateTime t = TapisTimestampParser.tryParse(str);
+      if (t != null) return t;
+    }
+    return FORMATTER.parse(str, LocalDateTime::from);
+  }
+
+  /**
+   * Check for the shape yyyy-MM-ddTHH:mm followed only by seconds and a fraction, i.e. no offset or zone.
+   * For strings of this shape the Tapis parser and FORMATTER give the same result.
+   */
+  private static boolean isLocalDateTimeShape(String str)
+  {
+    if (str.length() < 16 || str.charAt(4) != '-' || str.charAt(7) != '-' || str.charAt(10) != 'T' ||
+        str.charAt(13) != ':') return false;
+    for (int i = 16; i < str.length(); i++)
+    {
+      char c = str.charAt(i);
+      if ((c < '0' || c > '9') && c != ':' && c != '.') return false;
+    }
+    return true;
   }
 }
@@ -5,8 +5,13 @@ import org.testng.annotations.Test;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
 
 import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
+import edu.utexas.tacc.tapis.shared.utils.gson.javatime.LocalDateTimeConverter;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 
 @Test(groups={"unit"})
 public class TapisGsonUtilsTest 
@@ -71,4 +76,31 @@ public class TapisGsonUtilsTest
 //        System.out.println(obj);
     }
 
+    /* ---------------------------------------------------------------------------- */
+    /* localDateTimeConverterTest:                                                  */
+    /* ---------------------------------------------------------------------------- */
+    @Test(enabled=true)
+    public void localDateTimeConverterTest()
+    {
+        LocalDateTimeConverter conv = new LocalDateTimeConverter();
+        
+        // --- ISO local date-times are accepted.
+        Assert.assertEquals(conv.deserialize(new JsonPrimitive("2020-04-29T20:15:52.123"), LocalDateTime.class, null),
+                            LocalDateTime.of(2020, 4, 29, 20, 15, 52, 123000000));
+        Assert.assertEquals(conv.deserialize(new JsonPrimitive("2020-04-29t20:15"), LocalDateTime.class, null),
+                            LocalDateTime.of(2020, 4, 29, 20, 15));
+        
+        // --- Offsets and partial dates are rejected, they are not local date-times.
+        String[] invalid = {"2020-04-29T20:15:52-06:00", "2020-04-29T20:15:52Z", "2020", "2020-04-29", "2020-04-29T20"};
+        for (String str : invalid)
+        {
+            try
+            {
+                conv.deserialize(new JsonPrimitive(str), LocalDateTime.class, null);
+                Assert.fail("Expected DateTimeParseException for: " + str);
+            }
+            catch (DateTimeParseException e) { /* expected */ }
+        }
+    }
+
 }
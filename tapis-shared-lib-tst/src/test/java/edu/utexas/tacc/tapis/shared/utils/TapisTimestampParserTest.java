@@ -0,0 +1,120 @@
+package edu.utexas.tacc.tapis.shared.utils;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"unit"})
+public class TapisTimestampParserTest
+{
+    /* **************************************************************************** */
+    /*                                    Tests                                     */
+    /* **************************************************************************** */
+    /* ---------------------------------------------------------------------------- */
+    /* validTest:                                                                   */
+    /* ---------------------------------------------------------------------------- */
+    @Test(enabled=true)
+    public void validTest()
+    {
+        checkValid("2200-04-29T14:15:52.123456-06:00", "2200-04-29T20:15:52.123456");
+        checkValid("1800-01-01T00:00:00.123456-00:00", "1800-01-01T00:00:00.123456");
+        checkValid("2200-04-29T14:15:52.123456Z", "2200-04-29T14:15:52.123456");
+        checkValid("2200-04-29T14:15:52.123456789", "2200-04-29T14:15:52.123456789");
+        checkValid("2200-04-29T14:15:52.1+01:00Z", "2200-04-29T13:15:52.100");
+        checkValid("2200-04-29T14:15:52.", "2200-04-29T14:15:52");
+        checkValid("2200-04-29T14:15:52+05:30", "2200-04-29T08:45:52");
+        checkValid("2200-04-29t14:15:52", "2200-04-29T14:15:52");
+        checkValid("2200-04-29T14:15+01:00", "2200-04-29T13:15");
+        checkValid("2200-04-29T14:15Z", "2200-04-29T14:15");
+        checkValid("2200-04-29T14-06:00", "2200-04-29T20:00");
+        checkValid("2200-04-29T14", "2200-04-29T14:00");
+        checkValid("2200-04-29-06:00", "2200-04-29T06:00");
+        checkValid("2200-04-29Z", "2200-04-29T00:00");
+        checkValid("2200-04+03:00", "2200-03-31T21:00");
+        checkValid("2200-04", "2200-04-01T00:00");
+        checkValid("2200-06:00", "2200-01-01T06:00");
+        checkValid("2200+18:00", "2199-12-31T06:00");
+        checkValid("2200Z", "2200-01-01T00:00");
+        checkValid("0000", "0000-01-01T00:00");
+        checkValid("2020-02-29", "2020-02-29T00:00");
+        checkValid("2000-02-29", "2000-02-29T00:00");
+    }
+
+    /* ---------------------------------------------------------------------------- */
+    /* invalidTest:                                                                 */
+    /* ---------------------------------------------------------------------------- */
+    @Test(enabled=true)
+    public void invalidTest()
+    {
+        String[] invalid = {null, "", "Z", "1", "123", "123Z", "+2020", "-2020-01-01T00:00", "22001",
+                            "2200-4", "2200-04-1", "2200-00", "2200-13", "2200-04-00", "2200-04-31",
+                            "2100-02-29", "2021-02-29", "2200-04-29T24", "2200-04-29T14:60", "2200-04-29T23:59:60",
+                            "2200-04-29T14:15.123", "2200-04-29T14:15:52.1234567890", "2200-04-29 14:15:52",
+                            "2200-04-29X14:15:52", "2200-04-29T14,15:52", "2200-04-29T14:15:52z",
+                            "2200-04-29T14:15:52ZZ", "2200-04-29T14:15:52+0100", "2200-04-29T14:15:52+01",
+                            "2200-04-29T14:15:52+01:60", "2200-04-29T14:15:52+18:01", "2200-04-29T14:15:52+01:00:30",
+                            "2200-04-29T14:15:52+005:30", "2200-04-29T14:15:52z05:30", "2200-04-29T14:15:52 "};
+        for (String s : invalid)
+        {
+            Assert.assertNull(TapisTimestampParser.tryParse(s), "Input: " + s);
+            Assert.assertFalse(TapisTimestampParser.isValid(s), "Input: " + s);
+            try
+            {
+                TapisUtils.getUTCTimeFromString(s);
+                Assert.fail("Expected DateTimeParseException for input: " + s);
+            }
+            catch (DateTimeParseException e) { /* expected */ }
+        }
+    }
+
+    /* ---------------------------------------------------------------------------- */
+    /* javaTimeTest:                                                                */
+    /* ---------------------------------------------------------------------------- */
+    /** Full timestamps, with or without an offset, must give the same result as java.time. */
+    @Test(enabled=true)
+    public void javaTimeTest()
+    {
+        var rand = new Random(1234);
+        for (int i = 0; i < 100000; i++)
+        {
+            // Random fields including some out of range values
+            var sb = new StringBuilder();
+            sb.append(String.format("%04d-%02d-%02dT%02d:%02d:%02d", rand.nextInt(10000), rand.nextInt(14),
+                                    rand.nextInt(33), rand.nextInt(25), rand.nextInt(61), rand.nextInt(61)));
+            int fracDigits = rand.nextInt(10);
+            if (fracDigits > 0) sb.append('.');
+            for (int j = 0; j < fracDigits; j++) sb.append(rand.nextInt(10));
+            boolean hasOffset = rand.nextBoolean();
+            if (hasOffset) sb.append(String.format("%c%02d:%02d", rand.nextBoolean() ? '+' : '-',
+                                                   rand.nextInt(19), rand.nextInt(60)));
+            String s = sb.toString();
+
+            LocalDateTime expected;
+            try
+            {
+                if (hasOffset) expected = OffsetDateTime.parse(s).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+                else expected = LocalDateTime.parse(s);
+            }
+            catch (DateTimeParseException e) { expected = null; }
+            Assert.assertEquals(TapisTimestampParser.tryParse(s), expected, "Input: " + s);
+            Assert.assertEquals(TapisTimestampParser.isValid(s), expected != null, "Input: " + s);
+        }
+    }
+
+    /* **************************************************************************** */
+    /*                               Private Methods                                */
+    /* **************************************************************************** */
+    private void checkValid(String s, String expected)
+    {
+        LocalDateTime t = TapisTimestampParser.tryParse(s);
+        Assert.assertEquals(t, LocalDateTime.parse(expected), "Input: " + s);
+        Assert.assertTrue(TapisTimestampParser.isValid(s), "Input: " + s);
+        Assert.assertEquals(TapisUtils.getUTCTimeFromString(s), t, "Input: " + s);
+        Assert.assertEquals(TapisTimestampParser.tryParse(new StringBuilder(s)), t, "Input: " + s);
+    }
+}
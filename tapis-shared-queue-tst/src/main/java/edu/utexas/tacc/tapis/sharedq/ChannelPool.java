@@ -0,0 +1,406 @@
+package edu.utexas.tacc.tapis.sharedq;
+
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.rabbitmq.client.Channel;
+
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import edu.utexas.tacc.tapis.sharedq.exceptions.TapisQueueException;
+
+/** A bounded, thread-safe pool of long-lived channels on one connection.
+ * Opening and closing a channel are each synchronous round trips to the
+ * broker, so publishers that borrow a pooled channel for each message and
+ * return it afterwards avoid two round trips per message.
+ *
+ * At most maxChannels channels exist at any time, counting both idle and
+ * borrowed channels.  When all channels are borrowed, callers wait up to the
+ * borrow timeout for one to be returned.  Idle channels are reused most
+ * recently returned first so that the fewest channels stay active.
+ *
+ * Channels are validated when borrowed and when returned; closed channels are
+ * discarded and replaced on demand.  A channel the broker closes because of a
+ * protocol error, or one left in an unknown state by a failed operation, is
+ * therefore never handed out again.  When the underlying connection drops,
+ * purge() discards all idle channels so that new channels are created on the
+ * recovered or replacement connection.
+ *
+ * Borrowers must not change a channel's mode (confirmSelect, txSelect),
+ * register consumers or set qos on pooled channels.  Channels that need
+ * such configuration should be created outside the pool.
+ */
+public final class ChannelPool
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Tracing.
+  private static final Logger _log = LoggerFactory.getLogger(ChannelPool.class);
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  // Configuration.
+  private final String         _name;
+  private final ChannelFactory _factory;
+  private final int            _maxChannels;
+  private final long           _borrowTimeoutMs;
+
+  // One permit for each channel that can be borrowed.
+  private final Semaphore      _permits;
+
+  // Idle channels guarded by the deque's monitor and borrowed channels.
+  private final ArrayDeque<Channel> _idle = new ArrayDeque<>();
+  private final Set<Channel>   _borrowed = ConcurrentHashMap.newKeySet();
+
+  // Set once when the pool is closed.
+  private volatile boolean     _closed;
+
+  // Metrics.
+  private final LongAdder      _created   = new LongAdder();
+  private final LongAdder      _borrows   = new LongAdder();
+  private final LongAdder      _returns   = new LongAdder();
+  private final LongAdder      _discards  = new LongAdder();
+  private final LongAdder      _waits     = new LongAdder();
+  private final LongAdder      _timeouts  = new LongAdder();
+  private final LongAdder      _purges    = new LongAdder();
+
+  /* ********************************************************************** */
+  /*                            Public Interfaces                           */
+  /* ********************************************************************** */
+  /** Source of new channels, typically a connection owned by the caller. */
+  @FunctionalInterface
+  public interface ChannelFactory
+  {
+      Channel newChannel() throws TapisQueueException;
+  }
+
+  /* ********************************************************************** */
+  /*                             Constructors                               */
+  /* ********************************************************************** */
+  /* ---------------------------------------------------------------------- */
+  /* constructor:                                                           */
+  /* ---------------------------------------------------------------------- */
+  /** Create an empty pool.  Channels are created on demand.
+   *
+   * @param name the pool name used in messages, usually the connection name
+   * @param factory the source of new channels
+   * @param maxChannels the maximum number of open channels in the pool
+   * @param borrowTimeoutMs milliseconds to wait for a channel when all are borrowed
+   */
+  public ChannelPool(String name, ChannelFactory factory, int maxChannels, long borrowTimeoutMs)
+  {
+      if (factory == null) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "ChannelPool", "factory");
+          _log.error(msg);
+          throw new IllegalArgumentException(msg);
+      }
+      if (maxChannels < 1) {
+          String msg = MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "ChannelPool", "maxChannels",
+                                       maxChannels);
+          _log.error(msg);
+          throw new IllegalArgumentException(msg);
+      }
+      if (borrowTimeoutMs < 0) {
+          String msg = MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "ChannelPool", "borrowTimeoutMs",
+                                       borrowTimeoutMs);
+          _log.error(msg);
+          throw new IllegalArgumentException(msg);
+      }
+
+      _name = name;
+      _factory = factory;
+      _maxChannels = maxChannels;
+      _borrowTimeoutMs = borrowTimeoutMs;
+      _permits = new Semaphore(maxChannels, true);
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /* ---------------------------------------------------------------------- */
+  /* borrowChannel:                                                         */
+  /* ---------------------------------------------------------------------- */
+  /** Borrow an open channel, reusing an idle channel if one is available and
+   * creating a new one otherwise.  Every borrowed channel must be passed to
+   * either returnChannel() or discardChannel() exactly once.
+   *
+   * @return an open channel
+   * @throws TapisQueueException if the pool is closed, no channel became
+   *            available within the borrow timeout or a channel could not
+   *            be created
+   */
+  public Channel borrowChannel()
+    throws TapisQueueException
+  {
+      // Wait for a permit only when all channels are borrowed.
+      checkOpen();
+      if (!_permits.tryAcquire()) {
+          _waits.increment();
+          boolean acquired;
+          try {acquired = _permits.tryAcquire(_borrowTimeoutMs, TimeUnit.MILLISECONDS);}
+              catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  String msg = MsgUtils.getMsg("QMGR_CHANNEL_POOL_INTERRUPTED", _name);
+                  _log.error(msg, e);
+                  throw new TapisQueueException(msg, e);
+              }
+          if (!acquired) {
+              _timeouts.increment();
+              String msg = MsgUtils.getMsg("QMGR_CHANNEL_POOL_TIMEOUT", _name, _borrowTimeoutMs,
+                                           _borrowed.size());
+              _log.error(msg);
+              throw new TapisQueueException(msg);
+          }
+      }
+
+      // We hold a permit, so any channel we get is ours to hand out.
+      Channel channel = null;
+      try {
+          // The pool may have been closed while we waited.
+          checkOpen();
+
+          // Reuse the most recently returned open channel.
+          while ((channel = pollIdle()) != null) {
+              if (channel.isOpen()) break;
+              discard(channel);
+          }
+
+          // Create a channel if no idle one could be reused.
+          if (channel == null) {
+              channel = _factory.newChannel();
+              _created.increment();
+          }
+      }
+      catch (TapisQueueException | RuntimeException e) {
+          _permits.release();
+          throw e;
+      }
+
+      _borrowed.add(channel);
+      _borrows.increment();
+      return channel;
+  }
+
+  /* ---------------------------------------------------------------------- */
+  /* returnChannel:                                                         */
+  /* ---------------------------------------------------------------------- */
+  /** Return a borrowed channel to the pool.  Channels that are no longer
+   * open, or that are returned after the pool is closed, are discarded.
+   *
+   * @param channel a channel borrowed from this pool
+   */
+  public void returnChannel(Channel channel)
+  {
+      // Ignore channels not currently borrowed from this pool.
+      if (!release(channel)) return;
+      _returns.increment();
+
+      // Keep open channels for reuse.
+      if (!_closed && channel.isOpen()) {
+          synchronized (_idle) {_idle.push(channel);}
+
+          // Don't strand the channel if the pool closed while we pushed it.
+          if (!_closed) {
+              _permits.release();
+              return;
+          }
+          synchronized (_idle) {if (!_idle.remove(channel)) channel = null;}
+      }
+
+      if (channel != null) discard(channel);
+      _permits.release();
+  }
+
+  /* ---------------------------------------------------------------------- */
+  /* discardChannel:                                                        */
+  /* ---------------------------------------------------------------------- */
+  /** Abort and remove a borrowed channel from the pool.  Use this method
+   * instead of returnChannel() when an operation on the channel failed and
+   * its state is unknown.
+   *
+   * @param channel a channel borrowed from this pool
+   */
+  public void discardChannel(Channel channel)
+  {
+      if (!release(channel)) return;
+      discard(channel);
+      _permits.release();
+  }
+
+  /* ---------------------------------------------------------------------- */
+  /* purge:                                                                 */
+  /* ---------------------------------------------------------------------- */
+  /** Discard all idle channels.  This method is called when the pool's
+   * connection shuts down so that no channel on a dead connection is reused.
+   * Borrowed channels are validated and discarded when they are returned.
+   */
+  public void purge()
+  {
+      _purges.increment();
+      Channel channel;
+      while ((channel = pollIdle()) != null) discard(channel);
+  }
+
+  /* ---------------------------------------------------------------------- */
+  /* close:                                                                 */
+  /* ---------------------------------------------------------------------- */
+  /** Close the pool and all its idle channels.  Subsequent borrow requests
+   * fail and channels still borrowed are closed when they are returned.
+   */
+  public void close()
+  {
+      _closed = true;
+      purge();
+  }
+
+  /* ---------------------------------------------------------------------- */
+  /* isClosed:                                                              */
+  /* ---------------------------------------------------------------------- */
+  public boolean isClosed() {return _closed;}
+
+  /* ---------------------------------------------------------------------- */
+  /* getName:                                                               */
+  /* ---------------------------------------------------------------------- */
+  public String getName() {return _name;}
+
+  /* ---------------------------------------------------------------------- */
+  /* getStats:                                                              */
+  /* ---------------------------------------------------------------------- */
+  /** Get a snapshot of the pool's metrics.
+   *
+   * @return the current metrics
+   */
+  public Stats getStats()
+  {
+      int idle;
+      synchronized (_idle) {idle = _idle.size();}
+      return new Stats(_maxChannels, idle, _borrowed.size(), _created.sum(), _borrows.sum(),
+                       _returns.sum(), _discards.sum(), _waits.sum(), _timeouts.sum(),
+                       _purges.sum());
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /* ---------------------------------------------------------------------- */
+  /* checkOpen:                                                             */
+  /* ---------------------------------------------------------------------- */
+  private void checkOpen()
+    throws TapisQueueException
+  {
+      if (_closed) {
+          String msg = MsgUtils.getMsg("QMGR_CHANNEL_POOL_CLOSED", _name);
+          _log.error(msg);
+          throw new TapisQueueException(msg);
+      }
+  }
+
+  /* ---------------------------------------------------------------------- */
+  /* pollIdle:                                                              */
+  /* ---------------------------------------------------------------------- */
+  private Channel pollIdle()
+  {
+      synchronized (_idle) {return _idle.poll();}
+  }
+
+  /* ---------------------------------------------------------------------- */
+  /* release:                                                               */
+  /* ---------------------------------------------------------------------- */
+  /** Remove a channel from the borrowed set.  Channels that were not borrowed
+   * from this pool, or that were already returned, hold no permit.
+   *
+   * @param channel the channel being given back
+   * @return true if the channel was borrowed from this pool
+   */
+  private boolean release(Channel channel)
+  {
+      if (channel == null) return false;
+      if (_borrowed.remove(channel)) return true;
+
+      String msg = MsgUtils.getMsg("QMGR_CHANNEL_POOL_UNKNOWN", channel.getChannelNumber(), _name);
+      _log.warn(msg);
+      return false;
+  }
+
+  /* ---------------------------------------------------------------------- */
+  /* discard:                                                               */
+  /* ---------------------------------------------------------------------- */
+  /** Abort a channel without waiting for the broker.  Aborting a channel
+   * that is already closed has no effect.
+   *
+   * @param channel the channel to discard
+   */
+  private void discard(Channel channel)
+  {
+      _discards.increment();
+      try {channel.abort();}
+          catch (Exception e) {
+              String msg = MsgUtils.getMsg("QMGR_CHANNEL_CLOSE_ERROR", channel.getChannelNumber(),
+                                           e.getMessage());
+              _log.warn(msg, e);
+          }
+  }
+
+  /* ********************************************************************** */
+  /*                                 Stats                                  */
+  /* ********************************************************************** */
+  /** Snapshot of the pool's metrics. */
+  public static final class Stats
+  {
+      private final int  maxChannels;
+      private final int  idleCount;
+      private final int  borrowedCount;
+      private final long createCount;
+      private final long borrowCount;
+      private final long returnCount;
+      private final long discardCount;
+      private final long waitCount;
+      private final long timeoutCount;
+      private final long purgeCount;
+
+      private Stats(int maxChannels, int idleCount, int borrowedCount, long createCount,
+                    long borrowCount, long returnCount, long discardCount, long waitCount,
+                    long timeoutCount, long purgeCount)
+      {
+          this.maxChannels = maxChannels;
+          this.idleCount = idleCount;
+          this.borrowedCount = borrowedCount;
+          this.createCount = createCount;
+          this.borrowCount = borrowCount;
+          this.returnCount = returnCount;
+          this.discardCount = discardCount;
+          this.waitCount = waitCount;
+          this.timeoutCount = timeoutCount;
+          this.purgeCount = purgeCount;
+      }
+
+      // Accessors.
+      public int getMaxChannels() {return maxChannels;}
+      public int getIdleCount() {return idleCount;}
+      public int getBorrowedCount() {return borrowedCount;}
+      public long getCreateCount() {return createCount;}
+      public long getBorrowCount() {return borrowCount;}
+      public long getReturnCount() {return returnCount;}
+      public long getDiscardCount() {return discardCount;}
+      public long getWaitCount() {return waitCount;}
+      public long getTimeoutCount() {return timeoutCount;}
+      public long getPurgeCount() {return purgeCount;}
+
+      @Override
+      public String toString()
+      {
+          return "max=" + maxChannels + ", idle=" + idleCount + ", borrowed=" + borrowedCount +
+                 ", created=" + createCount + ", borrows=" + borrowCount + ", returns=" + returnCount +
+                 ", discards=" + discardCount + ", waits=" + waitCount + ", timeouts=" + timeoutCount +
+                 ", purges=" + purgeCount;
+      }
+  }
+}
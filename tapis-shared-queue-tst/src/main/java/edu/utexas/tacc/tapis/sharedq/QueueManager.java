@@ -1,6 +1,7 @@
 package edu.utexas.tacc.tapis.sharedq;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeoutException;
@@ -14,6 +15,7 @@ import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
 import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.Recoverable;
 
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 import edu.utexas.tacc.tapis.shared.exceptions.runtime.TapisRuntimeException;
@@ -46,8 +48,11 @@ public final class QueueManager
   
   // Fields that get initialized once and tend not to change.
   private ConnectionFactory       _factory;
-  private Connection              _outConnection;
+  private volatile Connection     _outConnection;
   private Connection              _inConnection;
+  
+  // Long-lived channels on the outbound connection shared by publishers.
+  private final ChannelPool       _outChannelPool;
 
   /* ********************************************************************** */
   /*                             Constructors                               */
@@ -79,6 +84,11 @@ public final class QueueManager
       // Set the parms for the singleton.
       _parms = parms;
       
+      // Publishers borrow channels on the outbound connection from this pool.
+      _outChannelPool = new ChannelPool(getOutConnectionName(), this::getNewOutChannel,
+                                        parms.getQueueChannelPoolSize(), 
+                                        parms.getQueueChannelBorrowTimeoutMs());
+      
       // Create the multi-tenant queues.
       try {createStandardMultiTenantQueues();}
       catch (Exception e) {
@@ -206,58 +216,107 @@ public final class QueueManager
     String queueName    = getAllTenantDeadLetterQueueName();
     String exchangeName = getAllTenantDeadLetterExchangeName(); 
     
-    // Create a temporary channel.
-    Channel channel = null;
-    boolean abortChannel = false;
-    try {
-      // Create a temporary channel.
-      try {channel = getNewOutChannel();}
-        catch (Exception e) {
-          String msg = MsgUtils.getMsg("QMGR_CHANNEL_TENANT_ERROR", ALL_TENANTS_NAME);
-          _log.error(msg, e);
-          throw e;
-        }
+    // Publish the message on a pooled channel.
+    publish(exchangeName, DEFAULT_BINDING_KEY, QueueManager.PERSISTENT_TEXT, message);
     
-      // Publish the message to the queue.
-      try {
-        // Write the job to the tenant recovery queue.
-        channel.basicPublish(exchangeName, DEFAULT_BINDING_KEY, QueueManager.PERSISTENT_TEXT, 
-                             message.getBytes("UTF-8"));
-        
-        // Tracing.
-        if (_log.isDebugEnabled()) {
-            String msg = MsgUtils.getMsg("QMGR_POST", ALL_TENANTS_NAME, exchangeName, queueName);
-            _log.debug(msg);
-        }
-      }
-        catch (Exception e) {
-          String msg = MsgUtils.getMsg("QMGR_PUBLISH_ERROR", exchangeName, 
-                                       getOutConnectionName(), channel.getChannelNumber(), 
-                                       e.getMessage());
-          _log.error(msg, e);
-          throw new TapisQueueException(msg, e);
-        }
-    } 
-    catch (Exception e) {
-      // Affect the way we close the channel and then rethrow exception.
-      abortChannel = true;
-      throw e;
+    // Tracing.
+    if (_log.isDebugEnabled()) {
+        String msg = MsgUtils.getMsg("QMGR_POST", ALL_TENANTS_NAME, exchangeName, queueName);
+        _log.debug(msg);
     }
-    finally {
-      // Channel clean up
-      if (channel != null) {
-        try {
-          // Close the channel one way or the other.
-          if (abortChannel) channel.abort();
-            else channel.close();
-        } 
-          catch (Exception e) {
-            String msg = MsgUtils.getMsg("QMGR_CHANNEL_CLOSE_ERROR", channel.getChannelNumber(), 
-                                         e.getMessage());
-            _log.error(msg, e);
-          }
-      }
+  }
+
+  /* ---------------------------------------------------------------------- */
+  /* publish:                                                               */
+  /* ---------------------------------------------------------------------- */
+  /** Publish a message on a channel borrowed from the outbound channel pool.
+   * The channel is returned to the pool on success and discarded on failure
+   * since its state is then unknown.
+   * 
+   * @param exchangeName the target exchange
+   * @param routingKey the routing key
+   * @param props the message properties
+   * @param message the message text, encoded as UTF-8
+   * @throws TapisQueueException if no channel is available or publishing fails
+   */
+  public void publish(String exchangeName, String routingKey, 
+                      AMQP.BasicProperties props, String message)
+    throws TapisQueueException
+  {
+    // Borrow a long-lived channel, waiting if all are in use.
+    Channel channel = borrowOutChannel();
+    
+    // Publish the message to the exchange.
+    try {
+      channel.basicPublish(exchangeName, routingKey, props, 
+                           message.getBytes(StandardCharsets.UTF_8));
     }
+      catch (Exception e) {
+        // Don't reuse a channel in an unknown state.
+        _outChannelPool.discardChannel(channel);
+        String msg = MsgUtils.getMsg("QMGR_PUBLISH_ERROR", exchangeName, 
+                                     getOutConnectionName(), channel.getChannelNumber(), 
+                                     e.getMessage());
+        _log.error(msg, e);
+        throw new TapisQueueException(msg, e);
+      }
+    
+    // Make the channel available to other publishers.
+    _outChannelPool.returnChannel(channel);
+  }
+
+  /* ---------------------------------------------------------------------- */
+  /* borrowOutChannel:                                                      */
+  /* ---------------------------------------------------------------------- */
+  /** Borrow a long-lived channel on the outbound connection.  The caller must
+   * pass the channel to either returnOutChannel() or discardOutChannel() when
+   * done and must not change its mode or register consumers on it.  Use
+   * getNewOutChannel() for channels that need their own configuration.
+   * 
+   * @return an open channel
+   * @throws TapisQueueException if no channel becomes available in time
+   */
+  public Channel borrowOutChannel()
+    throws TapisQueueException
+  {
+      return _outChannelPool.borrowChannel();
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* returnOutChannel:                                                      */
+  /* ---------------------------------------------------------------------- */
+  /** Return a channel obtained from borrowOutChannel() for reuse.
+   * 
+   * @param channel the borrowed channel
+   */
+  public void returnOutChannel(Channel channel)
+  {
+      _outChannelPool.returnChannel(channel);
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* discardOutChannel:                                                     */
+  /* ---------------------------------------------------------------------- */
+  /** Abort a channel obtained from borrowOutChannel() after a failed 
+   * operation left it in an unknown state.
+   * 
+   * @param channel the borrowed channel
+   */
+  public void discardOutChannel(Channel channel)
+  {
+      _outChannelPool.discardChannel(channel);
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* getOutChannelPoolStats:                                                */
+  /* ---------------------------------------------------------------------- */
+  /** Get the outbound channel pool's metrics.
+   * 
+   * @return a snapshot of the pool metrics
+   */
+  public ChannelPool.Stats getOutChannelPoolStats()
+  {
+      return _outChannelPool.getStats();
   }
 
   /* ---------------------------------------------------------------------- */
@@ -402,6 +461,9 @@ public final class QueueManager
    * */
   public void closeConnections(int timeoutMs)
   {
+      // Stop handing out pooled channels.
+      _outChannelPool.close();
+      
       // Close each connection.
       if (_inConnection != null) 
           try {_inConnection.close(timeoutMs);}
@@ -433,13 +495,25 @@ public final class QueueManager
    throws TapisQueueException
   {
       // Create the connection if necessary.
-      if (_outConnection == null)
+      if (isOutConnectionLost())
       {
         // Only allow one thread at a time to create a shared connection.
         synchronized(QueueManager.class) {
           // Don't do anything if another thread beat us to the punch.
-          if (_outConnection == null)
-            try {_outConnection = getConnectionFactory().newConnection(getOutConnectionName());}
+          if (isOutConnectionLost())
+            try {
+              Connection conn = getConnectionFactory().newConnection(getOutConnectionName());
+              conn.addShutdownListener(cause -> {
+                  // Pooled channels died with the connection.
+                  if (!cause.isInitiatedByApplication()) {
+                      String msg = MsgUtils.getMsg("QMGR_CONNECTION_SHUTDOWN", 
+                                                   getOutConnectionName(), cause.getMessage());
+                      _log.warn(msg);
+                      _outChannelPool.purge();
+                  }
+              });
+              _outConnection = conn;
+            }
             catch (IOException e) {
               String msg = MsgUtils.getMsg("QMGR_CONNECTION_CREATE_ERROR", e.getMessage());
               _log.error(msg, e);
@@ -456,6 +530,23 @@ public final class QueueManager
       return _outConnection;
   }
   
+  /* ---------------------------------------------------------------------- */
+  /* isOutConnectionLost:                                                   */
+  /* ---------------------------------------------------------------------- */
+  /** Determine whether a new outbound connection is needed.  A connection 
+   * with automatic recovery enabled reconnects itself, so we only replace
+   * connections that cannot recover.  Closing a connection through
+   * closeConnections() also closes the outbound channel pool, so replacing
+   * the connection in that case doesn't revive publishing.
+   * 
+   * @return true if there's no usable outbound connection
+   */
+  private boolean isOutConnectionLost()
+  {
+      Connection conn = _outConnection;
+      return conn == null || (!conn.isOpen() && !(conn instanceof Recoverable));
+  }
+  
   /* ---------------------------------------------------------------------- */
   /* getInConnection:                                                       */
   /* ---------------------------------------------------------------------- */
@@ -12,6 +12,10 @@ public class QueueManagerParms
     // Tracing.
     private static final Logger _log = LoggerFactory.getLogger(QueueManagerParms.class);
     
+    // Outbound channel pool defaults.
+    public static final int  DEFAULT_CHANNEL_POOL_SIZE = 16;
+    public static final long DEFAULT_CHANNEL_BORROW_TIMEOUT_MS = 10000;
+    
     // RabbitMQ configuration fields.
     private String  instanceName; // Name of program instance
     private String  queueUser;
@@ -20,6 +24,8 @@ public class QueueManagerParms
     private int     queuePort;
     private boolean queueSSLEnabled;
     private boolean queueAutoRecoveryEnabled;
+    private int     queueChannelPoolSize = DEFAULT_CHANNEL_POOL_SIZE;
+    private long    queueChannelBorrowTimeoutMs = DEFAULT_CHANNEL_BORROW_TIMEOUT_MS;
     
     // Validation method should be called before first parameter use.
     public void validate() throws TapisException
@@ -45,6 +51,18 @@ public class QueueManagerParms
             _log.error(msg);
             throw new TapisException(msg);
         }
+        if (queueChannelPoolSize < 1) {
+            String msg = MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "validate", "queueChannelPoolSize", 
+                                         queueChannelPoolSize);
+            _log.error(msg);
+            throw new TapisException(msg);
+        }
+        if (queueChannelBorrowTimeoutMs < 0) {
+            String msg = MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "validate", 
+                                         "queueChannelBorrowTimeoutMs", queueChannelBorrowTimeoutMs);
+            _log.error(msg);
+            throw new TapisException(msg);
+        }
     }
     
     // Accessors.
@@ -90,4 +108,16 @@ public class QueueManagerParms
     public void setQueueAutoRecoveryEnabled(boolean queueAutoRecoveryEnabled) {
         this.queueAutoRecoveryEnabled = queueAutoRecoveryEnabled;
     }
+    public int getQueueChannelPoolSize() {
+        return queueChannelPoolSize;
+    }
+    public void setQueueChannelPoolSize(int queueChannelPoolSize) {
+        this.queueChannelPoolSize = queueChannelPoolSize;
+    }
+    public long getQueueChannelBorrowTimeoutMs() {
+        return queueChannelBorrowTimeoutMs;
+    }
+    public void setQueueChannelBorrowTimeoutMs(long queueChannelBorrowTimeoutMs) {
+        this.queueChannelBorrowTimeoutMs = queueChannelBorrowTimeoutMs;
+    }
 }
@@ -0,0 +1,218 @@
+package edu.utexas.tacc.tapis.search;
+
+import java.io.IOException;
+
+/**
+ * Character stream for the JavaCC generated parsers that reads directly from a CharSequence.
+ * Replaces SimpleCharStream, which copies the input through a Reader into buffers allocated for each parse.
+ * Nothing is allocated while reading other than the token images. An instance may be reused for a new input
+ *   by calling ReInit().
+ *
+ * The methods implement the CharStream interface generated by JavaCC when the USER_CHAR_STREAM option is set.
+ *   Since each grammar generates its own interface, each parser package has a small subclass that declares it.
+ * Line and column numbers are tracked the same way as SimpleCharStream so that error messages are unchanged.
+ *
+ * Instances are not thread safe.
+ */
+public class CharSequenceCharStream
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Thrown at the end of the input. The token managers treat any IOException as end of input and do not use
+  //   the exception, so a single instance without a stack trace is used.
+  private static final IOException END_OF_INPUT = new IOException("End of input")
+  {
+    @Override
+    public synchronized Throwable fillInStackTrace() { return this; }
+  };
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private CharSequence input;
+  private int length;
+  // Index of the last character read, -1 before the first read
+  private int pos;
+  // Index of the first character of the current token
+  private int tokenBegin;
+
+  // Line and column of the character at pos
+  private int line;
+  private int column;
+  private boolean prevCharIsCR;
+  private boolean prevCharIsLF;
+
+  // State before the first character of the current token, used to recompute line and column after backup
+  private int startLine;
+  private int startColumn;
+  private boolean startPrevCharIsCR;
+  private boolean startPrevCharIsLF;
+  private int beginLine;
+  private int beginColumn;
+
+  private int tabSize = 1;
+  private boolean trackLineColumn = true;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  /**
+   * @param input text to read
+   */
+  public CharSequenceCharStream(CharSequence input)
+  {
+    ReInit(input);
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Reset the stream to read new input. Named to match the ReInit methods of the generated classes.
+   * @param input text to read
+   */
+  public void ReInit(CharSequence input)
+  {
+    this.input = input;
+    length = (input == null) ? 0 : input.length();
+    pos = -1;
+    tokenBegin = 0;
+    line = 1;
+    column = 0;
+    prevCharIsCR = false;
+    prevCharIsLF = false;
+    saveStart();
+    beginLine = 1;
+    beginColumn = 0;
+  }
+
+  public char readChar() throws IOException
+  {
+    if (pos + 1 >= length) throw END_OF_INPUT;
+    char c = input.charAt(++pos);
+    if (trackLineColumn) updateLineColumn(c);
+    return c;
+  }
+
+  public char BeginToken() throws IOException
+  {
+    saveStart();
+    char c;
+    try { c = readChar(); }
+    finally
+    {
+      // At the end of input the token begins at the last character, as for SimpleCharStream
+      tokenBegin = Math.max(pos, 0);
+      beginLine = line;
+      beginColumn = column;
+    }
+    return c;
+  }
+
+  public void backup(int amount)
+  {
+    pos -= amount;
+    if (!trackLineColumn) return;
+    // Recompute line and column by scanning forward from the start of the token.
+    // The token managers may back up to the character before the token, which is the saved start state.
+    int from = tokenBegin;
+    line = startLine;
+    column = startColumn;
+    prevCharIsCR = startPrevCharIsCR;
+    prevCharIsLF = startPrevCharIsLF;
+    if (pos < tokenBegin - 1)
+    {
+      // Not expected. Scan from the start of the input.
+      from = 0;
+      line = 1;
+      column = 0;
+      prevCharIsCR = false;
+      prevCharIsLF = false;
+    }
+    for (int i = from; i <= pos; i++) updateLineColumn(input.charAt(i));
+  }
+
+  public String GetImage()
+  {
+    return input.subSequence(tokenBegin, pos + 1).toString();
+  }
+
+  public char[] GetSuffix(int len)
+  {
+    char[] ret = new char[len];
+    int start = pos + 1 - len;
+    for (int i = 0; i < len; i++) ret[i] = input.charAt(start + i);
+    return ret;
+  }
+
+  /**
+   * Release the input
+   */
+  public void Done()
+  {
+    ReInit(null);
+  }
+
+  @Deprecated
+  public int getColumn() { return column; }
+
+  @Deprecated
+  public int getLine() { return line; }
+
+  public int getEndColumn() { return column; }
+
+  public int getEndLine() { return line; }
+
+  public int getBeginColumn() { return beginColumn; }
+
+  public int getBeginLine() { return beginLine; }
+
+  public void setTabSize(int i) { tabSize = i; }
+
+  public int getTabSize() { return tabSize; }
+
+  public boolean getTrackLineColumn() { return trackLineColumn; }
+
+  public void setTrackLineColumn(boolean trackLineColumn) { this.trackLineColumn = trackLineColumn; }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  private void saveStart()
+  {
+    startLine = line;
+    startColumn = column;
+    startPrevCharIsCR = prevCharIsCR;
+    startPrevCharIsLF = prevCharIsLF;
+  }
+
+  /*
+   * Same rules as SimpleCharStream.UpdateLineColumn
+   */
+  private void updateLineColumn(char c)
+  {
+    column++;
+    if (prevCharIsLF)
+    {
+      prevCharIsLF = false;
+      line += (column = 1);
+    }
+    else if (prevCharIsCR)
+    {
+      prevCharIsCR = false;
+      if (c == '\n') prevCharIsLF = true;
+      else line += (column = 1);
+    }
+    switch (c)
+    {
+      case '\r': prevCharIsCR = true; break;
+      case '\n': prevCharIsLF = true; break;
+      case '\t':
+        column--;
+        column += (tabSize - (column % tabSize));
+        break;
+      default: break;
+    }
+  }
+}
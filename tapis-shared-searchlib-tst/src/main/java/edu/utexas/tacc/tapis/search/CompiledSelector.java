@@ -0,0 +1,960 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import org.apache.activemq.command.ActiveMQMessage;
+import org.apache.activemq.filter.ArithmeticExpression;
+import org.apache.activemq.filter.BinaryExpression;
+import org.apache.activemq.filter.BooleanExpression;
+import org.apache.activemq.filter.ComparisonExpression;
+import org.apache.activemq.filter.ConstantExpression;
+import org.apache.activemq.filter.Expression;
+import org.apache.activemq.filter.LogicExpression;
+import org.apache.activemq.filter.MessageEvaluationContext;
+import org.apache.activemq.filter.PropertyExpression;
+import org.apache.activemq.filter.UnaryExpression;
+
+import javax.jms.InvalidSelectorException;
+import javax.jms.JMSException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Message selector compiled for fast evaluation against property values.
+ *
+ * A selector parsed by SelectorParser is a tree of BooleanExpression objects. Interpreting that tree looks up
+ *   each property by name, boxes every number and dispatches on the type of each value at every node. Compiling
+ *   replaces the tree with one specialized for the selector:
+ *   - each property is resolved once to a slot index, and values are set in a Values object by slot
+ *   - values are held in primitive arrays and compared without boxing
+ *   - subexpressions without properties are evaluated once when compiling, e.g. 2 * 5 or -(3)
+ *   - a comparison of a property with a constant is a single node holding the constant
+ *
+ * The result is the same as that of BooleanExpression.matches() for a message with the same properties,
+ *   including the three valued logic of selectors when properties are absent. LIKE, IN, comparisons needing
+ *   string conversion and arithmetic on non-numeric values are evaluated by the parsed selector itself against a
+ *   message holding the properties they reference. isFullyCompiled() is false when a selector has such parts.
+ *
+ * As when matching with SubscriptionIndex, integral values are held as long and Float values as double.
+ *
+ * A compiled selector is immutable and may be shared between threads. A Values object is used by one thread at a
+ *   time and may be reused for each message after calling clear().
+ *
+ * Example:
+ *   CompiledSelector selector = CompiledSelector.compile("tenant = 'dev' AND size > 10");
+ *   int tenant = selector.getSlot("tenant");
+ *   int size = selector.getSlot("size");
+ *   CompiledSelector.Values values = selector.newValues();
+ *   ...
+ *   values.clear().setString(tenant, event.getTenant()).setLong(size, event.getSize());
+ *   if (selector.matches(values)) ...
+ */
+public final class CompiledSelector
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Kinds of values. OBJECT is any other value, e.g. a BigDecimal constant.
+  private static final byte NULL = 0;
+  private static final byte LONG = 1;
+  private static final byte DOUBLE = 2;
+  private static final byte STRING = 3;
+  private static final byte BOOLEAN = 4;
+  private static final byte OBJECT = 5;
+
+  // Results of boolean nodes. INTERPRET means the selector must evaluate the node.
+  private static final int FALSE = 0;
+  private static final int TRUE = 1;
+  private static final int UNKNOWN = 2;
+  private static final int INTERPRET = 3;
+
+  // Operators
+  private static final int EQ = 0;
+  private static final int GT = 1;
+  private static final int GE = 2;
+  private static final int LT = 3;
+  private static final int LE = 4;
+  private static final int PLUS = 0;
+  private static final int MINUS = 1;
+  private static final int MULTIPLY = 2;
+  private static final int DIVIDE = 3;
+  private static final int MOD = 4;
+
+  // The parser builds expressions using anonymous classes, so find each class from a sample expression
+  private static final Class<?> AND_CLASS;
+  private static final Class<?> OR_CLASS;
+  private static final Class<?> NOT_CLASS;
+  private static final Class<?> BOOLEAN_CAST_CLASS;
+  private static final Class<?> NEGATE_CLASS;
+  private static final Map<Class<?>, Integer> COMPARISON_OPS = new HashMap<>();
+  private static final Map<Class<?>, Integer> ARITHMETIC_OPS = new HashMap<>();
+  static
+  {
+    var a = new PropertyExpression("a");
+    var b = new PropertyExpression("b");
+    BooleanExpression eq = ComparisonExpression.createEqual(a, b);
+    AND_CLASS = LogicExpression.createAND(eq, eq).getClass();
+    OR_CLASS = LogicExpression.createOR(eq, eq).getClass();
+    NOT_CLASS = UnaryExpression.createNOT(eq).getClass();
+    BOOLEAN_CAST_CLASS = UnaryExpression.createBooleanCast(a).getClass();
+    NEGATE_CLASS = UnaryExpression.createNegate(a).getClass();
+    COMPARISON_OPS.put(eq.getClass(), EQ);
+    COMPARISON_OPS.put(ComparisonExpression.createGreaterThan(a, b).getClass(), GT);
+    COMPARISON_OPS.put(ComparisonExpression.createGreaterThanEqual(a, b).getClass(), GE);
+    COMPARISON_OPS.put(ComparisonExpression.createLessThan(a, b).getClass(), LT);
+    COMPARISON_OPS.put(ComparisonExpression.createLessThanEqual(a, b).getClass(), LE);
+    ARITHMETIC_OPS.put(ArithmeticExpression.createPlus(a, b).getClass(), PLUS);
+    ARITHMETIC_OPS.put(ArithmeticExpression.createMinus(a, b).getClass(), MINUS);
+    ARITHMETIC_OPS.put(ArithmeticExpression.createMultiply(a, b).getClass(), MULTIPLY);
+    ARITHMETIC_OPS.put(ArithmeticExpression.createDivide(a, b).getClass(), DIVIDE);
+    ARITHMETIC_OPS.put(ArithmeticExpression.createMod(a, b).getClass(), MOD);
+  }
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final BooleanExpression selector;
+  private final BoolNode root;
+  // Property names in slot order and slots by name
+  private final List<String> properties;
+  private final Map<String, Integer> slots;
+  // Initial registers of a Values object: slots first, then constants and intermediate results
+  private final byte[] kinds;
+  private final long[] longs;
+  private final double[] doubles;
+  private final Object[] refs;
+  private final boolean fullyCompiled;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  private CompiledSelector(BooleanExpression selector, Compiler compiler, BoolNode root)
+  {
+    this.selector = selector;
+    this.root = root;
+    properties = Collections.unmodifiableList(new ArrayList<>(compiler.slots.keySet()));
+    slots = Collections.unmodifiableMap(compiler.slots);
+    int size = compiler.slots.size() + compiler.registers.size();
+    kinds = new byte[size];
+    longs = new long[size];
+    doubles = new double[size];
+    refs = new Object[size];
+    for (int i = 0; i < compiler.registers.size(); i++)
+      store(kinds, longs, doubles, refs, compiler.slots.size() + i, compiler.registers.get(i));
+    fullyCompiled = !compiler.interpreted;
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Parse and compile a selector
+   * @param selector message selector
+   * @return compiled selector
+   * @throws InvalidSelectorException if the selector cannot be parsed
+   */
+  public static CompiledSelector compile(String selector) throws InvalidSelectorException
+  {
+    if (selector == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "CompiledSelector", "selector"));
+    return compile(TapisSelectorParser.parse(selector));
+  }
+
+  /**
+   * Compile a parsed selector
+   * @param selector parsed message selector
+   * @return compiled selector
+   */
+  public static CompiledSelector compile(BooleanExpression selector)
+  {
+    if (selector == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "CompiledSelector", "selector"));
+    var compiler = new Compiler();
+    compiler.collectProperties(selector);
+    BoolNode root = compiler.compileBool(selector);
+    return new CompiledSelector(selector, compiler, root);
+  }
+
+  /**
+   * @return the parsed selector
+   */
+  public BooleanExpression getSelector() { return selector; }
+
+  /**
+   * @return names of the properties referenced by the selector, in slot order
+   */
+  public List<String> getPropertyNames() { return properties; }
+
+  /**
+   * @param name property name
+   * @return slot of the property, or -1 if the selector does not reference it. Setting slot -1 is ignored.
+   */
+  public int getSlot(String name)
+  {
+    Integer slot = slots.get(name);
+    return (slot == null) ? -1 : slot;
+  }
+
+  /**
+   * @return false if parts of the selector are evaluated by the parsed selector
+   */
+  public boolean isFullyCompiled() { return fullyCompiled; }
+
+  /**
+   * @return values with all properties absent
+   */
+  public Values newValues() { return new Values(this); }
+
+  /**
+   * @param values property values created by newValues() of this selector
+   * @return true if the selector is TRUE for the values
+   * @throws JMSException if a part evaluated by the parsed selector fails
+   */
+  public boolean matches(Values values) throws JMSException
+  {
+    if (values.selector != this)
+      throw new IllegalArgumentException(MsgUtils.getMsg("SEARCH_SELECTOR_WRONG_VALUES"));
+    return root.eval(values) == TRUE;
+  }
+
+  /**
+   * Convenience method setting the values of a new Values object from a map
+   * @param properties property values. Null values are treated as absent.
+   * @return true if the selector is TRUE for the values
+   * @throws IllegalArgumentException if a property value is not of a supported type
+   * @throws JMSException if a part evaluated by the parsed selector fails
+   */
+  public boolean matches(Map<String, ?> properties) throws JMSException
+  {
+    var values = newValues();
+    for (Map.Entry<String, ?> entry : properties.entrySet()) values.set(entry.getKey(), entry.getValue());
+    return matches(values);
+  }
+
+  @Override
+  public String toString() { return selector.toString(); }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Store a value in a register
+   */
+  private static void store(byte[] kinds, long[] longs, double[] doubles, Object[] refs, int reg, Object value)
+  {
+    refs[reg] = null;
+    if (value == null) kinds[reg] = NULL;
+    else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+    {
+      kinds[reg] = LONG;
+      longs[reg] = ((Number) value).longValue();
+    }
+    else if (value instanceof Double)
+    {
+      kinds[reg] = DOUBLE;
+      doubles[reg] = (Double) value;
+    }
+    else if (value instanceof String)
+    {
+      kinds[reg] = STRING;
+      refs[reg] = value;
+    }
+    else if (value instanceof Boolean)
+    {
+      kinds[reg] = BOOLEAN;
+      longs[reg] = ((Boolean) value) ? 1 : 0;
+    }
+    else
+    {
+      kinds[reg] = OBJECT;
+      refs[reg] = value;
+    }
+  }
+
+  /*
+   * Compare two values that are not null as the selector does. Numbers of different kinds compare as doubles,
+   *   other values of different kinds are not equal, and anything needing string conversion is interpreted.
+   */
+  private static int compare(int op, byte lk, long ll, double ld, Object lr, byte rk, long rl, double rd, Object rr)
+  {
+    int c;
+    if (lk == rk)
+    {
+      switch (lk)
+      {
+        case LONG:
+        case BOOLEAN: c = Long.compare(ll, rl); break;
+        case DOUBLE:  c = Double.compare(ld, rd); break;
+        case STRING:
+          if (op == EQ) return lr.equals(rr) ? TRUE : FALSE;
+          c = ((String) lr).compareTo((String) rr);
+          break;
+        default:      return INTERPRET;
+      }
+    }
+    else if (lk == LONG && rk == DOUBLE) c = Double.compare(ll, rd);
+    else if (lk == DOUBLE && rk == LONG) c = Double.compare(ld, rl);
+    else if (lk == STRING || rk == STRING || lk == OBJECT || rk == OBJECT) return INTERPRET;
+    else return FALSE;
+
+    boolean result;
+    switch (op)
+    {
+      case EQ: result = c == 0; break;
+      case GT: result = c > 0; break;
+      case GE: result = c >= 0; break;
+      case LT: result = c < 0; break;
+      default: result = c <= 0; break;
+    }
+    return result ? TRUE : FALSE;
+  }
+
+  private static int toResult(Object value)
+  {
+    if (value == null) return UNKNOWN;
+    return Boolean.TRUE.equals(value) ? TRUE : FALSE;
+  }
+
+  /* ********************************************************************** */
+  /*                            Compiler Class                              */
+  /* ********************************************************************** */
+  private static final class Compiler
+  {
+    // Slots by property name in order of first reference
+    private final LinkedHashMap<String, Integer> slots = new LinkedHashMap<>();
+    // Initial value of each register after the slots
+    private final List<Object> registers = new ArrayList<>();
+    private boolean interpreted;
+
+    private void collectProperties(Expression e)
+    {
+      if (e instanceof PropertyExpression) slots.putIfAbsent(((PropertyExpression) e).getName(), slots.size());
+      else if (e instanceof BinaryExpression)
+      {
+        collectProperties(((BinaryExpression) e).getLeft());
+        collectProperties(((BinaryExpression) e).getRight());
+      }
+      else if (e instanceof UnaryExpression) collectProperties(((UnaryExpression) e).getRight());
+    }
+
+    private BoolNode compileBool(Expression e)
+    {
+      if (isConstant(e))
+      {
+        try { return new BoolConstant(toResult(fold(e))); }
+        catch (RuntimeException | JMSException ex) { return interpretBool(e); }
+      }
+      Class<?> c = e.getClass();
+      if (c == AND_CLASS)
+        return new And(compileBool(((LogicExpression) e).getLeft()), compileBool(((LogicExpression) e).getRight()));
+      if (c == OR_CLASS)
+        return new Or(compileBool(((LogicExpression) e).getLeft()), compileBool(((LogicExpression) e).getRight()));
+      if (c == NOT_CLASS) return new Not(compileBool(((UnaryExpression) e).getRight()));
+      if (c == BOOLEAN_CAST_CLASS) return new BooleanCast(compileValue(((UnaryExpression) e).getRight()));
+      Integer op = COMPARISON_OPS.get(c);
+      if (op != null) return compileComparison(op, (ComparisonExpression) e);
+      return interpretBool(e);
+    }
+
+    private BoolNode compileComparison(int op, ComparisonExpression e)
+    {
+      Expression left = e.getLeft();
+      Expression right = e.getRight();
+      try
+      {
+        if (left instanceof PropertyExpression && isConstant(right))
+          return new SlotCompare(op, slot(left), true, fold(right), fallback(e));
+        if (right instanceof PropertyExpression && isConstant(left))
+          return new SlotCompare(op, slot(right), false, fold(left), fallback(e));
+      }
+      catch (RuntimeException | JMSException ex) { /* evaluate when matching */ }
+      return new Compare(op, compileValue(left), compileValue(right), fallback(e));
+    }
+
+    private ValueNode compileValue(Expression e)
+    {
+      if (e instanceof PropertyExpression) return new Register(slot(e));
+      if (isConstant(e))
+      {
+        try { return new Register(register(fold(e))); }
+        catch (RuntimeException | JMSException ex) { return interpretValue(e); }
+      }
+      Class<?> c = e.getClass();
+      if (c == NEGATE_CLASS)
+        return new Negate(compileValue(((UnaryExpression) e).getRight()), register(null), fallback(e));
+      Integer op = ARITHMETIC_OPS.get(c);
+      if (op != null)
+      {
+        var arith = (ArithmeticExpression) e;
+        return new Arithmetic(op, compileValue(arith.getLeft()), compileValue(arith.getRight()), register(null),
+                              fallback(e));
+      }
+      if (c == AND_CLASS || c == OR_CLASS || c == NOT_CLASS || c == BOOLEAN_CAST_CLASS ||
+          COMPARISON_OPS.containsKey(c))
+        return new BoolValue(compileBool(e), register(null));
+      return interpretValue(e);
+    }
+
+    private BoolNode interpretBool(Expression e)
+    {
+      interpreted = true;
+      return new InterpretedBool(fallback(e));
+    }
+
+    private ValueNode interpretValue(Expression e)
+    {
+      interpreted = true;
+      return new InterpretedValue(fallback(e), register(null));
+    }
+
+    private int slot(Expression e) { return slots.get(((PropertyExpression) e).getName()); }
+
+    private Fallback fallback(Expression e)
+    {
+      var collector = new Compiler();
+      collector.collectProperties(e);
+      int[] exprSlots = new int[collector.slots.size()];
+      int i = 0;
+      for (String name : collector.slots.keySet()) exprSlots[i++] = slots.get(name);
+      return new Fallback(e, exprSlots);
+    }
+
+    private int register(Object value)
+    {
+      registers.add(value);
+      return slots.size() + registers.size() - 1;
+    }
+
+    /*
+     * True if an expression references no property. Expressions of unknown types may depend on the message.
+     */
+    private static boolean isConstant(Expression e)
+    {
+      if (e instanceof ConstantExpression) return true;
+      if (e instanceof BinaryExpression)
+        return isConstant(((BinaryExpression) e).getLeft()) && isConstant(((BinaryExpression) e).getRight());
+      if (e instanceof UnaryExpression) return isConstant(((UnaryExpression) e).getRight());
+      return false;
+    }
+
+    /*
+     * Evaluate an expression without properties
+     */
+    private static Object fold(Expression e) throws JMSException
+    {
+      var context = new MessageEvaluationContext();
+      context.setMessageReference(new ActiveMQMessage());
+      return e.evaluate(context);
+    }
+  }
+
+  /* ********************************************************************** */
+  /*                              Node Classes                              */
+  /* ********************************************************************** */
+  /*
+   * Node with a boolean result of TRUE, FALSE or UNKNOWN
+   */
+  private abstract static class BoolNode
+  {
+    abstract int eval(Values v) throws JMSException;
+  }
+
+  /*
+   * Node computing a value into its register and returning the kind of the value
+   */
+  private abstract static class ValueNode
+  {
+    final int reg;
+
+    ValueNode(int reg) { this.reg = reg; }
+
+    abstract byte eval(Values v) throws JMSException;
+  }
+
+  private static final class BoolConstant extends BoolNode
+  {
+    private final int result;
+
+    private BoolConstant(int result) { this.result = result; }
+
+    @Override
+    int eval(Values v) { return result; }
+  }
+
+  private static final class And extends BoolNode
+  {
+    private final BoolNode left;
+    private final BoolNode right;
+
+    private And(BoolNode left, BoolNode right) { this.left = left; this.right = right; }
+
+    @Override
+    int eval(Values v) throws JMSException
+    {
+      int l = left.eval(v);
+      if (l == FALSE) return FALSE;
+      int r = right.eval(v);
+      if (r == FALSE) return FALSE;
+      return (l == UNKNOWN || r == UNKNOWN) ? UNKNOWN : TRUE;
+    }
+  }
+
+  private static final class Or extends BoolNode
+  {
+    private final BoolNode left;
+    private final BoolNode right;
+
+    private Or(BoolNode left, BoolNode right) { this.left = left; this.right = right; }
+
+    @Override
+    int eval(Values v) throws JMSException
+    {
+      int l = left.eval(v);
+      if (l == TRUE) return TRUE;
+      int r = right.eval(v);
+      if (r == TRUE) return TRUE;
+      return (l == UNKNOWN || r == UNKNOWN) ? UNKNOWN : FALSE;
+    }
+  }
+
+  private static final class Not extends BoolNode
+  {
+    private final BoolNode operand;
+
+    private Not(BoolNode operand) { this.operand = operand; }
+
+    @Override
+    int eval(Values v) throws JMSException
+    {
+      int r = operand.eval(v);
+      return (r == UNKNOWN) ? UNKNOWN : (r == TRUE) ? FALSE : TRUE;
+    }
+  }
+
+  /*
+   * A property used as a boolean. Values other than booleans are FALSE.
+   */
+  private static final class BooleanCast extends BoolNode
+  {
+    private final ValueNode operand;
+
+    private BooleanCast(ValueNode operand) { this.operand = operand; }
+
+    @Override
+    int eval(Values v) throws JMSException
+    {
+      byte k = operand.eval(v);
+      if (k == NULL) return UNKNOWN;
+      return (k == BOOLEAN && v.longs[operand.reg] != 0) ? TRUE : FALSE;
+    }
+  }
+
+  /*
+   * Comparison of a property with a constant. Equality treats a null on the left as UNKNOWN and a null on the
+   *   right as FALSE, as the selector does, so the side of the property is kept.
+   */
+  private static final class SlotCompare extends BoolNode
+  {
+    private final int op;
+    private final int slot;
+    private final boolean propertyLeft;
+    private final byte kind;
+    private final long longValue;
+    private final double doubleValue;
+    private final Object refValue;
+    // Results when the property or the constant is null
+    private final int nullResult;
+    private final int nullConstantResult;
+    private final Fallback fallback;
+
+    private SlotCompare(int op, int slot, boolean propertyLeft, Object constant, Fallback fallback)
+    {
+      this.op = op;
+      this.slot = slot;
+      this.propertyLeft = propertyLeft;
+      this.fallback = fallback;
+      var k = new byte[1];
+      var l = new long[1];
+      var d = new double[1];
+      var r = new Object[1];
+      store(k, l, d, r, 0, constant);
+      kind = k[0];
+      longValue = l[0];
+      doubleValue = d[0];
+      refValue = r[0];
+      if (op != EQ)
+      {
+        nullResult = UNKNOWN;
+        nullConstantResult = UNKNOWN;
+      }
+      else
+      {
+        nullResult = (kind == NULL) ? TRUE : propertyLeft ? UNKNOWN : FALSE;
+        nullConstantResult = propertyLeft ? FALSE : UNKNOWN;
+      }
+    }
+
+    @Override
+    int eval(Values v) throws JMSException
+    {
+      byte k = v.kinds[slot];
+      if (k == NULL) return nullResult;
+      if (kind == NULL) return nullConstantResult;
+      int result = propertyLeft ?
+        compare(op, k, v.longs[slot], v.doubles[slot], v.refs[slot], kind, longValue, doubleValue, refValue) :
+        compare(op, kind, longValue, doubleValue, refValue, k, v.longs[slot], v.doubles[slot], v.refs[slot]);
+      return (result == INTERPRET) ? toResult(fallback.evaluate(v)) : result;
+    }
+  }
+
+  private static final class Compare extends BoolNode
+  {
+    private final int op;
+    private final ValueNode left;
+    private final ValueNode right;
+    private final Fallback fallback;
+
+    private Compare(int op, ValueNode left, ValueNode right, Fallback fallback)
+    {
+      this.op = op;
+      this.left = left;
+      this.right = right;
+      this.fallback = fallback;
+    }
+
+    @Override
+    int eval(Values v) throws JMSException
+    {
+      // Equality evaluates both sides while other comparisons stop at a null on the left
+      byte lk = left.eval(v);
+      if (lk == NULL && op != EQ) return UNKNOWN;
+      byte rk = right.eval(v);
+      if (op == EQ)
+      {
+        if (lk == NULL) return (rk == NULL) ? TRUE : UNKNOWN;
+        if (rk == NULL) return FALSE;
+      }
+      else if (rk == NULL) return UNKNOWN;
+      int l = left.reg;
+      int r = right.reg;
+      int result = compare(op, lk, v.longs[l], v.doubles[l], v.refs[l], rk, v.longs[r], v.doubles[r], v.refs[r]);
+      return (result == INTERPRET) ? toResult(fallback.evaluate(v)) : result;
+    }
+  }
+
+  /*
+   * Part of the selector evaluated by the parsed selector against a message holding the values of its properties
+   */
+  private static final class Fallback
+  {
+    private final Expression expr;
+    private final int[] slots;
+
+    private Fallback(Expression expr, int[] slots)
+    {
+      this.expr = expr;
+      this.slots = slots;
+    }
+
+    private Object evaluate(Values v) throws JMSException { return expr.evaluate(v.context(slots)); }
+  }
+
+  /*
+   * A property or constant, already in its register
+   */
+  private static final class Register extends ValueNode
+  {
+    private Register(int reg) { super(reg); }
+
+    @Override
+    byte eval(Values v) { return v.kinds[reg]; }
+  }
+
+  private static final class Negate extends ValueNode
+  {
+    private final ValueNode operand;
+    private final Fallback fallback;
+
+    private Negate(ValueNode operand, int reg, Fallback fallback)
+    {
+      super(reg);
+      this.operand = operand;
+      this.fallback = fallback;
+    }
+
+    @Override
+    byte eval(Values v) throws JMSException
+    {
+      byte k = operand.eval(v);
+      switch (k)
+      {
+        case LONG:   v.longs[reg] = -v.longs[operand.reg]; break;
+        case DOUBLE: v.doubles[reg] = -v.doubles[operand.reg]; break;
+        case OBJECT: return v.store(reg, fallback.evaluate(v));
+        // Values that are not numbers are null
+        default:     k = NULL; break;
+      }
+      return v.kinds[reg] = k;
+    }
+  }
+
+  /*
+   * Arithmetic on two numbers. Two longs give a long except for division and modulus, as in the selector.
+   *   Other values, e.g. string concatenation, are interpreted.
+   */
+  private static final class Arithmetic extends ValueNode
+  {
+    private final int op;
+    private final ValueNode left;
+    private final ValueNode right;
+    private final Fallback fallback;
+
+    private Arithmetic(int op, ValueNode left, ValueNode right, int reg, Fallback fallback)
+    {
+      super(reg);
+      this.op = op;
+      this.left = left;
+      this.right = right;
+      this.fallback = fallback;
+    }
+
+    @Override
+    byte eval(Values v) throws JMSException
+    {
+      byte lk = left.eval(v);
+      if (lk == NULL) return v.kinds[reg] = NULL;
+      byte rk = right.eval(v);
+      if (rk == NULL) return v.kinds[reg] = NULL;
+      if ((lk != LONG && lk != DOUBLE) || (rk != LONG && rk != DOUBLE))
+        return v.store(reg, fallback.evaluate(v));
+
+      if (lk == LONG && rk == LONG && op != DIVIDE && op != MOD)
+      {
+        long l = v.longs[left.reg];
+        long r = v.longs[right.reg];
+        v.longs[reg] = (op == PLUS) ? l + r : (op == MINUS) ? l - r : l * r;
+        return v.kinds[reg] = LONG;
+      }
+      double l = (lk == LONG) ? v.longs[left.reg] : v.doubles[left.reg];
+      double r = (rk == LONG) ? v.longs[right.reg] : v.doubles[right.reg];
+      double result;
+      switch (op)
+      {
+        case PLUS:     result = l + r; break;
+        case MINUS:    result = l - r; break;
+        case MULTIPLY: result = l * r; break;
+        case DIVIDE:   result = l / r; break;
+        default:       result = l % r; break;
+      }
+      v.doubles[reg] = result;
+      return v.kinds[reg] = DOUBLE;
+    }
+  }
+
+  /*
+   * A boolean expression used as a value
+   */
+  private static final class BoolValue extends ValueNode
+  {
+    private final BoolNode operand;
+
+    private BoolValue(BoolNode operand, int reg)
+    {
+      super(reg);
+      this.operand = operand;
+    }
+
+    @Override
+    byte eval(Values v) throws JMSException
+    {
+      int r = operand.eval(v);
+      if (r == UNKNOWN) return v.kinds[reg] = NULL;
+      v.longs[reg] = r;
+      return v.kinds[reg] = BOOLEAN;
+    }
+  }
+
+  private static final class InterpretedBool extends BoolNode
+  {
+    private final Fallback fallback;
+
+    private InterpretedBool(Fallback fallback) { this.fallback = fallback; }
+
+    @Override
+    int eval(Values v) throws JMSException { return toResult(fallback.evaluate(v)); }
+  }
+
+  private static final class InterpretedValue extends ValueNode
+  {
+    private final Fallback fallback;
+
+    private InterpretedValue(Fallback fallback, int reg)
+    {
+      super(reg);
+      this.fallback = fallback;
+    }
+
+    @Override
+    byte eval(Values v) throws JMSException { return v.store(reg, fallback.evaluate(v)); }
+  }
+
+  /* ********************************************************************** */
+  /*                            Values Class                                */
+  /* ********************************************************************** */
+  /**
+   * Property values for one compiled selector, set by slot. Slots not set are absent, i.e. null. Not thread safe.
+   */
+  public static final class Values
+  {
+    private final CompiledSelector selector;
+    private final int slotCount;
+    // Registers: slots first, then constants and intermediate results
+    private final byte[] kinds;
+    private final long[] longs;
+    private final double[] doubles;
+    private final Object[] refs;
+    // Message for parts evaluated by the parsed selector
+    private ActiveMQMessage message;
+    private MessageEvaluationContext context;
+
+    private Values(CompiledSelector selector)
+    {
+      this.selector = selector;
+      slotCount = selector.properties.size();
+      kinds = selector.kinds.clone();
+      longs = selector.longs.clone();
+      doubles = selector.doubles.clone();
+      refs = selector.refs.clone();
+    }
+
+    /**
+     * Make all properties absent
+     * @return this
+     */
+    public Values clear()
+    {
+      Arrays.fill(kinds, 0, slotCount, NULL);
+      Arrays.fill(refs, 0, slotCount, null);
+      return this;
+    }
+
+    public Values setLong(int slot, long value)
+    {
+      if (slot < 0) return this;
+      put(slot, LONG, null);
+      longs[slot] = value;
+      return this;
+    }
+
+    public Values setDouble(int slot, double value)
+    {
+      if (slot < 0) return this;
+      put(slot, DOUBLE, null);
+      doubles[slot] = value;
+      return this;
+    }
+
+    public Values setBoolean(int slot, boolean value)
+    {
+      if (slot < 0) return this;
+      put(slot, BOOLEAN, null);
+      longs[slot] = value ? 1 : 0;
+      return this;
+    }
+
+    /**
+     * @param slot slot of the property
+     * @param value value, null if absent
+     * @return this
+     */
+    public Values setString(int slot, String value)
+    {
+      if (slot < 0) return this;
+      put(slot, (value == null) ? NULL : STRING, value);
+      return this;
+    }
+
+    public Values setNull(int slot)
+    {
+      if (slot < 0) return this;
+      put(slot, NULL, null);
+      return this;
+    }
+
+    /**
+     * Set a value of any supported type. Integral values are held as long and Float values as double.
+     * @param slot slot of the property
+     * @param value String, Boolean, Byte, Short, Integer, Long, Float or Double, or null if absent
+     * @return this
+     * @throws IllegalArgumentException if the value is not of a supported type
+     */
+    public Values set(int slot, Object value)
+    {
+      if (slot < 0) return this;
+      if (value == null) return setNull(slot);
+      if (value instanceof String) return setString(slot, (String) value);
+      if (value instanceof Boolean) return setBoolean(slot, (Boolean) value);
+      if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+        return setLong(slot, ((Number) value).longValue());
+      if (value instanceof Double || value instanceof Float) return setDouble(slot, ((Number) value).doubleValue());
+      throw new IllegalArgumentException(MsgUtils.getMsg("SEARCH_SUBSCRIPTION_INVALID_VALUE",
+                                                         selector.properties.get(slot),
+                                                         value.getClass().getSimpleName()));
+    }
+
+    /**
+     * Set a value by property name. Names not referenced by the selector are ignored.
+     * @see #set(int, Object)
+     */
+    public Values set(String name, Object value)
+    {
+      return set(selector.getSlot(name), value);
+    }
+
+    private void put(int slot, byte kind, Object ref)
+    {
+      Objects.checkIndex(slot, slotCount);
+      kinds[slot] = kind;
+      refs[slot] = ref;
+    }
+
+    private byte store(int reg, Object value)
+    {
+      CompiledSelector.store(kinds, longs, doubles, refs, reg, value);
+      return kinds[reg];
+    }
+
+    /*
+     * Context of a message holding the values of some properties, for evaluation by the parsed selector
+     */
+    private MessageEvaluationContext context(int[] slots) throws JMSException
+    {
+      if (context == null)
+      {
+        message = new ActiveMQMessage();
+        context = new MessageEvaluationContext();
+        context.setMessageReference(message);
+      }
+      message.clearProperties();
+      for (int slot : slots)
+      {
+        Object value;
+        switch (kinds[slot])
+        {
+          case LONG:    value = longs[slot]; break;
+          case DOUBLE:  value = doubles[slot]; break;
+          case BOOLEAN: value = longs[slot] != 0; break;
+          case STRING:  value = refs[slot]; break;
+          default:      continue;
+        }
+        message.setObjectProperty(selector.properties.get(slot), value);
+      }
+      return context;
+    }
+  }
+}
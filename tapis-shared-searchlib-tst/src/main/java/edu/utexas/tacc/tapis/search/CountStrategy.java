@@ -0,0 +1,179 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Strategy for computing the total number of rows matching a search, e.g. for the total count returned with a
+ *   page of results. The WHERE clause is given as a SqlFragment, as produced by SqlGenerator.
+ *
+ * An exact strategy always runs SELECT COUNT(*). An estimating strategy has an exact limit:
+ *   - The matching rows are counted up to the limit plus one, so the cost is bounded by the limit.
+ *   - If there are no more than the limit the count is exact.
+ *   - Otherwise the count is estimated by the PostgreSQL planner and flagged as approximate. With no conditions
+ *     the estimate is pg_class.reltuples, otherwise it is the row estimate of EXPLAIN for the search.
+ *     An estimate is never less than the limit plus one since at least that many rows are known to match.
+ *   - If no estimate is available, e.g. the table has never been analyzed, an exact count is used.
+ *
+ * The table name is checked to be a plain, optionally schema qualified, identifier since it is included in
+ *   the SQL. All values are bound. Instances are immutable and may be shared between threads.
+ */
+public final class CountStrategy
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Local logger.
+  private static final Logger _log = LoggerFactory.getLogger(CountStrategy.class);
+
+  // Strategy that always counts exactly
+  public static final CountStrategy EXACT = new CountStrategy(-1);
+
+  // Default limit for exact counts
+  public static final int DEFAULT_EXACT_LIMIT = 10000;
+
+  // Table names allowed in SQL
+  private static final Pattern TABLE_NAME_PATTERN =
+          Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)?");
+
+  // Row estimate in the first line of EXPLAIN output, e.g. Seq Scan on jobs  (cost=0.00..1.10 rows=10 width=4)
+  private static final Pattern EXPLAIN_ROWS_PATTERN = Pattern.compile(" rows=(\\d{1,18}) ");
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  // Largest count that is always exact, negative if all counts are exact
+  private final int exactLimit;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  private CountStrategy(int exactLimit)
+  {
+    this.exactLimit = exactLimit;
+  }
+
+  /**
+   * Create a strategy that counts exactly up to a limit and estimates larger counts
+   * @param exactLimit largest count that is always exact
+   * @return the strategy
+   * @throws IllegalArgumentException if exactLimit is negative
+   */
+  public static CountStrategy estimated(int exactLimit)
+  {
+    if (exactLimit < 0)
+      throw new IllegalArgumentException(MsgUtils.getMsg("SEARCH_COUNT_INVALID_LIMIT", exactLimit));
+    return new CountStrategy(exactLimit);
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Count the rows of a table matching a WHERE clause
+   * @param conn database connection
+   * @param tableName name of table, optionally qualified by schema
+   * @param where WHERE clause without the WHERE keyword, may be null or empty to count all rows
+   * @return the count
+   * @throws SQLException on database error
+   * @throws IllegalArgumentException if the table name is not a plain identifier
+   */
+  public TotalCount count(Connection conn, String tableName, SqlFragment where) throws SQLException
+  {
+    if (tableName == null || !TABLE_NAME_PATTERN.matcher(tableName).matches())
+      throw new IllegalArgumentException(MsgUtils.getMsg("SEARCH_COUNT_INVALID_TABLE", tableName));
+    if (where == null) where = SqlFragment.EMPTY;
+    String from = " FROM " + tableName + (where.isEmpty() ? "" : " WHERE " + where.getSql());
+    if (exactLimit < 0) return new TotalCount(queryLong(conn, "SELECT COUNT(*)" + from, where), false);
+
+    // Exact if there are no more than the limit
+    long limited = queryLong(conn, "SELECT COUNT(*) FROM (SELECT 1" + from + " LIMIT " + (exactLimit + 1L) + ") c",
+                             where);
+    if (limited <= exactLimit) return new TotalCount(limited, false);
+
+    // Estimate from planner statistics
+    long estimate = where.isEmpty() ? getRelTuples(conn, tableName) : getExplainRows(conn, "SELECT 1" + from, where);
+    if (estimate < 0)
+    {
+      _log.debug(MsgUtils.getMsg("SEARCH_COUNT_NO_ESTIMATE", tableName));
+      return new TotalCount(queryLong(conn, "SELECT COUNT(*)" + from, where), false);
+    }
+    return new TotalCount(Math.max(estimate, limited), true);
+  }
+
+  /**
+   * Count the rows of a catalog's table matching a WHERE clause
+   * @param conn database connection
+   * @param catalog catalog of the table
+   * @param where WHERE clause without the WHERE keyword, may be null or empty to count all rows
+   * @return the count
+   * @throws SQLException on database error
+   */
+  public TotalCount count(Connection conn, SearchColumnCatalog catalog, SqlFragment where) throws SQLException
+  {
+    return count(conn, catalog.getTableName(), where);
+  }
+
+  /**
+   * @return largest count that is always exact, negative if all counts are exact
+   */
+  public int getExactLimit() { return exactLimit; }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  private static long queryLong(Connection conn, String sql, SqlFragment where) throws SQLException
+  {
+    try (PreparedStatement ps = conn.prepareStatement(sql))
+    {
+      where.bind(ps, 1);
+      try (ResultSet rs = ps.executeQuery())
+      {
+        return rs.next() ? rs.getLong(1) : 0;
+      }
+    }
+  }
+
+  /*
+   * Planner estimate of the rows in a table, -1 if not available
+   */
+  private static long getRelTuples(Connection conn, String tableName) throws SQLException
+  {
+    try (PreparedStatement ps = conn.prepareStatement("SELECT reltuples FROM pg_class WHERE oid = to_regclass(?)"))
+    {
+      ps.setString(1, tableName);
+      try (ResultSet rs = ps.executeQuery())
+      {
+        // Tables that have never been analyzed have reltuples -1, or 0 in older versions
+        if (!rs.next()) return -1;
+        double tuples = rs.getDouble(1);
+        return (tuples > 0) ? (long) tuples : -1;
+      }
+    }
+  }
+
+  /*
+   * Planner estimate of the rows returned by a query, -1 if not available
+   */
+  private static long getExplainRows(Connection conn, String sql, SqlFragment where) throws SQLException
+  {
+    try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + sql))
+    {
+      where.bind(ps, 1);
+      try (ResultSet rs = ps.executeQuery())
+      {
+        if (!rs.next()) return -1;
+        Matcher m = EXPLAIN_ROWS_PATTERN.matcher(rs.getString(1));
+        return m.find() ? Long.parseLong(m.group(1)) : -1;
+      }
+    }
+  }
+}
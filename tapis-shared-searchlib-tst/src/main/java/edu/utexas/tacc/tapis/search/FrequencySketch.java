@@ -0,0 +1,115 @@
+package edu.utexas.tacc.tapis.search;
+
+import java.util.Arrays;
+
+/**
+ * Approximate access frequency of keys using a count-min sketch of 4-bit counters, as used by TinyLFU.
+ * Each key maps to 4 counters using independent hashes. The frequency is the minimum of those counters.
+ * When the number of increments reaches 10 times the capacity all counters are halved so that the
+ *   sketch reflects recent history.
+ *
+ * Not thread safe. Concurrent increments could carry one 4-bit counter into its neighbor, so ParseCache only
+ *   updates and reads the sketch while holding its lock.
+ */
+final class FrequencySketch
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Seeds for the 4 hash functions
+  private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  // Mask to halve every 4-bit counter in a long
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final int MAX_COUNT = 15;
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int additions;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  /**
+   * @param capacity expected maximum number of distinct keys of interest
+   */
+  FrequencySketch(int capacity)
+  {
+    int len = Integer.highestOneBit(Math.max(8, Math.min(capacity, 1 << 26)) - 1) << 1;
+    table = new long[len];
+    tableMask = len - 1;
+    sampleSize = (int) Math.min(10L * Math.max(capacity, 1), Integer.MAX_VALUE);
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Record an access of a key
+   * @param keyHash hash code of key
+   */
+  void increment(int keyHash)
+  {
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; i++)
+    {
+      long h = hash(keyHash, i);
+      int index = (int) (h >>> 32) & tableMask;
+      int shift = (int) (h & 15) << 2;
+      if (((table[index] >>> shift) & 0xfL) < MAX_COUNT)
+      {
+        table[index] += 1L << shift;
+        added = true;
+      }
+    }
+    if (added && ++additions >= sampleSize) reset();
+  }
+
+  /**
+   * Estimated number of recent accesses of a key
+   * @param keyHash hash code of key
+   * @return estimated frequency, 0 to 15
+   */
+  int frequency(int keyHash)
+  {
+    int freq = MAX_COUNT;
+    for (int i = 0; i < SEEDS.length; i++)
+    {
+      long h = hash(keyHash, i);
+      int index = (int) (h >>> 32) & tableMask;
+      int shift = (int) (h & 15) << 2;
+      freq = Math.min(freq, (int) ((table[index] >>> shift) & 0xfL));
+    }
+    return freq;
+  }
+
+  /**
+   * Clear all counters
+   */
+  void clear()
+  {
+    Arrays.fill(table, 0L);
+    additions = 0;
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Halve all counters
+   */
+  private void reset()
+  {
+    for (int i = 0; i < table.length; i++) table[i] = (table[i] >>> 1) & RESET_MASK;
+    additions = additions >>> 1;
+  }
+
+  private static long hash(int keyHash, int i)
+  {
+    long h = (keyHash + SEEDS[i]) * SEEDS[(i + 1) & 3];
+    return h ^ (h >>> 29);
+  }
+}
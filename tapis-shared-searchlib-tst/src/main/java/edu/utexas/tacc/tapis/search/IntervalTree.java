@@ -0,0 +1,199 @@
+package edu.utexas.tacc.tapis.search;
+
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Dynamic interval tree answering stabbing queries, i.e. find all intervals containing a point.
+ * Used by SubscriptionIndex for range predicates.
+ *
+ * The tree is a treap ordered by the low end of each interval, with each node holding the largest high end in
+ *   its subtree. Insert and remove take expected O(log n) time. A query visits only subtrees that may contain a
+ *   match and so takes O(log n + k) time on average for k matches.
+ * Intervals are closed and doubles are ordered as by Double.compare, so -0.0 is less than 0.0 and NaN is greater
+ *   than positive infinity. The same order is used by Double.compareTo when a selector compares numbers.
+ * Not thread safe.
+ *
+ * @param <V> type of value held with an interval
+ */
+final class IntervalTree<V>
+{
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final Random random = new Random();
+  private Node<V> root;
+  private long nextSeq;
+  private int size;
+
+  /* ********************************************************************** */
+  /*                             Package Methods                            */
+  /* ********************************************************************** */
+  /**
+   * Add an interval
+   * @param low low end, inclusive
+   * @param high high end, inclusive
+   * @param value value held with the interval
+   * @return node to pass to remove()
+   */
+  Node<V> insert(double low, double high, V value)
+  {
+    var node = new Node<V>(low, high, value, nextSeq++, random.nextInt());
+    root = insert(root, node);
+    size++;
+    return node;
+  }
+
+  /**
+   * Remove an interval
+   * @param node node returned by insert()
+   */
+  void remove(Node<V> node)
+  {
+    int before = size;
+    root = remove(root, node);
+    if (size == before) throw new IllegalStateException("Interval not in tree: " + node);
+  }
+
+  /**
+   * Visit each interval containing a point
+   * @param x point
+   * @param visitor called with the node of each interval containing x
+   */
+  void stab(double x, Consumer<Node<V>> visitor)
+  {
+    stab(root, x, visitor);
+  }
+
+  int size() { return size; }
+
+  boolean isEmpty() { return size == 0; }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  private static <V> void stab(Node<V> n, double x, Consumer<Node<V>> visitor)
+  {
+    // Stop if no interval in the subtree reaches x
+    while (n != null && Double.compare(n.maxHigh, x) >= 0)
+    {
+      stab(n.left, x, visitor);
+      // This node and all in its right subtree start after x
+      if (Double.compare(n.low, x) > 0) return;
+      if (Double.compare(x, n.high) <= 0) visitor.accept(n);
+      n = n.right;
+    }
+  }
+
+  private static <V> Node<V> insert(Node<V> n, Node<V> node)
+  {
+    if (n == null) return node;
+    if (node.isBefore(n))
+    {
+      n.left = insert(n.left, node);
+      if (n.left.priority > n.priority) n = rotateRight(n);
+    }
+    else
+    {
+      n.right = insert(n.right, node);
+      if (n.right.priority > n.priority) n = rotateLeft(n);
+    }
+    n.update();
+    return n;
+  }
+
+  private Node<V> remove(Node<V> n, Node<V> node)
+  {
+    if (n == null) return null;
+    if (n == node)
+    {
+      size--;
+      return merge(n.left, n.right);
+    }
+    if (node.isBefore(n)) n.left = remove(n.left, node);
+    else n.right = remove(n.right, node);
+    n.update();
+    return n;
+  }
+
+  /*
+   * Merge two treaps where all nodes of a are before all nodes of b
+   */
+  private static <V> Node<V> merge(Node<V> a, Node<V> b)
+  {
+    if (a == null) return b;
+    if (b == null) return a;
+    if (a.priority > b.priority)
+    {
+      a.right = merge(a.right, b);
+      a.update();
+      return a;
+    }
+    b.left = merge(a, b.left);
+    b.update();
+    return b;
+  }
+
+  private static <V> Node<V> rotateRight(Node<V> n)
+  {
+    Node<V> l = n.left;
+    n.left = l.right;
+    l.right = n;
+    n.update();
+    l.update();
+    return l;
+  }
+
+  private static <V> Node<V> rotateLeft(Node<V> n)
+  {
+    Node<V> r = n.right;
+    n.right = r.left;
+    r.left = n;
+    n.update();
+    r.update();
+    return r;
+  }
+
+  /* ********************************************************************** */
+  /*                            Node Class                                  */
+  /* ********************************************************************** */
+  static final class Node<V>
+  {
+    final double low;
+    final double high;
+    final V value;
+    // Breaks ties between equal low ends so that every node has a distinct position
+    private final long seq;
+    private final int priority;
+    private double maxHigh;
+    private Node<V> left;
+    private Node<V> right;
+
+    private Node(double low, double high, V value, long seq, int priority)
+    {
+      this.low = low;
+      this.high = high;
+      this.value = value;
+      this.seq = seq;
+      this.priority = priority;
+      maxHigh = high;
+    }
+
+    private boolean isBefore(Node<V> other)
+    {
+      int c = Double.compare(low, other.low);
+      return c < 0 || (c == 0 && seq < other.seq);
+    }
+
+    private void update()
+    {
+      double max = high;
+      if (left != null && Double.compare(left.maxHigh, max) > 0) max = left.maxHigh;
+      if (right != null && Double.compare(right.maxHigh, max) > 0) max = right.maxHigh;
+      maxHigh = max;
+    }
+
+    @Override
+    public String toString() { return "[" + low + ", " + high + "]"; }
+  }
+}
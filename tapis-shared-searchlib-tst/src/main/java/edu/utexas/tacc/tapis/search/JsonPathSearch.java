@@ -0,0 +1,219 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchUtils.SearchOperator;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Search conditions on a path into a jsonb column, e.g. notes.project.eq.x or notes.size.gt.10 where notes is
+ *   a jsonb column and project and size are keys of the object it holds. Nested keys are separated by dots.
+ * The column part of the attribute is mapped to a column as for any other attribute. Keys are case sensitive
+ *   and are used as given.
+ *
+ * Conditions are compiled so that PostgreSQL can use a GIN index on the column where possible:
+ *   - EQ and IN become containment tests, notes @> '{"project":"x"}', which are served by a GIN index using
+ *     either the jsonb_ops or jsonb_path_ops operator class.
+ *   - All other operators become jsonb_path_exists(notes, '$."size" ? (@ > $v)', '{"v":10}'). These cannot use
+ *     the index and are evaluated against each row selected by any other conditions.
+ * Both the document or path and the values are bound, so only the column name appears in the SQL.
+ *
+ * A value that is a JSON number or true or false is compared as that type. Since a document may hold the same
+ *   value as a string, an EQ or IN value of these types also matches the string, i.e. notes.size.eq.10 matches
+ *   both {"size":10} and {"size":"10"}. Other operators compare a number only with numbers. All other values
+ *   are compared as strings. Pattern matching using LIKE and NLIKE and the array operators are not supported.
+ */
+final class JsonPathSearch
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Operators supported for a path
+  static final EnumSet<SearchOperator> ALLOWED_OPS =
+        EnumSet.of(SearchOperator.EQ, SearchOperator.NEQ, SearchOperator.LT, SearchOperator.LTE,
+                   SearchOperator.GT, SearchOperator.GTE, SearchOperator.BETWEEN, SearchOperator.NBETWEEN,
+                   SearchOperator.IN, SearchOperator.NIN);
+
+  // Type name used in messages
+  static final String SQL_TYPE_NAME = "JSONB";
+
+  // A key is restricted so that it never needs quoting in a path or document
+  private static final Pattern KEY_PATTERN = Pattern.compile("[a-zA-Z0-9_]+");
+
+  // A JSON number as defined by RFC 8259
+  private static final Pattern NUMBER_PATTERN = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  private JsonPathSearch() { }
+
+  /* ********************************************************************** */
+  /*                             Package Methods                            */
+  /* ********************************************************************** */
+  /**
+   * @param attribute attribute of a condition
+   * @return true if the attribute is a path into a column
+   */
+  static boolean isPath(String attribute)
+  {
+    return attribute != null && attribute.indexOf('.') > 0;
+  }
+
+  /**
+   * @param attribute path attribute, e.g. notes.project
+   * @return the column part of the attribute, e.g. notes
+   */
+  static String getColumnPart(String attribute)
+  {
+    return attribute.substring(0, attribute.indexOf('.'));
+  }
+
+  /**
+   * @param attribute path attribute, e.g. notes.project.name
+   * @return the keys of the path, e.g. [project, name]
+   */
+  static List<String> getKeys(String attribute)
+  {
+    var keys = new ArrayList<String>();
+    int start = attribute.indexOf('.') + 1;
+    while (start > 0)
+    {
+      int end = attribute.indexOf('.', start);
+      keys.add(end < 0 ? attribute.substring(start) : attribute.substring(start, end));
+      start = end + 1;
+    }
+    return keys;
+  }
+
+  /**
+   * @param keys keys of a path
+   * @return null if all keys are valid, otherwise the first invalid key
+   */
+  static String findInvalidKey(List<String> keys)
+  {
+    for (String key : keys) if (!KEY_PATTERN.matcher(key).matches()) return key;
+    return null;
+  }
+
+  /**
+   * Append the SQL for a validated condition on a path. Values are bound as strings cast to jsonb or jsonpath.
+   * @param sql buffer for the SQL
+   * @param bindValues values to bind, in placeholder order
+   * @param colName name of the jsonb column
+   * @param cond validated condition
+   */
+  static void appendSql(StringBuilder sql, List<Object> bindValues, String colName, SearchCondition cond)
+  {
+    List<String> keys = getKeys(cond.getAttribute());
+    List<String> values = cond.getValues();
+    SearchOperator op = cond.getOperator();
+    if (op == SearchOperator.EQ || op == SearchOperator.IN)
+    {
+      // Containment of the value, or of any of its alternatives, at the path
+      var docs = new ArrayList<String>();
+      for (String val : values)
+      {
+        String json = toJsonValue(val);
+        if (!json.startsWith("\"")) docs.add(toDocument(keys, quote(val)));
+        docs.add(toDocument(keys, json));
+      }
+      if (docs.size() > 1) sql.append('(');
+      for (int i = 0; i < docs.size(); i++)
+      {
+        if (i > 0) sql.append(" OR ");
+        sql.append(colName).append(" @> CAST(? AS jsonb)");
+        bindValues.add(docs.get(i));
+      }
+      if (docs.size() > 1) sql.append(')');
+      return;
+    }
+
+    // Filter on the value at the path, with the values passed as variables
+    var path = new StringBuilder("$");
+    for (String key : keys) path.append(".\"").append(key).append('"');
+    path.append(" ? (");
+    switch (op)
+    {
+      case NEQ: path.append("@ != $v1"); break;
+      case LT: path.append("@ < $v1"); break;
+      case LTE: path.append("@ <= $v1"); break;
+      case GT: path.append("@ > $v1"); break;
+      case GTE: path.append("@ >= $v1"); break;
+      case BETWEEN: path.append("@ >= $v1 && @ <= $v2"); break;
+      case NBETWEEN: path.append("@ < $v1 || @ > $v2"); break;
+      case NIN:
+        for (int i = 1; i <= values.size(); i++) path.append(i == 1 ? "" : " && ").append("@ != $v").append(i);
+        break;
+      default:
+        throw new IllegalStateException(op.name());
+    }
+    path.append(')');
+    var vars = new StringBuilder("{");
+    for (int i = 0; i < values.size(); i++)
+    {
+      if (i > 0) vars.append(',');
+      vars.append("\"v").append(i + 1).append("\":").append(toJsonValue(values.get(i)));
+    }
+    vars.append('}');
+    sql.append("jsonb_path_exists(").append(colName).append(", CAST(? AS jsonpath), CAST(? AS jsonb))");
+    bindValues.add(path.toString());
+    bindValues.add(vars.toString());
+  }
+
+  /**
+   * @return sql type used to bind the values produced by appendSql
+   */
+  static int getBindType() { return Types.VARCHAR; }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Nest a JSON value in an object for each key, e.g. {"project":{"name":"x"}}
+   */
+  private static String toDocument(List<String> keys, String json)
+  {
+    var sb = new StringBuilder();
+    for (String key : keys) sb.append("{\"").append(key).append("\":");
+    sb.append(json);
+    for (int i = 0; i < keys.size(); i++) sb.append('}');
+    return sb.toString();
+  }
+
+  /*
+   * Convert a search value to JSON, a number or boolean if it has that form, otherwise a string
+   */
+  private static String toJsonValue(String val)
+  {
+    if ("true".equals(val) || "false".equals(val) || NUMBER_PATTERN.matcher(val).matches()) return val;
+    return quote(val);
+  }
+
+  /*
+   * Quote a string as a JSON string
+   */
+  private static String quote(String val)
+  {
+    var sb = new StringBuilder(val.length() + 2).append('"');
+    for (int i = 0; i < val.length(); i++)
+    {
+      char c = val.charAt(i);
+      switch (c)
+      {
+        case '"': sb.append("\\\""); break;
+        case '\\': sb.append("\\\\"); break;
+        case '\n': sb.append("\\n"); break;
+        case '\r': sb.append("\\r"); break;
+        case '\t': sb.append("\\t"); break;
+        default:
+          if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+          else sb.append(c);
+      }
+    }
+    return sb.append('"').toString();
+  }
+}
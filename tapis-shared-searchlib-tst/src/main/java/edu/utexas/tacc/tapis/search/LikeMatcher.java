@@ -0,0 +1,158 @@
+package edu.utexas.tacc.tapis.search;
+
+/**
+ * Precompiled matcher for SQL LIKE patterns.
+ * The pattern uses % to match any sequence of characters and _ to match any single character. The escape
+ *   character \ causes the following character to be matched literally, as is the default for Postgres.
+ *
+ * Common pattern shapes (no wildcards, prefix, suffix and contains) are matched using String methods. Other
+ *   patterns are matched with a backtracking wildcard match that does not allocate.
+ * Instances are immutable and may be shared between threads.
+ */
+final class LikeMatcher
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  private static final char ESCAPE_CHAR = '\\';
+  // Codes used in the compiled pattern for the wildcards. Literal characters are stored as their char value.
+  private static final int ANY_ONE = -1;
+  private static final int ANY_MANY = -2;
+
+  private enum Shape {EXACT, PREFIX, SUFFIX, CONTAINS, GENERAL}
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final Shape shape;
+  // Literal text for the simple shapes
+  private final String literal;
+  // Compiled pattern for the general shape
+  private final int[] pattern;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  private LikeMatcher(Shape shape, String literal, int[] pattern)
+  {
+    this.shape = shape;
+    this.literal = literal;
+    this.pattern = pattern;
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Compile a SQL LIKE pattern
+   * @param sqlPattern pattern using %, _ and \
+   * @return the matcher
+   */
+  static LikeMatcher compile(String sqlPattern)
+  {
+    int len = sqlPattern.length();
+    int[] codes = new int[len];
+    int n = 0;
+    for (int i = 0; i < len; i++)
+    {
+      char c = sqlPattern.charAt(i);
+      if (c == ESCAPE_CHAR && i + 1 < len) codes[n++] = sqlPattern.charAt(++i);
+      else if (c == '%') { if (n == 0 || codes[n - 1] != ANY_MANY) codes[n++] = ANY_MANY; }
+      else if (c == '_') codes[n++] = ANY_ONE;
+      else codes[n++] = c;
+    }
+
+    // Classify the pattern. Count wildcards and note whether % appears only at the ends.
+    int manyCount = 0;
+    boolean hasOne = false;
+    for (int i = 0; i < n; i++)
+    {
+      if (codes[i] == ANY_MANY) manyCount++;
+      else if (codes[i] == ANY_ONE) hasOne = true;
+    }
+    boolean leading = n > 0 && codes[0] == ANY_MANY;
+    boolean trailing = n > 0 && codes[n - 1] == ANY_MANY;
+    if (!hasOne)
+    {
+      if (manyCount == 0) return new LikeMatcher(Shape.EXACT, literal(codes, 0, n), null);
+      if (manyCount == 1 && trailing) return new LikeMatcher(Shape.PREFIX, literal(codes, 0, n - 1), null);
+      if (manyCount == 1 && leading) return new LikeMatcher(Shape.SUFFIX, literal(codes, 1, n), null);
+      if (manyCount == 2 && leading && trailing && n > 1)
+        return new LikeMatcher(Shape.CONTAINS, literal(codes, 1, n - 1), null);
+    }
+    var compiled = new int[n];
+    System.arraycopy(codes, 0, compiled, 0, n);
+    return new LikeMatcher(Shape.GENERAL, null, compiled);
+  }
+
+  /**
+   * Check if a string matches the pattern
+   * @param str string to check
+   * @return true if matched
+   */
+  boolean matches(String str)
+  {
+    switch (shape)
+    {
+      case EXACT: return str.equals(literal);
+      case PREFIX: return str.startsWith(literal);
+      case SUFFIX: return str.endsWith(literal);
+      case CONTAINS: return str.contains(literal);
+      default: return matchGeneral(str);
+    }
+  }
+
+  /**
+   * @return true if the pattern is a literal prefix followed by %, e.g. abc%
+   */
+  boolean isPrefix() { return shape == Shape.PREFIX; }
+
+  /**
+   * Get the literal text at the start of a pattern, before the first wildcard, with escapes removed
+   * @param sqlPattern pattern using %, _ and \
+   * @return the literal prefix, empty if the pattern starts with a wildcard
+   */
+  static String getLiteralPrefix(String sqlPattern)
+  {
+    int len = sqlPattern.length();
+    var sb = new StringBuilder(len);
+    for (int i = 0; i < len; i++)
+    {
+      char c = sqlPattern.charAt(i);
+      if (c == ESCAPE_CHAR && i + 1 < len) sb.append(sqlPattern.charAt(++i));
+      else if (c == '%' || c == '_') break;
+      else sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Wildcard match with backtracking to the most recent %.
+   */
+  private boolean matchGeneral(String str)
+  {
+    int n = str.length();
+    int m = pattern.length;
+    int p = 0, s = 0;
+    int manyP = -1, manyS = 0;
+    while (s < n)
+    {
+      if (p < m && (pattern[p] == ANY_ONE || pattern[p] == str.charAt(s))) { p++; s++; }
+      else if (p < m && pattern[p] == ANY_MANY) { manyP = p++; manyS = s; }
+      else if (manyP >= 0) { p = manyP + 1; s = ++manyS; }
+      else return false;
+    }
+    while (p < m && pattern[p] == ANY_MANY) p++;
+    return p == m;
+  }
+
+  private static String literal(int[] codes, int start, int end)
+  {
+    var sb = new StringBuilder(end - start);
+    for (int i = start; i < end; i++) sb.append((char) codes[i]);
+    return sb.toString();
+  }
+}
@@ -0,0 +1,256 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchColumnCatalog.Column;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Sort order for a search, parsed from an orderBy query parameter and validated against a column catalog.
+ * The orderBy parameter is a comma separated list of attributes, each optionally followed by a direction:
+ *   <attr>[(asc|desc)][,<attr>[(asc|desc)]]...
+ *   e.g. orderBy=owner,created(desc)
+ * The default direction is ascending and the direction is case insensitive.
+ *
+ * Supports keyset (seek) pagination. Rather than skipping rows using OFFSET, a page after the first is selected
+ *   using a predicate on the sort keys of the last row of the previous page, e.g. (owner, id) > (?, ?),
+ *   so that each page is an index range scan costing the same as the first page.
+ *   - For a stable order the keys must identify a row. Use withTiebreaker() to add a unique column.
+ *   - The keys should be NOT NULL columns. A cursor cannot contain a null value.
+ *   - The values of the last row are encoded as an opaque cursor using encodeCursor(). The cursor is passed back
+ *     by the client and seekPredicate() generates the predicate for the next page.
+ *
+ * Only column names from the catalog and fixed SQL keywords appear in the generated SQL. All values are bound.
+ * Instances are immutable and may be shared between threads.
+ */
+public final class OrderBy
+{
+  /* ********************************************************************** */
+  /*                                 Enums                                  */
+  /* ********************************************************************** */
+  public enum Direction {ASC, DESC}
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final SearchColumnCatalog catalog;
+  private final List<SortKey> keys;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  private OrderBy(SearchColumnCatalog catalog, List<SortKey> keys)
+  {
+    this.catalog = catalog;
+    this.keys = List.copyOf(keys);
+  }
+
+  /**
+   * Parse and validate an orderBy parameter
+   * @param orderByStr value of the orderBy parameter, may be null or blank for no ordering
+   * @param catalog columns of the table being searched
+   * @return the sort order
+   * @throws IllegalArgumentException if the parameter is malformed or an attribute is not a sortable column
+   */
+  public static OrderBy parse(String orderByStr, SearchColumnCatalog catalog) throws IllegalArgumentException
+  {
+    if (catalog == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "OrderBy", "catalog"));
+    var keys = new ArrayList<SortKey>();
+    if (StringUtils.isBlank(orderByStr)) return new OrderBy(catalog, keys);
+    for (String item : orderByStr.split(",", -1))
+    {
+      item = item.trim();
+      String attr = item;
+      Direction dir = Direction.ASC;
+      int paren = item.indexOf('(');
+      if (paren >= 0)
+      {
+        if (!item.endsWith(")")) throw invalid(orderByStr);
+        attr = item.substring(0, paren).trim();
+        String dirStr = item.substring(paren + 1, item.length() - 1).trim();
+        if (dirStr.equalsIgnoreCase("asc")) dir = Direction.ASC;
+        else if (dirStr.equalsIgnoreCase("desc")) dir = Direction.DESC;
+        else throw invalid(orderByStr);
+      }
+      if (attr.isEmpty()) throw invalid(orderByStr);
+      addKey(catalog, keys, attr, dir);
+    }
+    return new OrderBy(catalog, keys);
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Add an ascending key on a unique column if it is not already a key, so that the order is total and
+   *   keyset pagination neither skips nor repeats rows
+   * @param attribute attribute of a unique column, e.g. id
+   * @return sort order ending with the unique column
+   * @throws IllegalArgumentException if the attribute is not a sortable column
+   */
+  public OrderBy withTiebreaker(String attribute) throws IllegalArgumentException
+  {
+    Column col = catalog.getColumn(attribute);
+    for (SortKey key : keys) if (col != null && key.column == col) return this;
+    var newKeys = new ArrayList<>(keys);
+    addKey(catalog, newKeys, attribute, Direction.ASC);
+    return new OrderBy(catalog, newKeys);
+  }
+
+  /**
+   * @return true if there are no sort keys
+   */
+  public boolean isEmpty() { return keys.isEmpty(); }
+
+  /**
+   * @return unmodifiable list of sort keys in order
+   */
+  public List<SortKey> getKeys() { return keys; }
+
+  /**
+   * @return ORDER BY clause, e.g. ORDER BY owner ASC, id ASC, or an empty string if there are no sort keys
+   */
+  public String toSql()
+  {
+    if (keys.isEmpty()) return "";
+    var sj = new StringJoiner(", ", "ORDER BY ", "");
+    for (SortKey key : keys) sj.add(key.column.getName() + " " + key.direction.name());
+    return sj.toString();
+  }
+
+  /**
+   * Encode the sort key values of the last row of a page as a cursor for the next page
+   * @param lastRowValues values of the sort keys in key order
+   * @return opaque cursor safe for use in a URL
+   * @throws IllegalArgumentException if the number of values does not match the keys or a value is null
+   */
+  public String encodeCursor(List<?> lastRowValues) throws IllegalArgumentException
+  {
+    return SearchCursor.encode(this, lastRowValues);
+  }
+
+  /**
+   * Generate the predicate selecting the rows following the cursor in this order.
+   * If all keys have the same direction a row value comparison is used, e.g. (owner, id) > (?, ?),
+   *   otherwise the equivalent expanded form, e.g. (owner > ? OR (owner = ? AND id < ?))
+   * @param cursor cursor returned by encodeCursor() for this order, may be null or blank for the first page
+   * @return the predicate, SqlFragment.EMPTY if there is no cursor
+   * @throws IllegalArgumentException if the cursor is invalid or was not created for this order
+   */
+  public SqlFragment seekPredicate(String cursor) throws IllegalArgumentException
+  {
+    if (StringUtils.isBlank(cursor)) return SqlFragment.EMPTY;
+    List<String> vals = SearchCursor.decode(this, cursor);
+    var sql = new StringBuilder();
+    var values = new ArrayList<Object>();
+    var types = new ArrayList<Integer>();
+    boolean sameDirection = keys.stream().allMatch(k -> k.direction == keys.get(0).direction);
+    if (sameDirection)
+    {
+      String op = keys.get(0).direction == Direction.ASC ? " > " : " < ";
+      var cols = new StringJoiner(", ", keys.size() > 1 ? "(" : "", keys.size() > 1 ? ")" : "");
+      var params = new StringJoiner(", ", keys.size() > 1 ? "(" : "", keys.size() > 1 ? ")" : "");
+      for (int i = 0; i < keys.size(); i++)
+      {
+        cols.add(keys.get(i).column.getName());
+        params.add("?");
+        addBind(values, types, keys.get(i), vals.get(i));
+      }
+      sql.append(cols).append(op).append(params);
+    }
+    else
+    {
+      // For each key: the previous keys are equal and this key follows
+      sql.append('(');
+      for (int i = 0; i < keys.size(); i++)
+      {
+        if (i > 0) sql.append(" OR ");
+        if (i > 0) sql.append('(');
+        for (int j = 0; j < i; j++)
+        {
+          sql.append(keys.get(j).column.getName()).append(" = ? AND ");
+          addBind(values, types, keys.get(j), vals.get(j));
+        }
+        SortKey key = keys.get(i);
+        sql.append(key.column.getName()).append(key.direction == Direction.ASC ? " > ?" : " < ?");
+        addBind(values, types, key, vals.get(i));
+        if (i > 0) sql.append(')');
+      }
+      sql.append(')');
+    }
+    return new SqlFragment(sql.toString(), values, types);
+  }
+
+  /**
+   * @return canonical form of the order, e.g. owner(asc),id(asc). Used to tie a cursor to its order.
+   */
+  @Override
+  public String toString()
+  {
+    var sj = new StringJoiner(",");
+    for (SortKey key : keys) sj.add(key.column.getName() + "(" + key.direction.name().toLowerCase() + ")");
+    return sj.toString();
+  }
+
+  /* ********************************************************************** */
+  /*                                SortKey                                 */
+  /* ********************************************************************** */
+  /**
+   * A column and the direction in which it is sorted
+   */
+  public static final class SortKey
+  {
+    private final Column column;
+    private final Direction direction;
+
+    private SortKey(Column column, Direction direction)
+    {
+      this.column = column;
+      this.direction = direction;
+    }
+
+    public Column getColumn() { return column; }
+    public Direction getDirection() { return direction; }
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Validate an attribute and add it as a key
+   */
+  private static void addKey(SearchColumnCatalog catalog, List<SortKey> keys, String attr, Direction dir)
+  {
+    Column col = catalog.getColumn(attr);
+    if (col == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("SEARCH_DB_NO_COLUMN", attr, catalog.getTableName()));
+    if (!col.isSupported())
+    {
+      String msg = MsgUtils.getMsg("SEARCH_ORDERBY_UNSUPPORTED_TYPE", attr, col.getSqlTypeName(),
+                                   catalog.getTableName());
+      throw new IllegalArgumentException(msg);
+    }
+    for (SortKey key : keys)
+    {
+      if (key.column == col)
+        throw new IllegalArgumentException(MsgUtils.getMsg("SEARCH_ORDERBY_DUPLICATE", attr));
+    }
+    keys.add(new SortKey(col, dir));
+  }
+
+  private static void addBind(List<Object> values, List<Integer> types, SortKey key, String val)
+  {
+    int sqlType = key.column.getSqlType();
+    values.add(SqlGenerator.toBindValue(sqlType, val));
+    types.add(SqlGenerator.toBindType(sqlType));
+  }
+
+  private static IllegalArgumentException invalid(String orderByStr)
+  {
+    return new IllegalArgumentException(MsgUtils.getMsg("SEARCH_ORDERBY_INVALID", orderByStr));
+  }
+}
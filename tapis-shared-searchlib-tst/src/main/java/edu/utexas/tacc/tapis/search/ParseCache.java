@@ -0,0 +1,412 @@
+package edu.utexas.tacc.tapis.search;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded concurrent cache of parse results keyed by the string that was parsed.
+ * Used by ASTParser and SelectorParser in place of a synchronized LRU map.
+ *
+ * Design:
+ *   - Lookups read a ConcurrentHashMap and do not take a lock. A hit only sets a reference bit on the entry
+ *     and records the access in a striped buffer. The buffer is drained into the frequency sketch under the
+ *     lock, when a stripe fills or before an insert, so the sketch is only updated by one thread at a time.
+ *     Accesses recorded while a stripe is full and the lock is busy are dropped, which only makes the
+ *     frequency estimates slightly less accurate.
+ *   - Inserts take a lock. Parsing is done before the lock is taken.
+ *   - Eviction follows W-TinyLFU. New entries go into a small FIFO window. An entry leaving the window competes
+ *     with the victim chosen by a CLOCK scan of the main region and is admitted only if its estimated access
+ *     frequency is higher, so a burst of one-off queries cannot flush frequently used ones.
+ *   - Parse failures are cached separately, FIFO and bounded, so that repeated bad input is rejected quickly
+ *     without taking space from valid entries.
+ *   - Hit, miss, failure hit and eviction counts are kept using LongAdders.
+ *
+ * @param <V> type of parse result
+ */
+public final class ParseCache<V>
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Percentage of the capacity used for the admission window
+  private static final int WINDOW_PERCENT = 1;
+
+  // Number of stripes in the access buffer, a power of 2, and the accesses each stripe holds
+  private static final int BUFFER_STRIPES =
+          Math.min(64, Integer.highestOneBit(2 * Runtime.getRuntime().availableProcessors() - 1) << 1);
+  private static final int STRIPE_SIZE = 16;
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final String name;
+  private final int maximumSize;
+  private final int maximumFailures;
+  private final int windowMax;
+  private final int mainMax;
+
+  private final ConcurrentHashMap<String, Node<V>> data = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Exception> failures = new ConcurrentHashMap<>();
+  private final AccessBuffer accessBuffer = new AccessBuffer();
+
+  // Guarded by lock
+  private final FrequencySketch sketch;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final ArrayDeque<Node<V>> window = new ArrayDeque<>();
+  private final ArrayDeque<Node<V>> main = new ArrayDeque<>();
+  private final ArrayDeque<String> failureOrder = new ArrayDeque<>();
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder failureHitCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  /**
+   * @param name name of cache for reporting
+   * @param maximumSize maximum number of successful parse results, 0 disables caching of results
+   * @param maximumFailures maximum number of parse failures, 0 disables caching of failures
+   */
+  public ParseCache(String name, int maximumSize, int maximumFailures)
+  {
+    this.name = name;
+    this.maximumSize = Math.max(0, maximumSize);
+    this.maximumFailures = Math.max(0, maximumFailures);
+    windowMax = (this.maximumSize == 0) ? 0 : Math.max(1, this.maximumSize * WINDOW_PERCENT / 100);
+    mainMax = this.maximumSize - windowMax;
+    sketch = new FrequencySketch(this.maximumSize);
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Parser called on a cache miss
+   * @param <V> type of parse result
+   * @param <E> type of exception thrown for invalid input
+   */
+  @FunctionalInterface
+  public interface Parser<V, E extends Exception>
+  {
+    V parse(String key) throws E;
+  }
+
+  /**
+   * Return the cached result for a key, parsing and caching it if not present.
+   * If a failure is cached for the key the cached exception is thrown.
+   * If the parser throws an exception it is cached and rethrown.
+   * @param key string to parse
+   * @param parser parser used on a miss
+   * @param <E> type of exception thrown by parser
+   * @return parse result
+   * @throws E if the key could not be parsed
+   */
+  public <E extends Exception> V get(String key, Parser<V, E> parser) throws E
+  {
+    int keyHash = key.hashCode();
+    recordAccess(keyHash);
+    Node<V> node = data.get(key);
+    if (node != null)
+    {
+      node.referenced = true;
+      hitCount.increment();
+      return node.value;
+    }
+    Exception failure = failures.get(key);
+    if (failure != null)
+    {
+      failureHitCount.increment();
+      throw ParseCache.<E>rethrow(failure);
+    }
+
+    missCount.increment();
+    V value;
+    try { value = parser.parse(key); }
+    catch (Exception e)
+    {
+      putFailure(key, e);
+      throw ParseCache.<E>rethrow(e);
+    }
+    if (value != null) put(key, keyHash, value);
+    return value;
+  }
+
+  /**
+   * Remove all entries. Counters are not reset.
+   */
+  public void clear()
+  {
+    lock.lock();
+    try
+    {
+      data.clear();
+      window.clear();
+      main.clear();
+      failures.clear();
+      failureOrder.clear();
+      accessBuffer.drainTo(null);
+      sketch.clear();
+    }
+    finally { lock.unlock(); }
+  }
+
+  /**
+   * @return number of cached parse results
+   */
+  public int size() { return data.size(); }
+
+  /**
+   * @return snapshot of the cache counters
+   */
+  public Stats getStats()
+  {
+    return new Stats(name, maximumSize, data.size(), failures.size(), hitCount.sum(), missCount.sum(),
+                     failureHitCount.sum(), evictionCount.sum());
+  }
+
+  /**
+   * Estimated access frequency of a key after recording all buffered accesses
+   * @param key cache key
+   * @return estimated frequency, 0 to 15
+   */
+  int frequency(String key)
+  {
+    lock.lock();
+    try
+    {
+      accessBuffer.drainTo(sketch);
+      return sketch.frequency(key.hashCode());
+    }
+    finally { lock.unlock(); }
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Record an access in the buffer. When the thread's stripe is full, drain the buffer if the lock is free.
+   */
+  private void recordAccess(int keyHash)
+  {
+    if (maximumSize == 0 || accessBuffer.offer(keyHash) || !lock.tryLock()) return;
+    try { accessBuffer.drainTo(sketch); }
+    finally { lock.unlock(); }
+  }
+
+  /*
+   * Insert a new entry into the window and move any overflow into the main region subject to admission.
+   */
+  private void put(String key, int keyHash, V value)
+  {
+    if (maximumSize == 0) return;
+    lock.lock();
+    try
+    {
+      // Another thread may have parsed the same key
+      if (data.containsKey(key)) return;
+      // Admission decisions use all recorded accesses, including the one that led to this insert
+      accessBuffer.drainTo(sketch);
+      var node = new Node<V>(key, keyHash, value);
+      data.put(key, node);
+      window.addLast(node);
+      while (window.size() > windowMax)
+      {
+        Node<V> candidate = window.pollFirst();
+        candidate.referenced = false;
+        if (main.size() < mainMax) { main.addLast(candidate); continue; }
+        // Main region is full. The candidate replaces the victim only if it is used more often.
+        Node<V> victim = (mainMax == 0) ? null : findVictim();
+        if (victim != null && sketch.frequency(candidate.keyHash) > sketch.frequency(victim.keyHash))
+        {
+          main.pollFirst();
+          data.remove(victim.key);
+          main.addLast(candidate);
+        }
+        else data.remove(candidate.key);
+        evictionCount.increment();
+      }
+    }
+    finally { lock.unlock(); }
+  }
+
+  /*
+   * CLOCK scan of the main region. Entries referenced since the last scan get a second chance.
+   * On return the victim is at the head of the main queue.
+   */
+  private Node<V> findVictim()
+  {
+    for (int i = main.size(); i > 0; i--)
+    {
+      Node<V> head = main.peekFirst();
+      if (!head.referenced) return head;
+      head.referenced = false;
+      main.addLast(main.pollFirst());
+    }
+    return main.peekFirst();
+  }
+
+  /*
+   * Cache a failure, removing the oldest failure if full.
+   */
+  private void putFailure(String key, Exception e)
+  {
+    if (maximumFailures == 0) return;
+    lock.lock();
+    try
+    {
+      if (failures.putIfAbsent(key, e) != null) return;
+      failureOrder.addLast(key);
+      while (failureOrder.size() > maximumFailures)
+      {
+        failures.remove(failureOrder.pollFirst());
+        evictionCount.increment();
+      }
+    }
+    finally { lock.unlock(); }
+  }
+
+  /*
+   * Rethrow an exception thrown by the parser. It is either unchecked or of type E.
+   */
+  @SuppressWarnings("unchecked")
+  private static <E extends Exception> E rethrow(Exception e) throws E
+  {
+    if (e instanceof RuntimeException) throw (RuntimeException) e;
+    throw (E) e;
+  }
+
+  /* ********************************************************************** */
+  /*                            AccessBuffer Class                          */
+  /* ********************************************************************** */
+  /*
+   * Lossy buffer of key hashes striped by thread so that concurrent hits rarely write the same memory.
+   * Each stripe is a ring written by reserving a position with a CAS on its tail. Positions are drained
+   *   under the cache lock. A slot holds the key hash tagged with a high bit so that a slot whose writer
+   *   has reserved it but not yet stored the hash is skipped. Such an access may instead be counted when
+   *   its slot is next drained, which the frequency estimate tolerates.
+   */
+  private static final class AccessBuffer
+  {
+    private static final long FILLED = 1L << 32;
+
+    private final AtomicLong[] tails = new AtomicLong[BUFFER_STRIPES];
+    private final AtomicLongArray slots = new AtomicLongArray(BUFFER_STRIPES * STRIPE_SIZE);
+    // Written under the cache lock
+    private final AtomicLongArray heads = new AtomicLongArray(BUFFER_STRIPES);
+
+    private AccessBuffer() { for (int i = 0; i < BUFFER_STRIPES; i++) tails[i] = new AtomicLong(); }
+
+    /*
+     * Add an access to the calling thread's stripe
+     * @return true if recorded, false if the stripe is full
+     */
+    private boolean offer(int keyHash)
+    {
+      long id = Thread.currentThread().getId() * 0x9e3779b97f4a7c15L;
+      int stripe = (int) (id >>> 32) & (BUFFER_STRIPES - 1);
+      AtomicLong tail = tails[stripe];
+      long t = tail.get();
+      if (t - heads.get(stripe) >= STRIPE_SIZE) return false;
+      if (tail.compareAndSet(t, t + 1))
+        slots.lazySet(stripe * STRIPE_SIZE + (int) (t & (STRIPE_SIZE - 1)), FILLED | (keyHash & 0xffffffffL));
+      // Losing the race to another thread on the same stripe drops the access
+      return true;
+    }
+
+    /*
+     * Move all recorded accesses into the sketch. Must be called holding the cache lock.
+     * @param sketch target sketch, null to discard the accesses
+     */
+    private void drainTo(FrequencySketch sketch)
+    {
+      for (int stripe = 0; stripe < BUFFER_STRIPES; stripe++)
+      {
+        long t = tails[stripe].get();
+        for (long h = heads.get(stripe); h < t; h++)
+        {
+          int index = stripe * STRIPE_SIZE + (int) (h & (STRIPE_SIZE - 1));
+          long slot = slots.getAndSet(index, 0L);
+          if (sketch != null && (slot & FILLED) != 0) sketch.increment((int) slot);
+        }
+        heads.lazySet(stripe, t);
+      }
+    }
+  }
+
+  /* ********************************************************************** */
+  /*                            Node Class                                  */
+  /* ********************************************************************** */
+  private static final class Node<V>
+  {
+    private final String key;
+    private final int keyHash;
+    private final V value;
+    // Set on each hit, cleared by the CLOCK scan
+    private volatile boolean referenced;
+
+    private Node(String key, int keyHash, V value) { this.key = key; this.keyHash = keyHash; this.value = value; }
+  }
+
+  /* ********************************************************************** */
+  /*                            Stats Class                                 */
+  /* ********************************************************************** */
+  /**
+   * Snapshot of cache counters
+   */
+  public static final class Stats
+  {
+    private final String name;
+    private final int maximumSize;
+    private final int size;
+    private final int failureSize;
+    private final long hitCount;
+    private final long missCount;
+    private final long failureHitCount;
+    private final long evictionCount;
+
+    private Stats(String name, int maximumSize, int size, int failureSize, long hitCount, long missCount,
+                  long failureHitCount, long evictionCount)
+    {
+      this.name = name;
+      this.maximumSize = maximumSize;
+      this.size = size;
+      this.failureSize = failureSize;
+      this.hitCount = hitCount;
+      this.missCount = missCount;
+      this.failureHitCount = failureHitCount;
+      this.evictionCount = evictionCount;
+    }
+
+    public String getName() { return name; }
+    public int getMaximumSize() { return maximumSize; }
+    public int getSize() { return size; }
+    public int getFailureSize() { return failureSize; }
+    public long getHitCount() { return hitCount; }
+    public long getMissCount() { return missCount; }
+    public long getFailureHitCount() { return failureHitCount; }
+    public long getEvictionCount() { return evictionCount; }
+
+    /**
+     * @return fraction of lookups answered from the cache, including cached failures. 1.0 if no lookups.
+     */
+    public double getHitRatio()
+    {
+      long hits = hitCount + failureHitCount;
+      long total = hits + missCount;
+      return (total == 0) ? 1.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString()
+    {
+      return name + " size=" + size + "/" + maximumSize + " failures=" + failureSize + " hits=" + hitCount +
+             " misses=" + missCount + " failureHits=" + failureHitCount + " evictions=" + evictionCount;
+    }
+  }
+}
@@ -0,0 +1,497 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchUtils.SearchOperator;
+import edu.utexas.tacc.tapis.search.parser.ASTBinaryExpression;
+import edu.utexas.tacc.tapis.search.parser.ASTConstant;
+import edu.utexas.tacc.tapis.search.parser.ASTNaryExpression;
+import edu.utexas.tacc.tapis.search.parser.ASTNode;
+import edu.utexas.tacc.tapis.search.parser.ASTUnaryExpression;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import edu.utexas.tacc.tapis.shared.utils.TapisTimestampParser;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Compile search conditions into a reusable Predicate for filtering objects already in memory.
+ * Input is either an ASTNode tree as produced by ASTParser.parse() or ASTOptimizer.optimize(), or a list of
+ *   processed SearchConditions.
+ * Objects may be beans, in which case attributes are read using public getters, or Map rows keyed by column name.
+ *
+ * The column catalog and validation rules are the same as for SqlGenerator, so a search that is valid for the
+ *   database is valid in memory and selects the same objects:
+ *   - Values are compared using the type of the column: integer types as long, floating point types as double,
+ *     NUMERIC/DECIMAL as BigDecimal, BOOLEAN as boolean, DATE/TIMESTAMP as a UTC LocalDateTime and all others
+ *     as strings.
+ *   - LIKE/NLIKE use a precompiled matcher for the SQL pattern.
+ *   - CONTAINS/CONTAINS_ANY/CONTAINS_ALL apply to a Collection or array attribute, elements are compared as strings.
+ *   - As in SQL, a null attribute value does not match any condition, including the negated operators and
+ *     conditions under NOT.
+ *   - Conditions on a path into a jsonb column, see JsonPathSearch, and full text MATCH are not supported.
+ *
+ * All reflection is done once when the compiler is created. Getters are invoked through MethodHandles and
+ *   condition values are converted to their typed form once at compile time.
+ * Compilers and the predicates they produce are immutable and may be shared between threads.
+ *
+ * @param <T> type of object to be filtered
+ */
+public final class PredicateCompiler<T>
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Handle type used for all getters
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  // Operator selecting exactly the rows that an operator does not select, rows with a null value are in neither
+  private static final Map<SearchOperator, SearchOperator> COMPLEMENTS =
+          Map.ofEntries(Map.entry(SearchOperator.EQ, SearchOperator.NEQ),
+                        Map.entry(SearchOperator.NEQ, SearchOperator.EQ),
+                        Map.entry(SearchOperator.LT, SearchOperator.GTE),
+                        Map.entry(SearchOperator.GTE, SearchOperator.LT),
+                        Map.entry(SearchOperator.LTE, SearchOperator.GT),
+                        Map.entry(SearchOperator.GT, SearchOperator.LTE),
+                        Map.entry(SearchOperator.LIKE, SearchOperator.NLIKE),
+                        Map.entry(SearchOperator.NLIKE, SearchOperator.LIKE),
+                        Map.entry(SearchOperator.BETWEEN, SearchOperator.NBETWEEN),
+                        Map.entry(SearchOperator.NBETWEEN, SearchOperator.BETWEEN),
+                        Map.entry(SearchOperator.IN, SearchOperator.NIN),
+                        Map.entry(SearchOperator.NIN, SearchOperator.IN));
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  // Name used in messages
+  private final String typeName;
+  private final SearchColumnCatalog catalog;
+  // Accessors for each column name
+  private final Map<String, Function<T, Object>> accessors;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  private PredicateCompiler(String typeName, SearchColumnCatalog catalog, Map<String, Function<T, Object>> accessors)
+  {
+    this.typeName = typeName;
+    this.catalog = catalog;
+    this.accessors = accessors;
+  }
+
+  /**
+   * Create a compiler for beans. Attributes are read using public getters getXxx() or isXxx(). A getter matches
+   *   a column if the snake case form of its property name is the column name, e.g. getProxyPort -> proxy_port
+   * @param beanClass class of objects to be filtered
+   * @param columnTypes map of column name to java.sql.Types code
+   * @param <T> type of object to be filtered
+   * @return the compiler
+   */
+  public static <T> PredicateCompiler<T> forBean(Class<T> beanClass, Map<String, Integer> columnTypes)
+  {
+    if (beanClass == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "PredicateCompiler", "beanClass"));
+    return forBean(beanClass, toCatalog(beanClass.getSimpleName(), columnTypes));
+  }
+
+  /**
+   * Create a compiler for beans using a column catalog. Getters are matched to columns as for
+   *   forBean(Class, Map).
+   * @param beanClass class of objects to be filtered
+   * @param catalog columns of the table holding the objects
+   * @param <T> type of object to be filtered
+   * @return the compiler
+   */
+  public static <T> PredicateCompiler<T> forBean(Class<T> beanClass, SearchColumnCatalog catalog)
+  {
+    if (catalog == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "PredicateCompiler", "catalog"));
+    if (beanClass == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "PredicateCompiler", "beanClass"));
+    var accessors = new HashMap<String, Function<T, Object>>();
+    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    for (Method m : beanClass.getMethods())
+    {
+      String propName = getPropertyName(m);
+      if (propName == null) continue;
+      MethodHandle mh;
+      try { mh = lookup.unreflect(m).asType(GETTER_TYPE); }
+      catch (IllegalAccessException e) { continue; }
+      accessors.putIfAbsent(SearchUtils.camelCaseToSnakeCase(propName), bean -> invokeGetter(mh, bean));
+    }
+    return new PredicateCompiler<>(beanClass.getSimpleName(), catalog, accessors);
+  }
+
+  /**
+   * Create a compiler for Map rows keyed by column name
+   * @param columnTypes map of column name to java.sql.Types code
+   * @return the compiler
+   */
+  public static PredicateCompiler<Map<String, Object>> forMap(Map<String, Integer> columnTypes)
+  {
+    return forMap(toCatalog("Map", columnTypes));
+  }
+
+  /**
+   * Create a compiler for Map rows keyed by column name using a column catalog
+   * @param catalog columns of the table holding the rows
+   * @return the compiler
+   */
+  public static PredicateCompiler<Map<String, Object>> forMap(SearchColumnCatalog catalog)
+  {
+    if (catalog == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "PredicateCompiler", "catalog"));
+    return new PredicateCompiler<>("Map", catalog, null);
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Compile an AST into a predicate
+   * @param node root of the tree, may be null
+   * @return the predicate, one that matches everything if node is null
+   * @throws IllegalArgumentException if the tree contains an unsupported node, operator, column or value
+   */
+  public Predicate<T> compile(ASTNode node) throws IllegalArgumentException
+  {
+    if (node == null) return obj -> true;
+    return compile(node, false);
+  }
+
+  /**
+   * Compile a list of search conditions into a predicate. Conditions are combined using AND.
+   * @param conditions processed search conditions, may be null or empty
+   * @return the predicate, one that matches everything if there are no conditions
+   * @throws IllegalArgumentException if a condition contains an unsupported operator, column or value
+   */
+  public Predicate<T> compile(List<SearchCondition> conditions) throws IllegalArgumentException
+  {
+    if (conditions == null || conditions.isEmpty()) return obj -> true;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Predicate<T>[] preds = new Predicate[conditions.size()];
+    for (int i = 0; i < preds.length; i++) preds[i] = compileCondition(conditions.get(i), false);
+    if (preds.length == 1) return preds[0];
+    return obj ->
+    {
+      for (Predicate<T> p : preds) if (!p.test(obj)) return false;
+      return true;
+    };
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Compile a node, negated if not is set. NOT is pushed down to the conditions using De Morgan's laws and the
+   *   complement of each operator so that, as in SQL, a condition on a null attribute is unknown and matches
+   *   neither the condition nor its negation.
+   */
+  private Predicate<T> compile(ASTNode node, boolean not)
+  {
+    if (node instanceof ASTConstant)
+    {
+      boolean value = ((ASTConstant) node).getValue() != not;
+      return obj -> value;
+    }
+    if (node instanceof ASTUnaryExpression && "NOT".equalsIgnoreCase(((ASTUnaryExpression) node).getOp()))
+      return compile(((ASTUnaryExpression) node).getNode(), !not);
+    if (node instanceof ASTNaryExpression)
+    {
+      var nNode = (ASTNaryExpression) node;
+      @SuppressWarnings({"unchecked", "rawtypes"})
+      Predicate<T>[] preds = new Predicate[nNode.getOperands().size()];
+      for (int i = 0; i < preds.length; i++) preds[i] = compile(nNode.getOperands().get(i), not);
+      if (isLogical(nNode.getOp()))
+      {
+        // Under NOT an OR becomes an AND of the negated operands and an AND becomes an OR
+        if ("OR".equalsIgnoreCase(nNode.getOp()) != not)
+          return obj ->
+          {
+            for (Predicate<T> p : preds) if (p.test(obj)) return true;
+            return false;
+          };
+        return obj ->
+        {
+          for (Predicate<T> p : preds) if (!p.test(obj)) return false;
+          return true;
+        };
+      }
+    }
+    if (node instanceof ASTBinaryExpression)
+    {
+      var bNode = (ASTBinaryExpression) node;
+      String op = bNode.getOp();
+      if (isLogical(op))
+      {
+        Predicate<T> left = compile(bNode.getLeft(), not);
+        Predicate<T> right = compile(bNode.getRight(), not);
+        return "AND".equalsIgnoreCase(op) != not ? left.and(right) : left.or(right);
+      }
+      return compileCondition(SearchCondition.fromAST(bNode), not);
+    }
+    // A bare attribute or value is not a condition
+    String msg = MsgUtils.getMsg("SEARCH_AST_UNSUPPORTED_NODE", node.getClass().getSimpleName(), node);
+    throw new IllegalArgumentException(msg);
+  }
+
+  private static boolean isLogical(String op) { return "AND".equalsIgnoreCase(op) || "OR".equalsIgnoreCase(op); }
+
+  /*
+   * Validate a single condition against the catalog and build its predicate, or the predicate of its negation
+   *   if not is set. A negation is compiled as the complementary operator, which also fails for a null value.
+   */
+  private Predicate<T> compileCondition(SearchCondition cond, boolean not)
+  {
+    SearchOperator complement = not ? COMPLEMENTS.get(cond.getOperator()) : null;
+    if (complement != null)
+    {
+      cond = new SearchCondition(cond.getAttribute(), complement, cond.getValues());
+      not = false;
+    }
+    SearchColumnCatalog.Column col = catalog.validate(cond);
+    // Paths into jsonb columns are only searched in the database
+    if (JsonPathSearch.isPath(cond.getAttribute()))
+    {
+      String msg = MsgUtils.getMsg("SEARCH_MEM_JSON_PATH_UNSUPPORTED", cond.getAttribute(), typeName);
+      throw new IllegalArgumentException(msg);
+    }
+    int sqlType = col.getSqlType();
+    Function<T, Object> accessor = getAccessor(cond, col.getName());
+    SearchOperator op = cond.getOperator();
+    Function<Object, Comparable<?>> conv = getConverter(sqlType);
+    List<String> values = cond.getValues();
+
+    // LIKE and NLIKE only apply to string columns
+    if (op == SearchOperator.LIKE || op == SearchOperator.NLIKE)
+    {
+      LikeMatcher matcher = LikeMatcher.compile(cond.getValue());
+      boolean negate = op == SearchOperator.NLIKE;
+      return obj ->
+      {
+        Object v = accessor.apply(obj);
+        return v != null && matcher.matches(toStr(v)) != negate;
+      };
+    }
+
+    // IN and NIN use a hash set of the converted values
+    if (op == SearchOperator.IN || op == SearchOperator.NIN)
+    {
+      var set = new HashSet<Comparable<?>>();
+      for (String val : values) set.add(conv.apply(val));
+      boolean negate = op == SearchOperator.NIN;
+      Set<Comparable<?>> valSet = Set.copyOf(set);
+      return obj ->
+      {
+        Comparable<?> v = conv.apply(accessor.apply(obj));
+        return v != null && valSet.contains(v) != negate;
+      };
+    }
+
+    // Array operators apply to a Collection or array of elements, which are compared as strings
+    //   They have no complementary operator so a negation is applied here, after checking for a null value
+    if (SearchUtils.ARRAY_OPSET.contains(op))
+    {
+      Set<String> valSet = Set.copyOf(values);
+      boolean any = op == SearchOperator.CONTAINS_ANY;
+      boolean negate = not;
+      return obj ->
+      {
+        Set<String> elements = toElementSet(accessor.apply(obj));
+        if (elements == null) return false;
+        if (!any) return elements.containsAll(valSet) != negate;
+        for (String val : valSet) if (elements.contains(val)) return !negate;
+        return negate;
+      };
+    }
+
+    // BETWEEN and NBETWEEN are inclusive as in SQL
+    if (op == SearchOperator.BETWEEN || op == SearchOperator.NBETWEEN)
+    {
+      Comparable<?> low = conv.apply(values.get(0));
+      Comparable<?> high = conv.apply(values.get(1));
+      boolean negate = op == SearchOperator.NBETWEEN;
+      return obj ->
+      {
+        Comparable<?> v = conv.apply(accessor.apply(obj));
+        return v != null && (compare(v, low) >= 0 && compare(v, high) <= 0) != negate;
+      };
+    }
+
+    Comparable<?> target = conv.apply(cond.getValue());
+    switch (op)
+    {
+      case EQ: return obj -> { Comparable<?> v = conv.apply(accessor.apply(obj)); return v != null && compare(v, target) == 0; };
+      case NEQ: return obj -> { Comparable<?> v = conv.apply(accessor.apply(obj)); return v != null && compare(v, target) != 0; };
+      case LT: return obj -> { Comparable<?> v = conv.apply(accessor.apply(obj)); return v != null && compare(v, target) < 0; };
+      case LTE: return obj -> { Comparable<?> v = conv.apply(accessor.apply(obj)); return v != null && compare(v, target) <= 0; };
+      case GT: return obj -> { Comparable<?> v = conv.apply(accessor.apply(obj)); return v != null && compare(v, target) > 0; };
+      case GTE: return obj -> { Comparable<?> v = conv.apply(accessor.apply(obj)); return v != null && compare(v, target) >= 0; };
+      default:
+        String msg = MsgUtils.getMsg("SEARCH_AST_UNSUPPORTED_OP", op.name(), cond);
+        throw new IllegalArgumentException(msg);
+    }
+  }
+
+  /*
+   * Find the accessor for the column of a condition
+   */
+  @SuppressWarnings("unchecked")
+  private Function<T, Object> getAccessor(SearchCondition cond, String colName)
+  {
+    if (accessors == null) return row -> ((Map<String, Object>) row).get(colName);
+    Function<T, Object> accessor = accessors.get(colName);
+    if (accessor == null)
+    {
+      String msg = MsgUtils.getMsg("SEARCH_MEM_NO_ACCESSOR", cond.getAttribute(), typeName);
+      throw new IllegalArgumentException(msg);
+    }
+    return accessor;
+  }
+
+  /*
+   * Build a catalog from a map of column types, the type name is used in messages
+   */
+  private static SearchColumnCatalog toCatalog(String typeName, Map<String, Integer> columnTypes)
+  {
+    if (columnTypes == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "PredicateCompiler", "columnTypes"));
+    return SearchColumnCatalog.of(typeName, columnTypes);
+  }
+
+  /*
+   * Get the property name for a getter, null if method is not a getter
+   */
+  private static String getPropertyName(Method m)
+  {
+    if (Modifier.isStatic(m.getModifiers()) || m.getParameterCount() != 0 || m.getReturnType() == void.class)
+      return null;
+    String name = m.getName();
+    String prop;
+    if (name.startsWith("get") && name.length() > 3 && !name.equals("getClass")) prop = name.substring(3);
+    else if (name.startsWith("is") && name.length() > 2 &&
+             (m.getReturnType() == boolean.class || m.getReturnType() == Boolean.class)) prop = name.substring(2);
+    else return null;
+    return Character.toLowerCase(prop.charAt(0)) + prop.substring(1);
+  }
+
+  private static Object invokeGetter(MethodHandle mh, Object bean)
+  {
+    try { return (Object) mh.invokeExact(bean); }
+    catch (RuntimeException | Error e) { throw e; }
+    catch (Throwable t) { throw new IllegalStateException(t.getMessage(), t); }
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static int compare(Comparable v1, Comparable v2) { return v1.compareTo(v2); }
+
+  /*
+   * Converter from a value to the comparable form for a sql type. Null if the value cannot be converted.
+   */
+  private static Function<Object, Comparable<?>> getConverter(int sqlType)
+  {
+    switch (sqlType)
+    {
+      case Types.INTEGER:
+      case Types.BIGINT:
+      case Types.SMALLINT:
+      case Types.TINYINT: return PredicateCompiler::toLong;
+      case Types.FLOAT:
+      case Types.DOUBLE:
+      case Types.REAL: return PredicateCompiler::toDouble;
+      case Types.NUMERIC:
+      case Types.DECIMAL: return PredicateCompiler::toBigDecimal;
+      case Types.BOOLEAN: return PredicateCompiler::toBoolean;
+      case Types.DATE:
+      case Types.TIMESTAMP: return PredicateCompiler::toTimestamp;
+      default: return v -> v == null ? null : toStr(v);
+    }
+  }
+
+  private static String toStr(Object v) { return (v instanceof Enum) ? ((Enum<?>) v).name() : v.toString(); }
+
+  /*
+   * Elements of a Collection or array value as strings, null if the value is not a Collection or array
+   */
+  private static Set<String> toElementSet(Object v)
+  {
+    Collection<?> coll;
+    if (v instanceof Collection) coll = (Collection<?>) v;
+    else if (v instanceof Object[]) coll = Arrays.asList((Object[]) v);
+    else return null;
+    var set = new HashSet<String>(coll.size() * 2);
+    for (Object e : coll) if (e != null) set.add(toStr(e));
+    return set;
+  }
+
+  private static Long toLong(Object v)
+  {
+    if (v instanceof Number) return ((Number) v).longValue();
+    if (v == null) return null;
+    try { return Long.valueOf(v.toString().trim()); } catch (NumberFormatException e) { return null; }
+  }
+
+  private static Double toDouble(Object v)
+  {
+    if (v instanceof Number) return ((Number) v).doubleValue();
+    if (v == null) return null;
+    try { return Double.valueOf(v.toString().trim()); } catch (NumberFormatException e) { return null; }
+  }
+
+  private static BigDecimal toBigDecimal(Object v)
+  {
+    if (v == null) return null;
+    BigDecimal bd;
+    if (v instanceof BigDecimal) bd = (BigDecimal) v;
+    else if (v instanceof Double || v instanceof Float) bd = BigDecimal.valueOf(((Number) v).doubleValue());
+    else if (v instanceof Number) bd = BigDecimal.valueOf(((Number) v).longValue());
+    else
+    {
+      try { bd = (BigDecimal) SqlGenerator.toBindValue(Types.NUMERIC, v.toString().trim()); }
+      catch (NumberFormatException e) { return null; }
+    }
+    // Strip zeros so that equal values have equal hash codes
+    return bd.stripTrailingZeros();
+  }
+
+  private static Boolean toBoolean(Object v)
+  {
+    if (v instanceof Boolean) return (Boolean) v;
+    if (v == null) return null;
+    String s = v.toString();
+    if ("true".equalsIgnoreCase(s)) return Boolean.TRUE;
+    if ("false".equalsIgnoreCase(s)) return Boolean.FALSE;
+    return null;
+  }
+
+  private static LocalDateTime toTimestamp(Object v)
+  {
+    if (v instanceof LocalDateTime) return (LocalDateTime) v;
+    if (v == null) return null;
+    if (v instanceof Timestamp) return ((Timestamp) v).toLocalDateTime();
+    if (v instanceof Instant) return LocalDateTime.ofInstant((Instant) v, ZoneOffset.UTC);
+    if (v instanceof Date) return LocalDateTime.ofInstant(((Date) v).toInstant(), ZoneOffset.UTC);
+    if (v instanceof OffsetDateTime) return ((OffsetDateTime) v).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    if (v instanceof ZonedDateTime) return ((ZonedDateTime) v).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    return TapisTimestampParser.tryParse(v.toString());
+  }
+}
@@ -0,0 +1,248 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per tenant budget for the estimated cost of a search, checked before the search reaches the database.
+ *   The cost is estimated using SearchCostModel. Each tenant has two limits, the default limits unless the
+ *   tenant has its own:
+ *   - a search costing more than the downgrade limit is admitted as DOWNGRADE. The caller should then run a
+ *     cheaper form of the search, e.g. an estimated total count using CountStrategy.estimated, a smaller page
+ *     or no ranking.
+ *   - a search costing more than the reject limit is rejected with an IllegalArgumentException.
+ * A search that is admitted with a cost of at least the near limit percentage of the reject limit is counted as
+ *   near the limit and logged as a warning, so that limits can be tuned before searches start to be rejected.
+ *
+ * Counters are kept for each tenant checked and are available using getStats(). Limits may be changed at any
+ *   time. Instances are thread safe.
+ */
+public final class SearchBudget
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Local logger.
+  private static final Logger _log = LoggerFactory.getLogger(SearchBudget.class);
+
+  // Default percentage of the reject limit at which an admitted search is near the limit
+  public static final int DEFAULT_NEAR_LIMIT_PERCENT = 80;
+
+  /* ********************************************************************** */
+  /*                                 Enums                                  */
+  /* ********************************************************************** */
+  /**
+   * Result of checking a search against the budget
+   */
+  public enum Decision {ADMIT, DOWNGRADE}
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final Limits defaultLimits;
+  private final int nearLimitPercent;
+  // Limits of tenants that do not use the default
+  private final ConcurrentHashMap<String, Limits> tenantLimits = new ConcurrentHashMap<>();
+  // Counters keyed by tenant
+  private final ConcurrentHashMap<String, Counters> tenantCounters = new ConcurrentHashMap<>();
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  /**
+   * @param downgradeCost default cost above which a search is downgraded
+   * @param rejectCost default cost above which a search is rejected
+   * @throws IllegalArgumentException if the limits are not valid
+   */
+  public SearchBudget(long downgradeCost, long rejectCost)
+  {
+    this(downgradeCost, rejectCost, DEFAULT_NEAR_LIMIT_PERCENT);
+  }
+
+  /**
+   * @param downgradeCost default cost above which a search is downgraded
+   * @param rejectCost default cost above which a search is rejected
+   * @param nearLimitPercent percentage of the reject limit at which an admitted search is near the limit
+   * @throws IllegalArgumentException if the limits or percentage are not valid
+   */
+  public SearchBudget(long downgradeCost, long rejectCost, int nearLimitPercent)
+  {
+    if (nearLimitPercent < 0 || nearLimitPercent > 100)
+      throw new IllegalArgumentException(MsgUtils.getMsg("SEARCH_COST_INVALID_PERCENT", nearLimitPercent));
+    defaultLimits = new Limits(downgradeCost, rejectCost);
+    this.nearLimitPercent = nearLimitPercent;
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Set the limits of a tenant, replacing the default limits for the tenant
+   * @param tenant tenant id
+   * @param downgradeCost cost above which a search is downgraded
+   * @param rejectCost cost above which a search is rejected
+   * @throws IllegalArgumentException if tenant is null or the limits are not valid
+   */
+  public void setTenantLimits(String tenant, long downgradeCost, long rejectCost) throws IllegalArgumentException
+  {
+    if (tenant == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchBudget", "tenant"));
+    tenantLimits.put(tenant, new Limits(downgradeCost, rejectCost));
+  }
+
+  /**
+   * Return a tenant to the default limits
+   * @param tenant tenant id
+   */
+  public void removeTenantLimits(String tenant)
+  {
+    if (tenant != null) tenantLimits.remove(tenant);
+  }
+
+  /**
+   * @param tenant tenant id
+   * @return the limits that apply to the tenant
+   */
+  public Limits getLimits(String tenant)
+  {
+    Limits limits = (tenant == null) ? null : tenantLimits.get(tenant);
+    return (limits == null) ? defaultLimits : limits;
+  }
+
+  /**
+   * Check the estimated cost of a search against the limits of a tenant
+   * @param tenant tenant id
+   * @param estimate estimated cost of the search
+   * @return ADMIT to run the search as requested, DOWNGRADE to run a cheaper form of the search
+   * @throws IllegalArgumentException if the search costs more than the reject limit or a parameter is null
+   */
+  public Decision admit(String tenant, SearchCostModel.Estimate estimate) throws IllegalArgumentException
+  {
+    if (tenant == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchBudget", "tenant"));
+    if (estimate == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchBudget", "estimate"));
+    Limits limits = getLimits(tenant);
+    Counters counters = tenantCounters.computeIfAbsent(tenant, t -> new Counters());
+    long cost = estimate.getCost();
+    counters.maxCost.accumulate(cost);
+    if (cost > limits.rejectCost)
+    {
+      counters.rejected.increment();
+      String msg = MsgUtils.getMsg("SEARCH_COST_EXCEEDED", tenant, cost, limits.rejectCost, estimate);
+      throw new IllegalArgumentException(msg);
+    }
+    // Compare without overflow, cost / rejectCost >= nearLimitPercent / 100
+    if ((double) cost * 100 >= (double) limits.rejectCost * nearLimitPercent)
+    {
+      counters.nearLimit.increment();
+      _log.warn(MsgUtils.getMsg("SEARCH_COST_NEAR_LIMIT", tenant, cost, limits.rejectCost, estimate));
+    }
+    if (cost > limits.downgradeCost)
+    {
+      counters.downgraded.increment();
+      return Decision.DOWNGRADE;
+    }
+    counters.admitted.increment();
+    return Decision.ADMIT;
+  }
+
+  /**
+   * @param tenant tenant id
+   * @return snapshot of the counters of the tenant, all zero if the tenant has not been checked
+   */
+  public Stats getStats(String tenant)
+  {
+    Counters c = (tenant == null) ? null : tenantCounters.get(tenant);
+    if (c == null) return new Stats(tenant, 0, 0, 0, 0, 0);
+    return new Stats(tenant, c.admitted.sum(), c.downgraded.sum(), c.rejected.sum(), c.nearLimit.sum(),
+                     c.maxCost.get());
+  }
+
+  /* ********************************************************************** */
+  /*                            Limits Class                                */
+  /* ********************************************************************** */
+  /**
+   * Limits on the estimated cost of a search
+   */
+  public static final class Limits
+  {
+    private final long downgradeCost;
+    private final long rejectCost;
+
+    private Limits(long downgradeCost, long rejectCost)
+    {
+      if (downgradeCost < 0 || rejectCost < downgradeCost)
+      {
+        String msg = MsgUtils.getMsg("SEARCH_COST_INVALID_LIMIT", downgradeCost, rejectCost);
+        throw new IllegalArgumentException(msg);
+      }
+      this.downgradeCost = downgradeCost;
+      this.rejectCost = rejectCost;
+    }
+
+    public long getDowngradeCost() { return downgradeCost; }
+    public long getRejectCost() { return rejectCost; }
+
+    @Override
+    public String toString() { return "downgrade=" + downgradeCost + " reject=" + rejectCost; }
+  }
+
+  /* ********************************************************************** */
+  /*                            Stats Class                                 */
+  /* ********************************************************************** */
+  /**
+   * Snapshot of the counters of a tenant
+   */
+  public static final class Stats
+  {
+    private final String tenant;
+    private final long admittedCount;
+    private final long downgradedCount;
+    private final long rejectedCount;
+    private final long nearLimitCount;
+    private final long maxCost;
+
+    private Stats(String tenant, long admittedCount, long downgradedCount, long rejectedCount, long nearLimitCount,
+                  long maxCost)
+    {
+      this.tenant = tenant;
+      this.admittedCount = admittedCount;
+      this.downgradedCount = downgradedCount;
+      this.rejectedCount = rejectedCount;
+      this.nearLimitCount = nearLimitCount;
+      this.maxCost = maxCost;
+    }
+
+    public String getTenant() { return tenant; }
+    public long getAdmittedCount() { return admittedCount; }
+    public long getDowngradedCount() { return downgradedCount; }
+    public long getRejectedCount() { return rejectedCount; }
+    public long getNearLimitCount() { return nearLimitCount; }
+    public long getMaxCost() { return maxCost; }
+
+    @Override
+    public String toString()
+    {
+      return "tenant=" + tenant + " admitted=" + admittedCount + " downgraded=" + downgradedCount + " rejected=" +
+             rejectedCount + " nearLimit=" + nearLimitCount + " maxCost=" + maxCost;
+    }
+  }
+
+  /* ********************************************************************** */
+  /*                            Counters Class                              */
+  /* ********************************************************************** */
+  private static final class Counters
+  {
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder downgraded = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder nearLimit = new LongAdder();
+    private final LongAccumulator maxCost = new LongAccumulator(Math::max, 0);
+  }
+}
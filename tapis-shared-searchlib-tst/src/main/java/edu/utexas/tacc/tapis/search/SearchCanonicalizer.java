@@ -0,0 +1,205 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchUtils.SearchOperator;
+import edu.utexas.tacc.tapis.shared.utils.TapisTimestampParser;
+import edu.utexas.tacc.tapis.shared.utils.TapisUtils;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Canonical form of search conditions, so that equivalent searches produce the same cache key and the same SQL.
+ * Services should canonicalize before keying a result or statement cache and before generating SQL.
+ *
+ * A condition is canonicalized as follows:
+ *   - The attribute is converted to snake case, the form used to look up the column. For a path into a jsonb
+ *     column only the column part is converted, see SearchUtils.attributeToColumnKey.
+ *   - The operator is the SearchOperator, so its case is already normalized.
+ *   - If a column catalog is given and all values are valid for the column type, values are normalized:
+ *       numbers to their plain decimal form without trailing zeros, booleans to lower case and timestamps
+ *       to UTC in the form yyyy-MM-ddTHH:mm:ss.SSSSSSZ. Values of LIKE/NLIKE are never changed.
+ *   - Values of IN/NIN/CONTAINS_ANY/CONTAINS_ALL are sorted and duplicates removed. The order of BETWEEN
+ *     values is kept.
+ * A list of conditions, which are ANDed together, is sorted by canonical key with duplicates removed.
+ *
+ * Conditions that are not valid for the catalog are only normalized for attribute case, so that validation
+ *   later reports the value as given by the user.
+ * See ASTCanonicalizer for the canonical form of an ASTNode tree.
+ */
+public final class SearchCanonicalizer
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Format for canonical timestamps. Accepted by TapisTimestampParser.
+  private static final DateTimeFormatter TIMESTAMP_FORMATTER =
+          DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS'Z'");
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  private SearchCanonicalizer() { }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Canonicalize a list of conditions without type information
+   * @param conditions conditions to be ANDed together
+   * @return sorted list of canonical conditions with duplicates removed
+   */
+  public static List<SearchCondition> canonicalize(List<SearchCondition> conditions)
+  {
+    return canonicalize(conditions, null);
+  }
+
+  /**
+   * Canonicalize a list of conditions
+   * @param conditions conditions to be ANDed together
+   * @param columnTypes map of column name to java.sql.Types code, may be null
+   * @return sorted list of canonical conditions with duplicates removed
+   */
+  public static List<SearchCondition> canonicalize(List<SearchCondition> conditions, Map<String, Integer> columnTypes)
+  {
+    if (conditions == null || conditions.isEmpty()) return Collections.emptyList();
+    var sorted = new TreeMap<String, SearchCondition>();
+    for (SearchCondition cond : conditions)
+    {
+      SearchCondition canonical = canonicalize(cond, columnTypes);
+      sorted.putIfAbsent(canonicalKey(canonical), canonical);
+    }
+    return List.copyOf(sorted.values());
+  }
+
+  /**
+   * Canonicalize a single condition
+   * @param cond condition
+   * @param columnTypes map of column name to java.sql.Types code, may be null
+   * @return canonical condition, the same instance if already canonical
+   */
+  public static SearchCondition canonicalize(SearchCondition cond, Map<String, Integer> columnTypes)
+  {
+    String attr = SearchUtils.attributeToColumnKey(cond.getAttribute());
+    SearchOperator op = cond.getOperator();
+    List<String> values = cond.getValues();
+
+    // Normalize values only if they are valid for the column type
+    Integer sqlType = (columnTypes == null) ? null : columnTypes.get(attr);
+    if (sqlType != null && op != SearchOperator.LIKE && op != SearchOperator.NLIKE &&
+        SearchUtils.ALLOWED_OPS_BY_TYPE.containsKey(sqlType) &&
+        SearchUtils.findInvalidValue(sqlType, cond, SearchUtils.getSqlTypeName(sqlType)) == null)
+    {
+      var normalized = new ArrayList<String>(values.size());
+      for (String val : values) normalized.add(canonicalValue(sqlType, val));
+      values = normalized;
+    }
+
+    // Order does not matter for IN/NIN
+    if (op == SearchOperator.IN || op == SearchOperator.NIN || op == SearchOperator.CONTAINS_ANY ||
+        op == SearchOperator.CONTAINS_ALL) values = new ArrayList<>(new TreeSet<>(values));
+
+    if (attr.equals(cond.getAttribute()) && values.equals(cond.getValues())) return cond;
+    return new SearchCondition(attr, op, values);
+  }
+
+  /**
+   * Build an unambiguous key for a list of conditions. Conditions should already be canonical.
+   * The key has the form of a search list, (cond)~(cond)~..., with the Tapis special characters and the escape
+   *   character escaped in all values, so different lists never produce the same key.
+   * @param conditions conditions
+   * @return key
+   */
+  public static String canonicalKey(List<SearchCondition> conditions)
+  {
+    var sb = new StringBuilder();
+    for (SearchCondition cond : conditions)
+    {
+      if (sb.length() > 0) sb.append(SearchListScanner.COND_DELIMITER);
+      sb.append('(');
+      appendKey(sb, cond);
+      sb.append(')');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Build an unambiguous key for a condition, <attr>.<OP>.<value>,<value>,... with special characters in
+   *   values escaped.
+   * @param cond condition
+   * @return key
+   */
+  public static String canonicalKey(SearchCondition cond)
+  {
+    var sb = new StringBuilder();
+    appendKey(sb, cond);
+    return sb.toString();
+  }
+
+  /**
+   * Append a value to a key, escaping the Tapis special characters and the escape character
+   * @param sb buffer for the key
+   * @param val value
+   */
+  public static void appendEscaped(StringBuilder sb, String val)
+  {
+    for (int i = 0; i < val.length(); i++)
+    {
+      char c = val.charAt(i);
+      if (c == SearchListScanner.ESCAPE_CHAR || SearchListScanner.isSpecialChar(c))
+        sb.append(SearchListScanner.ESCAPE_CHAR);
+      sb.append(c);
+    }
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  private static void appendKey(StringBuilder sb, SearchCondition cond)
+  {
+    sb.append(cond.getAttribute()).append('.').append(cond.getOperator().name()).append('.');
+    List<String> values = cond.getValues();
+    for (int i = 0; i < values.size(); i++)
+    {
+      if (i > 0) sb.append(SearchListScanner.VALUE_SEPARATOR);
+      appendEscaped(sb, values.get(i));
+    }
+  }
+
+  /*
+   * Normalize a value that is known to be valid for the sql type
+   */
+  private static String canonicalValue(int sqlType, String val)
+  {
+    switch (sqlType)
+    {
+      case Types.INTEGER:
+      case Types.BIGINT:
+      case Types.SMALLINT:
+      case Types.TINYINT:
+      case Types.FLOAT:
+      case Types.DOUBLE:
+      case Types.REAL:
+      case Types.NUMERIC:
+      case Types.DECIMAL:
+        // Values such as NaN or hex are valid for some types but have no decimal form. Keep them as given.
+        try { return new BigDecimal(val.trim()).stripTrailingZeros().toPlainString(); }
+        catch (NumberFormatException e) { return val; }
+      case Types.BOOLEAN:
+        return val.trim().toLowerCase();
+      case Types.DATE:
+      case Types.TIMESTAMP:
+        LocalDateTime t = TapisTimestampParser.tryParse(val);
+        return (t == null) ? val : t.format(TIMESTAMP_FORMATTER);
+      default:
+        return val;
+    }
+  }
+}
@@ -0,0 +1,652 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchUtils.SearchOperator;
+import edu.utexas.tacc.tapis.search.SearchValueValidators.ValueValidator;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Catalog of the searchable columns of a table.
+ * Column types are obtained once, either from a declarative map of column name to java.sql.Types code or from
+ *   JDBC metadata, and everything needed to validate a search condition is computed when the catalog is built:
+ *   - the column name for the attribute, i.e. the snake case form of a camel case attribute
+ *   - the sql type name used in messages
+ *   - the operators allowed for the type, as given by SearchUtils.ALLOWED_OPS_BY_TYPE
+ *   - the validator for values of the type, as given by SearchValueValidators
+ * Validating a condition is then a hash lookup of the attribute followed by a typed check of each value.
+ *
+ * Both the column name and its camel case form are keys for a column. Any other spelling of an attribute is
+ *   converted using SearchUtils.camelCaseToSnakeCase, so a catalog accepts exactly the attributes accepted when
+ *   the column types are looked up directly.
+ *
+ * A string column may be enabled for full text search using the MATCH operator, see withTextSearch().
+ *
+ * A jsonb column may be searched using a path into the documents it holds, e.g. notes.project, see JsonPathSearch.
+ *   Such columns are marked when the catalog is created or are found from the type name in the metadata.
+ *
+ * The catalog may also know which columns lead an index, see withIndexedColumns(). This is used only to estimate
+ *   the cost of a search, see SearchCostModel. A catalog loaded from metadata knows the leading column of each
+ *   index on the table, a declarative catalog knows nothing unless told.
+ *
+ * Catalogs loaded from metadata using forTable() are cached by database catalog, schema and table name.
+ *   Catalogs are immutable and may be shared between threads.
+ */
+public final class SearchColumnCatalog
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Local logger.
+  private static final Logger _log = LoggerFactory.getLogger(SearchColumnCatalog.class);
+
+  // Catalogs loaded from metadata, keyed by database catalog, schema and table name
+  private static final ConcurrentHashMap<TableKey, SearchColumnCatalog> _loadedCatalogs = new ConcurrentHashMap<>();
+
+  // Database type name of columns that may be searched by path
+  private static final String JSONB_TYPE_NAME = "jsonb";
+
+  // Text search configurations and tsvector columns appear in the SQL, so they must be plain identifiers
+  private static final Pattern IDENTIFIER_PATTERN =
+          Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*(\\.[a-zA-Z_][a-zA-Z0-9_]*)?");
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final String tableName;
+  // Columns keyed by column name, in catalog order
+  private final Map<String, Column> columns;
+  // Columns keyed by attribute, the column name and its camel case form
+  private final Map<String, Column> columnsByAttribute;
+  private final Map<String, Integer> columnTypes;
+  // Names of the columns that lead an index, null if not known
+  private final Set<String> indexedColumns;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  private SearchColumnCatalog(String tableName, Map<String, Integer> columnTypes, Collection<String> jsonColumns)
+  {
+    this(tableName, createColumns(columnTypes, jsonColumns), columnTypes, null);
+  }
+
+  private SearchColumnCatalog(String tableName, LinkedHashMap<String, Column> cols, Map<String, Integer> columnTypes,
+                              Set<String> indexedColumns)
+  {
+    this.tableName = tableName;
+    var colsByAttr = new HashMap<String, Column>();
+    for (Column col : cols.values())
+    {
+      colsByAttr.put(col.name, col);
+      colsByAttr.putIfAbsent(col.attribute, col);
+    }
+    // Keep only the keys that convert to their column, so lookups agree with converting the attribute
+    colsByAttr.entrySet().removeIf(e -> !e.getValue().name.equals(SearchUtils.camelCaseToSnakeCase(e.getKey())));
+    columns = Collections.unmodifiableMap(cols);
+    columnsByAttribute = Map.copyOf(colsByAttr);
+    this.columnTypes = Collections.unmodifiableMap(new LinkedHashMap<>(columnTypes));
+    this.indexedColumns = (indexedColumns == null) ? null : Set.copyOf(indexedColumns);
+  }
+
+  /**
+   * Create a catalog from a declarative map of column types
+   * @param tableName name of table, used only for messages
+   * @param columnTypes map of column name to java.sql.Types code
+   * @return the catalog
+   * @throws IllegalArgumentException if columnTypes is null
+   */
+  public static SearchColumnCatalog of(String tableName, Map<String, Integer> columnTypes)
+  {
+    return of(tableName, columnTypes, null);
+  }
+
+  /**
+   * Create a catalog from a declarative map of column types, including jsonb columns that may be searched by path
+   * @param tableName name of table, used only for messages
+   * @param columnTypes map of column name to java.sql.Types code
+   * @param jsonColumns names of the jsonb columns, may be null
+   * @return the catalog
+   * @throws IllegalArgumentException if columnTypes is null
+   */
+  public static SearchColumnCatalog of(String tableName, Map<String, Integer> columnTypes,
+                                       Collection<String> jsonColumns)
+  {
+    if (columnTypes == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchColumnCatalog", "columnTypes"));
+    return new SearchColumnCatalog(tableName, columnTypes, jsonColumns);
+  }
+
+  /**
+   * Get the catalog for a table in the current schema of the connection, see forTable(Connection, String, String)
+   * @param conn connection used to read the metadata, the table is in the current catalog and schema
+   * @param tableName name of table
+   * @return the catalog
+   * @throws SQLException if the metadata cannot be read
+   * @throws IllegalArgumentException if the table has no columns
+   */
+  public static SearchColumnCatalog forTable(Connection conn, String tableName) throws SQLException
+  {
+    if (conn == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchColumnCatalog", "conn"));
+    return forTable(conn, conn.getSchema(), tableName);
+  }
+
+  /**
+   * Get the catalog for a table, loading it from the JDBC metadata of the connection the first time the table
+   *   is requested. Later calls for the same database catalog, schema and table return the cached catalog
+   *   without reading the metadata.
+   * @param conn connection used to read the metadata, the table is in the current database catalog
+   * @param schemaName name of the schema containing the table, null if the database has no schemas
+   * @param tableName name of table
+   * @return the catalog
+   * @throws SQLException if the metadata cannot be read
+   * @throws IllegalArgumentException if the table has no columns
+   */
+  public static SearchColumnCatalog forTable(Connection conn, String schemaName, String tableName)
+    throws SQLException
+  {
+    if (conn == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchColumnCatalog", "conn"));
+    var key = new TableKey(conn.getCatalog(), schemaName, tableName);
+    SearchColumnCatalog catalog = _loadedCatalogs.get(key);
+    if (catalog != null) return catalog;
+    catalog = load(conn, schemaName, tableName);
+    SearchColumnCatalog prev = _loadedCatalogs.putIfAbsent(key, catalog);
+    return (prev == null) ? catalog : prev;
+  }
+
+  /**
+   * Load the catalog for a table in the current schema of the connection. The catalog is not cached.
+   * @param conn connection used to read the metadata, the table is in the current catalog and schema
+   * @param tableName name of table
+   * @return the catalog
+   * @throws SQLException if the metadata cannot be read
+   * @throws IllegalArgumentException if the table has no columns
+   */
+  public static SearchColumnCatalog load(Connection conn, String tableName) throws SQLException
+  {
+    if (conn == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchColumnCatalog", "conn"));
+    return load(conn, conn.getSchema(), tableName);
+  }
+
+  /**
+   * Load the catalog for a table from JDBC metadata. The catalog is not cached.
+   * @param conn connection used to read the metadata, the table is in the current database catalog
+   * @param schemaName name of the schema containing the table, null if the database has no schemas
+   * @param tableName name of table
+   * @return the catalog
+   * @throws SQLException if the metadata cannot be read
+   * @throws IllegalArgumentException if the table has no columns
+   */
+  public static SearchColumnCatalog load(Connection conn, String schemaName, String tableName) throws SQLException
+  {
+    if (conn == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchColumnCatalog", "conn"));
+    if (StringUtils.isBlank(tableName))
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchColumnCatalog", "tableName"));
+    DatabaseMetaData md = conn.getMetaData();
+    // The schema and table names are patterns, so escape the wildcards that are legal in names
+    String escape = md.getSearchStringEscape();
+    String schemaPattern = (schemaName == null) ? null : escapePattern(schemaName, escape);
+    String tablePattern = escapePattern(tableName, escape);
+    var columnTypes = new LinkedHashMap<String, Integer>();
+    var jsonColumns = new HashSet<String>();
+    try (ResultSet rs = md.getColumns(conn.getCatalog(), schemaPattern, tablePattern, "%"))
+    {
+      while (rs.next())
+      {
+        String colName = rs.getString("COLUMN_NAME");
+        columnTypes.put(colName, rs.getInt("DATA_TYPE"));
+        if (JSONB_TYPE_NAME.equalsIgnoreCase(rs.getString("TYPE_NAME"))) jsonColumns.add(colName);
+      }
+    }
+    if (columnTypes.isEmpty())
+      throw new IllegalArgumentException(MsgUtils.getMsg("SEARCH_DB_NO_TABLE_COLUMNS", tableName));
+    // Only the leading column of an index can be used to find rows by that column alone.
+    // An expression index has no column name.
+    var indexedColumns = new HashSet<String>();
+    try (ResultSet rs = md.getIndexInfo(conn.getCatalog(), schemaName, tableName, false, true))
+    {
+      while (rs.next())
+      {
+        String colName = rs.getString("COLUMN_NAME");
+        if (rs.getInt("ORDINAL_POSITION") == 1 && columnTypes.containsKey(colName)) indexedColumns.add(colName);
+      }
+    }
+    _log.debug(MsgUtils.getMsg("SEARCH_DB_CATALOG_LOADED", tableName, columnTypes.size()));
+    return new SearchColumnCatalog(tableName, createColumns(columnTypes, jsonColumns), columnTypes, indexedColumns);
+  }
+
+  /**
+   * Remove a table from the cache of catalogs loaded from metadata, e.g. after its schema has changed.
+   *   The table is removed for every database catalog and schema.
+   * @param tableName name of table
+   */
+  public static void invalidate(String tableName)
+  {
+    _loadedCatalogs.keySet().removeIf(key -> key.tableName.equals(tableName));
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Enable full text search of a string column using the MATCH operator. The search value is converted using
+   *   plainto_tsquery and matched against either a tsvector column, typically a generated column such as
+   *   GENERATED ALWAYS AS (to_tsvector('english', description)) STORED, or the expression
+   *   to_tsvector(config, column). Either can be served by a GIN index.
+   * @param attribute attribute of the string column, camel case or snake case
+   * @param config text search configuration, e.g. english. Must match the one used to build the tsvector.
+   * @param tsvectorColumn name of the tsvector column or null to use the expression
+   * @return catalog in which the column allows MATCH
+   * @throws IllegalArgumentException if there is no such string column or config or tsvectorColumn is invalid
+   */
+  public SearchColumnCatalog withTextSearch(String attribute, String config, String tsvectorColumn)
+    throws IllegalArgumentException
+  {
+    Column col = getColumn(attribute);
+    if (col == null)
+    {
+      String msg = MsgUtils.getMsg("SEARCH_DB_NO_COLUMN", attribute, tableName);
+      throw new IllegalArgumentException(msg);
+    }
+    if (col.allowedOps == null || !col.allowedOps.contains(SearchOperator.LIKE))
+    {
+      String msg = MsgUtils.getMsg("SEARCH_DB_INVALID_OP_FOR_TYPE", SearchOperator.MATCH.name(), col.sqlTypeName,
+                                   tableName, col.name);
+      throw new IllegalArgumentException(msg);
+    }
+    if (config == null || !IDENTIFIER_PATTERN.matcher(config).matches() ||
+        (tsvectorColumn != null && !IDENTIFIER_PATTERN.matcher(tsvectorColumn).matches()))
+    {
+      String msg = MsgUtils.getMsg("SEARCH_TEXT_INVALID_CONFIG", tableName, col.name, config, tsvectorColumn);
+      throw new IllegalArgumentException(msg);
+    }
+    var cols = new LinkedHashMap<>(columns);
+    cols.put(col.name, new Column(col, config, tsvectorColumn));
+    return new SearchColumnCatalog(tableName, cols, columnTypes, indexedColumns);
+  }
+
+  /**
+   * Set the columns that lead an index, replacing any found in the metadata. Conditions on other columns are
+   *   estimated by SearchCostModel to need a scan of the table.
+   * @param attributes attributes of the indexed columns, camel case or snake case
+   * @return catalog that knows the indexed columns
+   * @throws IllegalArgumentException if there is no column for an attribute
+   */
+  public SearchColumnCatalog withIndexedColumns(Collection<String> attributes) throws IllegalArgumentException
+  {
+    if (attributes == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchColumnCatalog", "attributes"));
+    var names = new HashSet<String>();
+    for (String attr : attributes)
+    {
+      Column col = getColumn(attr);
+      if (col == null)
+      {
+        String msg = MsgUtils.getMsg("SEARCH_DB_NO_COLUMN", attr, tableName);
+        throw new IllegalArgumentException(msg);
+      }
+      names.add(col.name);
+    }
+    return new SearchColumnCatalog(tableName, new LinkedHashMap<>(columns), columnTypes, names);
+  }
+
+  /**
+   * Find the column for an attribute
+   * @param attribute attribute name, camel case or snake case
+   * @return the column or null if the table has no such column
+   */
+  public Column getColumn(String attribute)
+  {
+    if (attribute == null) return null;
+    Column col = columnsByAttribute.get(attribute);
+    if (col != null) return col;
+    return columns.get(SearchUtils.camelCaseToSnakeCase(attribute));
+  }
+
+  /**
+   * Check a condition against the catalog.
+   *   The column for the attribute must be in the catalog
+   *   The operator must be allowed for the column type
+   *   The values must be valid for the column type
+   * For a path into a jsonb column the column must be marked as jsonb, the keys must be valid and the operator
+   *   must be allowed for a path. Any value is valid.
+   * @param cond processed search condition
+   * @return the column, for a path the jsonb column
+   * @throws IllegalArgumentException if the condition is not valid for the column
+   */
+  public Column validate(SearchCondition cond) throws IllegalArgumentException
+  {
+    if (JsonPathSearch.isPath(cond.getAttribute())) return validatePath(cond);
+    Column col = getColumn(cond.getAttribute());
+    if (col == null)
+    {
+      String msg = MsgUtils.getMsg("SEARCH_DB_NO_COLUMN", cond.getAttribute(), tableName);
+      throw new IllegalArgumentException(msg);
+    }
+    if (col.allowedOps == null)
+    {
+      String msg = MsgUtils.getMsg("SEARCH_DB_UNSUPPORTED_SQLTYPE", col.sqlType, col.sqlTypeName);
+      throw new IllegalArgumentException(msg);
+    }
+    SearchOperator op = cond.getOperator();
+    if (!col.allowedOps.contains(op))
+    {
+      String msg = MsgUtils.getMsg("SEARCH_DB_INVALID_OP_FOR_TYPE", op.name(), col.sqlTypeName, tableName, col.name);
+      throw new IllegalArgumentException(msg);
+    }
+    for (String val : cond.getValues())
+    {
+      if (!col.validator.isValid(val))
+      {
+        String msg = MsgUtils.getMsg("SEARCH_DB_INVALID_SEARCH_VALUE", op.name(), col.sqlTypeName, val, tableName,
+                                     col.name);
+        throw new IllegalArgumentException(msg);
+      }
+    }
+    return col;
+  }
+
+  /**
+   * Check that a value or list of values is compatible with the type of the column for an attribute.
+   * Same as SearchUtils.validateTypeAndValueList but the type, type name and column name come from the catalog.
+   * @param attribute attribute name, camel case or snake case
+   * @param op search operator, needed to determine if it might be a list of values
+   * @param valStr string containing a single value or CSV list for a list operator
+   * @return true if valid, false if invalid or the table has no column for the attribute
+   */
+  public boolean validateTypeAndValueList(String attribute, SearchOperator op, String valStr)
+  {
+    if (JsonPathSearch.isPath(attribute))
+    {
+      // Any value is valid for a path
+      try { validatePath(new SearchCondition(attribute, op, List.of())); return true; }
+      catch (IllegalArgumentException e) { _log.error(e.getMessage()); return false; }
+    }
+    Column col = getColumn(attribute);
+    if (col == null)
+    {
+      _log.error(MsgUtils.getMsg("SEARCH_DB_NO_COLUMN", attribute, tableName));
+      return false;
+    }
+    if (StringUtils.isBlank(valStr)) return true;
+    if (col.validator == null)
+    {
+      // Sql Type not supported, log a warning
+      _log.warn(MsgUtils.getMsg("SEARCH_DB_UNSUPPORTED_SQLTYPE", col.sqlType, col.sqlTypeName));
+    }
+    String val = (col.validator == null) ? valStr :
+            SearchValueValidators.findInvalidValue(col.validator, valStr, SearchUtils.listOpSet.contains(op));
+    if (val == null) return true;
+    String msg = MsgUtils.getMsg("SEARCH_DB_INVALID_SEARCH_VALUE", op.name(), col.sqlTypeName, val, tableName, col.name);
+    _log.error(msg);
+    return false;
+  }
+
+  /* ********************************************************************** */
+  /*                               Accessors                                */
+  /* ********************************************************************** */
+  public String getTableName() { return tableName; }
+
+  /**
+   * @return unmodifiable map of column name to java.sql.Types code, in catalog order
+   */
+  public Map<String, Integer> getColumnTypes() { return columnTypes; }
+
+  /**
+   * @return unmodifiable collection of the columns, in catalog order. For a catalog loaded from metadata this is
+   *   the order of the columns in the table.
+   */
+  public Collection<Column> getColumns() { return columns.values(); }
+
+  /**
+   * @return true if the catalog knows which columns are indexed
+   */
+  public boolean hasIndexInfo() { return indexedColumns != null; }
+
+  /**
+   * @param col column of the catalog
+   * @return true if the column leads an index or the indexed columns are not known
+   */
+  public boolean isIndexed(Column col) { return indexedColumns == null || indexedColumns.contains(col.name); }
+
+  /* ********************************************************************** */
+  /*                                 Column                                 */
+  /* ********************************************************************** */
+  /**
+   * A column and everything needed to validate conditions on it
+   */
+  public static final class Column
+  {
+    private final String name;
+    private final String attribute;
+    private final int sqlType;
+    private final String sqlTypeName;
+    // Null if the type is not supported for search
+    private final EnumSet<SearchOperator> allowedOps;
+    private final ValueValidator validator;
+
+    private final boolean json;
+    // Text search configuration and tsvector column, null if MATCH is not allowed
+    private final String textSearchConfig;
+    private final String tsvectorColumn;
+
+    private Column(String name, int sqlType, boolean json)
+    {
+      this.name = name;
+      this.json = json;
+      textSearchConfig = null;
+      tsvectorColumn = null;
+      attribute = snakeCaseToCamelCase(name);
+      this.sqlType = sqlType;
+      sqlTypeName = SearchUtils.getSqlTypeName(sqlType);
+      EnumSet<SearchOperator> ops = SearchUtils.ALLOWED_OPS_BY_TYPE.get(sqlType);
+      allowedOps = (ops == null) ? null : EnumSet.copyOf(ops);
+      validator = SearchValueValidators.forType(sqlType);
+    }
+
+    /**
+     * @return the column name
+     */
+    public String getName() { return name; }
+
+    /**
+     * @return the camel case form of the column name
+     */
+    public String getAttribute() { return attribute; }
+
+    /**
+     * @return the java.sql.Types code of the column
+     */
+    public int getSqlType() { return sqlType; }
+
+    public String getSqlTypeName() { return sqlTypeName; }
+
+    /**
+     * @return true if the type of the column is supported for search
+     */
+    public boolean isSupported() { return allowedOps != null; }
+
+    /**
+     * @param op search operator
+     * @return true if the operator is allowed for the type of the column
+     */
+    public boolean isAllowed(SearchOperator op) { return allowedOps != null && allowedOps.contains(op); }
+
+    /**
+     * @return the validator for values of the column, null if the type is not supported for search
+     */
+    public ValueValidator getValidator() { return validator; }
+
+    /**
+     * Copy of a string column with full text search enabled
+     */
+    private Column(Column col, String textSearchConfig, String tsvectorColumn)
+    {
+      name = col.name;
+      attribute = col.attribute;
+      sqlType = col.sqlType;
+      sqlTypeName = col.sqlTypeName;
+      allowedOps = EnumSet.copyOf(col.allowedOps);
+      allowedOps.add(SearchOperator.MATCH);
+      validator = col.validator;
+      json = col.json;
+      this.textSearchConfig = textSearchConfig;
+      this.tsvectorColumn = tsvectorColumn;
+    }
+
+    /**
+     * @return true if the column is jsonb and may be searched by path
+     */
+    public boolean isJson() { return json; }
+
+    /**
+     * @return text search configuration, null if the column does not allow MATCH
+     */
+    public String getTextSearchConfig() { return textSearchConfig; }
+
+    /**
+     * @return SQL for the tsvector searched by MATCH, the tsvector column or to_tsvector(config, column).
+     *   Null if the column does not allow MATCH.
+     */
+    public String getTsvectorSql()
+    {
+      if (textSearchConfig == null) return null;
+      if (tsvectorColumn != null) return tsvectorColumn;
+      return "to_tsvector('" + textSearchConfig + "', " + name + ")";
+    }
+
+    @Override
+    public String toString() { return name + ":" + sqlTypeName; }
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Create the columns for a map of column types
+   */
+  private static LinkedHashMap<String, Column> createColumns(Map<String, Integer> columnTypes,
+                                                             Collection<String> jsonColumns)
+  {
+    var cols = new LinkedHashMap<String, Column>();
+    for (Map.Entry<String, Integer> entry : columnTypes.entrySet())
+    {
+      boolean json = jsonColumns != null && jsonColumns.contains(entry.getKey());
+      cols.put(entry.getKey(), new Column(entry.getKey(), entry.getValue(), json));
+    }
+    return cols;
+  }
+
+  /*
+   * Check a condition on a path into a jsonb column
+   */
+  private Column validatePath(SearchCondition cond)
+  {
+    String attr = cond.getAttribute();
+    Column col = getColumn(JsonPathSearch.getColumnPart(attr));
+    if (col == null)
+    {
+      String msg = MsgUtils.getMsg("SEARCH_DB_NO_COLUMN", attr, tableName);
+      throw new IllegalArgumentException(msg);
+    }
+    if (!col.json)
+    {
+      String msg = MsgUtils.getMsg("SEARCH_JSON_NOT_JSON_COLUMN", attr, tableName, col.name, col.sqlTypeName);
+      throw new IllegalArgumentException(msg);
+    }
+    String key = JsonPathSearch.findInvalidKey(JsonPathSearch.getKeys(attr));
+    if (key != null)
+    {
+      String msg = MsgUtils.getMsg("SEARCH_JSON_INVALID_KEY", attr, key);
+      throw new IllegalArgumentException(msg);
+    }
+    SearchOperator op = cond.getOperator();
+    if (!JsonPathSearch.ALLOWED_OPS.contains(op))
+    {
+      String msg = MsgUtils.getMsg("SEARCH_DB_INVALID_OP_FOR_TYPE", op.name(), JsonPathSearch.SQL_TYPE_NAME, tableName,
+                                   attr);
+      throw new IllegalArgumentException(msg);
+    }
+    return col;
+  }
+
+  /*
+   * Convert a column name to camel case, e.g. proxy_port -> proxyPort
+   */
+  private static String snakeCaseToCamelCase(String name)
+  {
+    var sb = new StringBuilder(name.length());
+    boolean upper = false;
+    for (int i = 0; i < name.length(); i++)
+    {
+      char c = name.charAt(i);
+      if (c == '_' && sb.length() > 0) { upper = true; continue; }
+      sb.append(upper ? Character.toUpperCase(c) : c);
+      upper = false;
+    }
+    return sb.toString();
+  }
+
+  /*
+   * Escape the wildcards _ and % in a name used as a metadata search pattern
+   */
+  private static String escapePattern(String name, String escape)
+  {
+    if (escape == null || escape.isEmpty()) return name;
+    return name.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+  }
+
+  /* ********************************************************************** */
+  /*                                TableKey                                */
+  /* ********************************************************************** */
+  /*
+   * Key of a catalog loaded from metadata. The database catalog and schema may be null.
+   */
+  private static final class TableKey
+  {
+    private final String catalogName;
+    private final String schemaName;
+    private final String tableName;
+
+    private TableKey(String catalogName, String schemaName, String tableName)
+    {
+      this.catalogName = catalogName;
+      this.schemaName = schemaName;
+      this.tableName = tableName;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (this == obj) return true;
+      if (!(obj instanceof TableKey)) return false;
+      var other = (TableKey) obj;
+      return Objects.equals(catalogName, other.catalogName) && Objects.equals(schemaName, other.schemaName) &&
+             Objects.equals(tableName, other.tableName);
+    }
+
+    @Override
+    public int hashCode() { return Objects.hash(catalogName, schemaName, tableName); }
+  }
+}
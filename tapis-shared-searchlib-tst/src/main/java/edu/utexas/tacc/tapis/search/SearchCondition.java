@@ -0,0 +1,181 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchUtils.SearchOperator;
+import edu.utexas.tacc.tapis.search.parser.ASTBinaryExpression;
+import edu.utexas.tacc.tapis.search.parser.ASTLeaf;
+import edu.utexas.tacc.tapis.search.parser.ASTNode;
+import edu.utexas.tacc.tapis.search.parser.ASTUnaryExpression;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable representation of a validated and processed search condition <attr>.<op>.<value>
+ * Created once per condition by SearchUtils so that downstream code never needs to re-parse the condition string.
+ *
+ * Values are already processed:
+ *   - For list operators (IN, NIN, BETWEEN, NBETWEEN) the value has been split into a list and trailing empty
+ *     values dropped. For BETWEEN/NBETWEEN the list has exactly 2 elements.
+ *   - Escapes for the Tapis special characters ~ , ( ) have been removed.
+ *   - For LIKE/NLIKE there is a single value containing the SQL pattern. Unescaped % and _ have been escaped,
+ *     * has been translated to % and ! to _. Other escapes are retained since they are meaningful to SQL LIKE.
+ */
+public final class SearchCondition
+{
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final String attribute;
+  private final SearchOperator operator;
+  private final List<String> values;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  /**
+   * Create a condition from already processed components. No validation of the values is done.
+   * @param attribute attribute name
+   * @param operator search operator
+   * @param values processed values, single element list if operator does not take a list
+   * @throws IllegalArgumentException if a parameter is null or empty
+   */
+  public SearchCondition(String attribute, SearchOperator operator, List<String> values)
+  {
+    if (StringUtils.isBlank(attribute))
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchCondition", "attribute"));
+    if (operator == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchCondition", "operator"));
+    if (values == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchCondition", "values"));
+    this.attribute = attribute;
+    this.operator = operator;
+    this.values = List.copyOf(values);
+  }
+
+  /**
+   * Create a condition from a comparison node of an AST produced by ASTParser.
+   * The left side must be an attribute and the right side a value. Values for list operators are comma separated.
+   * A minus sign applied to a numeric value is folded into the value.
+   * Values are used as is, for LIKE/NLIKE the value is already a SQL pattern.
+   * @param bNode comparison node
+   * @return the condition
+   * @throws IllegalArgumentException if the node is not a supported comparison
+   */
+  public static SearchCondition fromAST(ASTBinaryExpression bNode) throws IllegalArgumentException
+  {
+    SearchOperator op = SearchUtils.getSearchOperator(StringUtils.upperCase(bNode.getOp()));
+    if (op == null)
+    {
+      String msg = MsgUtils.getMsg("SEARCH_AST_UNSUPPORTED_OP", bNode.getOp(), bNode);
+      throw new IllegalArgumentException(msg);
+    }
+    ASTNode left = bNode.getLeft();
+    ASTNode right = bNode.getRight();
+    if (!(left instanceof ASTUnaryExpression) || !StringUtils.isEmpty(((ASTUnaryExpression) left).getOp())
+        || !(((ASTUnaryExpression) left).getNode() instanceof ASTLeaf))
+    {
+      String msg = MsgUtils.getMsg("SEARCH_AST_UNSUPPORTED_NODE", left.getClass().getSimpleName(), bNode);
+      throw new IllegalArgumentException(msg);
+    }
+    String valStr = getValue(right);
+    if (valStr == null)
+    {
+      String msg = MsgUtils.getMsg("SEARCH_AST_UNSUPPORTED_NODE", right.getClass().getSimpleName(), bNode);
+      throw new IllegalArgumentException(msg);
+    }
+    String attr = ((ASTLeaf) ((ASTUnaryExpression) left).getNode()).getValue();
+    List<String> values;
+    if (SearchUtils.listOpSet.contains(op)) values = SearchUtils.getValueList(valStr);
+    else values = Collections.singletonList(valStr);
+    if ((op == SearchOperator.BETWEEN || op == SearchOperator.NBETWEEN) && values.size() != 2)
+    {
+      String msg = MsgUtils.getMsg("SEARCH_COND_INVALID_OP2", op.name(), bNode);
+      throw new IllegalArgumentException(msg);
+    }
+    return new SearchCondition(attr, op, values);
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  public String getAttribute() { return attribute; }
+
+  public SearchOperator getOperator() { return operator; }
+
+  /**
+   * @return unmodifiable list of processed values
+   */
+  public List<String> getValues() { return values; }
+
+  /**
+   * @return the first value, the only value for operators that do not take a list. Null if there are no values.
+   */
+  public String getValue() { return values.isEmpty() ? null : values.get(0); }
+
+  /**
+   * @return true if the operator takes a list of values
+   */
+  public boolean isListOperator() { return SearchUtils.listOpSet.contains(operator); }
+
+  /**
+   * Processed condition in the form <attr>.<OP>.<value>, the same form returned by
+   *   SearchUtils.validateAndProcessSearchCondition(). For list operators commas in a value are escaped.
+   * @return processed condition string
+   */
+  @Override
+  public String toString()
+  {
+    var sb = new StringBuilder(attribute.length() + 16);
+    sb.append(attribute).append('.').append(operator.name()).append('.');
+    boolean isListOp = isListOperator();
+    for (int i = 0; i < values.size(); i++)
+    {
+      if (i > 0) sb.append(SearchListScanner.VALUE_SEPARATOR);
+      String val = values.get(i);
+      if (!isListOp) { sb.append(val); continue; }
+      for (int j = 0; j < val.length(); j++)
+      {
+        char c = val.charAt(j);
+        if (c == SearchListScanner.VALUE_SEPARATOR) sb.append(SearchListScanner.ESCAPE_CHAR);
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o) return true;
+    if (!(o instanceof SearchCondition)) return false;
+    var that = (SearchCondition) o;
+    return operator == that.operator && attribute.equals(that.attribute) && values.equals(that.values);
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return 31 * (31 * attribute.hashCode() + operator.hashCode()) + values.hashCode();
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Value on the right side of a comparison, null if the node is not a value.
+   *   The parser creates a unary minus for a negative literal, it is folded into the value when numeric.
+   */
+  private static String getValue(ASTNode node)
+  {
+    if (node instanceof ASTLeaf) return ((ASTLeaf) node).getValue();
+    if (!(node instanceof ASTUnaryExpression) || !"-".equals(((ASTUnaryExpression) node).getOp())) return null;
+    String val = getValue(((ASTUnaryExpression) node).getNode());
+    if (val == null || !SearchValueValidators.NUMERIC_VALIDATOR.isValid(val)) return null;
+    val = val.trim();
+    if (val.charAt(0) == '-') return val.substring(1);
+    if (val.charAt(0) == '+') return "-" + val.substring(1);
+    return "-" + val;
+  }
+}
@@ -0,0 +1,253 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchColumnCatalog.Column;
+import edu.utexas.tacc.tapis.search.SearchUtils.SearchOperator;
+import edu.utexas.tacc.tapis.search.parser.ASTBinaryExpression;
+import edu.utexas.tacc.tapis.search.parser.ASTNaryExpression;
+import edu.utexas.tacc.tapis.search.parser.ASTNode;
+import edu.utexas.tacc.tapis.search.parser.ASTUnaryExpression;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+import java.util.ArrayDeque;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Estimate of the cost of running a search, used to check it against a budget before it reaches the database,
+ *   see SearchBudget. The estimate is a weighted sum of:
+ *   - the leaves of the expression, as given by ASTNode.countLeaves. A condition has two leaves, the attribute
+ *     and the value, and a condition from a search list is counted the same way.
+ *   - the values of a list operator beyond the first, e.g. IN, NIN and the array operators
+ *   - the depth of the expression, since the SQL for a deeply nested expression is costly to generate and plan
+ *   - LIKE and NLIKE patterns with a leading wildcard, which cannot use any index and must match every row
+ *   - conditions that an index cannot serve: a column not indexed according to the catalog, a negated operator
+ *     or a filter on a path into a jsonb column. If the catalog does not know the indexed columns only the
+ *     operator is considered.
+ * The weights are configurable. The units are arbitrary and only have meaning relative to a budget.
+ *
+ * The expression is walked using an explicit stack since trees built by the parser may be very deep.
+ * Conditions are not validated, a condition on an unknown column is estimated as needing a scan.
+ * Instances are immutable and may be shared between threads.
+ */
+public final class SearchCostModel
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Default weights
+  public static final long DEFAULT_LEAF_COST = 1;
+  public static final long DEFAULT_LIST_VALUE_COST = 1;
+  public static final long DEFAULT_DEPTH_COST = 1;
+  public static final long DEFAULT_LEADING_WILDCARD_COST = 100;
+  public static final long DEFAULT_SCAN_COST = 25;
+
+  // Operators that an index cannot serve whatever the column
+  private static final EnumSet<SearchOperator> NEGATED_OPS =
+        EnumSet.of(SearchOperator.NEQ, SearchOperator.NLIKE, SearchOperator.NBETWEEN, SearchOperator.NIN);
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final SearchColumnCatalog catalog;
+  private final long leafCost;
+  private final long listValueCost;
+  private final long depthCost;
+  private final long leadingWildcardCost;
+  private final long scanCost;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  /**
+   * Create a model using the default weights
+   * @param catalog columns of the table being searched
+   * @throws IllegalArgumentException if catalog is null
+   */
+  public SearchCostModel(SearchColumnCatalog catalog)
+  {
+    this(catalog, DEFAULT_LEAF_COST, DEFAULT_LIST_VALUE_COST, DEFAULT_DEPTH_COST, DEFAULT_LEADING_WILDCARD_COST,
+         DEFAULT_SCAN_COST);
+  }
+
+  private SearchCostModel(SearchColumnCatalog catalog, long leafCost, long listValueCost, long depthCost,
+                          long leadingWildcardCost, long scanCost)
+  {
+    if (catalog == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchCostModel", "catalog"));
+    for (long weight : new long[] {leafCost, listValueCost, depthCost, leadingWildcardCost, scanCost})
+      if (weight < 0) throw new IllegalArgumentException(MsgUtils.getMsg("SEARCH_COST_INVALID_WEIGHT", weight));
+    this.catalog = catalog;
+    this.leafCost = leafCost;
+    this.listValueCost = listValueCost;
+    this.depthCost = depthCost;
+    this.leadingWildcardCost = leadingWildcardCost;
+    this.scanCost = scanCost;
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * @param leafCost cost of each leaf of the expression
+   * @param listValueCost cost of each value of a list beyond the first
+   * @param depthCost cost of each level of nesting of the expression
+   * @return model using the given weights
+   * @throws IllegalArgumentException if a weight is negative
+   */
+  public SearchCostModel withSizeWeights(long leafCost, long listValueCost, long depthCost)
+    throws IllegalArgumentException
+  {
+    return new SearchCostModel(catalog, leafCost, listValueCost, depthCost, leadingWildcardCost, scanCost);
+  }
+
+  /**
+   * @param leadingWildcardCost cost of a LIKE or NLIKE pattern with a leading wildcard
+   * @param scanCost cost of a condition that an index cannot serve
+   * @return model using the given weights
+   * @throws IllegalArgumentException if a weight is negative
+   */
+  public SearchCostModel withScanWeights(long leadingWildcardCost, long scanCost) throws IllegalArgumentException
+  {
+    return new SearchCostModel(catalog, leafCost, listValueCost, depthCost, leadingWildcardCost, scanCost);
+  }
+
+  /**
+   * Estimate the cost of a search given as an expression
+   * @param node root of the AST, may be null for no conditions
+   * @return the estimate
+   * @throws IllegalArgumentException if a comparison in the expression is not a condition on an attribute
+   */
+  public Estimate estimate(ASTNode node) throws IllegalArgumentException
+  {
+    var est = new Estimate();
+    if (node == null) return est;
+    est.leaves = node.countLeaves();
+    // Pairs of node and its depth
+    var stack = new ArrayDeque<Object[]>();
+    stack.push(new Object[] {node, 1});
+    while (!stack.isEmpty())
+    {
+      Object[] entry = stack.pop();
+      ASTNode n = (ASTNode) entry[0];
+      int depth = (Integer) entry[1];
+      est.depth = Math.max(est.depth, depth);
+      if (n instanceof ASTNaryExpression)
+      {
+        for (ASTNode operand : ((ASTNaryExpression) n).getOperands()) stack.push(new Object[] {operand, depth + 1});
+      }
+      else if (n instanceof ASTUnaryExpression)
+      {
+        stack.push(new Object[] {((ASTUnaryExpression) n).getNode(), depth + 1});
+      }
+      else if (n instanceof ASTBinaryExpression)
+      {
+        var bNode = (ASTBinaryExpression) n;
+        String op = bNode.getOp();
+        if ("AND".equalsIgnoreCase(op) || "OR".equalsIgnoreCase(op))
+        {
+          stack.push(new Object[] {bNode.getRight(), depth + 1});
+          stack.push(new Object[] {bNode.getLeft(), depth + 1});
+        }
+        else
+        {
+          // The attribute and value of a condition are one level down
+          est.depth = Math.max(est.depth, depth + 1);
+          addCondition(est, SearchCondition.fromAST(bNode));
+        }
+      }
+    }
+    est.cost = computeCost(est);
+    return est;
+  }
+
+  /**
+   * Estimate the cost of a search given as a list of conditions, as used for the search query parameter
+   * @param conditions processed search conditions, may be null or empty
+   * @return the estimate
+   */
+  public Estimate estimate(List<SearchCondition> conditions)
+  {
+    var est = new Estimate();
+    if (conditions == null || conditions.isEmpty()) return est;
+    // Counted as for a condition in an expression
+    est.leaves = 2 * conditions.size();
+    est.depth = 2;
+    for (SearchCondition cond : conditions) addCondition(est, cond);
+    est.cost = computeCost(est);
+    return est;
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Add the list values, wildcards and scans of a condition
+   */
+  private void addCondition(Estimate est, SearchCondition cond)
+  {
+    SearchOperator op = cond.getOperator();
+    List<String> values = cond.getValues();
+    if (values.size() > 1 && SearchUtils.listOpSet.contains(op)) est.listValues += values.size() - 1;
+    if ((op == SearchOperator.LIKE || op == SearchOperator.NLIKE) && !values.isEmpty() &&
+        LikeMatcher.getLiteralPrefix(values.get(0)).isEmpty())
+    {
+      est.leadingWildcards++;
+    }
+    if (!isIndexable(cond)) est.scans++;
+  }
+
+  /*
+   * Check if an index could serve a condition
+   */
+  private boolean isIndexable(SearchCondition cond)
+  {
+    SearchOperator op = cond.getOperator();
+    if (NEGATED_OPS.contains(op)) return false;
+    String attr = cond.getAttribute();
+    boolean path = JsonPathSearch.isPath(attr);
+    // Only containment on a path can use the index of the column
+    if (path && op != SearchOperator.EQ && op != SearchOperator.IN) return false;
+    // A column searched using MATCH is expected to have a text search index
+    if (op == SearchOperator.MATCH) return true;
+    Column col = catalog.getColumn(path ? JsonPathSearch.getColumnPart(attr) : attr);
+    return col != null && catalog.isIndexed(col);
+  }
+
+  private long computeCost(Estimate est)
+  {
+    return leafCost * est.leaves + listValueCost * est.listValues + depthCost * est.depth +
+           leadingWildcardCost * est.leadingWildcards + scanCost * est.scans;
+  }
+
+  /* ********************************************************************** */
+  /*                            Estimate Class                              */
+  /* ********************************************************************** */
+  /**
+   * Estimated cost of a search and the counts it was computed from
+   */
+  public static final class Estimate
+  {
+    private long cost;
+    private int leaves;
+    private int depth;
+    private long listValues;
+    private int leadingWildcards;
+    private int scans;
+
+    private Estimate() { }
+
+    public long getCost() { return cost; }
+    public int getLeaves() { return leaves; }
+    public int getDepth() { return depth; }
+    public long getListValues() { return listValues; }
+    public int getLeadingWildcards() { return leadingWildcards; }
+    public int getScans() { return scans; }
+
+    @Override
+    public String toString()
+    {
+      return "cost=" + cost + " leaves=" + leaves + " depth=" + depth + " listValues=" + listValues +
+             " leadingWildcards=" + leadingWildcards + " scans=" + scans;
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.OrderBy.SortKey;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Continuation cursors for keyset pagination, see OrderBy.
+ * A cursor holds the sort key values of the last row of a page together with the order it was created for.
+ *   It is encoded as URL safe base64 so that clients treat it as opaque. The content is:
+ *   <version>;<order>;<length>:<value><length>:<value>...
+ *   e.g. 1;owner(asc),id(asc);4:jdoe2:17
+ * Values are held as strings in the form accepted for search values of the column type. Timestamps are in UTC.
+ *
+ * Cursors are not signed. A cursor changed by a client can only select a different position in the same order
+ *   since decoded values are validated against the column types and bound as parameters.
+ */
+final class SearchCursor
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  private static final String VERSION = "1";
+  private static final char FIELD_SEPARATOR = ';';
+  private static final char LENGTH_SEPARATOR = ':';
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  private SearchCursor() { }
+
+  /* ********************************************************************** */
+  /*                             Package Methods                            */
+  /* ********************************************************************** */
+  /**
+   * Encode the sort key values of a row as a cursor
+   * @param orderBy order of the page
+   * @param values values of the sort keys in key order
+   * @return the cursor
+   * @throws IllegalArgumentException if the number of values does not match the keys or a value is null
+   */
+  static String encode(OrderBy orderBy, List<?> values) throws IllegalArgumentException
+  {
+    List<SortKey> keys = orderBy.getKeys();
+    if (keys.isEmpty()) throw new IllegalArgumentException(MsgUtils.getMsg("SEARCH_CURSOR_NO_ORDERBY"));
+    if (values == null || values.size() != keys.size())
+    {
+      String msg = MsgUtils.getMsg("SEARCH_CURSOR_VALUE_COUNT", orderBy, keys.size(),
+                                   values == null ? 0 : values.size());
+      throw new IllegalArgumentException(msg);
+    }
+    var sb = new StringBuilder();
+    sb.append(VERSION).append(FIELD_SEPARATOR).append(orderBy).append(FIELD_SEPARATOR);
+    for (int i = 0; i < keys.size(); i++)
+    {
+      Object value = values.get(i);
+      if (value == null)
+      {
+        String msg = MsgUtils.getMsg("SEARCH_CURSOR_NULL_VALUE", keys.get(i).getColumn().getName());
+        throw new IllegalArgumentException(msg);
+      }
+      String val = toCursorValue(value);
+      if (!isValidValue(keys.get(i), val))
+      {
+        String msg = MsgUtils.getMsg("SEARCH_CURSOR_INVALID_VALUE", keys.get(i).getColumn().getName(), val);
+        throw new IllegalArgumentException(msg);
+      }
+      sb.append(val.length()).append(LENGTH_SEPARATOR).append(val);
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode a cursor and check that it was created for an order and that its values are valid for the key types
+   * @param orderBy order of the page
+   * @param cursor the cursor
+   * @return the values in key order
+   * @throws IllegalArgumentException if the cursor is invalid
+   */
+  static List<String> decode(OrderBy orderBy, String cursor) throws IllegalArgumentException
+  {
+    String content;
+    try { content = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8); }
+    catch (IllegalArgumentException e) { throw invalid(cursor); }
+
+    // Version and order must match
+    String prefix = VERSION + FIELD_SEPARATOR + orderBy + FIELD_SEPARATOR;
+    List<SortKey> keys = orderBy.getKeys();
+    if (keys.isEmpty() || !content.startsWith(prefix)) throw invalid(cursor);
+
+    // Length prefixed values
+    var values = new ArrayList<String>(keys.size());
+    int pos = prefix.length();
+    while (pos < content.length())
+    {
+      int sep = content.indexOf(LENGTH_SEPARATOR, pos);
+      if (sep <= pos || sep - pos > 9) throw invalid(cursor);
+      int len = 0;
+      for (int i = pos; i < sep; i++)
+      {
+        char c = content.charAt(i);
+        if (c < '0' || c > '9') throw invalid(cursor);
+        len = len * 10 + (c - '0');
+      }
+      pos = sep + 1;
+      if (len > content.length() - pos || values.size() == keys.size()) throw invalid(cursor);
+      String val = content.substring(pos, pos + len);
+      if (!isValidValue(keys.get(values.size()), val)) throw invalid(cursor);
+      values.add(val);
+      pos += len;
+    }
+    if (values.size() != keys.size()) throw invalid(cursor);
+    return values;
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Convert a value read from a row into the string form of a search value.
+   * Date and time values are converted to UTC in ISO format.
+   */
+  private static String toCursorValue(Object value)
+  {
+    if (value instanceof java.sql.Timestamp) return ((java.sql.Timestamp) value).toLocalDateTime().toString();
+    if (value instanceof java.sql.Date) return ((java.sql.Date) value).toLocalDate().toString();
+    if (value instanceof Instant) return LocalDateTime.ofInstant((Instant) value, ZoneOffset.UTC).toString();
+    if (value instanceof OffsetDateTime)
+      return ((OffsetDateTime) value).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime().toString();
+    if (value instanceof ZonedDateTime)
+      return ((ZonedDateTime) value).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime().toString();
+    return value.toString();
+  }
+
+  /*
+   * Any string is a valid value for a string column, including a blank one which is not a valid search value
+   */
+  private static boolean isValidValue(SortKey key, String val)
+  {
+    SearchValueValidators.ValueValidator validator = key.getColumn().getValidator();
+    return validator == SearchValueValidators.STRING_VALIDATOR || validator.isValid(val);
+  }
+
+  private static IllegalArgumentException invalid(String cursor)
+  {
+    return new IllegalArgumentException(MsgUtils.getMsg("SEARCH_CURSOR_INVALID", cursor));
+  }
+}
@@ -0,0 +1,519 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchUtils.SearchOperator;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hand written scanner for search lists and search conditions.
+ * A search list has the form (<cond>)~(<cond>)~ ... where <cond> = <attr>.<op>.<value>
+ *
+ * Each condition is scanned in a single walk over the characters of the input. The walk splits the list on
+ *   unescaped ~ characters, tracks the parentheses around the condition, locates the attribute, operator and
+ *   value, validates each of them and counts the values of list operators as it goes. No regular expressions
+ *   or intermediate strings are created. Substrings are only built for results and error messages.
+ *
+ * The rules enforced match those documented in SearchUtils:
+ *   - The delimiter ~ may be escaped using \. Any character following a \ is part of the condition.
+ *   - If there is only one condition the surrounding parentheses are optional.
+ *   - <attr> must start with [a-zA-Z] and contain only [a-zA-Z0-9_]
+ *     or be a path into a JSON column of the form <attr>.<key>[.<key>]... where each <key> contains only
+ *     [a-zA-Z0-9_], e.g. notes.project.eq.x. A dot ends the attribute if the text following it is an operator,
+ *     so conditions such as host.eq.login.in.tacc.edu keep their operator whatever the value contains. Otherwise
+ *     the dot continues the attribute if it is followed by keys and then an operator. A key therefore cannot
+ *     have the name of an operator.
+ *   - <op> must be a SearchOperator, case is ignored.
+ *   - The Tapis special characters ~ , ( ) must be escaped when appearing in a value. For operators that
+ *     take a list (IN, NIN, BETWEEN, NBETWEEN) an unescaped comma separates values.
+ *   - For BETWEEN/NBETWEEN the value must be a 2 element list.
+ *
+ * An instance holds the scan results for a single condition. Instances are created by the static methods.
+ */
+final class SearchListScanner
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Escape character for search lists and values
+  static final char ESCAPE_CHAR = '\\';
+
+  // Delimiter between conditions in a search list
+  static final char COND_DELIMITER = '~';
+
+  // Separator for values of list operators
+  static final char VALUE_SEPARATOR = ',';
+
+  // Cache the enum values so lookup does not clone the array each time
+  private static final SearchOperator[] SEARCH_OPS = SearchOperator.values();
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  // Input being scanned and the position where the scan started
+  private final String _str;
+  private final int _tokenStart;
+  // Position following the last character of the token. For a condition this is the end of the input.
+  private int _tokenEnd;
+
+  // Parentheses surrounding a condition in a search list
+  private boolean _hasOpenParen;
+  private boolean _hasCloseParen;
+
+  // Bounds of the bare condition, i.e. the condition without the surrounding parentheses
+  private int _condStart;
+  private int _condEnd;
+  private int _condNonBlank;
+
+  // Position of the dots separating <attr>.<op>.<value>, -1 if not found.
+  private int _dot1 = -1;
+  private int _dot2 = -1;
+
+  // Attribute state
+  private int _attrNonBlank;
+  private boolean _attrValid = true;
+
+  // Operator state. The operator is null if the text does not match a search operator.
+  private int _opNonBlank;
+  private SearchOperator _op;
+  // Operator used when processing the value. Normally the same as _op but may be supplied by the caller.
+  private SearchOperator _valueOp;
+
+  // Value state
+  private int _valNonBlank;
+  private int _badValPos = -1;
+  private int _segIdx;
+  private int _segLen;
+  private int _lastNonEmptySeg = -1;
+  private boolean _hasSeparator;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  /**
+   * Scan a single token or condition starting at position start
+   * @param str string to scan
+   * @param start starting position
+   * @param inList true if scanning a search list: stop at an unescaped ~ and strip the surrounding parentheses
+   * @param opHint operator to use when processing the value, null to use the operator in the condition
+   */
+  private SearchListScanner(String str, int start, boolean inList, SearchOperator opHint)
+  {
+    _str = str;
+    _tokenStart = start;
+    _condStart = start;
+    _valueOp = opHint;
+    scan(inList);
+  }
+
+  /* ********************************************************************** */
+  /*                             Static Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Scan a search list of the form (<cond>)~(<cond>)~ ... and validate the form of each condition.
+   * Empty conditions such as () are skipped.
+   * @param searchListStr - String containing all search conditions
+   * @return the list of scanners for the non-blank conditions in the order they appear.
+   * @throws IllegalArgumentException if the list or a condition is invalid
+   */
+  static List<SearchListScanner> scanSearchList(String searchListStr) throws IllegalArgumentException
+  {
+    var retList = new ArrayList<SearchListScanner>();
+    int len = searchListStr.length();
+    int pos = 0;
+    int tokenCount = 0;
+    // If the first token has no parentheses it is valid only if it turns out to be the only token.
+    SearchListScanner pending = null;
+    while (pos < len)
+    {
+      var scanner = new SearchListScanner(searchListStr, pos, true, null);
+      // Skip over the delimiter
+      pos = scanner._tokenEnd + 1;
+      // Ignore empty tokens, e.g. ~~
+      if (scanner._tokenEnd == scanner._tokenStart) continue;
+      tokenCount++;
+      if (pending != null) pending.checkBalanced();
+      if (tokenCount == 1 && !scanner._hasOpenParen && !scanner._hasCloseParen)
+      {
+        pending = scanner;
+        continue;
+      }
+      scanner.checkBalanced();
+      scanner.checkForm();
+      if (!scanner.isBlank()) retList.add(scanner);
+    }
+    // Single condition without parentheses
+    if (pending != null)
+    {
+      pending.checkForm();
+      if (!pending.isBlank()) retList.add(pending);
+    }
+    return retList;
+  }
+
+  /**
+   * Scan a single condition having the form <attr>.<op>.<value>
+   * No validation is done. Use the check methods to validate the components of the condition.
+   * @param condStr condition string
+   * @param opHint operator to use when processing the value, null to use the operator in the condition
+   * @return scanner for the condition
+   */
+  static SearchListScanner scanCondition(String condStr, SearchOperator opHint)
+  {
+    return new SearchListScanner(condStr, 0, false, opHint);
+  }
+
+  /**
+   * Break up a string containing comma separated values. Commas escaped using \ do not separate values.
+   * Trailing empty values are dropped. If there are no separators the list contains only the input string.
+   * @param valStr string containing comma separated list of values
+   * @return Resulting list of strings
+   */
+  static List<String> splitValueList(String valStr)
+  {
+    int len = valStr.length();
+    var valList = new ArrayList<String>();
+    int segStart = 0;
+    int keepSize = 0;
+    for (int i = 0; i < len; i++)
+    {
+      if (valStr.charAt(i) == VALUE_SEPARATOR && (i == 0 || valStr.charAt(i - 1) != ESCAPE_CHAR))
+      {
+        valList.add(valStr.substring(segStart, i));
+        if (i > segStart) keepSize = valList.size();
+        segStart = i + 1;
+      }
+    }
+    if (valList.isEmpty()) return new ArrayList<>(Collections.singletonList(valStr));
+    valList.add(valStr.substring(segStart));
+    if (len > segStart) keepSize = valList.size();
+    // Drop trailing empty values
+    return new ArrayList<>(valList.subList(0, keepSize));
+  }
+
+  /**
+   * Check if a character is one of the Tapis special characters that must be escaped in a value
+   * @param c character to check
+   * @return true if special
+   */
+  static boolean isSpecialChar(char c)
+  {
+    return c == COND_DELIMITER || c == VALUE_SEPARATOR || c == '(' || c == ')';
+  }
+
+  /* ********************************************************************** */
+  /*                            Instance Methods                            */
+  /* ********************************************************************** */
+  /**
+   * Check if the bare condition is blank
+   * @return true if blank
+   */
+  boolean isBlank() { return _condNonBlank == 0; }
+
+  /**
+   * Check that a condition in a search list is surrounded by parentheses.
+   * @throws IllegalArgumentException if not surrounded by parentheses
+   */
+  void checkBalanced() throws IllegalArgumentException
+  {
+    if (!_hasOpenParen || !_hasCloseParen)
+    {
+      String errMsg = MsgUtils.getMsg("SEARCH_COND_UNBALANCED", _str.substring(_tokenStart, _tokenEnd));
+      throw new IllegalArgumentException(errMsg);
+    }
+  }
+
+  /**
+   * Validate the form of the bare condition. A blank condition is valid.
+   * @throws IllegalArgumentException if condition is invalid
+   */
+  void checkForm() throws IllegalArgumentException
+  {
+    if (isBlank()) return;
+    checkAttribute();
+    checkOperator();
+    checkValue();
+  }
+
+  /**
+   * Validate the attribute
+   * @throws IllegalArgumentException if attribute is missing or invalid
+   */
+  void checkAttribute() throws IllegalArgumentException
+  {
+    if (_dot1 < 0 || _attrNonBlank == 0)
+    {
+      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_NOATTR", getCondition());
+      throw new IllegalArgumentException(errMsg);
+    }
+    if (!_attrValid)
+    {
+      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_ATTR", getCondition());
+      throw new IllegalArgumentException(errMsg);
+    }
+  }
+
+  /**
+   * Validate the operator
+   * @throws IllegalArgumentException if operator is missing or invalid
+   */
+  void checkOperator() throws IllegalArgumentException
+  {
+    if (_dot1 < 0 || _dot2 < 0 || _opNonBlank == 0)
+    {
+      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_NOOPER", getCondition());
+      throw new IllegalArgumentException(errMsg);
+    }
+    if (_op == null)
+    {
+      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_OP", _str.substring(_dot1 + 1, _dot2), getCondition());
+      throw new IllegalArgumentException(errMsg);
+    }
+  }
+
+  /**
+   * Validate the value
+   *   Check for any of the Tapis special chars that are unescaped
+   *   Check that for BETWEEN/NBETWEEN it is a 2 element list
+   * @throws IllegalArgumentException if value is missing or invalid
+   */
+  void checkValue() throws IllegalArgumentException
+  {
+    if (_dot1 < 0 || _dot2 < 0 || _valNonBlank == 0)
+    {
+      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_NOVAL", getCondition());
+      throw new IllegalArgumentException(errMsg);
+    }
+    if (_badValPos >= 0)
+    {
+      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_VAL", getCondition());
+      throw new IllegalArgumentException(errMsg);
+    }
+    if ((_valueOp == SearchOperator.BETWEEN || _valueOp == SearchOperator.NBETWEEN) && getValueCount() != 2)
+    {
+      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_OP2", _valueOp.name(), getCondition());
+      throw new IllegalArgumentException(errMsg);
+    }
+  }
+
+  /**
+   * @return the bare condition, i.e. without surrounding parentheses
+   */
+  String getCondition() { return _str.substring(_condStart, _condEnd); }
+
+  /**
+   * @return the attribute. Only valid after checkAttribute()
+   */
+  String getAttribute() { return _str.substring(_condStart, _dot1); }
+
+  /**
+   * @return the operator, null if not a valid operator.
+   */
+  SearchOperator getOperator() { return _op; }
+
+  /**
+   * @return the full value string which may be a list. Only valid after checkValue()
+   */
+  String getFullValueStr() { return _str.substring(_dot2 + 1, _condEnd); }
+
+  /**
+   * Number of values. For list operators trailing empty values are not counted.
+   * @return number of values
+   */
+  int getValueCount()
+  {
+    if (!SearchUtils.listOpSet.contains(_valueOp) || !_hasSeparator) return 1;
+    return _lastNonEmptySeg + 1;
+  }
+
+  /**
+   * Build the typed condition in a single walk over the value
+   *   For LIKE/NLIKE escape unescaped % and _ and then translate special characters * -> % and ! -> _
+   *     The result is a single value containing the SQL pattern.
+   *   For other operators remove escapes from our special characters. For list operators the value is split
+   *     on unescaped commas and trailing empty values are dropped.
+   * Only valid after checkForm()
+   * @return the processed condition
+   */
+  SearchCondition toSearchCondition()
+  {
+    String attr = _str.substring(_condStart, _dot1);
+    int valStart = _dot2 + 1;
+    var sb = new StringBuilder(_condEnd - valStart + 4);
+    if (_op == SearchOperator.LIKE || _op == SearchOperator.NLIKE)
+    {
+      for (int i = valStart; i < _condEnd; i++)
+      {
+        char c = _str.charAt(i);
+        boolean escaped = _str.charAt(i - 1) == ESCAPE_CHAR;
+        if (escaped) sb.append(c);
+        else if (c == '%' || c == '_') sb.append(ESCAPE_CHAR).append(c);
+        else if (c == '*') sb.append('%');
+        else if (c == '!') sb.append('_');
+        else sb.append(c);
+      }
+      return new SearchCondition(attr, _op, Collections.singletonList(sb.toString()));
+    }
+
+    boolean isListOp = SearchUtils.listOpSet.contains(_op);
+    var valList = new ArrayList<String>(isListOp ? getValueCount() : 1);
+    int keepSize = 0;
+    for (int i = valStart; i < _condEnd; i++)
+    {
+      char c = _str.charAt(i);
+      // Unescape our special chars, including commas for list operators.
+      if (c == ESCAPE_CHAR && i + 1 < _condEnd && isSpecialChar(_str.charAt(i + 1)))
+      {
+        sb.append(_str.charAt(++i));
+        continue;
+      }
+      // Any comma reaching this point is unescaped
+      if (isListOp && c == VALUE_SEPARATOR)
+      {
+        valList.add(sb.toString());
+        if (sb.length() > 0) keepSize = valList.size();
+        sb.setLength(0);
+        continue;
+      }
+      sb.append(c);
+    }
+    valList.add(sb.toString());
+    // Drop any trailing empty values
+    if (!isListOp || sb.length() > 0) keepSize = valList.size();
+    return new SearchCondition(attr, _op, valList.subList(0, keepSize));
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /**
+   * Walk the characters of the token or condition and record the state needed for validation.
+   * @param inList true if scanning a search list
+   */
+  private void scan(boolean inList)
+  {
+    int len = _str.length();
+    int i = _tokenStart;
+    boolean escaped = false;
+    if (inList && i < len && _str.charAt(i) == '(')
+    {
+      _hasOpenParen = true;
+      _condStart = ++i;
+    }
+    for (; i < len; i++)
+    {
+      char c = _str.charAt(i);
+      if (inList && !escaped && c == COND_DELIMITER) break;
+      escaped = !escaped && c == ESCAPE_CHAR;
+      boolean isBlankChar = Character.isWhitespace(c);
+      if (!isBlankChar) _condNonBlank++;
+
+      if (_dot1 < 0)
+      {
+        // Attribute. A dot followed by a JSON path key, rather than by the operator, continues the attribute.
+        if (c == '.')
+        {
+          if (_attrValid && isPathKeyAt(i + 1)) continue;
+          _dot1 = i;
+          continue;
+        }
+        if (!isBlankChar) _attrNonBlank++;
+        if (i == _condStart ? !isAsciiLetter(c) : !(isAsciiLetter(c) || isAsciiDigit(c) || c == '_')) _attrValid = false;
+      }
+      else if (_dot2 < 0)
+      {
+        // Operator
+        if (c == '.') { _dot2 = i; _op = lookupOperator(_dot1 + 1, i); if (_valueOp == null) _valueOp = _op; continue; }
+        if (!isBlankChar) _opNonBlank++;
+      }
+      else
+      {
+        // Value
+        if (!isBlankChar) _valNonBlank++;
+        if (isSpecialChar(c) && _str.charAt(i - 1) != ESCAPE_CHAR)
+        {
+          if (c == VALUE_SEPARATOR && SearchUtils.listOpSet.contains(_valueOp))
+          {
+            _hasSeparator = true;
+            if (_segLen > 0) _lastNonEmptySeg = _segIdx;
+            _segIdx++;
+            _segLen = 0;
+            continue;
+          }
+          if (_badValPos < 0) _badValPos = i;
+        }
+        _segLen++;
+      }
+    }
+    _tokenEnd = i;
+    _condEnd = i;
+
+    // In a search list the closing parenthesis is not part of the condition. Back out its effect on the state.
+    if (_hasOpenParen && _tokenEnd > _condStart && _str.charAt(_tokenEnd - 1) == ')')
+    {
+      _hasCloseParen = true;
+      _condEnd = _tokenEnd - 1;
+      _condNonBlank--;
+      if (_dot2 >= 0)
+      {
+        _valNonBlank--;
+        _segLen--;
+        if (_badValPos == _condEnd) _badValPos = -1;
+      }
+    }
+    else if (inList && !_hasOpenParen && _tokenEnd > _tokenStart && _str.charAt(_tokenEnd - 1) == ')')
+    {
+      _hasCloseParen = true;
+    }
+    if (_segLen > 0) _lastNonEmptySeg = _segIdx;
+  }
+
+  /**
+   * Check if a JSON path key starts at a position. It must not be an operator and must be followed by further
+   *   keys and then an operator. A segment that is an operator ends the attribute, so a condition without a path
+   *   is never reinterpreted because of dots in its value.
+   * @param start position following a dot in the attribute
+   * @return true if a key followed by an operator
+   */
+  private boolean isPathKeyAt(int start)
+  {
+    int len = _str.length();
+    int segStart = start;
+    for (int i = start; i < len; i++)
+    {
+      char c = _str.charAt(i);
+      if (c == '.')
+      {
+        // The first segment must be a key. The first later segment that is an operator ends the path.
+        if (i == segStart) return false;
+        if (lookupOperator(segStart, i) != null) return segStart > start;
+        segStart = i + 1;
+        continue;
+      }
+      // A segment containing any other character is not a key and an operator must be followed by a dot
+      if (!(isAsciiLetter(c) || isAsciiDigit(c) || c == '_')) return false;
+    }
+    return false;
+  }
+
+  /**
+   * Find the search operator matching a region of the input, ignoring case.
+   * @return the operator or null if no match
+   */
+  private SearchOperator lookupOperator(int start, int end)
+  {
+    int len = end - start;
+    for (SearchOperator op : SEARCH_OPS)
+    {
+      String name = op.name();
+      if (name.length() == len && _str.regionMatches(true, start, name, 0, len)) return op;
+    }
+    return null;
+  }
+
+  private static boolean isAsciiLetter(char c) { return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'); }
+
+  private static boolean isAsciiDigit(char c) { return c >= '0' && c <= '9'; }
+}
@@ -0,0 +1,384 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.parser.ASTCanonicalizer;
+import edu.utexas.tacc.tapis.search.parser.ASTNode;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded concurrent cache of search results, e.g. a page of resources returned by a list endpoint.
+ * An entry is keyed by tenant, resource type and a query key built by queryKey() from the canonical form of the
+ *   search, the projection, the order and the page, so equivalent searches share an entry.
+ *
+ * Invalidation:
+ *   - Each tenant and resource type has a version. The version is part of the key of each entry loaded for
+ *     them, so invalidate(), which increments the version, makes all their entries unreachable in O(1)
+ *     without scanning keys. Writers call it after changing a resource.
+ *   - The version is read before a result is loaded, so a result loaded while a writer invalidates is stored
+ *     under the old version and never returned.
+ *   - Entries of an old version are removed first when space is needed.
+ *
+ * Design:
+ *   - Lookups read a ConcurrentHashMap and do not take a lock. A hit only sets a reference bit on the entry.
+ *   - Inserts take a lock. Loading is done before the lock is taken and a null result is not cached.
+ *   - The size is bounded in bytes. The size of an entry is estimated by a weigher given by the service for
+ *     the value plus the size of its key. A value larger than the bound is not cached.
+ *   - Eviction uses a CLOCK scan, entries hit since the last scan get a second chance.
+ *   - Hit, miss, eviction and invalidation counts are kept using LongAdders.
+ *
+ * @param <V> type of cached result
+ */
+public final class SearchResultCache<V>
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Estimated bytes used by an entry in addition to its key and value
+  private static final long ENTRY_OVERHEAD = 96;
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final String name;
+  private final long maximumBytes;
+  private final ToLongFunction<? super V> weigher;
+
+  private final ConcurrentHashMap<String, Node<V>> data = new ConcurrentHashMap<>();
+  // Versions keyed by tenant and resource type
+  private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+  // Guarded by lock
+  private final ReentrantLock lock = new ReentrantLock();
+  private final ArrayDeque<Node<V>> clock = new ArrayDeque<>();
+  private long totalBytes;
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+  private final LongAdder invalidationCount = new LongAdder();
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  /**
+   * @param name name of cache for reporting
+   * @param maximumBytes maximum estimated size of the cached entries, 0 disables caching
+   * @param weigher estimated size in bytes of a value
+   * @throws IllegalArgumentException if weigher is null
+   */
+  public SearchResultCache(String name, long maximumBytes, ToLongFunction<? super V> weigher)
+  {
+    if (weigher == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchResultCache", "weigher"));
+    this.name = name;
+    this.maximumBytes = Math.max(0, maximumBytes);
+    this.weigher = weigher;
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Loader called on a cache miss
+   * @param <V> type of result
+   * @param <E> type of exception thrown by the search
+   */
+  @FunctionalInterface
+  public interface Loader<V, E extends Exception>
+  {
+    V load() throws E;
+  }
+
+  /**
+   * Build a query key for a search given as a list of conditions. The conditions are canonicalized.
+   * @param conditions processed search conditions, may be null or empty
+   * @param select projection of the search, null for all attributes
+   * @param orderBy order of the search, may be null
+   * @param page page requested, e.g. the limit and skip or cursor, may be null
+   * @return the query key
+   */
+  public static String queryKey(List<SearchCondition> conditions, SelectList select, OrderBy orderBy, String page)
+  {
+    String searchKey = (conditions == null || conditions.isEmpty()) ? "" :
+            SearchCanonicalizer.canonicalKey(SearchCanonicalizer.canonicalize(conditions));
+    return queryKey(searchKey, select, orderBy, page);
+  }
+
+  /**
+   * Build a query key for a search given as an expression. The expression is canonicalized.
+   * @param node root of the AST, may be null for no conditions
+   * @param select projection of the search, null for all attributes
+   * @param orderBy order of the search, may be null
+   * @param page page requested, e.g. the limit and skip or cursor, may be null
+   * @return the query key
+   */
+  public static String queryKey(ASTNode node, SelectList select, OrderBy orderBy, String page)
+  {
+    String searchKey = (node == null) ? "" : ASTCanonicalizer.canonicalKey(ASTCanonicalizer.canonicalize(node));
+    return queryKey(searchKey, select, orderBy, page);
+  }
+
+  /**
+   * Return the cached result of a search, loading and caching it if not present
+   * @param tenant tenant id
+   * @param resourceType type of resource searched, e.g. systems
+   * @param queryKey key built by queryKey()
+   * @param loader runs the search on a miss
+   * @param <E> type of exception thrown by loader
+   * @return the result
+   * @throws E if the search fails, the failure is not cached
+   * @throws IllegalArgumentException if a parameter is null
+   */
+  public <E extends Exception> V get(String tenant, String resourceType, String queryKey, Loader<V, E> loader)
+    throws E
+  {
+    if (tenant == null || resourceType == null || queryKey == null || loader == null)
+    {
+      String param = (tenant == null) ? "tenant" : (resourceType == null) ? "resourceType" :
+                     (queryKey == null) ? "queryKey" : "loader";
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SearchResultCache", param));
+    }
+    AtomicLong versionRef = getVersionRef(tenant, resourceType);
+    long version = versionRef.get();
+    String key = appendPart(appendPart(new StringBuilder(), tenant), resourceType)
+                   .append(version).append(':').append(queryKey).toString();
+    Node<V> node = data.get(key);
+    if (node != null)
+    {
+      node.referenced = true;
+      hitCount.increment();
+      return node.value;
+    }
+
+    missCount.increment();
+    V value = loader.load();
+    if (value != null) put(new Node<>(key, value, weigh(key, value), versionRef, version));
+    return value;
+  }
+
+  /**
+   * Invalidate all cached results of a tenant and resource type. Called after a resource is written.
+   * @param tenant tenant id
+   * @param resourceType type of resource written
+   */
+  public void invalidate(String tenant, String resourceType)
+  {
+    if (tenant == null || resourceType == null) return;
+    getVersionRef(tenant, resourceType).incrementAndGet();
+    invalidationCount.increment();
+  }
+
+  /**
+   * @param tenant tenant id
+   * @param resourceType type of resource
+   * @return current version of the results of the tenant and resource type
+   */
+  public long getVersion(String tenant, String resourceType)
+  {
+    AtomicLong versionRef = versions.get(versionKey(tenant, resourceType));
+    return (versionRef == null) ? 0 : versionRef.get();
+  }
+
+  /**
+   * Remove all entries. Versions and counters are not reset.
+   */
+  public void clear()
+  {
+    lock.lock();
+    try
+    {
+      data.clear();
+      clock.clear();
+      totalBytes = 0;
+    }
+    finally { lock.unlock(); }
+  }
+
+  /**
+   * @return number of cached results, including those of old versions not yet removed
+   */
+  public int size() { return data.size(); }
+
+  /**
+   * @return snapshot of the cache counters
+   */
+  public Stats getStats()
+  {
+    long bytes;
+    lock.lock();
+    try { bytes = totalBytes; }
+    finally { lock.unlock(); }
+    return new Stats(name, maximumBytes, data.size(), bytes, hitCount.sum(), missCount.sum(), evictionCount.sum(),
+                     invalidationCount.sum());
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Build a query key from its parts, each prefixed by its length so different parts never give the same key
+   */
+  private static String queryKey(String searchKey, SelectList select, OrderBy orderBy, String page)
+  {
+    var sb = new StringBuilder();
+    appendPart(sb, searchKey);
+    appendPart(sb, (select == null) ? "" : select.toSql());
+    appendPart(sb, (orderBy == null) ? "" : orderBy.toString());
+    appendPart(sb, (page == null) ? "" : page);
+    return sb.toString();
+  }
+
+  private static StringBuilder appendPart(StringBuilder sb, String part)
+  {
+    return sb.append(part.length()).append(':').append(part);
+  }
+
+  private static String versionKey(String tenant, String resourceType)
+  {
+    return appendPart(appendPart(new StringBuilder(), tenant), resourceType).toString();
+  }
+
+  private AtomicLong getVersionRef(String tenant, String resourceType)
+  {
+    return versions.computeIfAbsent(versionKey(tenant, resourceType), k -> new AtomicLong());
+  }
+
+  /*
+   * Estimated size of an entry, a char of the key is two bytes
+   */
+  private long weigh(String key, V value)
+  {
+    return ENTRY_OVERHEAD + 2L * key.length() + Math.max(0, weigher.applyAsLong(value));
+  }
+
+  /*
+   * Insert a new entry, evicting entries until the total size is within the bound
+   */
+  private void put(Node<V> node)
+  {
+    if (node.weight > maximumBytes) return;
+    lock.lock();
+    try
+    {
+      // Another thread may have loaded the same key
+      if (data.containsKey(node.key)) return;
+      data.put(node.key, node);
+      clock.addLast(node);
+      totalBytes += node.weight;
+      while (totalBytes > maximumBytes)
+      {
+        Node<V> victim = findVictim();
+        clock.pollFirst();
+        data.remove(victim.key);
+        totalBytes -= victim.weight;
+        evictionCount.increment();
+      }
+    }
+    finally { lock.unlock(); }
+  }
+
+  /*
+   * CLOCK scan for an entry to evict. An entry of an old version is taken at once, other entries referenced
+   *   since the last scan get a second chance. On return the victim is at the head of the queue.
+   */
+  private Node<V> findVictim()
+  {
+    for (int i = clock.size(); i > 0; i--)
+    {
+      Node<V> head = clock.peekFirst();
+      if (head.isStale() || !head.referenced) return head;
+      head.referenced = false;
+      clock.addLast(clock.pollFirst());
+    }
+    return clock.peekFirst();
+  }
+
+  /* ********************************************************************** */
+  /*                            Node Class                                  */
+  /* ********************************************************************** */
+  private static final class Node<V>
+  {
+    private final String key;
+    private final V value;
+    private final long weight;
+    // Version of the tenant and resource type when the value was loaded
+    private final AtomicLong versionRef;
+    private final long version;
+    // Set on each hit, cleared by the CLOCK scan
+    private volatile boolean referenced;
+
+    private Node(String key, V value, long weight, AtomicLong versionRef, long version)
+    {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+      this.versionRef = versionRef;
+      this.version = version;
+    }
+
+    private boolean isStale() { return versionRef.get() != version; }
+  }
+
+  /* ********************************************************************** */
+  /*                            Stats Class                                 */
+  /* ********************************************************************** */
+  /**
+   * Snapshot of cache counters
+   */
+  public static final class Stats
+  {
+    private final String name;
+    private final long maximumBytes;
+    private final int size;
+    private final long bytes;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long invalidationCount;
+
+    private Stats(String name, long maximumBytes, int size, long bytes, long hitCount, long missCount,
+                  long evictionCount, long invalidationCount)
+    {
+      this.name = name;
+      this.maximumBytes = maximumBytes;
+      this.size = size;
+      this.bytes = bytes;
+      this.hitCount = hitCount;
+      this.missCount = missCount;
+      this.evictionCount = evictionCount;
+      this.invalidationCount = invalidationCount;
+    }
+
+    public String getName() { return name; }
+    public long getMaximumBytes() { return maximumBytes; }
+    public int getSize() { return size; }
+    public long getBytes() { return bytes; }
+    public long getHitCount() { return hitCount; }
+    public long getMissCount() { return missCount; }
+    public long getEvictionCount() { return evictionCount; }
+    public long getInvalidationCount() { return invalidationCount; }
+
+    /**
+     * @return fraction of lookups answered from the cache. 1.0 if no lookups.
+     */
+    public double getHitRatio()
+    {
+      long total = hitCount + missCount;
+      return (total == 0) ? 1.0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString()
+    {
+      return name + " size=" + size + " bytes=" + bytes + "/" + maximumBytes + " hits=" + hitCount + " misses=" +
+             missCount + " evictions=" + evictionCount + " invalidations=" + invalidationCount;
+    }
+  }
+}
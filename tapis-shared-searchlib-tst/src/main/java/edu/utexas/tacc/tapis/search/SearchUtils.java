@@ -1,27 +1,25 @@
 package edu.utexas.tacc.tapis.search;
 
+import edu.utexas.tacc.tapis.search.SearchValueValidators.ValueValidator;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import edu.utexas.tacc.tapis.shared.utils.TapisTimestampParser;
 import edu.utexas.tacc.tapis.shared.utils.TapisUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.core.MultivaluedMap;
 
+import java.sql.JDBCType;
 import java.sql.Types;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -42,22 +40,17 @@ public class SearchUtils
   // Local logger.
   private static final Logger _log = LoggerFactory.getLogger(SearchUtils.class);
 
-  // Regex for parsing (<attr1>.<op>.<val1>)~(<attr2>.<op>.<val2>) ... See validateAndExtractSearchList
-  private static final String SEARCH_REGEX = "(?:\\\\.|[^~\\\\]++)+";
-
-  // Our special characters. These must be escaped when appearing in a value
-  private static final List<Character> SEARCH_VAL_SPECIAL_CHARS = Arrays.asList('~', ',', '(', ')');
-
   // ************************************************************************
   // *********************** Enums ******************************************
   // ************************************************************************
 
   // Reserved query parameters that cannot be specified when using a dedicated search endpoint
-  public enum ReservedQueryParm {PRETTY, SELECT, SEARCH, LIMIT, OFFSET}
+  public enum ReservedQueryParm {PRETTY, SELECT, SEARCH, LIMIT, OFFSET, ORDERBY, CURSOR}
   public static final Set<String> RESERVED_QUERY_PARMS = Stream.of(ReservedQueryParm.values()).map(Enum::name).collect(Collectors.toSet());
 
   // Supported operators for search
-  public enum SearchOperator {EQ, NEQ, GT, GTE, LT, LTE, IN, NIN, LIKE, NLIKE, BETWEEN, NBETWEEN}
+  public enum SearchOperator {EQ, NEQ, GT, GTE, LT, LTE, IN, NIN, LIKE, NLIKE, BETWEEN, NBETWEEN,
+                              CONTAINS, CONTAINS_ANY, CONTAINS_ALL, MATCH}
   // All search operator strings as a set
   public static final Set<String> SEARCH_OP_SET = Stream.of(SearchOperator.values()).map(Enum::name).collect(Collectors.toSet());
 
@@ -81,10 +74,14 @@ public class SearchUtils
   // Operators allowed for search when column is a boolean type
   public static final EnumSet<SearchOperator> BOOLEAN_OPSET =
         EnumSet.of(SearchOperator.EQ, SearchOperator.NEQ);
+  // Operators allowed for search when column is an array type, values are elements of the array
+  public static final EnumSet<SearchOperator> ARRAY_OPSET =
+        EnumSet.of(SearchOperator.CONTAINS, SearchOperator.CONTAINS_ANY, SearchOperator.CONTAINS_ALL);
 
   // Operators for which the value may be a list
   public static final EnumSet<SearchOperator> listOpSet =
-        EnumSet.of(SearchOperator.IN, SearchOperator.NIN, SearchOperator.BETWEEN, SearchOperator.NBETWEEN);
+        EnumSet.of(SearchOperator.IN, SearchOperator.NIN, SearchOperator.BETWEEN, SearchOperator.NBETWEEN,
+                   SearchOperator.CONTAINS_ANY, SearchOperator.CONTAINS_ALL);
 
   // Map of java sql type to list of allowed search operators
   public static final Map<Integer, EnumSet<SearchOperator>> ALLOWED_OPS_BY_TYPE =
@@ -101,7 +98,8 @@ public class SearchUtils
                         Map.entry(Types.TINYINT, NUMERIC_OPSET),
                         Map.entry(Types.BOOLEAN, BOOLEAN_OPSET),
                         Map.entry(Types.DATE, TIMESTAMP_OPSET),
-                        Map.entry(Types.TIMESTAMP, TIMESTAMP_OPSET));
+                        Map.entry(Types.TIMESTAMP, TIMESTAMP_OPSET),
+                        Map.entry(Types.ARRAY, ARRAY_OPSET));
 
   /**
    * Convert a string into a SearchOperator
@@ -128,53 +126,15 @@ public class SearchUtils
    */
   public static List<String> extractAndValidateSearchList(String searchListStr) throws IllegalArgumentException
   {
-    var searchList = new ArrayList<String>();
-    if (StringUtils.isBlank(searchListStr)) return searchList;
-    _log.trace("Parsing SearchList: " + searchListStr);
-    // Parse search string into a list of conditions using a regex pattern to split
-    // Set delimiter as ~ and escape as \
-    //    SEARCH_REGEX = "(?:\\\\.|[^~\\\\]++)+"
-    //        "(" +          // start a match group
-    //        "?:" +         // match either of
-    //        escape + "." + // any escaped character
-    //        "|" +          // or
-    //        "[^" + delimiter + escape + "]++" + // match any char except delim or escape, possessive match
-    //        ")" +          // end a match group
-    //        "+";           // repeat any number of times, ignoring empty results. Use * instead of + to include empty results
-    Pattern regexPattern = Pattern.compile(SEARCH_REGEX);
-    Matcher regexMatcher = regexPattern.matcher(searchListStr);
-    while (regexMatcher.find()) { searchList.add(regexMatcher.group()); }
-    // If we found only one match the searchList string may be a single condition that may or may not
-    // be surrounded by parentheses. So handle that case.
-    if (searchList.size() == 1)
-    {
-      String cond = searchList.get(0);
-      // Add parentheses if not present, check start and end
-      // Check for unbalanced parentheses in below loop over the search list
-      if (!cond.startsWith("(") && !cond.endsWith(")")) cond = "(" + cond + ")";
-      searchList.set(0, cond);
-    }
-
     var retList = new ArrayList<String>();
-    // Validate and process each condition. IllegalArg thrown if invalid
-    for (String cond : searchList)
+    if (StringUtils.isBlank(searchListStr)) return retList;
+    _log.trace("Parsing SearchList: " + searchListStr);
+    // Split the list on unescaped ~ and validate the form of each condition in a single scan.
+    // Empty conditions, e.g. (), are skipped. IllegalArg thrown if invalid
+    for (SearchListScanner scanner : SearchListScanner.scanSearchList(searchListStr))
     {
-      // Check for unbalanced parens. At this point the condition should not be blank and should be surrounded
-      //   by parentheses
-      if (StringUtils.isBlank(cond) || !cond.startsWith("(") || !cond.endsWith(")"))
-      {
-        String errMsg = MsgUtils.getMsg("SEARCH_COND_UNBALANCED", cond);
-        throw new IllegalArgumentException(errMsg);
-      }
-
-      // At this point the condition must have surrounding parentheses. Strip them off.
-      String bareCond = cond.substring(1, cond.length() - 1);
-      // Validate the form of the condition
-      validateSearchConditionForm(bareCond);
-      retList.add(bareCond);
+      retList.add(scanner.getCondition());
     }
-    // Remove any empty matches, e.g. () might have been included one or more times
-    retList.removeIf(item -> StringUtils.isBlank(item));
     return retList;
   }
 
@@ -194,9 +154,7 @@ public class SearchUtils
     if (StringUtils.isBlank(cond)) return;
 
     // Validate the 3 components of a condition
-    extractAttribute(cond);
-    SearchOperator operator = extractOperator(cond);
-    extractFullValueStr(cond, operator);
+    SearchListScanner.scanCondition(cond, null).checkForm();
   }
 
   /**
@@ -214,60 +172,48 @@ public class SearchUtils
   public static String validateAndProcessSearchCondition(String cond) throws IllegalArgumentException
   {
     _log.trace("Validate and process search condition: " + cond);
-    String retCond = cond;
     // A blank string is OK at this point and means we are done
-    if (StringUtils.isBlank(retCond)) return retCond;
-
-    // Validate and extract the 3 components of a condition
-    String attr = extractAttribute(retCond);
-    SearchOperator operator = extractOperator(retCond);
-    String fullValueStr = extractFullValueStr(retCond, operator);
-
-    // <value> may be a list so always build a list to simplify the logic below
-    // If the operator takes a list set a flag since it will require special processing
-    List<String> valList;
-    boolean isListOperator = listOpSet.contains(operator);
-    if (isListOperator) valList = getValueList(fullValueStr); else valList = Collections.singletonList(fullValueStr);
+    if (StringUtils.isBlank(cond)) return cond;
+    return parseSearchCondition(cond).toString();
+  }
 
-    // For all operators except LIKE/NLIKE we can now unescape our special characters
-    // LIKE/NLIKE deal with escaped characters (as opposed to EQ for example) but require special
-    //   processing because of *! and %_. So leaving in escapes for LIKE/NLIKE simplifies processing.
-    if (!operator.equals(SearchOperator.LIKE) && !operator.equals(SearchOperator.NLIKE))
-    {
-      var valListTmp = new ArrayList<String>();
-      for (String val : valList)
-      {
-        // Unescape our special chars. For list operators commas are left escaped
-        valListTmp.add(unescapeSpecialChars(val, isListOperator));
-      }
-      valList = valListTmp;
-    }
+  /**
+   * Validate and process a search condition that must have the form <attr>.<op>.<value>
+   * Same processing as validateAndProcessSearchCondition() but the result is returned as a typed condition
+   *   so that callers need not split the value or remove escapes again.
+   * @param cond the condition to process
+   * @return the validated and processed condition, null if condition is blank
+   * @throws IllegalArgumentException if condition is invalid
+   */
+  public static SearchCondition parseSearchCondition(String cond) throws IllegalArgumentException
+  {
+    if (StringUtils.isBlank(cond)) return null;
+    // Validate the 3 components of a condition and then build the processed condition
+    var scanner = SearchListScanner.scanCondition(cond, null);
+    scanner.checkForm();
+    return scanner.toSearchCondition();
+  }
 
-    // For LIKE/NLIKE translate special characters as needed
-    // Not a list operator so only one value in valList
-    // * -> %
-    // ! -> _
-    if (operator.equals(SearchOperator.LIKE) || operator.equals(SearchOperator.NLIKE))
+  /**
+   * Extract, validate and process a list of search conditions provided as a single string
+   * Search list string must have the form  (<cond>)~(<cond>)~ ...
+   *    where <cond> = <attr>.<op>.<value>
+   * Equivalent to extractAndValidateSearchList() followed by parseSearchCondition() for each condition but
+   *   the search list is scanned only once.
+   * @param searchListStr - String containing all search conditions
+   * @return the list of processed search conditions
+   * @throws IllegalArgumentException if error encountered while parsing.
+   */
+  public static List<SearchCondition> extractSearchConditions(String searchListStr) throws IllegalArgumentException
+  {
+    var retList = new ArrayList<SearchCondition>();
+    if (StringUtils.isBlank(searchListStr)) return retList;
+    _log.trace("Parsing SearchList: " + searchListStr);
+    for (SearchListScanner scanner : SearchListScanner.scanSearchList(searchListStr))
     {
-      // Existing % and _ must be escaped before going to SQL
-      //  so escape any unescaped %, _ characters
-      fullValueStr = fullValueStr.replaceAll("(?<!\\\\)%", "\\\\%"); // match % but not \%
-      fullValueStr = fullValueStr.replaceAll("(?<!\\\\)_", "\\\\_"); // match _ but not \_
-      // Now do translations
-      // Use regex to skip escaped characters
-      fullValueStr = fullValueStr.replaceAll("(?<!\\\\)\\*", "%"); // match * but not \*
-      fullValueStr = fullValueStr.replaceAll("(?<!\\\\)!", "_"); // match ! but not \!
-      valList = Collections.singletonList(fullValueStr);
+      retList.add(scanner.toSearchCondition());
     }
-
-    // Rebuild the list
-    // NOTE that at this point each individual value in the list should not have any unescaped commas,
-    //   because if it had then they would create separate items in the list when processed above.
-    StringJoiner sj = new StringJoiner(",");
-    for (String v : valList) { sj.add(v); }
-    fullValueStr = sj.toString();
-    retCond = attr + "." + operator.name() + "." + fullValueStr;
-    return retCond;
+    return retList;
   }
 
   /**
@@ -277,7 +223,7 @@ public class SearchUtils
    */
   public static List<String> getValueList(String valStr)
   {
-    return Arrays.asList(valStr.split("(?<!\\\\),"));
+    return SearchListScanner.splitValueList(valStr);
   }
 
   /**
@@ -301,6 +247,23 @@ public class SearchUtils
     return sj.toString();
   }
 
+  /**
+   * Convert the values of a condition into strings suitable for sql operators.
+   * The values must have already been checked for validity as a Tapis timestamp
+   * @param cond processed search condition
+   * @return Resulting list of strings
+   */
+  public static List<String> convertValuesToTimestamps(SearchCondition cond)
+  {
+    var retList = new ArrayList<String>(cond.getValues().size());
+    for (String tStr : cond.getValues())
+    {
+      LocalDateTime t = TapisUtils.getUTCTimeFromString(tStr);
+      retList.add(TapisUtils.getSQLStringFromUTCTime(t));
+    }
+    return retList;
+  }
+
   /**
    * Check that value and sqlType are compatible for a value or list of values.
    * sqlTypeName, tableName and colName used only for logging
@@ -316,23 +279,35 @@ public class SearchUtils
                                                  String sqlTypeName, String tableName, String colName)
   {
     if (StringUtils.isBlank(valStr)) return true;
-    List<String> valList;
-    // Build list of values to check
-    if (listOpSet.contains(op))
-      valList = getValueList(valStr);
-    else
-      valList = new ArrayList<>(Collections.singletonList(valStr));
-    // Check each value
-    for (String val : valList)
-    {
-      if (!validateTypeAndValue(sqlType, val, sqlTypeName))
-      {
-        String msg = MsgUtils.getMsg("SEARCH_DB_INVALID_SEARCH_VALUE", op.name(), sqlTypeName, val, tableName, colName);
-        _log.error(msg);
-        return false;
-      }
-    }
-    return true;
+    ValueValidator validator = getValidator(sqlType, sqlTypeName);
+    // Check each value in place, without splitting a list
+    String val = (validator == null) ? valStr : SearchValueValidators.findInvalidValue(validator, valStr,
+                                                                                      listOpSet.contains(op));
+    if (val == null) return true;
+    String msg = MsgUtils.getMsg("SEARCH_DB_INVALID_SEARCH_VALUE", op.name(), sqlTypeName, val, tableName, colName);
+    _log.error(msg);
+    return false;
+  }
+
+  /**
+   * Check that the values of a condition and sqlType are compatible.
+   * sqlTypeName, tableName and colName used only for logging
+   * @param sqlType sql type to check against
+   * @param cond processed search condition
+   * @param sqlTypeName name for sql type - logging only
+   * @param tableName name of table - logging only
+   * @param colName column name - logging only
+   * @return true if valid, else false
+   */
+  public static boolean validateTypeAndValueList(int sqlType, SearchCondition cond,
+                                                 String sqlTypeName, String tableName, String colName)
+  {
+    String val = findInvalidValue(sqlType, cond, sqlTypeName);
+    if (val == null) return true;
+    String msg = MsgUtils.getMsg("SEARCH_DB_INVALID_SEARCH_VALUE", cond.getOperator().name(), sqlTypeName, val,
+                                 tableName, colName);
+    _log.error(msg);
+    return false;
   }
 
   /**
@@ -366,19 +341,73 @@ public class SearchUtils
     return searchList;
   }
 
+  /**
+   * Build a list of processed search conditions from query parameters. Query parameters use the format
+   *   <attr>.<op>=<value>
+   * Reserved query parameters are ignored.
+   * @param queryParms map of query parameters
+   * @return list of processed search conditions, null if no query parameters
+   * @throws IllegalArgumentException if an invalid condition is encountered
+   */
+  public static List<SearchCondition> buildConditionsFromQueryParms(MultivaluedMap<String,String> queryParms)
+    throws IllegalArgumentException
+  {
+    if (queryParms == null || queryParms.isEmpty()) return null;
+    var condList = new ArrayList<SearchCondition>();
+    for (Map.Entry<String,List<String>> qParm: queryParms.entrySet())
+    {
+      String qKey = qParm.getKey();
+      if (RESERVED_QUERY_PARMS.contains(qKey.toUpperCase())) continue;
+      for (String val : qParm.getValue())
+      {
+        SearchCondition cond = parseSearchCondition(qKey + "." + val);
+        if (cond != null) condList.add(cond);
+      }
+    }
+    return condList;
+  }
+
+  /**
+   * Convert an attribute to the key of its column, the snake case form of the attribute.
+   * For a path into a jsonb column, e.g. notes.projectName, only the column part is converted since keys are
+   *   case sensitive, e.g. notes.projectName and notes.projectname are different keys.
+   * @param attr attribute, may be a path
+   * @return column key for the attribute
+   */
+  public static String attributeToColumnKey(String attr)
+  {
+    if (!JsonPathSearch.isPath(attr)) return camelCaseToSnakeCase(attr);
+    int dot = attr.indexOf('.');
+    return camelCaseToSnakeCase(attr.substring(0, dot)) + attr.substring(dot);
+  }
+
   /**
    * Convert a string from camelcase to snakecase.
    * If input string is null or empty then input string is returned
+   * An underscore is inserted before an upper case letter that follows a lower case letter, e.g. thisColumn,
+   *   or that follows an upper case letter and is followed by a lower case letter, e.g. ThisIsAColumn.
+   *   Only ASCII letters are considered. This is the same as applying the regular expressions
+   *   ([A-Z]+)([A-Z][a-z]) and ([a-z])([A-Z]) in turn, but done in a single scan.
    * @param str string to convert
    * @return resulting string converted to snakecase
    */
   public static String camelCaseToSnakeCase(String str)
   {
     if (StringUtils.isBlank(str)) return str;
-    String regex1 = "([A-Z]+)([A-Z][a-z])";
-    String regex2 = "([a-z])([A-Z])";
-    String retStr = str.replaceAll(regex1, "$1_$2").replaceAll(regex2,"$1_$2");
-    return retStr.toLowerCase();
+    int len = str.length();
+    var sb = new StringBuilder(len + 4);
+    for (int i = 0; i < len; i++)
+    {
+      char c = str.charAt(i);
+      if (i > 0 && isAsciiUpper(c))
+      {
+        char prev = str.charAt(i - 1);
+        if (isAsciiLower(prev) || (isAsciiUpper(prev) && i + 1 < len && isAsciiLower(str.charAt(i + 1))))
+          sb.append('_');
+      }
+      sb.append(c);
+    }
+    return sb.toString().toLowerCase();
   }
 
 
@@ -386,46 +415,6 @@ public class SearchUtils
   // **************************  Private Methods  ***************************
   // ************************************************************************
 
-  private static boolean isInteger(String valStr)
-  {
-    try { Integer.parseInt(valStr); } catch(NumberFormatException e) { return false; }
-    return true;
-  }
-
-  private static boolean isLong(String valStr)
-  {
-    try { Long.parseLong(valStr); } catch(NumberFormatException e) { return false; }
-    return true;
-  }
-
-  private static boolean isShort(String valStr)
-  {
-    try { Short.parseShort(valStr); } catch(NumberFormatException e) { return false; }
-    return true;
-  }
-
-  private static boolean isDouble(String valStr)
-  {
-    try { Double.parseDouble(valStr); } catch(NumberFormatException e) { return false; }
-    return true;
-  }
-
-  private static boolean isFloat(String valStr)
-  {
-    try { Float.parseFloat(valStr); } catch(NumberFormatException e) { return false; }
-    return true;
-  }
-
-  /**
-   * Check that value given as a string is a valid Tapis numeric
-   * @param valStr value to check
-   * @return true if valid, else false
-   */
-  private static boolean isNumeric(String valStr)
-  {
-    return NumberUtils.isCreatable(valStr);
-  }
-
   /**
    * Check that value given as a string is a valid Tapis Timestamp
    * Use default access instead of private for unit testing.
@@ -443,25 +432,12 @@ public class SearchUtils
    */
   static boolean isTimestamp(String valStr)
   {
-    // Use shared utility method to attempt to convert string to a timestamp
-    try { TapisUtils.getUTCTimeFromString(valStr); } catch(DateTimeParseException e) { return false; }
-    return true;
+    return TapisTimestampParser.isValid(valStr);
   }
 
-  /**
-   * Check that value given as a string is a valid Tapis boolean
-   * Do a case insensitive match against "true" and "false"
-   * @param valStr value to check
-   * @return true if valid, else false
-   */
-  private static boolean isBoolean(String valStr)
-  {
-    if (StringUtils.isBlank(valStr)) return false;
-    if (valStr.equalsIgnoreCase("true") || valStr.equalsIgnoreCase("false"))
-      return true;
-    else
-      return false;
-  }
+  private static boolean isAsciiUpper(char c) { return c >= 'A' && c <= 'Z'; }
+
+  private static boolean isAsciiLower(char c) { return c >= 'a' && c <= 'z'; }
 
   /**
    * Check that value and sqlType are compatible.
@@ -475,87 +451,54 @@ public class SearchUtils
    */
   private static boolean validateTypeAndValue(int sqlType, String valStr, String sqlTypeName)
   {
-    if (StringUtils.isBlank(valStr)) return false;
-    switch (sqlType)
-    {
-      case Types.CHAR:
-      case Types.VARCHAR:
-        if (StringUtils.isNotBlank(valStr)) return true;
-        break;
-      case Types.INTEGER:
-        if (isInteger(valStr)) return true;
-        break;
-      case Types.BIGINT:
-        if (isLong(valStr)) return true;
-        break;
-      case Types.SMALLINT:
-      case Types.TINYINT:
-        if (isShort(valStr)) return true;
-        break;
-      case Types.FLOAT:
-      case Types.DOUBLE:
-        if (isDouble(valStr)) return true;
-        break;
-      case Types.REAL:
-        if (isFloat(valStr)) return true;
-        break;
-      case Types.BOOLEAN:
-        if (isBoolean(valStr)) return true;
-        break;
-      case Types.NUMERIC:
-      case Types.DECIMAL:
-        if (isNumeric(valStr)) return true;
-        break;
-      case Types.DATE:
-      case Types.TIMESTAMP:
-        if (SearchUtils.isTimestamp(valStr)) return true;
-        break;
-      default:
-        // Sql Type not supported, log a warning and return false
-        String msg = MsgUtils.getMsg("SEARCH_DB_UNSUPPORTED_SQLTYPE", sqlType, sqlTypeName);
-        _log.warn(msg);
-        break;
-    }
-    return false;
+    ValueValidator validator = getValidator(sqlType, sqlTypeName);
+    return validator != null && validator.isValid(valStr);
   }
 
   /**
-   * Check for unescaped special characters in a value
-   * @param valStr value to check
-   * @return true if value contains no unescaped characters otherwise false
+   * Get the validator for a sql type. If the type is not supported log a warning and return null.
+   * @param sqlType sql type
+   * @param sqlTypeName name for sql type - logging only
+   * @return validator or null if not supported
    */
-  private static boolean validateValueSpecialChars(String valStr)
+  private static ValueValidator getValidator(int sqlType, String sqlTypeName)
   {
-    if (StringUtils.isBlank(valStr)) return true;
-
-    // regex=(?<!\\)<char> Match <char> but not \<char>
-    String regex = "(?<!" + Pattern.quote("\\") + ")";
-    for (Character c : SEARCH_VAL_SPECIAL_CHARS)
+    ValueValidator validator = SearchValueValidators.forType(sqlType);
+    if (validator == null)
     {
-      Pattern p = Pattern.compile(regex + Pattern.quote(c.toString()));
-      if (p.matcher(valStr).find()) return false;
+      // Sql Type not supported, log a warning
+      String msg = MsgUtils.getMsg("SEARCH_DB_UNSUPPORTED_SQLTYPE", sqlType, sqlTypeName);
+      _log.warn(msg);
     }
-    return true;
+    return validator;
   }
 
   /**
-   * Unescape Tapis special characters in a value
-   * Some operators take a list and for those commas must remain escaped
-   * @param valStr value to process
-   * @param isListOp indicates operator takes a list
-   * @return value with escape characters removed as appropriate
+   * Get the name of a sql type for messages
+   * @param sqlType java.sql.Types code
+   * @return type name, or the code as a string if not a known type
    */
-  private static String unescapeSpecialChars(String valStr, boolean isListOp)
+  static String getSqlTypeName(int sqlType)
   {
-    String retVal = valStr;
-    if (StringUtils.isBlank(valStr)) return valStr;
-    for (Character c : SEARCH_VAL_SPECIAL_CHARS)
+    try { return JDBCType.valueOf(sqlType).getName(); }
+    catch (IllegalArgumentException e) { return Integer.toString(sqlType); }
+  }
+
+  /**
+   * Find the first value of a condition that is not compatible with sqlType.
+   * sqlTypeName is only used for logging.
+   * @param sqlType sql type to check against
+   * @param cond processed search condition
+   * @param sqlTypeName name for sql type - logging only
+   * @return first invalid value or null if all values are valid
+   */
+  static String findInvalidValue(int sqlType, SearchCondition cond, String sqlTypeName)
+  {
+    for (String val : cond.getValues())
     {
-      if (isListOp &&  c.equals(',')) continue; // Commas remain escaped for list operators
-      String regex = "\\\\" + Pattern.quote(c.toString());
-      retVal = retVal.replaceAll(regex, c.toString()); // Replace \<char> with <char>
+      if (!validateTypeAndValue(sqlType, val, sqlTypeName)) return val;
     }
-    return retVal;
+    return null;
   }
 
   /**
@@ -566,29 +509,9 @@ public class SearchUtils
    */
   static String extractAttribute(String condStr)
   {
-    int dot1 = condStr.indexOf('.');
-    if (dot1 < 0)
-    {
-      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_NOATTR", condStr);
-      throw new IllegalArgumentException(errMsg);
-    }
-    String attr = condStr.substring(0, dot1);
-    // <attr> must not be empty
-    if (StringUtils.isBlank(attr))
-    {
-      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_NOATTR", condStr);
-      throw new IllegalArgumentException(errMsg);
-    }
-
-    // Validate <attr>
-    // <attr> must start with [a-zA-Z] and contain only [a-zA-Z0-9_]
-    Matcher m = (Pattern.compile("^[a-zA-Z][a-zA-Z0-9_]*$")).matcher(attr);
-    if (!m.find())
-    {
-      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_ATTR", condStr);
-      throw new IllegalArgumentException(errMsg);
-    }
-    return attr;
+    var scanner = SearchListScanner.scanCondition(condStr, null);
+    scanner.checkAttribute();
+    return scanner.getAttribute();
   }
 
   /**
@@ -599,34 +522,9 @@ public class SearchUtils
    */
   static SearchOperator extractOperator(String condStr)
   {
-    int dot1 = condStr.indexOf('.');
-    if (dot1 < 0)
-    {
-      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_NOOPER", condStr);
-      throw new IllegalArgumentException(errMsg);
-    }
-    int dot2 = condStr.indexOf('.', dot1 + 1);
-    if (dot2 < 0)
-    {
-      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_NOOPER", condStr);
-      throw new IllegalArgumentException(errMsg);
-    }
-    String op = condStr.substring(dot1 + 1, dot2);
-    // <op> must not be empty
-    if (StringUtils.isBlank(op))
-    {
-      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_NOOPER", condStr);
-      throw new IllegalArgumentException(errMsg);
-    }
-
-    // Validate <op>
-    // Verify <op> is supported.
-    if (!SEARCH_OP_SET.contains(op.toUpperCase()))
-    {
-      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_OP", op, condStr);
-      throw new IllegalArgumentException(errMsg);
-    }
-    return SearchOperator.valueOf(op.toUpperCase());
+    var scanner = SearchListScanner.scanCondition(condStr, null);
+    scanner.checkOperator();
+    return scanner.getOperator();
   }
 
   /**
@@ -637,48 +535,8 @@ public class SearchUtils
    */
   static String extractFullValueStr(String condStr, SearchOperator operator)
   {
-    int dot1 = condStr.indexOf('.');
-    if (dot1 < 0)
-    {
-      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_NOVAL", condStr);
-      throw new IllegalArgumentException(errMsg);
-    }
-    int dot2 = condStr.indexOf('.', dot1 + 1);
-    if (dot2 < 0)
-    {
-      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_NOVAL", condStr);
-      throw new IllegalArgumentException(errMsg);
-    }
-    String fullValueStr = condStr.substring(dot2 + 1);
-    // <val> must not be empty
-    if (StringUtils.isBlank(fullValueStr))
-    {
-      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_NOVAL", condStr);
-      throw new IllegalArgumentException(errMsg);
-    }
-
-    // Validate and process <value>
-    // <value> may be a list so always build a list to simplify the logic below
-    List<String> valList;
-    if (listOpSet.contains(operator)) valList = getValueList(fullValueStr); else valList = Collections.singletonList(fullValueStr);
-
-    // Make sure each value does not have any of our special characters that are unescaped.
-    for (String val : valList)
-    {
-      if (!validateValueSpecialChars(val))
-      {
-        String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_VAL", condStr);
-        throw new IllegalArgumentException(errMsg);
-      }
-    }
-
-    // For BETWEEN/NBETWEEN the value must be a 2 element list
-    if ((operator.equals(SearchOperator.BETWEEN) || operator.equals(SearchOperator.NBETWEEN))
-            && valList.size() != 2)
-    {
-      String errMsg = MsgUtils.getMsg("SEARCH_COND_INVALID_OP2", operator.name(), condStr);
-      throw new IllegalArgumentException(errMsg);
-    }
-    return fullValueStr;
+    var scanner = SearchListScanner.scanCondition(condStr, operator);
+    scanner.checkValue();
+    return scanner.getFullValueStr();
   }
 }
@@ -0,0 +1,338 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.shared.utils.TapisTimestampParser;
+
+import java.sql.Types;
+
+/**
+ * Validators that check whether a search value is compatible with a column type, indexed by java.sql.Types code.
+ * Validators do not throw or catch exceptions and check a range of characters so that the values of a list can be
+ *   checked in place.
+ *
+ * Each validator accepts exactly the strings accepted by the conversion used for the type:
+ *   CHAR, VARCHAR         - any value that is not blank
+ *   INTEGER               - Integer.parseInt
+ *   BIGINT                - Long.parseLong
+ *   SMALLINT, TINYINT     - Short.parseShort
+ *   FLOAT, DOUBLE, REAL   - Double.parseDouble, Float.parseFloat. Both accept the same strings.
+ *   NUMERIC, DECIMAL      - new BigDecimal(String) after trimming, ASCII digits only
+ *   BOOLEAN               - true or false, case is ignored
+ *   DATE, TIMESTAMP       - a Tapis timestamp as accepted by TapisTimestampParser
+ *   ARRAY                 - an element of a text array, any value that is not blank
+ * A blank value is never valid.
+ */
+public final class SearchValueValidators
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Validators indexed by type code + TYPE_OFFSET. Covers the codes of all supported types.
+  private static final int TYPE_OFFSET = 8;
+  private static final ValueValidator[] VALIDATORS = new ValueValidator[Types.TIMESTAMP + TYPE_OFFSET + 1];
+
+  public static final ValueValidator STRING_VALIDATOR = SearchValueValidators::isNotBlank;
+  public static final ValueValidator INTEGER_VALIDATOR =
+          (s, start, end) -> isIntegerInRange(s, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+  public static final ValueValidator BIGINT_VALIDATOR =
+          (s, start, end) -> isIntegerInRange(s, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+  public static final ValueValidator SMALLINT_VALIDATOR =
+          (s, start, end) -> isIntegerInRange(s, start, end, Short.MIN_VALUE, Short.MAX_VALUE);
+  public static final ValueValidator FLOAT_VALIDATOR = SearchValueValidators::isFloatingPoint;
+  public static final ValueValidator NUMERIC_VALIDATOR = SearchValueValidators::isNumeric;
+  public static final ValueValidator BOOLEAN_VALIDATOR = SearchValueValidators::isBoolean;
+  public static final ValueValidator TIMESTAMP_VALIDATOR =
+          (s, start, end) -> isNotBlank(s, start, end) && TapisTimestampParser.isValid(s, start, end);
+
+  static
+  {
+    register(Types.CHAR, STRING_VALIDATOR);
+    register(Types.VARCHAR, STRING_VALIDATOR);
+    register(Types.INTEGER, INTEGER_VALIDATOR);
+    register(Types.BIGINT, BIGINT_VALIDATOR);
+    // TINYINT is checked as a short, as it has always been, since the database may treat it as unsigned
+    register(Types.SMALLINT, SMALLINT_VALIDATOR);
+    register(Types.TINYINT, SMALLINT_VALIDATOR);
+    register(Types.FLOAT, FLOAT_VALIDATOR);
+    register(Types.DOUBLE, FLOAT_VALIDATOR);
+    register(Types.REAL, FLOAT_VALIDATOR);
+    register(Types.NUMERIC, NUMERIC_VALIDATOR);
+    register(Types.DECIMAL, NUMERIC_VALIDATOR);
+    register(Types.BOOLEAN, BOOLEAN_VALIDATOR);
+    register(Types.DATE, TIMESTAMP_VALIDATOR);
+    register(Types.TIMESTAMP, TIMESTAMP_VALIDATOR);
+  }
+
+  /* ********************************************************************** */
+  /*                               Interfaces                               */
+  /* ********************************************************************** */
+  /**
+   * Check a value given as a range of characters
+   */
+  @FunctionalInterface
+  public interface ValueValidator
+  {
+    /**
+     * @param s string containing the value
+     * @param start index of the first character of the value
+     * @param end index following the last character of the value
+     * @return true if valid, else false
+     */
+    boolean isValid(CharSequence s, int start, int end);
+
+    /**
+     * @param val value to check, may be null
+     * @return true if valid, else false
+     */
+    default boolean isValid(CharSequence val) { return val != null && isValid(val, 0, val.length()); }
+  }
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  private SearchValueValidators() { }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Get the validator for a column type
+   * @param sqlType java.sql.Types code
+   * @return validator or null if the type is not supported
+   */
+  public static ValueValidator forType(int sqlType)
+  {
+    // ARRAY is far outside the range of the other codes
+    if (sqlType == Types.ARRAY) return STRING_VALIDATOR;
+    int idx = sqlType + TYPE_OFFSET;
+    if (idx < 0 || idx >= VALIDATORS.length) return null;
+    return VALIDATORS[idx];
+  }
+
+  /**
+   * Find the first invalid value in a value string, checking each value of a list in place.
+   * The list is split as for SearchUtils.getValueList(): commas escaped using \ do not separate values and
+   *   trailing empty values are dropped.
+   * @param validator validator for the column type
+   * @param valStr single value or comma separated list of values
+   * @param isList true if valStr is a list
+   * @return the first invalid value or null if all values are valid
+   */
+  public static String findInvalidValue(ValueValidator validator, String valStr, boolean isList)
+  {
+    int len = valStr.length();
+    if (!isList) return validator.isValid(valStr, 0, len) ? null : valStr;
+    // Find the end of the last non-empty value so that trailing empty values can be skipped.
+    // A list of only separators has no values.
+    int listEnd = len;
+    while (listEnd > 0 && isSeparator(valStr, listEnd - 1)) listEnd--;
+    if (listEnd == 0 && len > 0) return null;
+    int segStart = 0;
+    for (int i = 0; i <= listEnd; i++)
+    {
+      if (i == listEnd || isSeparator(valStr, i))
+      {
+        if (!validator.isValid(valStr, segStart, i)) return valStr.substring(segStart, i);
+        segStart = i + 1;
+      }
+    }
+    return null;
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  private static void register(int sqlType, ValueValidator validator)
+  {
+    VALIDATORS[sqlType + TYPE_OFFSET] = validator;
+  }
+
+  /*
+   * Same rule as SearchListScanner.splitValueList
+   */
+  private static boolean isSeparator(String valStr, int i)
+  {
+    return valStr.charAt(i) == SearchListScanner.VALUE_SEPARATOR &&
+           (i == 0 || valStr.charAt(i - 1) != SearchListScanner.ESCAPE_CHAR);
+  }
+
+  private static boolean isNotBlank(CharSequence s, int start, int end)
+  {
+    for (int i = start; i < end; i++) if (!Character.isWhitespace(s.charAt(i))) return true;
+    return false;
+  }
+
+  /*
+   * Same rules as Long.parseLong with a check that the value is in the range min to max.
+   * Accumulates negatively, as Long.parseLong does, so that Long.MIN_VALUE can be checked without overflow.
+   */
+  private static boolean isIntegerInRange(CharSequence s, int start, int end, long min, long max)
+  {
+    if (start >= end) return false;
+    int i = start;
+    boolean negative = false;
+    char first = s.charAt(i);
+    if (first == '-' || first == '+')
+    {
+      negative = (first == '-');
+      if (++i == end) return false;
+    }
+    long limit = negative ? min : -max;
+    long multmin = limit / 10;
+    long result = 0;
+    for (; i < end; i++)
+    {
+      int digit = Character.digit(s.charAt(i), 10);
+      if (digit < 0 || result < multmin) return false;
+      result *= 10;
+      if (result < limit + digit) return false;
+      result -= digit;
+    }
+    return true;
+  }
+
+  /*
+   * Same grammar as Double.valueOf(String), which is also used by Float.valueOf(String).
+   * Values that are out of range convert to infinity or zero, so any value matching the grammar is valid.
+   */
+  private static boolean isFloatingPoint(CharSequence s, int start, int end)
+  {
+    // Leading and trailing characters up to space are ignored, as for String.trim()
+    while (start < end && s.charAt(start) <= ' ') start++;
+    while (end > start && s.charAt(end - 1) <= ' ') end--;
+    if (start >= end) return false;
+    int i = start;
+    if (s.charAt(i) == '+' || s.charAt(i) == '-') i++;
+    if (i == end) return false;
+    char c = s.charAt(i);
+    if (c == 'N') return regionEquals(s, i, end, "NaN");
+    if (c == 'I') return regionEquals(s, i, end, "Infinity");
+    if (c == '0' && i + 1 < end && (s.charAt(i + 1) == 'x' || s.charAt(i + 1) == 'X'))
+      return isHexFloatingPoint(s, i + 2, end);
+
+    // Decimal digits with an optional point, at least one digit
+    int digits = 0;
+    while (i < end && isAsciiDigit(s.charAt(i))) { i++; digits++; }
+    if (i < end && s.charAt(i) == '.')
+    {
+      i++;
+      while (i < end && isAsciiDigit(s.charAt(i))) { i++; digits++; }
+    }
+    if (digits == 0) return false;
+    // Optional exponent
+    if (i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E'))
+    {
+      i++;
+      if (i < end && (s.charAt(i) == '+' || s.charAt(i) == '-')) i++;
+      int expStart = i;
+      while (i < end && isAsciiDigit(s.charAt(i))) i++;
+      if (i == expStart) return false;
+    }
+    return isFloatSuffix(s, i, end);
+  }
+
+  /*
+   * Hexadecimal form following 0x: hex digits with an optional point, then a binary exponent which is required
+   */
+  private static boolean isHexFloatingPoint(CharSequence s, int i, int end)
+  {
+    int digits = 0;
+    while (i < end && Character.digit(s.charAt(i), 16) >= 0 && s.charAt(i) < 128) { i++; digits++; }
+    if (i < end && s.charAt(i) == '.')
+    {
+      i++;
+      while (i < end && Character.digit(s.charAt(i), 16) >= 0 && s.charAt(i) < 128) { i++; digits++; }
+    }
+    if (digits == 0) return false;
+    if (i == end || (s.charAt(i) != 'p' && s.charAt(i) != 'P')) return false;
+    i++;
+    if (i < end && (s.charAt(i) == '+' || s.charAt(i) == '-')) i++;
+    int expStart = i;
+    while (i < end && isAsciiDigit(s.charAt(i))) i++;
+    if (i == expStart) return false;
+    return isFloatSuffix(s, i, end);
+  }
+
+  /*
+   * Nothing left or a single f, F, d or D
+   */
+  private static boolean isFloatSuffix(CharSequence s, int i, int end)
+  {
+    if (i == end) return true;
+    if (i != end - 1) return false;
+    char c = s.charAt(i);
+    return c == 'f' || c == 'F' || c == 'd' || c == 'D';
+  }
+
+  /*
+   * Plain decimal syntax as accepted by new BigDecimal(String) after trimming: an optional sign, digits with an
+   *   optional point and an optional exponent. Hexadecimal, octal and type suffixes are not accepted.
+   * The exponent must fit in an int, as must the resulting scale.
+   */
+  private static boolean isNumeric(CharSequence s, int start, int end)
+  {
+    // Leading and trailing characters up to space are ignored, as for String.trim()
+    while (start < end && s.charAt(start) <= ' ') start++;
+    while (end > start && s.charAt(end - 1) <= ' ') end--;
+    if (start >= end) return false;
+    int i = start;
+    if (s.charAt(i) == '+' || s.charAt(i) == '-') i++;
+
+    // Decimal digits with an optional point, at least one digit
+    int digits = 0;
+    int fraction = 0;
+    while (i < end && isAsciiDigit(s.charAt(i))) { i++; digits++; }
+    if (i < end && s.charAt(i) == '.')
+    {
+      i++;
+      while (i < end && isAsciiDigit(s.charAt(i))) { i++; fraction++; }
+    }
+    if (digits + fraction == 0) return false;
+    if (i == end) return true;
+
+    // Exponent
+    if (s.charAt(i) != 'e' && s.charAt(i) != 'E') return false;
+    i++;
+    boolean negative = i < end && s.charAt(i) == '-';
+    if (i < end && (negative || s.charAt(i) == '+')) i++;
+    if (i == end) return false;
+    long exp = 0;
+    for (; i < end; i++)
+    {
+      char c = s.charAt(i);
+      if (!isAsciiDigit(c)) return false;
+      exp = exp * 10 + (c - '0');
+      if (exp > Integer.MAX_VALUE + 1L) return false;
+    }
+    if (negative) exp = -exp;
+    if (exp > Integer.MAX_VALUE) return false;
+    long scale = fraction - exp;
+    return scale >= Integer.MIN_VALUE && scale <= Integer.MAX_VALUE;
+  }
+
+  private static boolean isBoolean(CharSequence s, int start, int end)
+  {
+    return regionEqualsIgnoreCase(s, start, end, "true") || regionEqualsIgnoreCase(s, start, end, "false");
+  }
+
+  private static boolean regionEquals(CharSequence s, int start, int end, String expected)
+  {
+    if (end - start != expected.length()) return false;
+    for (int i = 0; i < expected.length(); i++) if (s.charAt(start + i) != expected.charAt(i)) return false;
+    return true;
+  }
+
+  private static boolean regionEqualsIgnoreCase(CharSequence s, int start, int end, String expected)
+  {
+    if (end - start != expected.length()) return false;
+    for (int i = 0; i < expected.length(); i++)
+    {
+      char c = s.charAt(start + i);
+      char e = expected.charAt(i);
+      if (c != e && Character.toLowerCase(c) != e && Character.toUpperCase(c) != Character.toUpperCase(e))
+        return false;
+    }
+    return true;
+  }
+
+  private static boolean isAsciiDigit(char c) { return c >= '0' && c <= '9'; }
+}
@@ -0,0 +1,223 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchColumnCatalog.Column;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Projection for a search, parsed from the select query parameter and validated against a column catalog.
+ * The select parameter is a comma separated list of attributes and keywords:
+ *   select=id,owner,created
+ *   select=allAttributes
+ *   select=summaryAttributes,notes
+ * An empty or missing parameter selects the summary attributes given by the service, or all attributes if the
+ *   service does not define a summary. Keywords are case insensitive.
+ *
+ * The result is:
+ *   - a projection, the minimal column list to use in place of SELECT *. It contains the selected columns
+ *     together with any columns the service requires, e.g. the primary key or the sort keys for a cursor.
+ *   - a field mask, the set of selected attribute names, so that the response serializer can skip the fields
+ *     that were not selected. Required columns that were not selected are not in the mask.
+ *
+ * Any column may be selected, including those with types not supported for search such as JSON columns.
+ * Only column names from the catalog appear in the generated SQL.
+ * Instances are immutable and may be shared between threads.
+ */
+public final class SelectList
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  public static final String ALL_ATTRIBUTES = "allAttributes";
+  public static final String SUMMARY_ATTRIBUTES = "summaryAttributes";
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final SearchColumnCatalog catalog;
+  // Selected columns keyed by column name, in order
+  private final Map<String, Column> selected;
+  // Columns in the projection, the selected columns followed by the required columns
+  private final Map<String, Column> projection;
+  private final Set<String> fieldMask;
+  private final boolean allSelected;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  private SelectList(SearchColumnCatalog catalog, Map<String, Column> selected, Map<String, Column> projection)
+  {
+    this.catalog = catalog;
+    this.selected = Collections.unmodifiableMap(selected);
+    this.projection = Collections.unmodifiableMap(projection);
+    var mask = new LinkedHashSet<String>();
+    for (Column col : selected.values()) mask.add(col.getAttribute());
+    fieldMask = Collections.unmodifiableSet(mask);
+    allSelected = selected.size() == catalog.getColumns().size();
+  }
+
+  /**
+   * Parse and validate a select parameter. An empty parameter selects all attributes.
+   * @param selectStr value of the select parameter, may be null or blank
+   * @param catalog columns of the table being searched
+   * @return the select list
+   * @throws IllegalArgumentException if the parameter is malformed or an attribute is not a column
+   */
+  public static SelectList parse(String selectStr, SearchColumnCatalog catalog) throws IllegalArgumentException
+  {
+    return parse(selectStr, catalog, null);
+  }
+
+  /**
+   * Parse and validate a select parameter
+   * @param selectStr value of the select parameter, may be null or blank
+   * @param catalog columns of the table being searched
+   * @param summaryAttributes attributes selected by summaryAttributes and by an empty parameter,
+   *   null or empty for all attributes
+   * @return the select list
+   * @throws IllegalArgumentException if the parameter is malformed or an attribute is not a column
+   */
+  public static SelectList parse(String selectStr, SearchColumnCatalog catalog, Collection<String> summaryAttributes)
+    throws IllegalArgumentException
+  {
+    if (catalog == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SelectList", "catalog"));
+    var selected = new LinkedHashMap<String, Column>();
+    if (StringUtils.isBlank(selectStr))
+    {
+      addSummary(catalog, selected, summaryAttributes);
+      return new SelectList(catalog, selected, new LinkedHashMap<>(selected));
+    }
+    for (String item : selectStr.split(",", -1))
+    {
+      item = item.trim();
+      if (item.isEmpty())
+        throw new IllegalArgumentException(MsgUtils.getMsg("SEARCH_SELECT_INVALID", selectStr));
+      if (item.equalsIgnoreCase(ALL_ATTRIBUTES))
+        for (Column col : catalog.getColumns()) selected.putIfAbsent(col.getName(), col);
+      else if (item.equalsIgnoreCase(SUMMARY_ATTRIBUTES)) addSummary(catalog, selected, summaryAttributes);
+      else
+      {
+        Column col = getColumn(catalog, item);
+        selected.putIfAbsent(col.getName(), col);
+      }
+    }
+    return new SelectList(catalog, selected, new LinkedHashMap<>(selected));
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Add columns that the service needs whether or not they were selected, e.g. the primary key or sort keys.
+   *   The columns are added to the projection but not to the field mask.
+   * @param attributes attributes of the required columns
+   * @return select list including the required columns in its projection
+   * @throws IllegalArgumentException if an attribute is not a column
+   */
+  public SelectList withRequired(String... attributes) throws IllegalArgumentException
+  {
+    var cols = new ArrayList<Column>(attributes.length);
+    for (String attr : attributes) cols.add(getColumn(catalog, attr));
+    return withRequired(cols);
+  }
+
+  /**
+   * Add the sort keys of an order to the projection, so that a cursor can be created from the last row
+   * @param orderBy sort order of the search
+   * @return select list including the sort keys in its projection
+   */
+  public SelectList withRequired(OrderBy orderBy)
+  {
+    var cols = new ArrayList<Column>(orderBy.getKeys().size());
+    for (OrderBy.SortKey key : orderBy.getKeys()) cols.add(key.getColumn());
+    return withRequired(cols);
+  }
+
+  /**
+   * @return column list for the projection, e.g. id, owner, created
+   */
+  public String toSql()
+  {
+    var sj = new StringJoiner(", ");
+    for (String colName : projection.keySet()) sj.add(colName);
+    return sj.toString();
+  }
+
+  /**
+   * @return unmodifiable list of the columns in the projection, in order
+   */
+  public List<Column> getProjection() { return List.copyOf(projection.values()); }
+
+  /**
+   * @return unmodifiable set of the selected attribute names, in order
+   */
+  public Set<String> getFieldMask() { return fieldMask; }
+
+  /**
+   * Check if an attribute was selected, e.g. when serializing a response
+   * @param attribute attribute name, camel case or snake case
+   * @return true if selected
+   */
+  public boolean isSelected(String attribute)
+  {
+    if (allSelected || fieldMask.contains(attribute)) return true;
+    Column col = catalog.getColumn(attribute);
+    return col != null && selected.containsKey(col.getName());
+  }
+
+  /**
+   * @return true if every column is selected
+   */
+  public boolean isAllSelected() { return allSelected; }
+
+  @Override
+  public String toString() { return String.join(",", fieldMask); }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  private SelectList withRequired(List<Column> cols)
+  {
+    var newProjection = new LinkedHashMap<>(projection);
+    for (Column col : cols) newProjection.putIfAbsent(col.getName(), col);
+    if (newProjection.size() == projection.size()) return this;
+    return new SelectList(catalog, new LinkedHashMap<>(selected), newProjection);
+  }
+
+  private static void addSummary(SearchColumnCatalog catalog, Map<String, Column> selected,
+                                 Collection<String> summaryAttributes)
+  {
+    if (summaryAttributes == null || summaryAttributes.isEmpty())
+    {
+      for (Column col : catalog.getColumns()) selected.putIfAbsent(col.getName(), col);
+      return;
+    }
+    for (String attr : summaryAttributes)
+    {
+      Column col = getColumn(catalog, attr);
+      selected.putIfAbsent(col.getName(), col);
+    }
+  }
+
+  private static Column getColumn(SearchColumnCatalog catalog, String attr)
+  {
+    Column col = catalog.getColumn(attr);
+    if (col == null)
+    {
+      String msg = MsgUtils.getMsg("SEARCH_SELECT_NO_COLUMN", attr, catalog.getTableName());
+      throw new IllegalArgumentException(msg);
+    }
+    return col;
+  }
+}
@@ -0,0 +1,136 @@
+package edu.utexas.tacc.tapis.search;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Immutable SQL fragment containing ? placeholders and the typed values to be bound to them.
+ * Produced by SqlGenerator. Values are in placeholder order and each has an associated java.sql.Types code
+ *   so that the fragment can be bound to a PreparedStatement without the caller knowing the column types.
+ * A value of type ARRAY is a java array of the element values, e.g. Integer[], and is bound as a SQL array
+ *   created using the connection of the statement. Such values must not be modified.
+ */
+public final class SqlFragment
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Fragment that selects everything, used when there are no search conditions
+  public static final SqlFragment EMPTY = new SqlFragment("", List.of(), List.of());
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final String sql;
+  private final List<Object> bindValues;
+  private final List<Integer> bindTypes;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  SqlFragment(String sql, List<Object> bindValues, List<Integer> bindTypes)
+  {
+    this.sql = sql;
+    this.bindValues = List.copyOf(bindValues);
+    this.bindTypes = List.copyOf(bindTypes);
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * @return SQL text with ? placeholders. Empty string if there are no conditions.
+   */
+  public String getSql() { return sql; }
+
+  /**
+   * @return unmodifiable list of values to bind, in placeholder order
+   */
+  public List<Object> getBindValues() { return bindValues; }
+
+  /**
+   * @return unmodifiable list of java.sql.Types codes for the bind values
+   */
+  public List<Integer> getBindTypes() { return bindTypes; }
+
+  /**
+   * @return true if there are no conditions
+   */
+  public boolean isEmpty() { return sql.isEmpty(); }
+
+  /**
+   * Bind the values of the fragment to a prepared statement
+   * @param ps prepared statement containing the fragment
+   * @param startIndex index of the first placeholder belonging to this fragment, starting from 1
+   * @return index of the next placeholder following this fragment
+   * @throws SQLException on error binding a value
+   */
+  public int bind(PreparedStatement ps, int startIndex) throws SQLException
+  {
+    int idx = startIndex;
+    for (int i = 0; i < bindValues.size(); i++)
+    {
+      Object val = bindValues.get(i);
+      int type = bindTypes.get(i);
+      if (type == Types.ARRAY && val instanceof Object[])
+      {
+        Object[] elements = (Object[]) val;
+        String typeName = getArrayElementTypeName(elements.getClass().getComponentType());
+        ps.setArray(idx++, ps.getConnection().createArrayOf(typeName, elements));
+      }
+      else ps.setObject(idx++, val, type);
+    }
+    return idx;
+  }
+
+  /**
+   * Combine this fragment with another using AND. Either fragment may be empty.
+   * @param other fragment to combine with
+   * @return combined fragment
+   */
+  public SqlFragment and(SqlFragment other)
+  {
+    if (other == null || other.isEmpty()) return this;
+    if (isEmpty()) return other;
+    var values = new ArrayList<Object>(bindValues);
+    values.addAll(other.bindValues);
+    var types = new ArrayList<Integer>(bindTypes);
+    types.addAll(other.bindTypes);
+    return new SqlFragment("(" + sql + " AND " + other.sql + ")", values, types);
+  }
+
+  @Override
+  public String toString()
+  {
+    var sj = new StringJoiner(", ", "[", "]");
+    for (Object val : bindValues)
+      sj.add((val instanceof Object[]) ? Arrays.toString((Object[]) val) : String.valueOf(val));
+    return sql + " " + sj;
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Database type name for the elements of an array, given the java class used by SqlGenerator.toBindValue
+   */
+  private static String getArrayElementTypeName(Class<?> elementClass)
+  {
+    if (elementClass == Integer.class) return "integer";
+    if (elementClass == Long.class) return "bigint";
+    if (elementClass == Short.class) return "smallint";
+    if (elementClass == Double.class) return "float8";
+    if (elementClass == Float.class) return "float4";
+    if (elementClass == BigDecimal.class) return "numeric";
+    if (elementClass == Boolean.class) return "boolean";
+    if (elementClass == Timestamp.class) return "timestamp";
+    return "varchar";
+  }
+}
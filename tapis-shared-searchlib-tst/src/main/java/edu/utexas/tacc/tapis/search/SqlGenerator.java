@@ -0,0 +1,496 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchUtils.SearchOperator;
+import edu.utexas.tacc.tapis.search.parser.ASTBinaryExpression;
+import edu.utexas.tacc.tapis.search.parser.ASTConstant;
+import edu.utexas.tacc.tapis.search.parser.ASTNaryExpression;
+import edu.utexas.tacc.tapis.search.parser.ASTNode;
+import edu.utexas.tacc.tapis.search.parser.ASTUnaryExpression;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import edu.utexas.tacc.tapis.shared.utils.TapisUtils;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compile search conditions into a parameterized SQL WHERE fragment.
+ * Input is either an ASTNode tree as produced by ASTParser.parse() or ASTOptimizer.optimize(), or a list of
+ *   processed SearchConditions.
+ * Output is a SqlFragment containing ? placeholders and a typed list of values to bind, so that services can
+ *   use a PreparedStatement and the database can reuse plans rather than parsing SQL containing literals.
+ *
+ * Columns are described by a SearchColumnCatalog, which may be built from a map of column names to java.sql.Types
+ *   codes. An attribute is mapped to a column by converting it from camel case to snake case. For each condition:
+ *   - The column must be in the catalog
+ *   - The operator must be allowed for the column type as given by SearchUtils.ALLOWED_OPS_BY_TYPE
+ *   - The values must be valid for the column type as checked by SearchUtils.validateTypeAndValueList
+ *   - Timestamp values are converted to UTC using the same rules as SearchUtils.convertValuesToTimestamps
+ *   - Values for an ARRAY column are elements. CONTAINS and CONTAINS_ALL become tags @> ARRAY[?, ?] and
+ *     CONTAINS_ANY becomes tags && ARRAY[?, ?], so that a GIN index on the column can be used. Elements are
+ *     bound as strings, so the column should be a text or varchar array.
+ *   - LIKE on a VARCHAR column with a pattern starting with literal text, e.g. abc%, becomes a range using the
+ *     pattern operators, (name ~>=~ ? AND name ~<~ ?), served by a text_pattern_ops index. See appendPrefixLike.
+ *   - IN/NIN lists longer than a threshold are bound as a single array, see withArrayBindThreshold.
+ *   - Optionally the placeholders of a list are padded to a bucket size, see withListBuckets.
+ *   - MATCH is allowed for columns enabled using SearchColumnCatalog.withTextSearch and becomes
+ *     description_tsv @@ plainto_tsquery('english', ?), which a GIN index on the tsvector can serve.
+ *     generateRankOrder creates the matching ts_rank ordering.
+ * Any violation results in an IllegalArgumentException.
+ * An attribute may also be a path into a jsonb column, e.g. notes.project, which is compiled as described in
+ *   JsonPathSearch.
+ *
+ * Only column names from the catalog and fixed SQL keywords appear in the generated SQL. All values are bound.
+ *   The SQL text is therefore the shape of the search, its structure without the values, and searches that
+ *   differ only in values produce the same text. Services can key prepared statements by the text of the
+ *   statement containing the fragment, see StatementCache.
+ * Instances are immutable and may be shared between threads.
+ */
+public final class SqlGenerator
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // IN/NIN lists longer than this are bound as a single array
+  public static final int DEFAULT_ARRAY_BIND_THRESHOLD = 32;
+
+  // Operators whose lists are padded when list buckets are used
+  private static final EnumSet<SearchOperator> BUCKETED_OPS =
+        EnumSet.of(SearchOperator.IN, SearchOperator.NIN, SearchOperator.CONTAINS, SearchOperator.CONTAINS_ALL,
+                   SearchOperator.CONTAINS_ANY);
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final SearchColumnCatalog catalog;
+  private final int arrayBindThreshold;
+  private final boolean listBuckets;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  /**
+   * @param tableName name of table, used only for messages
+   * @param columnTypes map of column name to java.sql.Types code
+   * @throws IllegalArgumentException if columnTypes is null
+   */
+  public SqlGenerator(String tableName, Map<String, Integer> columnTypes)
+  {
+    if (columnTypes == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SqlGenerator", "columnTypes"));
+    catalog = SearchColumnCatalog.of(tableName, columnTypes);
+    arrayBindThreshold = DEFAULT_ARRAY_BIND_THRESHOLD;
+    listBuckets = false;
+  }
+
+  /**
+   * @param catalog columns of the table
+   * @throws IllegalArgumentException if catalog is null
+   */
+  public SqlGenerator(SearchColumnCatalog catalog)
+  {
+    if (catalog == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SqlGenerator", "catalog"));
+    this.catalog = catalog;
+    arrayBindThreshold = DEFAULT_ARRAY_BIND_THRESHOLD;
+    listBuckets = false;
+  }
+
+  private SqlGenerator(SearchColumnCatalog catalog, int arrayBindThreshold, boolean listBuckets)
+  {
+    this.catalog = catalog;
+    this.arrayBindThreshold = arrayBindThreshold;
+    this.listBuckets = listBuckets;
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Set the length above which an IN/NIN list is bound as a single array, so that the SQL stays the same
+   *   whatever the length of the list: col = ANY(?) and col <> ALL(?). Shorter lists use one placeholder per
+   *   value. The default is DEFAULT_ARRAY_BIND_THRESHOLD.
+   * @param threshold maximum length of a list using one placeholder per value, 0 to always bind an array
+   * @return generator using the threshold
+   * @throws IllegalArgumentException if threshold is negative
+   */
+  public SqlGenerator withArrayBindThreshold(int threshold) throws IllegalArgumentException
+  {
+    if (threshold < 0)
+      throw new IllegalArgumentException(MsgUtils.getMsg("SEARCH_INVALID_ARRAY_THRESHOLD", threshold));
+    return new SqlGenerator(catalog, threshold, listBuckets);
+  }
+
+  /**
+   * Pad the placeholders of IN/NIN lists and of the array operators to the next power of two by repeating the
+   *   last value, e.g. a list of 3 values becomes IN (?, ?, ?, ?). Repeating a value does not change the result.
+   *   Lists of any length then produce one of a few shapes, so that prepared statements and their plans can be
+   *   reused. An IN/NIN list is never padded beyond the array bind threshold. Off by default.
+   * @param listBuckets true to pad lists
+   * @return generator padding lists as given
+   */
+  public SqlGenerator withListBuckets(boolean listBuckets)
+  {
+    return new SqlGenerator(catalog, arrayBindThreshold, listBuckets);
+  }
+
+  /**
+   * @param size number of values in a list
+   * @return number of placeholders used for the list when list buckets are used, the next power of two
+   */
+  public static int getListBucket(int size)
+  {
+    if (size <= 1) return size;
+    int bucket = Integer.highestOneBit(size - 1) << 1;
+    return (bucket > 0) ? bucket : size;
+  }
+
+  /**
+   * Compile an AST into a SQL fragment
+   * @param node root of the tree, may be null
+   * @return the SQL fragment, SqlFragment.EMPTY if node is null
+   * @throws IllegalArgumentException if the tree contains an unsupported node, operator, column or value
+   */
+  public SqlFragment generate(ASTNode node) throws IllegalArgumentException
+  {
+    if (node == null) return SqlFragment.EMPTY;
+    var ctx = new Context();
+    appendNode(ctx, node);
+    return ctx.toFragment();
+  }
+
+  /**
+   * Compile a list of search conditions into a SQL fragment. Conditions are combined using AND.
+   * @param conditions processed search conditions, may be null or empty
+   * @return the SQL fragment, SqlFragment.EMPTY if there are no conditions
+   * @throws IllegalArgumentException if a condition contains an unsupported operator, column or value
+   */
+  public SqlFragment generate(List<SearchCondition> conditions) throws IllegalArgumentException
+  {
+    if (conditions == null || conditions.isEmpty()) return SqlFragment.EMPTY;
+    var ctx = new Context();
+    if (conditions.size() > 1) ctx.sql.append('(');
+    for (int i = 0; i < conditions.size(); i++)
+    {
+      if (i > 0) ctx.sql.append(" AND ");
+      appendCondition(ctx, conditions.get(i));
+    }
+    if (conditions.size() > 1) ctx.sql.append(')');
+    return ctx.toFragment();
+  }
+
+  /**
+   * Create the ORDER BY expression ranking rows by how well they match the MATCH conditions of an AST, e.g.
+   *   ts_rank(description_tsv, plainto_tsquery('english', ?)) DESC. Append a unique column to make the order
+   *   total. Rank ordering is for offset pagination; a cursor cannot be created from a rank.
+   *   The values of the fragment are bound after those of the WHERE fragment.
+   * @param node root of the tree, may be null
+   * @return the ORDER BY expression, SqlFragment.EMPTY if there are no MATCH conditions
+   * @throws IllegalArgumentException if a MATCH condition is not valid
+   */
+  public SqlFragment generateRankOrder(ASTNode node) throws IllegalArgumentException
+  {
+    var matches = new ArrayList<SearchCondition>();
+    if (node != null) collectMatches(node, matches);
+    return rankOrder(matches);
+  }
+
+  /**
+   * Create the ORDER BY expression ranking rows by how well they match the MATCH conditions of a list.
+   *   See generateRankOrder(ASTNode).
+   * @param conditions processed search conditions, may be null or empty
+   * @return the ORDER BY expression, SqlFragment.EMPTY if there are no MATCH conditions
+   * @throws IllegalArgumentException if a MATCH condition is not valid
+   */
+  public SqlFragment generateRankOrder(List<SearchCondition> conditions) throws IllegalArgumentException
+  {
+    var matches = new ArrayList<SearchCondition>();
+    if (conditions != null)
+      for (SearchCondition cond : conditions) if (cond.getOperator() == SearchOperator.MATCH) matches.add(cond);
+    return rankOrder(matches);
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Append a node of the AST. AND/OR and NOT nodes are handled recursively, all other binary nodes must be a
+   *   comparison between an attribute on the left and a value on the right.
+   * N-ary and constant nodes are created by ASTOptimizer.
+   */
+  private void appendNode(Context ctx, ASTNode node)
+  {
+    if (node instanceof ASTNaryExpression)
+    {
+      var nNode = (ASTNaryExpression) node;
+      String op = nNode.getOp().toUpperCase();
+      ctx.sql.append('(');
+      for (int i = 0; i < nNode.getOperands().size(); i++)
+      {
+        if (i > 0) ctx.sql.append(' ').append(op).append(' ');
+        appendNode(ctx, nNode.getOperands().get(i));
+      }
+      ctx.sql.append(')');
+      return;
+    }
+    if (node instanceof ASTConstant)
+    {
+      ctx.sql.append(((ASTConstant) node).getValue() ? "TRUE" : "FALSE");
+      return;
+    }
+    if (node instanceof ASTBinaryExpression)
+    {
+      var bNode = (ASTBinaryExpression) node;
+      String op = bNode.getOp();
+      if ("AND".equalsIgnoreCase(op) || "OR".equalsIgnoreCase(op))
+      {
+        ctx.sql.append('(');
+        appendNode(ctx, bNode.getLeft());
+        ctx.sql.append(' ').append(op.toUpperCase()).append(' ');
+        appendNode(ctx, bNode.getRight());
+        ctx.sql.append(')');
+        return;
+      }
+      appendCondition(ctx, SearchCondition.fromAST(bNode));
+      return;
+    }
+    if (node instanceof ASTUnaryExpression && "NOT".equalsIgnoreCase(((ASTUnaryExpression) node).getOp()))
+    {
+      ctx.sql.append("NOT (");
+      appendNode(ctx, ((ASTUnaryExpression) node).getNode());
+      ctx.sql.append(')');
+      return;
+    }
+    // A bare attribute or value is not a condition
+    String msg = MsgUtils.getMsg("SEARCH_AST_UNSUPPORTED_NODE", node.getClass().getSimpleName(), node);
+    throw new IllegalArgumentException(msg);
+  }
+
+  /*
+   * Validate a condition against the catalog and append the SQL and bind values
+   */
+  private void appendCondition(Context ctx, SearchCondition cond)
+  {
+    SearchColumnCatalog.Column col = catalog.validate(cond);
+    if (JsonPathSearch.isPath(cond.getAttribute()))
+    {
+      int start = ctx.values.size();
+      JsonPathSearch.appendSql(ctx.sql, ctx.values, col.getName(), cond);
+      for (int i = start; i < ctx.values.size(); i++) ctx.types.add(JsonPathSearch.getBindType());
+      return;
+    }
+    int sqlType = col.getSqlType();
+    SearchOperator op = cond.getOperator();
+
+    StringBuilder sql = ctx.sql;
+    if (op == SearchOperator.MATCH)
+    {
+      sql.append(col.getTsvectorSql()).append(" @@ ");
+      appendTsquery(ctx, col, cond.getValue());
+      return;
+    }
+    if ((op == SearchOperator.IN || op == SearchOperator.NIN) && cond.getValues().size() > arrayBindThreshold)
+    {
+      sql.append(col.getName()).append(op == SearchOperator.IN ? " = ANY(?)" : " <> ALL(?)");
+      ctx.addArrayBind(sqlType, cond.getValues());
+      return;
+    }
+    int slots = getSlotCount(op, cond.getValues().size());
+    if (op == SearchOperator.LIKE && sqlType == Types.VARCHAR && appendPrefixLike(ctx, col.getName(), cond.getValue()))
+      return;
+    sql.append(col.getName());
+    switch (op)
+    {
+      case EQ: sql.append(" = ?"); break;
+      case NEQ: sql.append(" <> ?"); break;
+      case LT: sql.append(" < ?"); break;
+      case LTE: sql.append(" <= ?"); break;
+      case GT: sql.append(" > ?"); break;
+      case GTE: sql.append(" >= ?"); break;
+      case LIKE: sql.append(" LIKE ?"); break;
+      case NLIKE: sql.append(" NOT LIKE ?"); break;
+      case BETWEEN: sql.append(" BETWEEN ? AND ?"); break;
+      case NBETWEEN: sql.append(" NOT BETWEEN ? AND ?"); break;
+      case IN:
+      case NIN:
+        sql.append(op == SearchOperator.IN ? " IN (" : " NOT IN (");
+        for (int i = 0; i < slots; i++) sql.append(i == 0 ? "?" : ", ?");
+        sql.append(')');
+        break;
+      case CONTAINS:
+      case CONTAINS_ALL:
+      case CONTAINS_ANY:
+        // Array containment and overlap, both served by a GIN index on the column
+        sql.append(op == SearchOperator.CONTAINS_ANY ? " && ARRAY[" : " @> ARRAY[");
+        for (int i = 0; i < slots; i++) sql.append(i == 0 ? "?" : ", ?");
+        sql.append(']');
+        break;
+    }
+    List<String> values = cond.getValues();
+    for (String val : values) ctx.addBind(sqlType, val);
+    // Pad a list by repeating its last value
+    for (int i = values.size(); i < slots; i++) ctx.addBind(sqlType, values.get(values.size() - 1));
+  }
+
+  /*
+   * Number of placeholders for the values of a condition
+   */
+  private int getSlotCount(SearchOperator op, int size)
+  {
+    if (!listBuckets || !BUCKETED_OPS.contains(op)) return size;
+    int slots = getListBucket(size);
+    if (op == SearchOperator.IN || op == SearchOperator.NIN)
+      slots = Math.min(slots, Math.max(size, arrayBindThreshold));
+    return slots;
+  }
+
+  /*
+   * Append a LIKE whose pattern starts with a literal prefix as a range on the prefix, e.g. name LIKE 'abc%'
+   *   becomes name ~>=~ 'abc' AND name ~<~ 'abd'. The pattern operators compare bytes, which for UTF-8 is code
+   *   point order, so the range holds exactly the strings starting with the prefix whatever the collation.
+   *   The range is served by a btree index using text_pattern_ops or varchar_pattern_ops, even when the pattern
+   *   is bound, whereas the planner can only derive a range from LIKE for a literal pattern.
+   * If the pattern has more after the prefix the LIKE is kept to check the rest. Returns false and appends
+   *   nothing if there is no prefix or no upper bound can be formed.
+   */
+  private static boolean appendPrefixLike(Context ctx, String colName, String pattern)
+  {
+    String prefix = LikeMatcher.getLiteralPrefix(pattern);
+    if (prefix.isEmpty()) return false;
+    char last = prefix.charAt(prefix.length() - 1);
+    char next = (char) (last + 1);
+    // Leave patterns ending in a surrogate or the last char to LIKE
+    if (Character.isSurrogate(last) || Character.isSurrogate(next) || last == Character.MAX_VALUE) return false;
+    String upper = prefix.substring(0, prefix.length() - 1) + next;
+    boolean isPrefix = LikeMatcher.compile(pattern).isPrefix();
+    ctx.sql.append('(').append(colName).append(" ~>=~ ? AND ").append(colName).append(" ~<~ ?");
+    ctx.addBind(Types.VARCHAR, prefix);
+    ctx.addBind(Types.VARCHAR, upper);
+    if (!isPrefix)
+    {
+      ctx.sql.append(" AND ").append(colName).append(" LIKE ?");
+      ctx.addBind(Types.VARCHAR, pattern);
+    }
+    ctx.sql.append(')');
+    return true;
+  }
+
+  /*
+   * Append plainto_tsquery for a MATCH value, using the configuration of the column
+   */
+  private static void appendTsquery(Context ctx, SearchColumnCatalog.Column col, String val)
+  {
+    ctx.sql.append("plainto_tsquery('").append(col.getTextSearchConfig()).append("', ?)");
+    ctx.addBind(Types.VARCHAR, val);
+  }
+
+  /*
+   * Append the rank of each MATCH condition, summed if there is more than one
+   */
+  private SqlFragment rankOrder(List<SearchCondition> matches)
+  {
+    if (matches.isEmpty()) return SqlFragment.EMPTY;
+    var ctx = new Context();
+    for (SearchCondition cond : matches)
+    {
+      SearchColumnCatalog.Column col = catalog.validate(cond);
+      if (ctx.sql.length() > 0) ctx.sql.append(" + ");
+      ctx.sql.append("ts_rank(").append(col.getTsvectorSql()).append(", ");
+      appendTsquery(ctx, col, cond.getValue());
+      ctx.sql.append(')');
+    }
+    ctx.sql.append(" DESC");
+    return ctx.toFragment();
+  }
+
+  /*
+   * Collect the MATCH conditions of an AST
+   */
+  private static void collectMatches(ASTNode node, List<SearchCondition> matches)
+  {
+    if (node instanceof ASTNaryExpression)
+    {
+      for (ASTNode operand : ((ASTNaryExpression) node).getOperands()) collectMatches(operand, matches);
+    }
+    else if (node instanceof ASTBinaryExpression)
+    {
+      var bNode = (ASTBinaryExpression) node;
+      if (SearchOperator.MATCH.name().equalsIgnoreCase(bNode.getOp())) matches.add(SearchCondition.fromAST(bNode));
+      else
+      {
+        collectMatches(bNode.getLeft(), matches);
+        collectMatches(bNode.getRight(), matches);
+      }
+    }
+  }
+
+  /*
+   * Convert a validated string value to the java type matching the sql type
+   */
+  static Object toBindValue(int sqlType, String val)
+  {
+    switch (sqlType)
+    {
+      case Types.INTEGER: return Integer.valueOf(val);
+      case Types.BIGINT: return Long.valueOf(val);
+      case Types.SMALLINT:
+      case Types.TINYINT: return Short.valueOf(val);
+      case Types.FLOAT:
+      case Types.DOUBLE: return Double.valueOf(val);
+      case Types.REAL: return Float.valueOf(val);
+      case Types.NUMERIC:
+      case Types.DECIMAL:
+        return new BigDecimal(val.trim());
+      case Types.BOOLEAN: return Boolean.valueOf(val);
+      case Types.DATE:
+      case Types.TIMESTAMP: return Timestamp.valueOf(TapisUtils.getUTCTimeFromString(val));
+      default: return val;
+    }
+  }
+
+  /*
+   * Sql type used when binding. Timestamps are always bound as TIMESTAMP since values may include a time.
+   *   Values for an array column are its elements, bound as strings.
+   */
+  static int toBindType(int sqlType)
+  {
+    if (sqlType == Types.ARRAY) return Types.VARCHAR;
+    return sqlType == Types.DATE ? Types.TIMESTAMP : sqlType;
+  }
+
+  /* ********************************************************************** */
+  /*                          Context Class                                 */
+  /* ********************************************************************** */
+  /*
+   * State accumulated while generating a single fragment
+   */
+  private static final class Context
+  {
+    private final StringBuilder sql = new StringBuilder();
+    private final List<Object> values = new ArrayList<>();
+    private final List<Integer> types = new ArrayList<>();
+
+    private void addBind(int sqlType, String val)
+    {
+      values.add(toBindValue(sqlType, val));
+      types.add(toBindType(sqlType));
+    }
+
+    private void addArrayBind(int sqlType, List<String> vals)
+    {
+      Object first = toBindValue(sqlType, vals.get(0));
+      Object[] arr = (Object[]) Array.newInstance(first.getClass(), vals.size());
+      arr[0] = first;
+      for (int i = 1; i < arr.length; i++) arr[i] = toBindValue(sqlType, vals.get(i));
+      values.add(arr);
+      types.add(Types.ARRAY);
+    }
+
+    private SqlFragment toFragment() { return new SqlFragment(sql.toString(), values, types); }
+  }
+}
@@ -0,0 +1,194 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the prepared statements of one connection, keyed by the text of the statement.
+ * The SQL generated for a search contains only placeholders for values, so the text is the shape of the search
+ *   and every search with the same shape reuses one statement. See SqlGenerator.withListBuckets to limit the
+ *   number of shapes produced by lists.
+ *
+ * Reusing a statement lets the PostgreSQL driver use a server-side prepared statement, so the search is parsed
+ *   and planned once rather than on each execution. The driver switches to a server-side statement after the
+ *   statement has been executed prepareThreshold times, 5 by default, which may be lowered using the
+ *   prepareThreshold connection property.
+ *
+ * A statement returned by prepare() belongs to the cache and must not be closed by the caller. Its parameters
+ *   are cleared. The least recently used statement is closed when the cache is full, so a result set should be
+ *   read before more statements are prepared. A statement found closed, e.g. by a connection pool when the
+ *   connection was returned, is prepared again.
+ *
+ * Create one cache per physical connection and close it before the connection is closed. Like the connection,
+ *   a cache is used by one thread at a time. Methods are synchronized so that stats can be read by another thread.
+ */
+public final class StatementCache implements AutoCloseable
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Local logger.
+  private static final Logger _log = LoggerFactory.getLogger(StatementCache.class);
+
+  // Default maximum number of statements
+  public static final int DEFAULT_MAXIMUM_SIZE = 64;
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final Connection conn;
+  private final int maximumSize;
+
+  // Statements keyed by SQL text, in access order. Guarded by this.
+  private final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+  private boolean closed;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  /**
+   * Create a cache holding DEFAULT_MAXIMUM_SIZE statements
+   * @param conn connection used to prepare statements
+   * @throws IllegalArgumentException if conn is null
+   */
+  public StatementCache(Connection conn)
+  {
+    this(conn, DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /**
+   * @param conn connection used to prepare statements
+   * @param maximumSize maximum number of statements, at least 1
+   * @throws IllegalArgumentException if conn is null
+   */
+  public StatementCache(Connection conn, int maximumSize)
+  {
+    if (conn == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "StatementCache", "conn"));
+    this.conn = conn;
+    this.maximumSize = Math.max(1, maximumSize);
+  }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Return the statement for a SQL text, preparing and caching it if not present
+   * @param sql SQL text with ? placeholders
+   * @return the statement with its parameters cleared, not to be closed by the caller
+   * @throws SQLException if the statement cannot be prepared or the cache is closed
+   */
+  public synchronized PreparedStatement prepare(String sql) throws SQLException
+  {
+    if (closed) throw new SQLException(MsgUtils.getMsg("SEARCH_STMT_CACHE_CLOSED"));
+    PreparedStatement ps = statements.get(sql);
+    if (ps != null && !ps.isClosed())
+    {
+      hitCount++;
+      ps.clearParameters();
+      return ps;
+    }
+    missCount++;
+    ps = conn.prepareStatement(sql);
+    statements.put(sql, ps);
+    if (statements.size() > maximumSize)
+    {
+      Iterator<Map.Entry<String, PreparedStatement>> it = statements.entrySet().iterator();
+      PreparedStatement eldest = it.next().getValue();
+      it.remove();
+      evictionCount++;
+      closeQuietly(eldest);
+    }
+    return ps;
+  }
+
+  /**
+   * Close all statements. The cache cannot be used afterwards.
+   */
+  @Override
+  public synchronized void close()
+  {
+    closed = true;
+    for (PreparedStatement ps : statements.values()) closeQuietly(ps);
+    statements.clear();
+  }
+
+  /**
+   * @return number of cached statements
+   */
+  public synchronized int size() { return statements.size(); }
+
+  /**
+   * @return snapshot of the cache counters
+   */
+  public synchronized Stats getStats()
+  {
+    return new Stats(maximumSize, statements.size(), hitCount, missCount, evictionCount);
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  private static void closeQuietly(PreparedStatement ps)
+  {
+    try { ps.close(); }
+    catch (SQLException e) { _log.warn(MsgUtils.getMsg("SEARCH_STMT_CLOSE_ERROR", e.getMessage())); }
+  }
+
+  /* ********************************************************************** */
+  /*                            Stats Class                                 */
+  /* ********************************************************************** */
+  /**
+   * Snapshot of cache counters
+   */
+  public static final class Stats
+  {
+    private final int maximumSize;
+    private final int size;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    private Stats(int maximumSize, int size, long hitCount, long missCount, long evictionCount)
+    {
+      this.maximumSize = maximumSize;
+      this.size = size;
+      this.hitCount = hitCount;
+      this.missCount = missCount;
+      this.evictionCount = evictionCount;
+    }
+
+    public int getMaximumSize() { return maximumSize; }
+    public int getSize() { return size; }
+    public long getHitCount() { return hitCount; }
+    public long getMissCount() { return missCount; }
+    public long getEvictionCount() { return evictionCount; }
+
+    /**
+     * @return fraction of statements found in the cache. 1.0 if none prepared.
+     */
+    public double getHitRatio()
+    {
+      long total = hitCount + missCount;
+      return (total == 0) ? 1.0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString()
+    {
+      return "size=" + size + "/" + maximumSize + " hits=" + hitCount + " misses=" + missCount + " evictions=" +
+             evictionCount;
+    }
+  }
+}
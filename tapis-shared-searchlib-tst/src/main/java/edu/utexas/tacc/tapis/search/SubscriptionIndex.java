@@ -0,0 +1,624 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import org.apache.activemq.command.ActiveMQMessage;
+import org.apache.activemq.filter.BooleanExpression;
+import org.apache.activemq.filter.ComparisonExpression;
+import org.apache.activemq.filter.ConstantExpression;
+import org.apache.activemq.filter.Expression;
+import org.apache.activemq.filter.LogicExpression;
+import org.apache.activemq.filter.MessageEvaluationContext;
+import org.apache.activemq.filter.PropertyExpression;
+
+import javax.jms.InvalidSelectorException;
+import javax.jms.JMSException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index of subscriptions, each with a message selector, that finds the subscriptions matching the properties of
+ *   an event without evaluating every selector.
+ *
+ * Each selector is rewritten as an OR of conjunctions of atomic predicates. Predicates comparing a property with a
+ *   constant are indexed: equality in a hash index per property and numeric ranges in an interval tree per
+ *   property, with all ranges on one property in a conjunction merged into one interval. Matching counts the
+ *   indexed predicates of each conjunction satisfied by the event, so the cost depends on the number of predicates
+ *   satisfied rather than the number of subscriptions. A conjunction with all its indexed predicates satisfied is a
+ *   candidate.
+ * Other predicates, e.g. LIKE, IN, NOT, IS NULL, comparison of two properties or of a JMS header, are not indexed.
+ *   A candidate conjunction holding such predicates is verified by evaluating the selector against the event, as
+ *   is a conjunction with no indexed predicate. A selector with more than MAX_CONJUNCTIONS conjunctions is kept as
+ *   one such conjunction. The result is always the same as evaluating each selector.
+ *
+ * Property values of an event may be String, Boolean, Byte, Short, Integer, Long, Float or Double, as for message
+ *   properties. Integral values are widened to Long and Float to Double before matching. Numbers are compared
+ *   exactly as by the selector: integers beyond +/-2^53 are not indexed as constants, and an event value beyond
+ *   that range causes the conjunctions it satisfies to be verified.
+ *
+ * Subscriptions can be added and removed at any time. Matching may run concurrently in many threads and holds a
+ *   read lock, while add and remove hold a write lock.
+ *
+ * @param <K> type of subscription id
+ */
+public final class SubscriptionIndex<K>
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Maximum number of conjunctions indexed for one selector
+  public static final int MAX_CONJUNCTIONS = 64;
+
+  // Integers with an absolute value up to 2^53 are exact as doubles
+  private static final long MAX_EXACT_LONG = 1L << 53;
+
+  // Prefix of property names that refer to JMS headers rather than properties
+  private static final String JMS_PREFIX = "JMS";
+
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // Guarded by lock
+  private final HashMap<K, Subscription<K>> subscriptions = new HashMap<>();
+  // Equality predicates by property and then by value key
+  private final HashMap<String, HashMap<Object, Set<Conjunction<K>>>> equalIndex = new HashMap<>();
+  // Range predicates by property
+  private final HashMap<String, IntervalTree<RangeEntry<K>>> rangeIndex = new HashMap<>();
+  // Conjunctions with no indexed predicate, always verified
+  private final Set<Conjunction<K>> unindexed = new LinkedHashSet<>();
+  private int conjunctionCount;
+
+  private final LongAdder matchCount = new LongAdder();
+  private final LongAdder candidateCount = new LongAdder();
+  private final LongAdder verifyCount = new LongAdder();
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Add a subscription, replacing any with the same id
+   * @param id subscription id
+   * @param selector message selector
+   * @throws InvalidSelectorException if the selector cannot be parsed
+   * @throws IllegalArgumentException if id or selector is null
+   */
+  public void add(K id, String selector) throws InvalidSelectorException
+  {
+    if (selector == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SubscriptionIndex", "selector"));
+    add(id, TapisSelectorParser.parse(selector));
+  }
+
+  /**
+   * Add a subscription, replacing any with the same id
+   * @param id subscription id
+   * @param selector parsed message selector
+   * @throws IllegalArgumentException if id or selector is null
+   */
+  public void add(K id, BooleanExpression selector)
+  {
+    if (id == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SubscriptionIndex", "id"));
+    if (selector == null)
+      throw new IllegalArgumentException(MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "SubscriptionIndex", "selector"));
+
+    // Decompose outside the lock
+    var sub = new Subscription<K>(id, selector);
+    List<List<BooleanExpression>> dnf = toDnf(selector);
+    if (dnf == null) sub.conjunctions.add(new Conjunction<>(sub, 0, true));
+    else for (List<BooleanExpression> atoms : dnf) sub.conjunctions.add(newConjunction(sub, atoms));
+
+    lock.writeLock().lock();
+    try
+    {
+      Subscription<K> old = subscriptions.put(id, sub);
+      if (old != null) unindex(old);
+      index(sub);
+    }
+    finally { lock.writeLock().unlock(); }
+  }
+
+  /**
+   * Remove a subscription
+   * @param id subscription id
+   * @return true if the subscription was present
+   */
+  public boolean remove(K id)
+  {
+    lock.writeLock().lock();
+    try
+    {
+      Subscription<K> sub = subscriptions.remove(id);
+      if (sub == null) return false;
+      unindex(sub);
+      return true;
+    }
+    finally { lock.writeLock().unlock(); }
+  }
+
+  /**
+   * Find the subscriptions whose selector matches an event
+   * @param properties property values of the event. Null values are treated as absent.
+   * @return ids of the matching subscriptions
+   * @throws IllegalArgumentException if a property value is not of a supported type
+   * @throws JMSException if a selector cannot be evaluated
+   */
+  public Set<K> match(Map<String, ?> properties) throws JMSException
+  {
+    // Widen values as when setting message properties
+    var values = new LinkedHashMap<String, Object>();
+    for (Map.Entry<String, ?> entry : properties.entrySet())
+    {
+      Object value = widen(entry.getKey(), entry.getValue());
+      if (value != null) values.put(entry.getKey(), value);
+    }
+    matchCount.increment();
+
+    lock.readLock().lock();
+    try
+    {
+      // Count the indexed predicates of each conjunction satisfied by the event
+      var counts = new IdentityHashMap<Conjunction<K>, int[]>();
+      var inexact = Collections.newSetFromMap(new IdentityHashMap<Conjunction<K>, Boolean>());
+      for (Map.Entry<String, Object> entry : values.entrySet())
+      {
+        Object value = entry.getValue();
+        boolean exact = !(value instanceof Long) || Math.abs((Long) value) <= MAX_EXACT_LONG;
+        Object key = valueKey(value);
+
+        HashMap<Object, Set<Conjunction<K>>> byValue = equalIndex.get(entry.getKey());
+        Set<Conjunction<K>> equal = (byValue == null) ? null : byValue.get(key);
+        if (equal != null)
+          for (Conjunction<K> conj : equal)
+          {
+            counts.computeIfAbsent(conj, c -> new int[1])[0]++;
+            if (!exact) inexact.add(conj);
+          }
+
+        IntervalTree<RangeEntry<K>> ranges = rangeIndex.get(entry.getKey());
+        if (ranges != null && key instanceof Double)
+        {
+          double x = (Double) key;
+          ranges.stab(x, node ->
+          {
+            RangeEntry<K> range = node.value;
+            if (exact && !range.contains(x)) return;
+            counts.computeIfAbsent(range.conjunction, c -> new int[1])[0]++;
+            if (!exact) inexact.add(range.conjunction);
+          });
+        }
+      }
+
+      // Collect candidates and verify those with predicates not indexed or compared inexactly
+      var matched = new LinkedHashSet<K>();
+      var evaluator = new Evaluator(values);
+      for (Map.Entry<Conjunction<K>, int[]> entry : counts.entrySet())
+      {
+        Conjunction<K> conj = entry.getKey();
+        if (entry.getValue()[0] < conj.required || matched.contains(conj.subscription.id)) continue;
+        candidateCount.increment();
+        if ((conj.verify || inexact.contains(conj)) && !evaluator.matches(conj.subscription)) continue;
+        matched.add(conj.subscription.id);
+      }
+      for (Conjunction<K> conj : unindexed)
+      {
+        if (matched.contains(conj.subscription.id)) continue;
+        candidateCount.increment();
+        if (evaluator.matches(conj.subscription)) matched.add(conj.subscription.id);
+      }
+      return matched;
+    }
+    finally { lock.readLock().unlock(); }
+  }
+
+  /**
+   * @return number of subscriptions
+   */
+  public int size()
+  {
+    lock.readLock().lock();
+    try { return subscriptions.size(); }
+    finally { lock.readLock().unlock(); }
+  }
+
+  /**
+   * @return snapshot of the index counters
+   */
+  public Stats getStats()
+  {
+    lock.readLock().lock();
+    try
+    {
+      return new Stats(subscriptions.size(), conjunctionCount, unindexed.size(), matchCount.sum(),
+                       candidateCount.sum(), verifyCount.sum());
+    }
+    finally { lock.readLock().unlock(); }
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Rewrite a selector as an OR of conjunctions of atomic predicates.
+   * Return null if there would be more than MAX_CONJUNCTIONS conjunctions.
+   * Distribution of AND over OR keeps the result of three valued logic, so the rewritten selector is TRUE exactly
+   *   when the selector is.
+   */
+  private static List<List<BooleanExpression>> toDnf(BooleanExpression expr)
+  {
+    if (expr instanceof LogicExpression)
+    {
+      var logic = (LogicExpression) expr;
+      List<List<BooleanExpression>> left = toDnf((BooleanExpression) logic.getLeft());
+      if (left == null) return null;
+      List<List<BooleanExpression>> right = toDnf((BooleanExpression) logic.getRight());
+      if (right == null) return null;
+      if ("OR".equals(logic.getExpressionSymbol()))
+      {
+        if (left.size() + right.size() > MAX_CONJUNCTIONS) return null;
+        var result = new ArrayList<List<BooleanExpression>>(left);
+        result.addAll(right);
+        return result;
+      }
+      if (left.size() * right.size() > MAX_CONJUNCTIONS) return null;
+      var result = new ArrayList<List<BooleanExpression>>(left.size() * right.size());
+      for (List<BooleanExpression> l : left)
+        for (List<BooleanExpression> r : right)
+        {
+          var atoms = new ArrayList<BooleanExpression>(l.size() + r.size());
+          atoms.addAll(l);
+          atoms.addAll(r);
+          result.add(atoms);
+        }
+      return result;
+    }
+    var result = new ArrayList<List<BooleanExpression>>(1);
+    result.add(List.of(expr));
+    return result;
+  }
+
+  /*
+   * Build a conjunction from its atomic predicates
+   */
+  private static <K> Conjunction<K> newConjunction(Subscription<K> sub, List<BooleanExpression> atoms)
+  {
+    // Duplicate equality predicates are counted once and ranges on one property are merged
+    var equal = new LinkedHashSet<Map.Entry<String, Object>>();
+    var ranges = new LinkedHashMap<String, Range>();
+    boolean verify = false;
+    for (BooleanExpression atom : atoms)
+      if (!addPredicate(atom, equal, ranges)) verify = true;
+
+    var conj = new Conjunction<K>(sub, equal.size() + ranges.size(), verify);
+    conj.equal.addAll(equal);
+    conj.ranges.putAll(ranges);
+    return conj;
+  }
+
+  /*
+   * Add an atomic predicate comparing a property with a constant to the equality or range predicates.
+   * Return false if it cannot be indexed.
+   */
+  private static boolean addPredicate(BooleanExpression atom, Set<Map.Entry<String, Object>> equal,
+                                      Map<String, Range> ranges)
+  {
+    if (!(atom instanceof ComparisonExpression)) return false;
+    var cmp = (ComparisonExpression) atom;
+    String symbol = cmp.getExpressionSymbol();
+    Expression prop = cmp.getLeft();
+    Expression constant = cmp.getRight();
+    if (prop instanceof ConstantExpression && constant instanceof PropertyExpression)
+    {
+      // Put the property on the left, e.g. 5 < x is x > 5
+      prop = cmp.getRight();
+      constant = cmp.getLeft();
+      symbol = flip(symbol);
+    }
+    if (symbol == null || !(prop instanceof PropertyExpression) || !(constant instanceof ConstantExpression))
+      return false;
+    String name = ((PropertyExpression) prop).getName();
+    if (name.startsWith(JMS_PREFIX)) return false;
+    Object key = constantKey(((ConstantExpression) constant).getValue());
+    if (key == null) return false;
+
+    if (symbol.equals("="))
+    {
+      equal.add(Map.entry(name, key));
+      return true;
+    }
+    if (!(key instanceof Double)) return false;
+    double c = (Double) key;
+    Range range = ranges.computeIfAbsent(name, n -> new Range());
+    switch (symbol)
+    {
+      case ">":  range.restrictLow(c, false); break;
+      case ">=": range.restrictLow(c, true); break;
+      case "<":  range.restrictHigh(c, false); break;
+      default:   range.restrictHigh(c, true); break;
+    }
+    return true;
+  }
+
+  private static String flip(String symbol)
+  {
+    switch (symbol)
+    {
+      case "=":  return "=";
+      case ">":  return "<";
+      case ">=": return "<=";
+      case "<":  return ">";
+      case "<=": return ">=";
+      default:   return null;
+    }
+  }
+
+  /*
+   * Key of a selector constant, or null if it cannot be indexed
+   */
+  private static Object constantKey(Object value)
+  {
+    if (value instanceof String || value instanceof Boolean) return value;
+    if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long)
+    {
+      long l = ((Number) value).longValue();
+      return (Math.abs(l) > MAX_EXACT_LONG) ? null : Double.valueOf(l);
+    }
+    if (value instanceof Double) return value;
+    return null;
+  }
+
+  /*
+   * Key of a widened event value. Numbers compare as doubles in the indexes, and -0.0 and 0.0 stay distinct as
+   *   they are when a selector compares Double values.
+   */
+  private static Object valueKey(Object value)
+  {
+    if (value instanceof Long) return Double.valueOf((Long) value);
+    return value;
+  }
+
+  /*
+   * Widen an event value as for a message property
+   */
+  private static Object widen(String name, Object value)
+  {
+    if (value == null || value instanceof String || value instanceof Boolean || value instanceof Long ||
+        value instanceof Double)
+      return value;
+    if (value instanceof Byte || value instanceof Short || value instanceof Integer)
+      return ((Number) value).longValue();
+    if (value instanceof Float) return ((Float) value).doubleValue();
+    throw new IllegalArgumentException(MsgUtils.getMsg("SEARCH_SUBSCRIPTION_INVALID_VALUE", name,
+                                                       value.getClass().getSimpleName()));
+  }
+
+  private void index(Subscription<K> sub)
+  {
+    for (Conjunction<K> conj : sub.conjunctions)
+    {
+      conjunctionCount++;
+      if (conj.required == 0)
+      {
+        unindexed.add(conj);
+        continue;
+      }
+      for (Map.Entry<String, Object> pred : conj.equal)
+        equalIndex.computeIfAbsent(pred.getKey(), k -> new HashMap<>())
+                  .computeIfAbsent(pred.getValue(), k -> new LinkedHashSet<>()).add(conj);
+      for (Map.Entry<String, Range> pred : conj.ranges.entrySet())
+      {
+        Range range = pred.getValue();
+        conj.rangeNodes.add(rangeIndex.computeIfAbsent(pred.getKey(), k -> new IntervalTree<>())
+                                      .insert(range.low, range.high, new RangeEntry<>(conj, range)));
+      }
+    }
+  }
+
+  private void unindex(Subscription<K> sub)
+  {
+    for (Conjunction<K> conj : sub.conjunctions)
+    {
+      conjunctionCount--;
+      if (conj.required == 0)
+      {
+        unindexed.remove(conj);
+        continue;
+      }
+      for (Map.Entry<String, Object> pred : conj.equal)
+      {
+        HashMap<Object, Set<Conjunction<K>>> byValue = equalIndex.get(pred.getKey());
+        Set<Conjunction<K>> set = byValue.get(pred.getValue());
+        set.remove(conj);
+        if (set.isEmpty()) byValue.remove(pred.getValue());
+        if (byValue.isEmpty()) equalIndex.remove(pred.getKey());
+      }
+      int i = 0;
+      for (String name : conj.ranges.keySet())
+      {
+        IntervalTree<RangeEntry<K>> tree = rangeIndex.get(name);
+        tree.remove(conj.rangeNodes.get(i++));
+        if (tree.isEmpty()) rangeIndex.remove(name);
+      }
+      conj.rangeNodes.clear();
+    }
+  }
+
+  /* ********************************************************************** */
+  /*                          Private Classes                               */
+  /* ********************************************************************** */
+  private static final class Subscription<K>
+  {
+    private final K id;
+    private final BooleanExpression selector;
+    private final List<Conjunction<K>> conjunctions = new ArrayList<>(1);
+
+    private Subscription(K id, BooleanExpression selector)
+    {
+      this.id = id;
+      this.selector = selector;
+    }
+  }
+
+  /*
+   * Conjunction of a subscription. Identity is used for equality.
+   */
+  private static final class Conjunction<K>
+  {
+    private final Subscription<K> subscription;
+    // Number of indexed predicates
+    private final int required;
+    // True if the conjunction has predicates that are not indexed
+    private final boolean verify;
+    private final Set<Map.Entry<String, Object>> equal = new LinkedHashSet<>();
+    private final LinkedHashMap<String, Range> ranges = new LinkedHashMap<>();
+    // Interval tree nodes in the order of ranges
+    private final List<IntervalTree.Node<RangeEntry<K>>> rangeNodes = new ArrayList<>();
+
+    private Conjunction(Subscription<K> subscription, int required, boolean verify)
+    {
+      this.subscription = subscription;
+      this.required = required;
+      this.verify = verify;
+    }
+  }
+
+  /*
+   * Numeric range on a property in the order of Double.compare. Unbounded ends are -Infinity and NaN, the least
+   *   and greatest doubles in that order.
+   */
+  private static final class Range
+  {
+    private double low = Double.NEGATIVE_INFINITY;
+    private boolean lowInclusive = true;
+    private double high = Double.NaN;
+    private boolean highInclusive = true;
+
+    private void restrictLow(double c, boolean inclusive)
+    {
+      int cmp = Double.compare(c, low);
+      if (cmp > 0 || (cmp == 0 && !inclusive))
+      {
+        low = c;
+        lowInclusive = inclusive;
+      }
+    }
+
+    private void restrictHigh(double c, boolean inclusive)
+    {
+      int cmp = Double.compare(c, high);
+      if (cmp < 0 || (cmp == 0 && !inclusive))
+      {
+        high = c;
+        highInclusive = inclusive;
+      }
+    }
+  }
+
+  private static final class RangeEntry<K>
+  {
+    private final Conjunction<K> conjunction;
+    private final Range range;
+
+    private RangeEntry(Conjunction<K> conjunction, Range range)
+    {
+      this.conjunction = conjunction;
+      this.range = range;
+    }
+
+    /*
+     * Check the open ends of a range. The interval tree finds the closed range.
+     */
+    private boolean contains(double x)
+    {
+      return (range.lowInclusive || Double.compare(x, range.low) != 0) &&
+             (range.highInclusive || Double.compare(x, range.high) != 0);
+    }
+  }
+
+  /*
+   * Evaluates selectors against one event, remembering the result for each subscription
+   */
+  private final class Evaluator
+  {
+    private final Map<String, Object> values;
+    private final Map<Subscription<K>, Boolean> results = new IdentityHashMap<>();
+    private MessageEvaluationContext context;
+
+    private Evaluator(Map<String, Object> values) { this.values = values; }
+
+    private boolean matches(Subscription<K> sub) throws JMSException
+    {
+      Boolean result = results.get(sub);
+      if (result != null) return result;
+      if (context == null)
+      {
+        var message = new ActiveMQMessage();
+        for (Map.Entry<String, Object> entry : values.entrySet())
+          message.setObjectProperty(entry.getKey(), entry.getValue());
+        context = new MessageEvaluationContext();
+        context.setMessageReference(message);
+      }
+      verifyCount.increment();
+      result = sub.selector.matches(context);
+      results.put(sub, result);
+      return result;
+    }
+  }
+
+  /* ********************************************************************** */
+  /*                            Stats Class                                 */
+  /* ********************************************************************** */
+  /**
+   * Snapshot of index counters
+   */
+  public static final class Stats
+  {
+    private final int subscriptionCount;
+    private final int conjunctionCount;
+    private final int unindexedCount;
+    private final long matchCount;
+    private final long candidateCount;
+    private final long verifyCount;
+
+    private Stats(int subscriptionCount, int conjunctionCount, int unindexedCount, long matchCount,
+                  long candidateCount, long verifyCount)
+    {
+      this.subscriptionCount = subscriptionCount;
+      this.conjunctionCount = conjunctionCount;
+      this.unindexedCount = unindexedCount;
+      this.matchCount = matchCount;
+      this.candidateCount = candidateCount;
+      this.verifyCount = verifyCount;
+    }
+
+    public int getSubscriptionCount() { return subscriptionCount; }
+    // Conjunctions of all subscriptions
+    public int getConjunctionCount() { return conjunctionCount; }
+    // Conjunctions with no indexed predicate
+    public int getUnindexedCount() { return unindexedCount; }
+    // Events matched
+    public long getMatchCount() { return matchCount; }
+    // Conjunctions with all indexed predicates satisfied
+    public long getCandidateCount() { return candidateCount; }
+    // Selectors evaluated
+    public long getVerifyCount() { return verifyCount; }
+
+    @Override
+    public String toString()
+    {
+      return "subscriptions=" + subscriptionCount + " conjunctions=" + conjunctionCount + " unindexed=" +
+             unindexedCount + " matches=" + matchCount + " candidates=" + candidateCount + " verified=" +
+             verifyCount;
+    }
+  }
+}
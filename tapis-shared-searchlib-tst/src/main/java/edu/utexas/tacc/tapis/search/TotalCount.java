@@ -0,0 +1,36 @@
+package edu.utexas.tacc.tapis.search;
+
+/**
+ * Total number of rows matching a search, as returned by CountStrategy.
+ * The count is either exact or an estimate based on planner statistics.
+ */
+public final class TotalCount
+{
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  private final long count;
+  private final boolean approximate;
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  TotalCount(long count, boolean approximate)
+  {
+    this.count = count;
+    this.approximate = approximate;
+  }
+
+  /* ********************************************************************** */
+  /*                               Accessors                                */
+  /* ********************************************************************** */
+  public long getCount() { return count; }
+
+  /**
+   * @return true if the count is an estimate
+   */
+  public boolean isApproximate() { return approximate; }
+
+  @Override
+  public String toString() { return approximate ? "~" + count : Long.toString(count); }
+}
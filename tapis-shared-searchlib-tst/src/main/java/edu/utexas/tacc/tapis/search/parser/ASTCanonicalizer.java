@@ -0,0 +1,214 @@
+package edu.utexas.tacc.tapis.search.parser;
+
+import edu.utexas.tacc.tapis.search.SearchCanonicalizer;
+import edu.utexas.tacc.tapis.search.SearchCondition;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * Canonical form of an ASTNode tree as produced by ASTParser, so that equivalent queries produce the same
+ *   cache key and the same SQL.
+ *
+ * The tree is canonicalized as follows:
+ *   - Operators are upper case.
+ *   - Chains of the same commutative operator (AND, OR) are collected, including those created by parentheses
+ *     and n-ary nodes. Operands are canonicalized, sorted by canonical key and duplicates removed. The chain is
+ *     rebuilt as an ASTNaryExpression. A chain with a single remaining operand is replaced by that operand.
+ *   - Comparisons of an attribute with a value are canonicalized as for SearchCanonicalizer: attribute in snake
+ *     case, values normalized for the column type when a catalog is given, IN/NIN values sorted.
+ *   - Other nodes are kept as is.
+ * The input tree is not modified. Nodes that are already canonical are reused.
+ */
+public final class ASTCanonicalizer
+{
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  private ASTCanonicalizer() { }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Canonicalize a tree without type information
+   * @param node root of tree
+   * @return root of canonical tree
+   */
+  public static ASTNode canonicalize(ASTNode node)
+  {
+    return canonicalize(node, null);
+  }
+
+  /**
+   * Canonicalize a tree
+   * @param node root of tree
+   * @param columnTypes map of column name to java.sql.Types code, may be null
+   * @return root of canonical tree
+   */
+  public static ASTNode canonicalize(ASTNode node, Map<String, Integer> columnTypes)
+  {
+    if (node instanceof ASTBinaryExpression)
+    {
+      var bNode = (ASTBinaryExpression) node;
+      String op = StringUtils.upperCase(bNode.getOp());
+      if ("AND".equals(op) || "OR".equals(op)) return canonicalizeChain(bNode, op, columnTypes);
+      return canonicalizeComparison(bNode, op, columnTypes);
+    }
+    if (node instanceof ASTNaryExpression)
+    {
+      return canonicalizeChain(node, StringUtils.upperCase(((ASTNaryExpression) node).getOp()), columnTypes);
+    }
+    if (node instanceof ASTUnaryExpression)
+    {
+      var uNode = (ASTUnaryExpression) node;
+      ASTNode child = canonicalize(uNode.getNode(), columnTypes);
+      String op = StringUtils.upperCase(uNode.getOp());
+      if (child == uNode.getNode() && StringUtils.equals(op, uNode.getOp())) return uNode;
+      return new ASTUnaryExpression(op, child);
+    }
+    return node;
+  }
+
+  /**
+   * Build an unambiguous key for a tree. The tree should already be canonical.
+   * Same form as ASTNode.toString() except that leaf values have the Tapis special characters escaped, so
+   *   different trees never produce the same key.
+   * @param node root of tree
+   * @return key
+   */
+  public static String canonicalKey(ASTNode node)
+  {
+    var sb = new StringBuilder();
+    appendKey(sb, node);
+    return sb.toString();
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Collect all operands of a chain of the same operator, then sort, de-duplicate and rebuild.
+   */
+  private static ASTNode canonicalizeChain(ASTNode node, String op, Map<String, Integer> columnTypes)
+  {
+    // Walk the chain without recursion since chains built by the parser may be long
+    var operands = new ArrayList<ASTNode>();
+    var stack = new ArrayDeque<ASTNode>();
+    stack.push(node);
+    while (!stack.isEmpty())
+    {
+      ASTNode n = stack.pop();
+      if (n instanceof ASTBinaryExpression && op.equalsIgnoreCase(((ASTBinaryExpression) n).getOp()))
+      {
+        stack.push(((ASTBinaryExpression) n).getRight());
+        stack.push(((ASTBinaryExpression) n).getLeft());
+      }
+      else if (n instanceof ASTNaryExpression && op.equalsIgnoreCase(((ASTNaryExpression) n).getOp()))
+      {
+        List<ASTNode> nOperands = ((ASTNaryExpression) n).getOperands();
+        for (int i = nOperands.size() - 1; i >= 0; i--) stack.push(nOperands.get(i));
+      }
+      else operands.add(n);
+    }
+
+    var sorted = new TreeMap<String, ASTNode>();
+    for (ASTNode operand : operands)
+    {
+      ASTNode canonical = canonicalize(operand, columnTypes);
+      sorted.putIfAbsent(canonicalKey(canonical), canonical);
+    }
+
+    if (sorted.size() == 1) return sorted.values().iterator().next();
+    return new ASTNaryExpression(op, new ArrayList<>(sorted.values()));
+  }
+
+  /*
+   * Canonicalize a comparison of an attribute with a value. Other binary expressions are kept as is.
+   */
+  private static ASTNode canonicalizeComparison(ASTBinaryExpression bNode, String op,
+                                                Map<String, Integer> columnTypes)
+  {
+    SearchCondition cond;
+    try { cond = SearchCondition.fromAST(bNode); }
+    catch (IllegalArgumentException e)
+    {
+      if (op.equals(bNode.getOp())) return bNode;
+      return new ASTBinaryExpression(op, bNode.getLeft(), bNode.getRight());
+    }
+    SearchCondition canonical = SearchCanonicalizer.canonicalize(cond, columnTypes);
+    String attr = ((ASTLeaf) ((ASTUnaryExpression) bNode.getLeft()).getNode()).getValue();
+    // A negated value is not a leaf and is always rebuilt as one
+    String valStr = (bNode.getRight() instanceof ASTLeaf) ? ((ASTLeaf) bNode.getRight()).getValue() : null;
+    String canonicalValStr = joinValues(canonical.getValues());
+    if (op.equals(bNode.getOp()) && canonical.getAttribute().equals(attr) && canonicalValStr.equals(valStr))
+      return bNode;
+    return new ASTBinaryExpression(op, new ASTUnaryExpression("", new ASTLeaf(canonical.getAttribute())),
+                                   new ASTLeaf(canonicalValStr));
+  }
+
+  /*
+   * Join values in the form used by ASTParser for list operators
+   */
+  private static String joinValues(List<String> values)
+  {
+    if (values.size() == 1) return values.get(0);
+    var sj = new StringJoiner(",");
+    for (String val : values) sj.add(val);
+    return sj.toString();
+  }
+
+  /*
+   * Append the key for a tree. Uses a stack of pending nodes and text rather than recursion.
+   */
+  private static void appendKey(StringBuilder sb, ASTNode root)
+  {
+    var stack = new ArrayDeque<Object>();
+    stack.push(root);
+    while (!stack.isEmpty())
+    {
+      Object item = stack.pop();
+      if (item instanceof String) sb.append((String) item);
+      else if (item instanceof ASTBinaryExpression)
+      {
+        var bNode = (ASTBinaryExpression) item;
+        sb.append('(');
+        stack.push(")");
+        stack.push(bNode.getRight());
+        stack.push("." + bNode.getOp() + ".");
+        stack.push(bNode.getLeft());
+      }
+      else if (item instanceof ASTNaryExpression)
+      {
+        var nNode = (ASTNaryExpression) item;
+        List<ASTNode> operands = nNode.getOperands();
+        sb.append('(');
+        stack.push(")");
+        for (int i = operands.size() - 1; i >= 0; i--)
+        {
+          stack.push(operands.get(i));
+          if (i > 0) stack.push("." + nNode.getOp() + ".");
+        }
+      }
+      else if (item instanceof ASTConstant)
+      {
+        sb.append(item);
+      }
+      else if (item instanceof ASTUnaryExpression)
+      {
+        var uNode = (ASTUnaryExpression) item;
+        if (!StringUtils.isBlank(uNode.getOp())) sb.append('.').append(uNode.getOp()).append('.');
+        stack.push(uNode.getNode());
+      }
+      else if (item instanceof ASTLeaf)
+      {
+        SearchCanonicalizer.appendEscaped(sb, ((ASTLeaf) item).getValue());
+      }
+    }
+  }
+}
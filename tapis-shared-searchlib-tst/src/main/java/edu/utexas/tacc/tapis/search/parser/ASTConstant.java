@@ -0,0 +1,18 @@
+package edu.utexas.tacc.tapis.search.parser;
+
+/*
+ * Class representing a node in the AST with a constant boolean value
+ * Created by ASTOptimizer when a condition is known to always or never match
+ */
+public class ASTConstant extends ASTNode
+{
+  public static final ASTConstant TRUE = new ASTConstant(true);
+  public static final ASTConstant FALSE = new ASTConstant(false);
+
+  private boolean value;
+  private ASTConstant(boolean v) { value = v; }
+
+  public boolean getValue() { return value; }
+
+  public String toString() { return value ? "TRUE" : "FALSE"; }
+}
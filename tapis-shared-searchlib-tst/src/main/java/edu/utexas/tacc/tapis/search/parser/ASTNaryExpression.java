@@ -0,0 +1,34 @@
+package edu.utexas.tacc.tapis.search.parser;
+
+import java.util.List;
+
+/*
+ * Class representing an n-ary node in the AST
+ * An n-ary node applies a commutative operator (AND, OR) to two or more operands
+ * Created by ASTOptimizer when flattening chains of binary nodes
+ */
+public class ASTNaryExpression extends ASTNode
+{
+  private String op;
+  private List<ASTNode> operands;
+  ASTNaryExpression(String o, List<ASTNode> l)
+  {
+    op = o;
+    operands = List.copyOf(l);
+  }
+
+  public String getOp() { return op; }
+
+  public List<ASTNode> getOperands() { return operands; }
+
+  public String toString()
+  {
+    var sb = new StringBuilder("(");
+    for (int i = 0; i < operands.size(); i++)
+    {
+      if (i > 0) sb.append('.').append(op).append('.');
+      sb.append(operands.get(i));
+    }
+    return sb.append(')').toString();
+  }
+}
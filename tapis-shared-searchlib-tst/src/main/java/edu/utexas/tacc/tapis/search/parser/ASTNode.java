@@ -1,17 +1,33 @@
 package edu.utexas.tacc.tapis.search.parser;
 
+import java.util.ArrayDeque;
+
 /*
  * Class representing a node in the AST
  */
 public abstract class ASTNode {
   // Count number of nodes for tree from this point and below
+  // Use an explicit stack since trees built by the parser may be very deep
   public int countLeaves()
   {
-    if (this instanceof ASTLeaf) return 1;
-    else if (this instanceof ASTUnaryExpression)
-      return ((ASTUnaryExpression) this).getNode().countLeaves();
-    else if (this instanceof ASTBinaryExpression)
-      return ((ASTBinaryExpression) this).getLeft().countLeaves() + ((ASTBinaryExpression) this).getRight().countLeaves();
-    return 0;
+    int count = 0;
+    var stack = new ArrayDeque<ASTNode>();
+    stack.push(this);
+    while (!stack.isEmpty())
+    {
+      ASTNode n = stack.pop();
+      if (n instanceof ASTLeaf || n instanceof ASTConstant) count++;
+      else if (n instanceof ASTUnaryExpression) stack.push(((ASTUnaryExpression) n).getNode());
+      else if (n instanceof ASTBinaryExpression)
+      {
+        stack.push(((ASTBinaryExpression) n).getRight());
+        stack.push(((ASTBinaryExpression) n).getLeft());
+      }
+      else if (n instanceof ASTNaryExpression)
+      {
+        for (ASTNode operand : ((ASTNaryExpression) n).getOperands()) stack.push(operand);
+      }
+    }
+    return count;
   }
 }
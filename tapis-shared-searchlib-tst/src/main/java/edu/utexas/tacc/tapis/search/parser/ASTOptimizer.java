@@ -0,0 +1,576 @@
+package edu.utexas.tacc.tapis.search.parser;
+
+import edu.utexas.tacc.tapis.search.SearchCondition;
+import edu.utexas.tacc.tapis.search.SearchUtils;
+import edu.utexas.tacc.tapis.search.SearchUtils.SearchOperator;
+import edu.utexas.tacc.tapis.shared.utils.TapisTimestampParser;
+import org.apache.commons.lang3.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+/**
+ * Rewrite an ASTNode tree as produced by ASTParser into a simpler equivalent tree before SQL generation or
+ *   in-memory evaluation.
+ *
+ * The following rewrites are done:
+ *   - Chains of AND or OR, including those created by parentheses, are flattened into a single ASTNaryExpression.
+ *   - Duplicate operands of AND/OR are removed.
+ *   - Within an OR, EQ and IN comparisons on the same attribute are merged into a single IN.
+ *   - Within an AND, a single lower bound (GTE) and a single upper bound (LTE) on the same attribute are merged
+ *     into BETWEEN. When the column is known to be an integer type GT and LT are also merged, using the
+ *     adjacent integer as the inclusive bound.
+ *   - Within an AND, when the column type is known, comparisons on the same attribute that cannot all be true
+ *     are detected, for example x = 1 AND x = 2 or x > 5 AND x < 3. The AND is replaced by ASTConstant.FALSE.
+ *     Such an AND is NULL rather than FALSE for a row where x is NULL, which filters the same way except under
+ *     NOT, since NOT NULL is still NULL. Contradictions are therefore not detected within a NOT.
+ *   - Constants are folded: FALSE in an AND or TRUE in an OR decides the result.
+ * If the whole tree can never match the result is ASTConstant.FALSE, see isAlwaysFalse(). Callers should then
+ *   return an empty result without querying the database.
+ *
+ * Contradictions are only detected for numeric, timestamp, boolean and VARCHAR columns and only when all values
+ *   can be converted to the column type. Range comparisons are only used for numeric and timestamp columns,
+ *   since the ordering of strings depends on the database collation. Values that are not valid for the column
+ *   are left for validation to report.
+ *
+ * The tree is traversed using an explicit stack, so very deep trees cannot overflow the call stack.
+ * The input tree is not modified.
+ */
+public final class ASTOptimizer
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  private static final String AND = "AND";
+  private static final String OR = "OR";
+  private static final String NOT = "NOT";
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  private ASTOptimizer() { }
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /**
+   * Optimize a tree without type information. Contradictions are not detected.
+   * @param node root of tree, may be null
+   * @return root of optimized tree, null if node is null
+   */
+  public static ASTNode optimize(ASTNode node)
+  {
+    return optimize(node, null);
+  }
+
+  /**
+   * Optimize a tree
+   * @param node root of tree, may be null
+   * @param columnTypes map of column name to java.sql.Types code, may be null
+   * @return root of optimized tree, null if node is null
+   */
+  public static ASTNode optimize(ASTNode node, Map<String, Integer> columnTypes)
+  {
+    if (node == null) return null;
+    if (isTerminal(node)) return optimizeTerminal(node);
+
+    // Post-order traversal. Each frame collects the optimized operands of one AND/OR chain or NOT.
+    var stack = new ArrayDeque<Frame>();
+    stack.push(new Frame(node, false));
+    ASTNode result = null;
+    while (!stack.isEmpty())
+    {
+      Frame frame = stack.peek();
+      if (frame.next < frame.pending.size())
+      {
+        ASTNode child = frame.pending.get(frame.next++);
+        if (isTerminal(child)) frame.results.add(optimizeTerminal(child));
+        else stack.push(new Frame(child, frame.underNot));
+        continue;
+      }
+      stack.pop();
+      ASTNode optimized = frame.finish(columnTypes);
+      if (stack.isEmpty()) result = optimized;
+      else stack.peek().results.add(optimized);
+    }
+    return result;
+  }
+
+  /**
+   * @param node optimized tree
+   * @return true if the tree can never match
+   */
+  public static boolean isAlwaysFalse(ASTNode node)
+  {
+    return node instanceof ASTConstant && !((ASTConstant) node).getValue();
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * A terminal node is anything other than AND, OR or a unary operator applied to an expression
+   */
+  private static boolean isTerminal(ASTNode node)
+  {
+    if (node instanceof ASTNaryExpression) return false;
+    if (node instanceof ASTBinaryExpression) return !isLogical(((ASTBinaryExpression) node).getOp());
+    if (node instanceof ASTUnaryExpression) return StringUtils.isBlank(((ASTUnaryExpression) node).getOp());
+    return true;
+  }
+
+  private static boolean isLogical(String op) { return AND.equalsIgnoreCase(op) || OR.equalsIgnoreCase(op); }
+
+  /*
+   * Terminal nodes only need the case of the operator normalized
+   */
+  private static ASTNode optimizeTerminal(ASTNode node)
+  {
+    if (!(node instanceof ASTBinaryExpression)) return node;
+    var bNode = (ASTBinaryExpression) node;
+    String op = StringUtils.upperCase(bNode.getOp());
+    if (op.equals(bNode.getOp())) return bNode;
+    return new ASTBinaryExpression(op, bNode.getLeft(), bNode.getRight());
+  }
+
+  /*
+   * Simplify an AND of optimized operands
+   */
+  private static ASTNode simplifyAnd(List<ASTNode> operands, Map<String, Integer> columnTypes,
+                                     boolean detectContradictions)
+  {
+    var terms = new ArrayList<ASTNode>();
+    for (ASTNode n : flatten(AND, operands))
+    {
+      if (n instanceof ASTConstant)
+      {
+        if (!((ASTConstant) n).getValue()) return ASTConstant.FALSE;
+        continue;
+      }
+      terms.add(n);
+    }
+    dedupe(terms);
+
+    Map<String, List<Integer>> byAttr = groupConditions(terms);
+    var removed = new HashSet<Integer>();
+    for (Map.Entry<String, List<Integer>> entry : byAttr.entrySet())
+    {
+      Integer sqlType = (columnTypes == null) ? null : columnTypes.get(entry.getKey());
+      List<SearchCondition> conds = new ArrayList<>();
+      for (int i : entry.getValue()) conds.add(toCondition(terms.get(i)));
+      if (detectContradictions && sqlType != null && isContradiction(conds, sqlType)) return ASTConstant.FALSE;
+      mergeBetween(terms, entry.getValue(), conds, sqlType, removed);
+    }
+    if (!removed.isEmpty())
+    {
+      var kept = new ArrayList<ASTNode>();
+      for (int i = 0; i < terms.size(); i++) if (!removed.contains(i)) kept.add(terms.get(i));
+      terms = kept;
+    }
+
+    if (terms.isEmpty()) return ASTConstant.TRUE;
+    if (terms.size() == 1) return terms.get(0);
+    return new ASTNaryExpression(AND, terms);
+  }
+
+  /*
+   * Simplify an OR of optimized operands
+   */
+  private static ASTNode simplifyOr(List<ASTNode> operands)
+  {
+    var terms = new ArrayList<ASTNode>();
+    for (ASTNode n : flatten(OR, operands))
+    {
+      if (n instanceof ASTConstant)
+      {
+        if (((ASTConstant) n).getValue()) return ASTConstant.TRUE;
+        continue;
+      }
+      terms.add(n);
+    }
+    dedupe(terms);
+
+    // Merge EQ and IN on the same attribute into a single IN, placed at the first of them
+    var removed = new HashSet<Integer>();
+    for (List<Integer> idxList : groupConditions(terms).values())
+    {
+      var mergeIdx = new ArrayList<Integer>();
+      var values = new LinkedHashSet<String>();
+      for (int i : idxList)
+      {
+        SearchCondition cond = toCondition(terms.get(i));
+        if (cond.getOperator() != SearchOperator.EQ && cond.getOperator() != SearchOperator.IN) continue;
+        // Values containing a separator or escape would change meaning when joined into a list
+        if (!isSafeListValue(cond.getValues())) continue;
+        mergeIdx.add(i);
+        values.addAll(cond.getValues());
+      }
+      if (mergeIdx.size() < 2) continue;
+      int first = mergeIdx.get(0);
+      terms.set(first, createComparison(SearchOperator.IN, getAttribute(terms.get(first)), values));
+      removed.addAll(mergeIdx.subList(1, mergeIdx.size()));
+    }
+    if (!removed.isEmpty())
+    {
+      var kept = new ArrayList<ASTNode>();
+      for (int i = 0; i < terms.size(); i++) if (!removed.contains(i)) kept.add(terms.get(i));
+      terms = kept;
+    }
+
+    if (terms.isEmpty()) return ASTConstant.FALSE;
+    if (terms.size() == 1) return terms.get(0);
+    return new ASTNaryExpression(OR, terms);
+  }
+
+  /*
+   * Replace a GTE and an LTE on the same attribute by BETWEEN. For integer columns GT and LT are also merged.
+   */
+  private static void mergeBetween(List<ASTNode> terms, List<Integer> idxList, List<SearchCondition> conds,
+                                   Integer sqlType, HashSet<Integer> removed)
+  {
+    boolean isInteger = sqlType != null && isIntegerType(sqlType);
+    int lowerIdx = -1, upperIdx = -1;
+    String lower = null, upper = null;
+    for (int j = 0; j < conds.size(); j++)
+    {
+      SearchCondition cond = conds.get(j);
+      String bound = null;
+      boolean isLower;
+      switch (cond.getOperator())
+      {
+        case GTE: bound = cond.getValue(); isLower = true; break;
+        case LTE: bound = cond.getValue(); isLower = false; break;
+        case GT: if (isInteger) bound = adjacentInteger(cond.getValue(), 1); isLower = true; break;
+        case LT: if (isInteger) bound = adjacentInteger(cond.getValue(), -1); isLower = false; break;
+        default: continue;
+      }
+      // More than one bound of the same kind or a bound that cannot be merged. Leave all as is.
+      if (bound == null || !isSafeListValue(Collections.singletonList(bound))) return;
+      if (isLower) { if (lowerIdx >= 0) return; lowerIdx = idxList.get(j); lower = bound; }
+      else { if (upperIdx >= 0) return; upperIdx = idxList.get(j); upper = bound; }
+    }
+    if (lowerIdx < 0 || upperIdx < 0) return;
+    terms.set(lowerIdx, createComparison(SearchOperator.BETWEEN, getAttribute(terms.get(lowerIdx)),
+                                         List.of(lower, upper)));
+    removed.add(upperIdx);
+  }
+
+  /*
+   * Check if comparisons on the same attribute, ANDed together, can never all be true
+   */
+  private static boolean isContradiction(List<SearchCondition> conds, int sqlType)
+  {
+    boolean isOrdered = isNumericType(sqlType) || sqlType == Types.DATE || sqlType == Types.TIMESTAMP;
+    if (!isOrdered && sqlType != Types.BOOLEAN && sqlType != Types.VARCHAR) return false;
+
+    // Values allowed by EQ/IN, null if not restricted. Values excluded by NEQ/NIN.
+    TreeSet<Comparable<Object>> allowed = null;
+    var excluded = new TreeSet<Comparable<Object>>();
+    var range = new Range();
+    for (SearchCondition cond : conds)
+    {
+      var values = new ArrayList<Comparable<Object>>();
+      for (String val : cond.getValues())
+      {
+        Comparable<Object> c = toComparable(sqlType, val);
+        // A value that cannot be converted is reported by validation. Do not try to optimize.
+        if (c == null) return false;
+        values.add(c);
+      }
+      switch (cond.getOperator())
+      {
+        case EQ:
+        case IN:
+          var set = new TreeSet<>(values);
+          if (allowed != null) set.retainAll(allowed);
+          allowed = set;
+          break;
+        case NEQ:
+        case NIN:
+          excluded.addAll(values);
+          break;
+        case GT: if (isOrdered) range.addLower(values.get(0), false); break;
+        case GTE: if (isOrdered) range.addLower(values.get(0), true); break;
+        case LT: if (isOrdered) range.addUpper(values.get(0), false); break;
+        case LTE: if (isOrdered) range.addUpper(values.get(0), true); break;
+        case BETWEEN:
+          if (isOrdered) { range.addLower(values.get(0), true); range.addUpper(values.get(1), true); }
+          break;
+        default:
+          break;
+      }
+    }
+    if (allowed != null)
+    {
+      allowed.removeAll(excluded);
+      allowed.removeIf(v -> !range.contains(v));
+      return allowed.isEmpty();
+    }
+    if (isIntegerType(sqlType)) range.toInclusiveIntegers();
+    return range.isEmpty();
+  }
+
+  /*
+   * Convert a value to a comparable for the sql type, null if not possible
+   */
+  private static Comparable<Object> toComparable(int sqlType, String val)
+  {
+    Comparable<?> c = null;
+    if (isNumericType(sqlType))
+    {
+      try { c = new BigDecimal(val.trim()); }
+      catch (NumberFormatException e) { return null; }
+    }
+    else if (sqlType == Types.DATE || sqlType == Types.TIMESTAMP)
+    {
+      c = TapisTimestampParser.tryParse(val);
+    }
+    else if (sqlType == Types.BOOLEAN)
+    {
+      if ("true".equalsIgnoreCase(val)) c = Boolean.TRUE;
+      else if ("false".equalsIgnoreCase(val)) c = Boolean.FALSE;
+    }
+    else if (sqlType == Types.VARCHAR) c = val;
+    return asComparable(c);
+  }
+
+  /*
+   * Values of a single attribute all have the same type, so they may be compared with each other
+   */
+  @SuppressWarnings("unchecked")
+  private static Comparable<Object> asComparable(Comparable<?> c) { return (Comparable<Object>) c; }
+
+  private static boolean isIntegerType(int sqlType)
+  {
+    return sqlType == Types.INTEGER || sqlType == Types.BIGINT || sqlType == Types.SMALLINT ||
+           sqlType == Types.TINYINT;
+  }
+
+  private static boolean isNumericType(int sqlType)
+  {
+    return isIntegerType(sqlType) || sqlType == Types.FLOAT || sqlType == Types.DOUBLE || sqlType == Types.REAL ||
+           sqlType == Types.NUMERIC || sqlType == Types.DECIMAL;
+  }
+
+  /*
+   * Integer next to an integer value, null if the value is not an integer
+   */
+  private static String adjacentInteger(String val, int delta)
+  {
+    try { return new BigDecimal(val.trim()).toBigIntegerExact().add(BigInteger.valueOf(delta)).toString(); }
+    catch (NumberFormatException | ArithmeticException e) { return null; }
+  }
+
+  /*
+   * Values that may be joined into a comma separated list value without changing their meaning
+   */
+  private static boolean isSafeListValue(List<String> values)
+  {
+    for (String val : values) if (val.indexOf(',') >= 0 || val.indexOf('\\') >= 0) return false;
+    return true;
+  }
+
+  /*
+   * Splice in the operands of nested n-ary nodes of the same operator
+   */
+  private static List<ASTNode> flatten(String op, List<ASTNode> operands)
+  {
+    var flat = new ArrayList<ASTNode>(operands.size());
+    for (ASTNode n : operands)
+    {
+      if (n instanceof ASTNaryExpression && op.equals(((ASTNaryExpression) n).getOp()))
+        flat.addAll(((ASTNaryExpression) n).getOperands());
+      else flat.add(n);
+    }
+    return flat;
+  }
+
+  /*
+   * Remove duplicate operands, keeping the first
+   */
+  private static void dedupe(List<ASTNode> terms)
+  {
+    var seen = new HashSet<String>();
+    terms.removeIf(n -> !seen.add(ASTCanonicalizer.canonicalKey(n)));
+  }
+
+  /*
+   * Group the indexes of comparisons of an attribute with a value by column name
+   */
+  private static Map<String, List<Integer>> groupConditions(List<ASTNode> terms)
+  {
+    var byAttr = new LinkedHashMap<String, List<Integer>>();
+    for (int i = 0; i < terms.size(); i++)
+    {
+      SearchCondition cond = toCondition(terms.get(i));
+      if (cond == null) continue;
+      String colName = SearchUtils.attributeToColumnKey(cond.getAttribute());
+      byAttr.computeIfAbsent(colName, k -> new ArrayList<>()).add(i);
+    }
+    return byAttr;
+  }
+
+  /*
+   * Condition for a comparison of an attribute with a value, null for any other node
+   */
+  private static SearchCondition toCondition(ASTNode node)
+  {
+    if (!(node instanceof ASTBinaryExpression)) return null;
+    try { return SearchCondition.fromAST((ASTBinaryExpression) node); }
+    catch (IllegalArgumentException e) { return null; }
+  }
+
+  private static ASTNode getAttribute(ASTNode comparison)
+  {
+    return ((ASTBinaryExpression) comparison).getLeft();
+  }
+
+  private static ASTBinaryExpression createComparison(SearchOperator op, ASTNode attr, Iterable<String> values)
+  {
+    var sj = new StringJoiner(",");
+    for (String val : values) sj.add(val);
+    return new ASTBinaryExpression(op.name(), attr, new ASTLeaf(sj.toString()));
+  }
+
+  /* ********************************************************************** */
+  /*                            Frame Class                                 */
+  /* ********************************************************************** */
+  /*
+   * Traversal state for an AND/OR chain or a unary operator
+   */
+  private static final class Frame
+  {
+    private final ASTNode node;
+    private final String op;
+    private final List<ASTNode> pending;
+    private final List<ASTNode> results = new ArrayList<>();
+    // True within a NOT, where an AND that is NULL for some rows may not be replaced by FALSE
+    private final boolean underNot;
+    private int next;
+
+    private Frame(ASTNode n, boolean parentUnderNot)
+    {
+      node = n;
+      if (n instanceof ASTUnaryExpression)
+      {
+        op = StringUtils.upperCase(((ASTUnaryExpression) n).getOp());
+        pending = Collections.singletonList(((ASTUnaryExpression) n).getNode());
+        underNot = parentUnderNot || NOT.equals(op);
+        return;
+      }
+      underNot = parentUnderNot;
+      op = StringUtils.upperCase((n instanceof ASTNaryExpression) ? ((ASTNaryExpression) n).getOp()
+                                                                  : ((ASTBinaryExpression) n).getOp());
+      // Collect all operands of the chain
+      pending = new ArrayList<>();
+      var chain = new ArrayDeque<ASTNode>();
+      chain.push(n);
+      while (!chain.isEmpty())
+      {
+        ASTNode c = chain.pop();
+        if (c instanceof ASTBinaryExpression && op.equalsIgnoreCase(((ASTBinaryExpression) c).getOp()))
+        {
+          chain.push(((ASTBinaryExpression) c).getRight());
+          chain.push(((ASTBinaryExpression) c).getLeft());
+        }
+        else if (c instanceof ASTNaryExpression && op.equalsIgnoreCase(((ASTNaryExpression) c).getOp()))
+        {
+          List<ASTNode> operands = ((ASTNaryExpression) c).getOperands();
+          for (int i = operands.size() - 1; i >= 0; i--) chain.push(operands.get(i));
+        }
+        else pending.add(c);
+      }
+    }
+
+    private ASTNode finish(Map<String, Integer> columnTypes)
+    {
+      if (AND.equals(op)) return simplifyAnd(results, columnTypes, !underNot);
+      if (OR.equals(op)) return simplifyOr(results);
+      ASTNode child = results.get(0);
+      if (NOT.equals(op) && child instanceof ASTConstant)
+        return ((ASTConstant) child).getValue() ? ASTConstant.FALSE : ASTConstant.TRUE;
+      var uNode = (ASTUnaryExpression) node;
+      if (child == uNode.getNode() && op.equals(uNode.getOp())) return uNode;
+      return new ASTUnaryExpression(op, child);
+    }
+  }
+
+  /* ********************************************************************** */
+  /*                            Range Class                                 */
+  /* ********************************************************************** */
+  /*
+   * Intersection of lower and upper bounds on a value
+   */
+  private static final class Range
+  {
+    private Comparable<Object> lower, upper;
+    private boolean lowerInclusive, upperInclusive;
+
+    private void addLower(Comparable<Object> v, boolean inclusive)
+    {
+      int cmp = (lower == null) ? 1 : v.compareTo(lower);
+      if (cmp > 0 || (cmp == 0 && !inclusive)) { lower = v; lowerInclusive = inclusive; }
+    }
+
+    private void addUpper(Comparable<Object> v, boolean inclusive)
+    {
+      int cmp = (upper == null) ? -1 : v.compareTo(upper);
+      if (cmp < 0 || (cmp == 0 && !inclusive)) { upper = v; upperInclusive = inclusive; }
+    }
+
+    private boolean contains(Comparable<Object> v)
+    {
+      if (lower != null)
+      {
+        int cmp = v.compareTo(lower);
+        if (cmp < 0 || (cmp == 0 && !lowerInclusive)) return false;
+      }
+      if (upper != null)
+      {
+        int cmp = v.compareTo(upper);
+        if (cmp > 0 || (cmp == 0 && !upperInclusive)) return false;
+      }
+      return true;
+    }
+
+    private boolean isEmpty()
+    {
+      if (lower == null || upper == null) return false;
+      int cmp = lower.compareTo(upper);
+      return cmp > 0 || (cmp == 0 && !(lowerInclusive && upperInclusive));
+    }
+
+    /*
+     * For integer values replace exclusive bounds by the adjacent inclusive bounds, rounding non-integer bounds
+     */
+    private void toInclusiveIntegers()
+    {
+      if (lower != null)
+      {
+        var b = (BigDecimal) (Object) lower;
+        BigDecimal f = b.setScale(0, RoundingMode.FLOOR);
+        lower = asComparable((f.compareTo(b) == 0 && lowerInclusive) ? f : f.add(BigDecimal.ONE));
+        lowerInclusive = true;
+      }
+      if (upper != null)
+      {
+        var b = (BigDecimal) (Object) upper;
+        BigDecimal c = b.setScale(0, RoundingMode.CEILING);
+        upper = asComparable((c.compareTo(b) == 0 && upperInclusive) ? c : c.subtract(BigDecimal.ONE));
+        upperInclusive = true;
+      }
+    }
+  }
+}
@@ -19,7 +19,6 @@
 
 package edu.utexas.tacc.tapis.search.parser;
 
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -30,7 +29,7 @@ import java.lang.UnsupportedOperationException;
 import edu.utexas.tacc.tapis.search.parser.Token;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.activemq.filter.ConstantExpression;
-import org.apache.activemq.util.LRUCache;
+import edu.utexas.tacc.tapis.search.ParseCache;
 
 import edu.utexas.tacc.tapis.search.parser.ASTNode;
 import edu.utexas.tacc.tapis.search.parser.ASTBinaryExpression;
@@ -68,43 +67,83 @@ import edu.utexas.tacc.tapis.search.parser.ASTLeaf;
  *      Unary operators (-, NOT)
  */
 public class ASTParser implements ASTParserConstants {
-  private static final Map<String, Object> cache = Collections.synchronizedMap(new LRUCache<>(100));
+  // System properties that may be used to size the cache of parse results and of parse failures
+  public static final String CACHE_SIZE_PROPERTY = "tapis.search.astparser.cache.size";
+  public static final String FAILURE_CACHE_SIZE_PROPERTY = "tapis.search.astparser.cache.failures";
+  private static final int DEFAULT_CACHE_SIZE = 1000;
+  private static final int DEFAULT_FAILURE_CACHE_SIZE = 100;
+
+  private static final ParseCache<ASTNode> cache =
+    new ParseCache<>("ASTParser", Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE),
+                     Integer.getInteger(FAILURE_CACHE_SIZE_PROPERTY, DEFAULT_FAILURE_CACHE_SIZE));
+
+  // Parser called by the cache on a miss. NOTE: JavaCC does not accept lambdas here.
+  private static final ParseCache.Parser<ASTNode, UnsupportedOperationException> uncachedParser =
+    new ParseCache.Parser<ASTNode, UnsupportedOperationException>()
+    {
+      public ASTNode parse(String sql) { return parseUncached(sql); }
+    };
+
+  // Parser instance reused by each thread
+  private static final ThreadLocal<ASTParser> threadParser = new ThreadLocal<ASTParser>();
 
   public static ASTNode parse(String sql) throws UnsupportedOperationException
   {
-    // Look for result in the cache
-    Object result = cache.get(sql);
-    // If result was an exception we are done
-    if (result instanceof UnsupportedOperationException) { throw (UnsupportedOperationException) result; }
-    // If we have already resolved the string to a node we are done
-    else if (result instanceof ASTNode) { return (ASTNode) result; }
-    else
-    {
-      // Result not in cache, convert sql string to a ASTNode
-      try
-      {
-        // Recursive call to continue processing
-        ASTNode node = new ASTParser(sql).parse();
-        // Cache the result
-        cache.put(sql, node);
-        return node;
-      }
-      catch (UnsupportedOperationException t)
-      {
-        cache.put(sql, t);
-        throw t;
-      }
-    }
+    // Look for result in the cache. On a miss convert sql string to a ASTNode and cache the result.
+    // Failures are also cached, an UnsupportedOperationException is thrown for a cached failure.
+    return cache.get(sql, uncachedParser);
   }
 
   public static void clearCache() { cache.clear(); }
 
+  public static ParseCache.Stats getCacheStats() { return cache.getStats(); }
+
+  /*
+   * Parse without using the cache.
+   * Each thread reuses a parser, reset using ReInit, so that the parser, token manager, char stream and
+   *   lookahead arrays are not allocated for every parse. The char stream reads the string directly.
+   */
+  private static ASTNode parseUncached(String sql) throws UnsupportedOperationException
+  {
+    ASTParser parser = threadParser.get();
+    if (parser == null || parser.inUse)
+    {
+      parser = new ASTParser(sql);
+      if (threadParser.get() == null) threadParser.set(parser);
+    }
+    else parser.reset(sql);
+    parser.inUse = true;
+    try { return parser.parse(); }
+    finally
+    {
+      // Do not hold on to the input
+      parser.sql = null;
+      parser.charStream.Done();
+      parser.inUse = false;
+    }
+  }
+
   private String sql;
+  private StringCharStream charStream;
+  private boolean inUse;
 
   protected ASTParser(String sql)
   {
-    this(new StringReader(sql));
+    this(new StringCharStream(sql), sql);
+  }
+
+  private ASTParser(StringCharStream stream, String sql)
+  {
+    this(stream);
+    this.charStream = stream;
+    this.sql = sql;
+  }
+
+  private void reset(String sql)
+  {
     this.sql = sql;
+    charStream.ReInit(sql);
+    ReInit(charStream);
   }
 
   protected ASTNode parse() throws UnsupportedOperationException
@@ -180,6 +219,10 @@ public class ASTParser implements ASTParserConstants {
   {
     return new ASTBinaryExpression("NLIKE", l, new ASTLeaf(s));
   }
+  private ASTBinaryExpression createMatch(ASTNode l, String s)
+  {
+    return new ASTBinaryExpression("MATCH", l, new ASTLeaf(s));
+  }
   private ASTBinaryExpression createBetween(ASTNode l, String low, String high)
   {
     String s = low + "," + high;
@@ -368,7 +411,8 @@ left = createIsNotNull(left);
       case 28:
       case 29:
       case 30:
-      case 31:{
+      case 31:
+      case 32:{
         ;
         break;
         }
@@ -407,6 +451,12 @@ left = createLessThanEqual(left, right);
 left = createLike(left, t);
         break;
         }
+      case 32:{
+        jj_consume_token(32);
+        t = stringLiteral();
+left = createMatch(left, t);
+        break;
+        }
       default:
         jj_la1[8] = jj_gen;
         if (jj_2_2(2)) {
@@ -437,14 +487,14 @@ left = createNotBetween(left, low, high);
               switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
               case IN:{
                 jj_consume_token(IN);
-                jj_consume_token(32);
+                jj_consume_token(33);
                 t = stringLiteral();
 list = new ArrayList<>();
                     list.add( t );
                 label_5:
                 while (true) {
                   switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
-                  case 33:{
+                  case 34:{
                     ;
                     break;
                     }
@@ -452,11 +502,11 @@ list = new ArrayList<>();
                     jj_la1[6] = jj_gen;
                     break label_5;
                   }
-                  jj_consume_token(33);
+                  jj_consume_token(34);
                   t = stringLiteral();
 list.add( t );
                 }
-                jj_consume_token(34);
+                jj_consume_token(35);
 left = createInList(left, list);
                 break;
                 }
@@ -465,14 +515,14 @@ left = createInList(left, list);
                 if (jj_2_4(2)) {
                   jj_consume_token(NOT);
                   jj_consume_token(IN);
-                  jj_consume_token(32);
+                  jj_consume_token(33);
                   t = stringLiteral();
 list = new ArrayList<>();
                     list.add( t );
                   label_6:
                   while (true) {
                     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
-                    case 33:{
+                    case 34:{
                       ;
                       break;
                       }
@@ -480,11 +530,11 @@ list = new ArrayList<>();
                       jj_la1[7] = jj_gen;
                       break label_6;
                     }
-                    jj_consume_token(33);
+                    jj_consume_token(34);
                     t = stringLiteral();
 list.add( t );
                   }
-                  jj_consume_token(34);
+                  jj_consume_token(35);
 left = createNotInList(left, list);
                 } else {
                   jj_consume_token(-1);
@@ -511,14 +561,14 @@ left = createNotInList(left, list);
         break label_7;
       }
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
-      case 35:{
-        jj_consume_token(35);
+      case 36:{
+        jj_consume_token(36);
         right = multExpr();
 left = createPlus(left, right);
         break;
         }
-      case 36:{
-        jj_consume_token(36);
+      case 37:{
+        jj_consume_token(37);
         right = multExpr();
 left = createMinus(left, right);
         break;
@@ -539,9 +589,9 @@ left = createMinus(left, right);
     label_8:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
-      case 37:
       case 38:
-      case 39:{
+      case 39:
+      case 40:{
         ;
         break;
         }
@@ -550,20 +600,20 @@ left = createMinus(left, right);
         break label_8;
       }
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
-      case 37:{
-        jj_consume_token(37);
+      case 38:{
+        jj_consume_token(38);
         right = unaryExpr();
 left = createMultiply(left, right);
         break;
         }
-      case 38:{
-        jj_consume_token(38);
+      case 39:{
+        jj_consume_token(39);
         right = unaryExpr();
 left = createDivide(left, right);
         break;
         }
-      case 39:{
-        jj_consume_token(39);
+      case 40:{
+        jj_consume_token(40);
         right = unaryExpr();
 left = createMod(left, right);
         break;
@@ -581,12 +631,12 @@ left = createMod(left, right);
   final public ASTNode unaryExpr() throws ParseException {String s=null;
     ASTNode left=null;
     if (jj_2_6(2147483647)) {
-      jj_consume_token(35);
+      jj_consume_token(36);
       left = unaryExpr();
     } else {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
-      case 36:{
-        jj_consume_token(36);
+      case 37:{
+        jj_consume_token(37);
         left = unaryExpr();
 left = createNegate(left);
         break;
@@ -606,7 +656,7 @@ left = createNOT(left);
       case FLOATING_POINT_LITERAL:
       case STRING_LITERAL:
       case ID:
-      case 32:{
+      case 33:{
         left = primaryExpr();
         break;
         }
@@ -639,10 +689,10 @@ left = createNOT(left);
       left = idAsUnary();
       break;
       }
-    case 32:{
-      jj_consume_token(32);
+    case 33:{
+      jj_consume_token(33);
       left = orExpression();
-      jj_consume_token(34);
+      jj_consume_token(35);
       break;
       }
     default:
@@ -777,493 +827,501 @@ left = new ASTLeaf("NULL");
     finally { jj_save(5, xla); }
   }
 
-  private boolean jj_3R_literal_655_9_29()
+  private boolean jj_3R_stringLiteral_751_5_36()
  {
-    if (jj_scan_token(OCTAL_LITERAL)) return true;
+    if (jj_scan_token(STRING_LITERAL)) return true;
     return false;
   }
 
-  private boolean jj_3_2()
+  private boolean jj_3R_unaryExpr_648_9_15()
  {
-    if (jj_scan_token(NOT)) return true;
-    if (jj_scan_token(LIKE)) return true;
-    if (jj_3R_stringLiteral_702_5_36()) return true;
+    if (jj_3R_primaryExpr_663_5_19()) return true;
     return false;
   }
 
-  private boolean jj_3R_multExpr_558_9_16()
+  private boolean jj_3R_equalityExpression_457_9_45()
  {
-    if (jj_scan_token(37)) return true;
-    if (jj_3R_unaryExpr_585_5_10()) return true;
+    if (jj_scan_token(IS)) return true;
+    if (jj_scan_token(NOT)) return true;
+    if (jj_scan_token(NULL)) return true;
     return false;
   }
 
-  private boolean jj_3R_multExpr_558_9_11()
+  private boolean jj_3_6()
  {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (!jj_3R_multExpr_558_9_16()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_multExpr_563_9_17()) return false;
-    jj_scanpos = xsp;
-    if (jj_3R_multExpr_568_9_18()) return true;
+    if (jj_scan_token(36)) return true;
+    if (jj_3R_unaryExpr_634_5_10()) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_454_13_51()
+  private boolean jj_3_4()
  {
-    if (jj_scan_token(LIKE)) return true;
-    if (jj_3R_stringLiteral_702_5_36()) return true;
+    if (jj_scan_token(NOT)) return true;
+    if (jj_scan_token(IN)) return true;
+    if (jj_scan_token(33)) return true;
+    if (jj_3R_stringLiteral_751_5_36()) return true;
+    Token xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_comparisonExpression_554_21_58()) { jj_scanpos = xsp; break; }
+    }
+    if (jj_scan_token(35)) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_648_9_28()
+  private boolean jj_3R_unaryExpr_643_9_14()
  {
-    if (jj_scan_token(HEX_LITERAL)) return true;
+    if (jj_scan_token(NOT)) return true;
+    if (jj_3R_unaryExpr_634_5_10()) return true;
     return false;
   }
 
-  private boolean jj_3R_multExpr_556_5_9()
+  private boolean jj_3_1()
  {
-    if (jj_3R_unaryExpr_585_5_10()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_multExpr_558_9_11()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_scan_token(IS)) return true;
+    if (jj_scan_token(NULL)) return true;
     return false;
   }
 
-  private boolean jj_3R_orExpression_359_9_35()
+  private boolean jj_3R_comparisonExpression_533_21_57()
  {
-    if (jj_scan_token(OR)) return true;
-    if (jj_3R_andExpression_376_5_34()) return true;
+    if (jj_scan_token(34)) return true;
+    if (jj_3R_stringLiteral_751_5_36()) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_449_13_50()
+  private boolean jj_3R_unaryExpr_638_9_13()
  {
-    if (jj_scan_token(31)) return true;
-    if (jj_3R_addExpression_529_5_41()) return true;
+    if (jj_scan_token(37)) return true;
+    if (jj_3R_unaryExpr_634_5_10()) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_641_9_27()
+  private boolean jj_3R_literal_732_9_33()
  {
-    if (jj_scan_token(DECIMAL_LITERAL)) return true;
+    if (jj_scan_token(NULL)) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_444_13_49()
+  private boolean jj_3R_equalityExpression_446_9_44()
  {
-    if (jj_scan_token(30)) return true;
-    if (jj_3R_addExpression_529_5_41()) return true;
+    if (jj_scan_token(27)) return true;
+    if (jj_3R_comparisonExpression_475_5_39()) return true;
     return false;
   }
 
-  private boolean jj_3R_orExpression_357_5_25()
+  private boolean jj_3R_unaryExpr_635_9_12()
  {
-    if (jj_3R_andExpression_376_5_34()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_orExpression_359_9_35()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_scan_token(36)) return true;
+    if (jj_3R_unaryExpr_634_5_10()) return true;
     return false;
   }
 
-  private boolean jj_3R_addExpression_538_13_55()
+  private boolean jj_3R_equalityExpression_441_9_43()
  {
-    if (jj_scan_token(36)) return true;
-    if (jj_3R_multExpr_556_5_9()) return true;
+    if (jj_scan_token(26)) return true;
+    if (jj_3R_comparisonExpression_475_5_39()) return true;
     return false;
   }
 
-  private boolean jj_3_5()
+  private boolean jj_3R_equalityExpression_441_9_40()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (!jj_scan_token(35)) return false;
+    if (!jj_3R_equalityExpression_441_9_43()) return false;
     jj_scanpos = xsp;
-    if (jj_scan_token(36)) return true;
-    if (jj_3R_multExpr_556_5_9()) return true;
+    if (!jj_3R_equalityExpression_446_9_44()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3_1()) return false;
+    jj_scanpos = xsp;
+    if (jj_3R_equalityExpression_457_9_45()) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_634_9_26()
+  private boolean jj_3R_unaryExpr_634_5_10()
  {
-    if (jj_3R_stringLiteral_702_5_36()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (!jj_3R_unaryExpr_635_9_12()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_unaryExpr_638_9_13()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_unaryExpr_643_9_14()) return false;
+    jj_scanpos = xsp;
+    if (jj_3R_unaryExpr_648_9_15()) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_439_13_48()
+  private boolean jj_3R_literal_725_9_32()
  {
-    if (jj_scan_token(29)) return true;
-    if (jj_3R_addExpression_529_5_41()) return true;
+    if (jj_scan_token(FALSE)) return true;
     return false;
   }
 
-  private boolean jj_3R_addExpression_533_13_54()
+  private boolean jj_3R_comparisonExpression_525_13_54()
  {
+    if (jj_scan_token(IN)) return true;
+    if (jj_scan_token(33)) return true;
+    if (jj_3R_stringLiteral_751_5_36()) return true;
+    Token xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_comparisonExpression_533_21_57()) { jj_scanpos = xsp; break; }
+    }
     if (jj_scan_token(35)) return true;
-    if (jj_3R_multExpr_556_5_9()) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_633_5_23()
+  private boolean jj_3R_equalityExpression_438_5_37()
  {
+    if (jj_3R_comparisonExpression_475_5_39()) return true;
     Token xsp;
-    xsp = jj_scanpos;
-    if (!jj_3R_literal_634_9_26()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_literal_641_9_27()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_literal_648_9_28()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_literal_655_9_29()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_literal_662_9_30()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_literal_669_9_31()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_literal_676_9_32()) return false;
-    jj_scanpos = xsp;
-    if (jj_3R_literal_683_9_33()) return true;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_equalityExpression_441_9_40()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_434_13_47()
+  private boolean jj_3R_literal_718_9_31()
  {
-    if (jj_scan_token(28)) return true;
-    if (jj_3R_addExpression_529_5_41()) return true;
+    if (jj_scan_token(TRUE)) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_434_13_42()
+  private boolean jj_3_3()
  {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (!jj_3R_comparisonExpression_434_13_47()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_comparisonExpression_439_13_48()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_comparisonExpression_444_13_49()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_comparisonExpression_449_13_50()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_comparisonExpression_454_13_51()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3_2()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_comparisonExpression_465_13_52()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3_3()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_comparisonExpression_476_13_53()) return false;
-    jj_scanpos = xsp;
-    if (jj_3_4()) return true;
+    if (jj_scan_token(NOT)) return true;
+    if (jj_scan_token(BETWEEN)) return true;
+    if (jj_3R_stringLiteral_751_5_36()) return true;
+    if (jj_scan_token(AND)) return true;
+    if (jj_3R_stringLiteral_751_5_36()) return true;
     return false;
   }
 
-  private boolean jj_3R_addExpression_531_9_46()
+  private boolean jj_3R_multExpr_617_9_18()
  {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (!jj_3R_addExpression_533_13_54()) return false;
-    jj_scanpos = xsp;
-    if (jj_3R_addExpression_538_13_55()) return true;
+    if (jj_scan_token(40)) return true;
+    if (jj_3R_unaryExpr_634_5_10()) return true;
     return false;
   }
 
-  private boolean jj_3R_idAsUnary_721_5_24()
+  private boolean jj_3R_literal_711_9_30()
  {
-    if (jj_scan_token(ID)) return true;
+    if (jj_scan_token(FLOATING_POINT_LITERAL)) return true;
     return false;
   }
 
-  private boolean jj_3R_addExpression_529_5_41()
+  private boolean jj_3R_comparisonExpression_514_13_53()
  {
-    if (jj_3R_multExpr_556_5_9()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_addExpression_531_9_46()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_scan_token(BETWEEN)) return true;
+    if (jj_3R_stringLiteral_751_5_36()) return true;
+    if (jj_scan_token(AND)) return true;
+    if (jj_3R_stringLiteral_751_5_36()) return true;
     return false;
   }
 
-  private boolean jj_3R_primaryExpr_619_9_22()
+  private boolean jj_3R_andExpression_422_9_38()
  {
-    if (jj_scan_token(32)) return true;
-    if (jj_3R_orExpression_357_5_25()) return true;
-    if (jj_scan_token(34)) return true;
+    if (jj_scan_token(AND)) return true;
+    if (jj_3R_equalityExpression_438_5_37()) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_431_5_39()
+  private boolean jj_3R_multExpr_612_9_17()
  {
-    if (jj_3R_addExpression_529_5_41()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_comparisonExpression_434_13_42()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_scan_token(39)) return true;
+    if (jj_3R_unaryExpr_634_5_10()) return true;
     return false;
   }
 
-  private boolean jj_3R_primaryExpr_617_9_21()
+  private boolean jj_3R_literal_704_9_29()
  {
-    if (jj_3R_idAsUnary_721_5_24()) return true;
+    if (jj_scan_token(OCTAL_LITERAL)) return true;
     return false;
   }
 
-  private boolean jj_3R_primaryExpr_615_9_20()
+  private boolean jj_3_2()
  {
-    if (jj_3R_literal_633_5_23()) return true;
+    if (jj_scan_token(NOT)) return true;
+    if (jj_scan_token(LIKE)) return true;
+    if (jj_3R_stringLiteral_751_5_36()) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_505_21_57()
+  private boolean jj_3R_multExpr_607_9_16()
  {
-    if (jj_scan_token(33)) return true;
-    if (jj_3R_stringLiteral_702_5_36()) return true;
+    if (jj_scan_token(38)) return true;
+    if (jj_3R_unaryExpr_634_5_10()) return true;
     return false;
   }
 
-  private boolean jj_3R_primaryExpr_614_5_19()
+  private boolean jj_3R_multExpr_607_9_11()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (!jj_3R_primaryExpr_615_9_20()) return false;
+    if (!jj_3R_multExpr_607_9_16()) return false;
     jj_scanpos = xsp;
-    if (!jj_3R_primaryExpr_617_9_21()) return false;
+    if (!jj_3R_multExpr_612_9_17()) return false;
     jj_scanpos = xsp;
-    if (jj_3R_primaryExpr_619_9_22()) return true;
+    if (jj_3R_multExpr_617_9_18()) return true;
     return false;
   }
 
-  private boolean jj_3R_equalityExpression_413_9_45()
+  private boolean jj_3R_andExpression_420_5_34()
  {
-    if (jj_scan_token(IS)) return true;
-    if (jj_scan_token(NOT)) return true;
-    if (jj_scan_token(NULL)) return true;
+    if (jj_3R_equalityExpression_438_5_37()) return true;
+    Token xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_andExpression_422_9_38()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  private boolean jj_3R_stringLiteral_702_5_36()
+  private boolean jj_3R_comparisonExpression_503_13_52()
  {
-    if (jj_scan_token(STRING_LITERAL)) return true;
+    if (jj_scan_token(32)) return true;
+    if (jj_3R_stringLiteral_751_5_36()) return true;
     return false;
   }
 
-  private boolean jj_3R_unaryExpr_599_9_15()
+  private boolean jj_3R_literal_697_9_28()
  {
-    if (jj_3R_primaryExpr_614_5_19()) return true;
+    if (jj_scan_token(HEX_LITERAL)) return true;
     return false;
   }
 
-  private boolean jj_3_1()
+  private boolean jj_3R_multExpr_605_5_9()
  {
-    if (jj_scan_token(IS)) return true;
-    if (jj_scan_token(NULL)) return true;
+    if (jj_3R_unaryExpr_634_5_10()) return true;
+    Token xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_multExpr_607_9_11()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  private boolean jj_3_6()
+  private boolean jj_3R_comparisonExpression_498_13_51()
  {
-    if (jj_scan_token(35)) return true;
-    if (jj_3R_unaryExpr_585_5_10()) return true;
+    if (jj_scan_token(LIKE)) return true;
+    if (jj_3R_stringLiteral_751_5_36()) return true;
     return false;
   }
 
-  private boolean jj_3_4()
+  private boolean jj_3R_literal_690_9_27()
  {
-    if (jj_scan_token(NOT)) return true;
-    if (jj_scan_token(IN)) return true;
-    if (jj_scan_token(32)) return true;
-    if (jj_3R_stringLiteral_702_5_36()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_comparisonExpression_505_21_57()) { jj_scanpos = xsp; break; }
-    }
-    if (jj_scan_token(34)) return true;
+    if (jj_scan_token(DECIMAL_LITERAL)) return true;
     return false;
   }
 
-  private boolean jj_3R_unaryExpr_594_9_14()
+  private boolean jj_3R_orExpression_403_9_35()
  {
-    if (jj_scan_token(NOT)) return true;
-    if (jj_3R_unaryExpr_585_5_10()) return true;
+    if (jj_scan_token(OR)) return true;
+    if (jj_3R_andExpression_420_5_34()) return true;
     return false;
   }
 
-  private boolean jj_3R_equalityExpression_402_9_44()
+  private boolean jj_3R_comparisonExpression_493_13_50()
  {
-    if (jj_scan_token(27)) return true;
-    if (jj_3R_comparisonExpression_431_5_39()) return true;
+    if (jj_scan_token(31)) return true;
+    if (jj_3R_addExpression_578_5_41()) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_484_21_56()
+  private boolean jj_3R_addExpression_587_13_56()
  {
-    if (jj_scan_token(33)) return true;
-    if (jj_3R_stringLiteral_702_5_36()) return true;
+    if (jj_scan_token(37)) return true;
+    if (jj_3R_multExpr_605_5_9()) return true;
     return false;
   }
 
-  private boolean jj_3R_unaryExpr_589_9_13()
+  private boolean jj_3_5()
  {
-    if (jj_scan_token(36)) return true;
-    if (jj_3R_unaryExpr_585_5_10()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (!jj_scan_token(36)) return false;
+    jj_scanpos = xsp;
+    if (jj_scan_token(37)) return true;
+    if (jj_3R_multExpr_605_5_9()) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_683_9_33()
+  private boolean jj_3R_literal_683_9_26()
  {
-    if (jj_scan_token(NULL)) return true;
+    if (jj_3R_stringLiteral_751_5_36()) return true;
     return false;
   }
 
-  private boolean jj_3R_equalityExpression_397_9_43()
+  private boolean jj_3R_comparisonExpression_488_13_49()
  {
-    if (jj_scan_token(26)) return true;
-    if (jj_3R_comparisonExpression_431_5_39()) return true;
+    if (jj_scan_token(30)) return true;
+    if (jj_3R_addExpression_578_5_41()) return true;
     return false;
   }
 
-  private boolean jj_3R_equalityExpression_397_9_40()
+  private boolean jj_3R_orExpression_401_5_25()
  {
+    if (jj_3R_andExpression_420_5_34()) return true;
     Token xsp;
-    xsp = jj_scanpos;
-    if (!jj_3R_equalityExpression_397_9_43()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_equalityExpression_402_9_44()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3_1()) return false;
-    jj_scanpos = xsp;
-    if (jj_3R_equalityExpression_413_9_45()) return true;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_orExpression_403_9_35()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  private boolean jj_3R_unaryExpr_586_9_12()
+  private boolean jj_3R_addExpression_582_13_55()
  {
-    if (jj_scan_token(35)) return true;
-    if (jj_3R_unaryExpr_585_5_10()) return true;
+    if (jj_scan_token(36)) return true;
+    if (jj_3R_multExpr_605_5_9()) return true;
     return false;
   }
 
-  private boolean jj_3R_unaryExpr_585_5_10()
+  private boolean jj_3R_literal_682_5_23()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (!jj_3R_unaryExpr_586_9_12()) return false;
+    if (!jj_3R_literal_683_9_26()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_literal_690_9_27()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_literal_697_9_28()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_literal_704_9_29()) return false;
     jj_scanpos = xsp;
-    if (!jj_3R_unaryExpr_589_9_13()) return false;
+    if (!jj_3R_literal_711_9_30()) return false;
     jj_scanpos = xsp;
-    if (!jj_3R_unaryExpr_594_9_14()) return false;
+    if (!jj_3R_literal_718_9_31()) return false;
     jj_scanpos = xsp;
-    if (jj_3R_unaryExpr_599_9_15()) return true;
+    if (!jj_3R_literal_725_9_32()) return false;
+    jj_scanpos = xsp;
+    if (jj_3R_literal_732_9_33()) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_676_9_32()
+  private boolean jj_3R_comparisonExpression_483_13_48()
  {
-    if (jj_scan_token(FALSE)) return true;
+    if (jj_scan_token(29)) return true;
+    if (jj_3R_addExpression_578_5_41()) return true;
     return false;
   }
 
-  private boolean jj_3R_equalityExpression_394_5_37()
+  private boolean jj_3R_addExpression_580_9_46()
  {
-    if (jj_3R_comparisonExpression_431_5_39()) return true;
     Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_equalityExpression_397_9_40()) { jj_scanpos = xsp; break; }
-    }
+    xsp = jj_scanpos;
+    if (!jj_3R_addExpression_582_13_55()) return false;
+    jj_scanpos = xsp;
+    if (jj_3R_addExpression_587_13_56()) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_476_13_53()
+  private boolean jj_3R_comparisonExpression_478_13_47()
  {
-    if (jj_scan_token(IN)) return true;
-    if (jj_scan_token(32)) return true;
-    if (jj_3R_stringLiteral_702_5_36()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_comparisonExpression_484_21_56()) { jj_scanpos = xsp; break; }
-    }
-    if (jj_scan_token(34)) return true;
+    if (jj_scan_token(28)) return true;
+    if (jj_3R_addExpression_578_5_41()) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_669_9_31()
+  private boolean jj_3R_comparisonExpression_478_13_42()
  {
-    if (jj_scan_token(TRUE)) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (!jj_3R_comparisonExpression_478_13_47()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_comparisonExpression_483_13_48()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_comparisonExpression_488_13_49()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_comparisonExpression_493_13_50()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_comparisonExpression_498_13_51()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_comparisonExpression_503_13_52()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3_2()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_comparisonExpression_514_13_53()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3_3()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_comparisonExpression_525_13_54()) return false;
+    jj_scanpos = xsp;
+    if (jj_3_4()) return true;
     return false;
   }
 
-  private boolean jj_3_3()
+  private boolean jj_3R_idAsUnary_770_5_24()
  {
-    if (jj_scan_token(NOT)) return true;
-    if (jj_scan_token(BETWEEN)) return true;
-    if (jj_3R_stringLiteral_702_5_36()) return true;
-    if (jj_scan_token(AND)) return true;
-    if (jj_3R_stringLiteral_702_5_36()) return true;
+    if (jj_scan_token(ID)) return true;
     return false;
   }
 
-  private boolean jj_3R_andExpression_378_9_38()
+  private boolean jj_3R_addExpression_578_5_41()
  {
-    if (jj_scan_token(AND)) return true;
-    if (jj_3R_equalityExpression_394_5_37()) return true;
+    if (jj_3R_multExpr_605_5_9()) return true;
+    Token xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_addExpression_580_9_46()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  private boolean jj_3R_multExpr_568_9_18()
+  private boolean jj_3R_primaryExpr_668_9_22()
  {
-    if (jj_scan_token(39)) return true;
-    if (jj_3R_unaryExpr_585_5_10()) return true;
+    if (jj_scan_token(33)) return true;
+    if (jj_3R_orExpression_401_5_25()) return true;
+    if (jj_scan_token(35)) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_662_9_30()
+  private boolean jj_3R_primaryExpr_666_9_21()
  {
-    if (jj_scan_token(FLOATING_POINT_LITERAL)) return true;
+    if (jj_3R_idAsUnary_770_5_24()) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_465_13_52()
+  private boolean jj_3R_primaryExpr_664_9_20()
  {
-    if (jj_scan_token(BETWEEN)) return true;
-    if (jj_3R_stringLiteral_702_5_36()) return true;
-    if (jj_scan_token(AND)) return true;
-    if (jj_3R_stringLiteral_702_5_36()) return true;
+    if (jj_3R_literal_682_5_23()) return true;
     return false;
   }
 
-  private boolean jj_3R_multExpr_563_9_17()
+  private boolean jj_3R_comparisonExpression_554_21_58()
  {
-    if (jj_scan_token(38)) return true;
-    if (jj_3R_unaryExpr_585_5_10()) return true;
+    if (jj_scan_token(34)) return true;
+    if (jj_3R_stringLiteral_751_5_36()) return true;
     return false;
   }
 
-  private boolean jj_3R_andExpression_376_5_34()
+  private boolean jj_3R_comparisonExpression_475_5_39()
  {
-    if (jj_3R_equalityExpression_394_5_37()) return true;
+    if (jj_3R_addExpression_578_5_41()) return true;
     Token xsp;
     while (true) {
       xsp = jj_scanpos;
-      if (jj_3R_andExpression_378_9_38()) { jj_scanpos = xsp; break; }
+      if (jj_3R_comparisonExpression_478_13_42()) { jj_scanpos = xsp; break; }
     }
     return false;
   }
 
+  private boolean jj_3R_primaryExpr_663_5_19()
+ {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (!jj_3R_primaryExpr_664_9_20()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_primaryExpr_666_9_21()) return false;
+    jj_scanpos = xsp;
+    if (jj_3R_primaryExpr_668_9_22()) return true;
+    return false;
+  }
+
   /** Generated Token Manager. */
   public ASTParserTokenManager token_source;
-  SimpleCharStream jj_input_stream;
   /** Current token. */
   public Token token;
   /** Next token. */
@@ -1283,20 +1341,15 @@ left = new ASTLeaf("NULL");
 	   jj_la1_0 = new int[] {0x400,0x200,0xc008000,0xc000000,0x8000,0xf0005900,0x0,0x0,0xf0001000,0x800,0x4000,0x0,0x0,0x0,0x37f0100,0x37f0000,0x17f0000,};
 	}
 	private static void jj_la1_init_1() {
-	   jj_la1_1 = new int[] {0x0,0x0,0x0,0x0,0x0,0x0,0x2,0x2,0x0,0x0,0x0,0x18,0xe0,0xe0,0x11,0x1,0x0,};
+	   jj_la1_1 = new int[] {0x0,0x0,0x0,0x0,0x0,0x1,0x4,0x4,0x1,0x0,0x0,0x30,0x1c0,0x1c0,0x22,0x2,0x0,};
 	}
   final private JJCalls[] jj_2_rtns = new JJCalls[6];
   private boolean jj_rescan = false;
   private int jj_gc = 0;
 
-  /** Constructor with InputStream. */
-  public ASTParser(java.io.InputStream stream) {
-	  this(stream, null);
-  }
-  /** Constructor with InputStream and supplied encoding */
-  public ASTParser(java.io.InputStream stream, String encoding) {
-	 try { jj_input_stream = new SimpleCharStream(stream, encoding, 1, 1); } catch(java.io.UnsupportedEncodingException e) { throw new RuntimeException(e); }
-	 token_source = new ASTParserTokenManager(jj_input_stream);
+  /** Constructor with user supplied CharStream. */
+  public ASTParser(CharStream stream) {
+	 token_source = new ASTParserTokenManager(stream);
 	 token = new Token();
 	 jj_ntk = -1;
 	 jj_gen = 0;
@@ -1305,43 +1358,8 @@ left = new ASTLeaf("NULL");
   }
 
   /** Reinitialise. */
-  public void ReInit(java.io.InputStream stream) {
-	  ReInit(stream, null);
-  }
-  /** Reinitialise. */
-  public void ReInit(java.io.InputStream stream, String encoding) {
-	 try { jj_input_stream.ReInit(stream, encoding, 1, 1); } catch(java.io.UnsupportedEncodingException e) { throw new RuntimeException(e); }
-	 token_source.ReInit(jj_input_stream);
-	 token = new Token();
-	 jj_ntk = -1;
-	 jj_gen = 0;
-	 for (int i = 0; i < 17; i++) jj_la1[i] = -1;
-	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
-  }
-
-  /** Constructor. */
-  public ASTParser(java.io.Reader stream) {
-	 jj_input_stream = new SimpleCharStream(stream, 1, 1);
-	 token_source = new ASTParserTokenManager(jj_input_stream);
-	 token = new Token();
-	 jj_ntk = -1;
-	 jj_gen = 0;
-	 for (int i = 0; i < 17; i++) jj_la1[i] = -1;
-	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
-  }
-
-  /** Reinitialise. */
-  public void ReInit(java.io.Reader stream) {
-	if (jj_input_stream == null) {
-	   jj_input_stream = new SimpleCharStream(stream, 1, 1);
-	} else {
-	   jj_input_stream.ReInit(stream, 1, 1);
-	}
-	if (token_source == null) {
- token_source = new ASTParserTokenManager(jj_input_stream);
-	}
-
-	 token_source.ReInit(jj_input_stream);
+  public void ReInit(CharStream stream) {
+	 token_source.ReInit(stream);
 	 token = new Token();
 	 jj_ntk = -1;
 	 jj_gen = 0;
@@ -1496,7 +1514,7 @@ left = new ASTLeaf("NULL");
   /** Generate ParseException. */
   public ParseException generateParseException() {
 	 jj_expentries.clear();
-	 boolean[] la1tokens = new boolean[40];
+	 boolean[] la1tokens = new boolean[41];
 	 if (jj_kind >= 0) {
 	   la1tokens[jj_kind] = true;
 	   jj_kind = -1;
@@ -1513,7 +1531,7 @@ left = new ASTLeaf("NULL");
 		 }
 	   }
 	 }
-	 for (int i = 0; i < 40; i++) {
+	 for (int i = 0; i < 41; i++) {
 	   if (la1tokens[i]) {
 		 jj_expentry = new int[1];
 		 jj_expentry[0] = i;
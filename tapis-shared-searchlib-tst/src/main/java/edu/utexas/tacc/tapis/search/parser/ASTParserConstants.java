@@ -105,6 +105,7 @@ public interface ASTParserConstants {
     "\">=\"",
     "\"<\"",
     "\"<=\"",
+    "\"@@\"",
     "\"(\"",
     "\",\"",
     "\")\"",
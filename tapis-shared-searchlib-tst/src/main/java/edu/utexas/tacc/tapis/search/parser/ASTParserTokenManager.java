@@ -18,7 +18,6 @@
  */
 
 package edu.utexas.tacc.tapis.search.parser;
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -28,7 +27,7 @@ import java.lang.UnsupportedOperationException;
 import edu.utexas.tacc.tapis.search.parser.Token;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.activemq.filter.ConstantExpression;
-import org.apache.activemq.util.LRUCache;
+import edu.utexas.tacc.tapis.search.ParseCache;
 import edu.utexas.tacc.tapis.search.parser.ASTNode;
 import edu.utexas.tacc.tapis.search.parser.ASTBinaryExpression;
 import edu.utexas.tacc.tapis.search.parser.ASTUnaryExpression;
@@ -67,28 +66,28 @@ private int jjMoveStringLiteralDfa0_0(){
          jjmatchedKind = 1;
          return jjMoveNfa_0(5, 0);
       case 37:
-         jjmatchedKind = 39;
+         jjmatchedKind = 40;
          return jjMoveNfa_0(5, 0);
       case 40:
-         jjmatchedKind = 32;
+         jjmatchedKind = 33;
          return jjMoveNfa_0(5, 0);
       case 41:
-         jjmatchedKind = 34;
+         jjmatchedKind = 35;
          return jjMoveNfa_0(5, 0);
       case 42:
-         jjmatchedKind = 37;
+         jjmatchedKind = 38;
          return jjMoveNfa_0(5, 0);
       case 43:
-         jjmatchedKind = 35;
+         jjmatchedKind = 36;
          return jjMoveNfa_0(5, 0);
       case 44:
-         jjmatchedKind = 33;
+         jjmatchedKind = 34;
          return jjMoveNfa_0(5, 0);
       case 45:
-         jjmatchedKind = 36;
+         jjmatchedKind = 37;
          return jjMoveNfa_0(5, 0);
       case 47:
-         jjmatchedKind = 38;
+         jjmatchedKind = 39;
          return jjMoveNfa_0(5, 0);
       case 60:
          jjmatchedKind = 30;
@@ -99,6 +98,8 @@ private int jjMoveStringLiteralDfa0_0(){
       case 62:
          jjmatchedKind = 28;
          return jjMoveStringLiteralDfa1_0(0x20000000L);
+      case 64:
+         return jjMoveStringLiteralDfa1_0(0x100000000L);
       case 65:
          return jjMoveStringLiteralDfa1_0(0x200L);
       case 66:
@@ -165,6 +166,13 @@ private int jjMoveStringLiteralDfa1_0(long active0){
             jjmatchedPos = 1;
          }
          break;
+      case 64:
+         if ((active0 & 0x100000000L) != 0L)
+         {
+            jjmatchedKind = 32;
+            jjmatchedPos = 1;
+         }
+         break;
       case 65:
          return jjMoveStringLiteralDfa2_0(active0, 0x20000L);
       case 69:
@@ -458,7 +466,7 @@ private int jjMoveNfa_0(int startState, int curPos)
    catch(java.io.IOException e) { throw new Error("Internal Error"); }
    curPos = 0;
    int startsAt = 0;
-   jjnewStateCnt = 43;
+   jjnewStateCnt = 45;
    int i = 1;
    jjstateSet[0] = startState;
    int kind = 0x7fffffff;
@@ -480,7 +488,7 @@ private int jjMoveNfa_0(int startState, int curPos)
                   {
                      if (kind > 25)
                         kind = 25;
-                     { jjCheckNAdd(27); }
+                     { jjCheckNAddTwoStates(27, 28); }
                   }
                   else if (curChar == 39)
                      { jjCheckNAddStates(4, 6); }
@@ -500,7 +508,7 @@ private int jjMoveNfa_0(int startState, int curPos)
                   {
                      if (kind > 21)
                         kind = 21;
-                     { jjCheckNAddTwoStates(40, 42); }
+                     { jjCheckNAddTwoStates(42, 44); }
                   }
                   break;
                case 0:
@@ -609,83 +617,94 @@ private int jjMoveNfa_0(int startState, int curPos)
                      break;
                   if (kind > 25)
                      kind = 25;
-                  { jjCheckNAdd(27); }
+                  { jjCheckNAddTwoStates(27, 28); }
                   break;
                case 27:
                   if ((0x3ff001000000000L & l) == 0L)
                      break;
                   if (kind > 25)
                      kind = 25;
-                  { jjCheckNAdd(27); }
+                  { jjCheckNAddTwoStates(27, 28); }
                   break;
                case 28:
+                  if (curChar == 46)
+                     { jjCheckNAdd(29); }
+                  break;
+               case 29:
+                  if ((0x3ff000000000000L & l) == 0L)
+                     break;
+                  if (kind > 25)
+                     kind = 25;
+                  { jjCheckNAddTwoStates(28, 29); }
+                  break;
+               case 30:
                   if ((0x3ff000000000000L & l) != 0L)
                      { jjCheckNAddStates(0, 3); }
                   break;
-               case 29:
+               case 31:
                   if ((0x3ff000000000000L & l) != 0L)
-                     { jjCheckNAddTwoStates(29, 30); }
+                     { jjCheckNAddTwoStates(31, 32); }
                   break;
-               case 30:
+               case 32:
                   if (curChar != 46)
                      break;
                   if (kind > 22)
                      kind = 22;
-                  { jjCheckNAddTwoStates(31, 32); }
+                  { jjCheckNAddTwoStates(33, 34); }
                   break;
-               case 31:
+               case 33:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
                   if (kind > 22)
                      kind = 22;
-                  { jjCheckNAddTwoStates(31, 32); }
+                  { jjCheckNAddTwoStates(33, 34); }
                   break;
-               case 33:
+               case 35:
                   if ((0x280000000000L & l) != 0L)
-                     { jjCheckNAdd(34); }
+                     { jjCheckNAdd(36); }
                   break;
-               case 34:
+               case 36:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
                   if (kind > 22)
                      kind = 22;
-                  { jjCheckNAdd(34); }
+                  { jjCheckNAdd(36); }
                   break;
-               case 35:
+               case 37:
                   if ((0x3ff000000000000L & l) != 0L)
-                     { jjCheckNAddTwoStates(35, 36); }
+                     { jjCheckNAddTwoStates(37, 38); }
                   break;
-               case 37:
+               case 39:
                   if ((0x280000000000L & l) != 0L)
-                     { jjCheckNAdd(38); }
+                     { jjCheckNAdd(40); }
                   break;
-               case 38:
+               case 40:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
                   if (kind > 22)
                      kind = 22;
-                  { jjCheckNAdd(38); }
+                  { jjCheckNAdd(40); }
                   break;
-               case 39:
+               case 41:
                   if (curChar != 48)
                      break;
                   if (kind > 21)
                      kind = 21;
-                  { jjCheckNAddTwoStates(40, 42); }
+                  { jjCheckNAddTwoStates(42, 44); }
                   break;
-               case 41:
+               case 43:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
                   if (kind > 20)
                      kind = 20;
-                  jjstateSet[jjnewStateCnt++] = 41;
+                  jjstateSet[jjnewStateCnt++] = 43;
                   break;
-               case 42:
+               case 44:
                   if ((0xff000000000000L & l) == 0L)
                      break;
                   if (kind > 21)
                      kind = 21;
-                  { jjCheckNAdd(42); }
+                  { jjCheckNAdd(44); }
                   break;
                default : break;
             }
@@ -704,7 +723,7 @@ private int jjMoveNfa_0(int startState, int curPos)
                      break;
                   if (kind > 25)
                      kind = 25;
-                  { jjCheckNAdd(27); }
+                  { jjCheckNAddTwoStates(27, 28); }
                   break;
                case 1:
                   { jjAddStates(7, 9); }
@@ -727,24 +746,31 @@ private int jjMoveNfa_0(int startState, int curPos)
                case 24:
                   { jjAddStates(4, 6); }
                   break;
-               case 32:
+               case 29:
+                  if ((0x7fffffe87fffffeL & l) == 0L)
+                     break;
+                  if (kind > 25)
+                     kind = 25;
+                  { jjCheckNAddTwoStates(28, 29); }
+                  break;
+               case 34:
                   if ((0x2000000020L & l) != 0L)
                      { jjAddStates(15, 16); }
                   break;
-               case 36:
+               case 38:
                   if ((0x2000000020L & l) != 0L)
                      { jjAddStates(17, 18); }
                   break;
-               case 40:
+               case 42:
                   if ((0x100000001000000L & l) != 0L)
-                     { jjCheckNAdd(41); }
+                     { jjCheckNAdd(43); }
                   break;
-               case 41:
+               case 43:
                   if ((0x7e0000007eL & l) == 0L)
                      break;
                   if (kind > 20)
                      kind = 20;
-                  { jjCheckNAdd(41); }
+                  { jjCheckNAdd(43); }
                   break;
                default : break;
             }
@@ -789,7 +815,7 @@ private int jjMoveNfa_0(int startState, int curPos)
          kind = 0x7fffffff;
       }
       ++curPos;
-      if ((i = jjnewStateCnt) == (startsAt = 43 - (jjnewStateCnt = startsAt)))
+      if ((i = jjnewStateCnt) == (startsAt = 45 - (jjnewStateCnt = startsAt)))
          break;
       try { curChar = input_stream.readChar(); }
       catch(java.io.IOException e) { break; }
@@ -819,8 +845,8 @@ private int jjMoveNfa_0(int startState, int curPos)
 public static final String[] jjstrLiteralImages = {
 "", null, null, null, null, null, null, null, null, null, null, null, null, 
 null, null, null, null, null, null, null, null, null, null, null, null, null, "\75", 
-"\74\76", "\76", "\76\75", "\74", "\74\75", "\50", "\54", "\51", "\53", "\55", "\52", 
-"\57", "\45", };
+"\74\76", "\76", "\76\75", "\74", "\74\75", "\100\100", "\50", "\54", "\51", "\53", 
+"\55", "\52", "\57", "\45", };
 protected Token jjFillToken()
 {
    final Token t;
@@ -845,8 +871,8 @@ protected Token jjFillToken()
    return t;
 }
 static final int[] jjnextStates = {
-   29, 30, 35, 36, 23, 24, 25, 1, 2, 4, 8, 9, 11, 19, 20, 33, 
-   34, 37, 38, 
+   31, 32, 37, 38, 23, 24, 25, 1, 2, 4, 8, 9, 11, 19, 20, 35, 
+   36, 39, 40, 
 };
 private static final boolean jjCanMove_0(int hiByte, int i1, int i2, long l1, long l2)
 {
@@ -996,23 +1022,21 @@ private void jjCheckNAddStates(int start, int end)
 }
 
     /** Constructor. */
-    public ASTParserTokenManager(SimpleCharStream stream){
+    public ASTParserTokenManager(CharStream stream){
 
-      if (SimpleCharStream.staticFlag)
-            throw new Error("ERROR: Cannot use a static CharStream class with a non-static lexical analyzer.");
 
     input_stream = stream;
   }
 
   /** Constructor. */
-  public ASTParserTokenManager (SimpleCharStream stream, int lexState){
+  public ASTParserTokenManager (CharStream stream, int lexState){
     ReInit(stream);
     SwitchTo(lexState);
   }
 
   /** Reinitialise parser. */
   
-  public void ReInit(SimpleCharStream stream)
+  public void ReInit(CharStream stream)
   {
 
 
@@ -1028,12 +1052,12 @@ private void jjCheckNAddStates(int start, int end)
   {
     int i;
     jjround = 0x80000001;
-    for (i = 43; i-- > 0;)
+    for (i = 45; i-- > 0;)
       jjrounds[i] = 0x80000000;
   }
 
   /** Reinitialise parser. */
-  public void ReInit(SimpleCharStream stream, int lexState)
+  public void ReInit(CharStream stream, int lexState)
   
   {
     ReInit(stream);
@@ -1058,10 +1082,10 @@ public static final String[] lexStateNames = {
 /** Lex State array. */
 public static final int[] jjnewLexState = {
    -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 
-   -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 
+   -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 
 };
 static final long[] jjtoToken = {
-   0xffff7fff01L, 
+   0x1ffff7fff01L, 
 };
 static final long[] jjtoSkip = {
    0xfeL, 
@@ -1072,10 +1096,10 @@ static final long[] jjtoSpecial = {
 static final long[] jjtoMore = {
    0x0L, 
 };
-    protected SimpleCharStream  input_stream;
+    protected CharStream  input_stream;
 
-    private final int[] jjrounds = new int[43];
-    private final int[] jjstateSet = new int[2 * 43];
+    private final int[] jjrounds = new int[45];
+    private final int[] jjstateSet = new int[2 * 45];
     private final StringBuilder jjimage = new StringBuilder();
     private StringBuilder image = jjimage;
     private int jjimageLen;
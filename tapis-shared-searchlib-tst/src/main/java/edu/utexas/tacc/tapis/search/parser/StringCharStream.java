@@ -0,0 +1,17 @@
+package edu.utexas.tacc.tapis.search.parser;
+
+import edu.utexas.tacc.tapis.search.CharSequenceCharStream;
+
+/**
+ * CharStream for ASTParser that reads directly from a string.
+ */
+public class StringCharStream extends CharSequenceCharStream implements CharStream
+{
+  /**
+   * @param input text to read
+   */
+  public StringCharStream(CharSequence input)
+  {
+    super(input);
+  }
+}
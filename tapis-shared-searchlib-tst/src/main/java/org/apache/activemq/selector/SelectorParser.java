@@ -19,7 +19,6 @@
 
 package org.apache.activemq.selector;
 
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Map;
@@ -34,7 +33,7 @@ import org.apache.activemq.filter.Expression;
 import org.apache.activemq.filter.LogicExpression;
 import org.apache.activemq.filter.PropertyExpression;
 import org.apache.activemq.filter.UnaryExpression;
-import org.apache.activemq.util.LRUCache;
+import edu.utexas.tacc.tapis.search.ParseCache;
 
 /**
  * JMS Selector Parser generated by JavaCC
@@ -43,50 +42,95 @@ import org.apache.activemq.util.LRUCache;
  */
 public class SelectorParser implements SelectorParserConstants {
 
-    private static final Map cache = Collections.synchronizedMap(new LRUCache(100));
+    // System properties that may be used to size the cache of parse results and of parse failures
+    public static final String CACHE_SIZE_PROPERTY = "tapis.search.selectorparser.cache.size";
+    public static final String FAILURE_CACHE_SIZE_PROPERTY = "tapis.search.selectorparser.cache.failures";
+    private static final int DEFAULT_CACHE_SIZE = 1000;
+    private static final int DEFAULT_FAILURE_CACHE_SIZE = 100;
+
+    private static final ParseCache<BooleanExpression> cache =
+        new ParseCache<>("SelectorParser", Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE),
+                         Integer.getInteger(FAILURE_CACHE_SIZE_PROPERTY, DEFAULT_FAILURE_CACHE_SIZE));
     private static final String CONVERT_STRING_EXPRESSIONS_PREFIX = "convert_string_expressions:";
 
     public static BooleanExpression parse(String sql) throws InvalidSelectorException {
-        Object result = cache.get(sql);
-        if (result instanceof InvalidSelectorException) {
-            throw (InvalidSelectorException) result;
-        } else if (result instanceof BooleanExpression) {
-            return (BooleanExpression) result;
-        } else {
+        // The cache key is the original string so that a prefixed selector does not share
+        // an entry with the same selector without the prefix.
+        return cache.get(sql, uncachedParser);
+    }
 
-            boolean convertStringExpressions = false;
-            if( sql.startsWith(CONVERT_STRING_EXPRESSIONS_PREFIX)) {
-                convertStringExpressions = true;
-                sql = sql.substring(CONVERT_STRING_EXPRESSIONS_PREFIX.length());
+    // Parser called by the cache on a miss. NOTE: JavaCC does not accept lambdas here.
+    private static final ParseCache.Parser<BooleanExpression, InvalidSelectorException> uncachedParser =
+        new ParseCache.Parser<BooleanExpression, InvalidSelectorException>() {
+            public BooleanExpression parse(String sql) throws InvalidSelectorException {
+                return parseUncached(sql);
             }
+        };
 
-            if( convertStringExpressions ) {
-                ComparisonExpression.CONVERT_STRING_EXPRESSIONS.set(true);
+    private static BooleanExpression parseUncached(String sql) throws InvalidSelectorException {
+        boolean convertStringExpressions = false;
+        if( sql.startsWith(CONVERT_STRING_EXPRESSIONS_PREFIX)) {
+            convertStringExpressions = true;
+            sql = sql.substring(CONVERT_STRING_EXPRESSIONS_PREFIX.length());
+        }
+
+        if( convertStringExpressions ) {
+            ComparisonExpression.CONVERT_STRING_EXPRESSIONS.set(true);
+        }
+        // Each thread reuses a parser, reset using ReInit, so that the parser, token manager, char stream and
+        // lookahead arrays are not allocated for every parse. The char stream reads the string directly.
+        SelectorParser parser = threadParser.get();
+        if (parser == null || parser.inUse) {
+            parser = new SelectorParser(sql);
+            if (threadParser.get() == null) {
+                threadParser.set(parser);
             }
-            try {
-                BooleanExpression e = new SelectorParser(sql).parse();
-                cache.put(sql, e);
-                return e;
-            } catch (InvalidSelectorException t) {
-                cache.put(sql, t);
-                throw t;
-            } finally {
-                if( convertStringExpressions ) {
-                    ComparisonExpression.CONVERT_STRING_EXPRESSIONS.remove();
-                }
+        } else {
+            parser.reset(sql);
+        }
+        parser.inUse = true;
+        try {
+            return parser.parse();
+        } finally {
+            // Do not hold on to the input
+            parser.sql = null;
+            parser.charStream.Done();
+            parser.inUse = false;
+            if( convertStringExpressions ) {
+                ComparisonExpression.CONVERT_STRING_EXPRESSIONS.remove();
             }
         }
     }
 
+    // Parser instance reused by each thread
+    private static final ThreadLocal<SelectorParser> threadParser = new ThreadLocal<SelectorParser>();
+
     public static void clearCache() {
         cache.clear();
     }
 
+    public static ParseCache.Stats getCacheStats() {
+        return cache.getStats();
+    }
+
     private String sql;
+    private StringCharStream charStream;
+    private boolean inUse;
 
     protected SelectorParser(String sql) {
-        this(new StringReader(sql));
+        this(new StringCharStream(sql), sql);
+    }
+
+    private SelectorParser(StringCharStream stream, String sql) {
+        this(stream);
+        this.charStream = stream;
+        this.sql = sql;
+    }
+
+    private void reset(String sql) {
         this.sql = sql;
+        charStream.ReInit(sql);
+        ReInit(charStream);
     }
 
     protected BooleanExpression parse() throws InvalidSelectorException {
@@ -667,513 +711,512 @@ left = new PropertyExpression(t.image);
     finally { jj_save(5, xla); }
   }
 
-  private boolean jj_3_3()
+  private boolean jj_3R_comparisonExpression_362_17_47()
  {
-    if (jj_scan_token(NOT)) return true;
-    if (jj_scan_token(BETWEEN)) return true;
-    if (jj_3R_addExpression_420_5_41()) return true;
-    if (jj_scan_token(AND)) return true;
-    if (jj_3R_addExpression_420_5_41()) return true;
+    if (jj_scan_token(28)) return true;
+    if (jj_3R_addExpression_465_5_41()) return true;
     return false;
   }
 
-  private boolean jj_3R_multExpr_459_9_18()
+  private boolean jj_3R_comparisonExpression_362_17_42()
  {
-    if (jj_scan_token(39)) return true;
-    if (jj_3R_unaryExpr_477_5_10()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (!jj_3R_comparisonExpression_362_17_47()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_comparisonExpression_367_17_48()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_comparisonExpression_372_17_49()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_comparisonExpression_377_17_50()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_comparisonExpression_382_17_51()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3_2()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_comparisonExpression_400_17_52()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3_3()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_comparisonExpression_411_17_53()) return false;
+    jj_scanpos = xsp;
+    if (jj_3_4()) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_554_9_30()
+  private boolean jj_3R_variable_659_5_24()
  {
-    if (jj_scan_token(FLOATING_POINT_LITERAL)) return true;
+    if (jj_scan_token(ID)) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_355_17_52()
+  private boolean jj_3R_addExpression_465_5_41()
  {
-    if (jj_scan_token(BETWEEN)) return true;
-    if (jj_3R_addExpression_420_5_41()) return true;
-    if (jj_scan_token(AND)) return true;
-    if (jj_3R_addExpression_420_5_41()) return true;
+    if (jj_3R_multExpr_492_5_9()) return true;
+    Token xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_addExpression_467_9_46()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  private boolean jj_3R_equalityExpression_271_5_37()
+  private boolean jj_3R_orExpression_274_5_25()
  {
-    if (jj_3R_comparisonExpression_313_5_39()) return true;
+    if (jj_3R_andExpression_296_5_34()) return true;
     Token xsp;
     while (true) {
       xsp = jj_scanpos;
-      if (jj_3R_equalityExpression_275_13_40()) { jj_scanpos = xsp; break; }
+      if (jj_3R_orExpression_277_13_35()) { jj_scanpos = xsp; break; }
     }
     return false;
   }
 
-  private boolean jj_3R_multExpr_454_9_17()
+  private boolean jj_3R_primaryExpr_554_9_22()
  {
-    if (jj_scan_token(38)) return true;
-    if (jj_3R_unaryExpr_477_5_10()) return true;
+    if (jj_scan_token(32)) return true;
+    if (jj_3R_orExpression_274_5_25()) return true;
+    if (jj_scan_token(34)) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_547_9_29()
+  private boolean jj_3R_primaryExpr_552_9_21()
  {
-    if (jj_scan_token(OCTAL_LITERAL)) return true;
+    if (jj_3R_variable_659_5_24()) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_341_23_56()
+  private boolean jj_3R_comparisonExpression_440_25_59()
  {
-    if (jj_scan_token(ESCAPE)) return true;
-    if (jj_3R_stringLitteral_594_5_36()) return true;
+    if (jj_scan_token(33)) return true;
+    if (jj_3R_stringLitteral_639_5_36()) return true;
     return false;
   }
 
-  private boolean jj_3_2()
+  private boolean jj_3R_primaryExpr_550_9_20()
  {
-    if (jj_scan_token(NOT)) return true;
-    if (jj_scan_token(LIKE)) return true;
-    if (jj_3R_stringLitteral_594_5_36()) return true;
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_comparisonExpression_350_53_57()) jj_scanpos = xsp;
+    if (jj_3R_literal_570_5_23()) return true;
     return false;
   }
 
-  private boolean jj_3R_multExpr_449_9_16()
+  private boolean jj_3R_primaryExpr_549_5_19()
  {
-    if (jj_scan_token(37)) return true;
-    if (jj_3R_unaryExpr_477_5_10()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (!jj_3R_primaryExpr_550_9_20()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_primaryExpr_552_9_21()) return false;
+    jj_scanpos = xsp;
+    if (jj_3R_primaryExpr_554_9_22()) return true;
     return false;
   }
 
-  private boolean jj_3R_multExpr_449_9_11()
+  private boolean jj_3R_comparisonExpression_358_5_39()
  {
+    if (jj_3R_addExpression_465_5_41()) return true;
     Token xsp;
-    xsp = jj_scanpos;
-    if (!jj_3R_multExpr_449_9_16()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_multExpr_454_9_17()) return false;
-    jj_scanpos = xsp;
-    if (jj_3R_multExpr_459_9_18()) return true;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_comparisonExpression_362_17_42()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  private boolean jj_3R_andExpression_254_13_38()
+  private boolean jj_3R_stringLitteral_639_5_36()
  {
-    if (jj_scan_token(AND)) return true;
-    if (jj_3R_equalityExpression_271_5_37()) return true;
+    if (jj_scan_token(STRING_LITERAL)) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_540_9_28()
+  private boolean jj_3R_unaryExpr_536_9_15()
  {
-    if (jj_scan_token(HEX_LITERAL)) return true;
+    if (jj_3R_primaryExpr_549_5_19()) return true;
     return false;
   }
 
-  private boolean jj_3R_multExpr_447_5_9()
+  private boolean jj_3R_comparisonExpression_395_53_57()
  {
-    if (jj_3R_unaryExpr_477_5_10()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_multExpr_449_9_11()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_scan_token(ESCAPE)) return true;
+    if (jj_3R_stringLitteral_639_5_36()) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_337_17_51()
+  private boolean jj_3_4()
  {
-    if (jj_scan_token(LIKE)) return true;
-    if (jj_3R_stringLitteral_594_5_36()) return true;
+    if (jj_scan_token(NOT)) return true;
+    if (jj_scan_token(IN)) return true;
+    if (jj_scan_token(32)) return true;
+    if (jj_3R_stringLitteral_639_5_36()) return true;
     Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_comparisonExpression_341_23_56()) jj_scanpos = xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_comparisonExpression_440_25_59()) { jj_scanpos = xsp; break; }
+    }
+    if (jj_scan_token(34)) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_533_9_27()
+  private boolean jj_3_6()
  {
-    if (jj_scan_token(DECIMAL_LITERAL)) return true;
+    if (jj_scan_token(35)) return true;
+    if (jj_3R_unaryExpr_522_5_10()) return true;
     return false;
   }
 
-  private boolean jj_3R_andExpression_251_5_34()
+  private boolean jj_3R_unaryExpr_531_9_14()
  {
-    if (jj_3R_equalityExpression_271_5_37()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_andExpression_254_13_38()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_scan_token(NOT)) return true;
+    if (jj_3R_unaryExpr_522_5_10()) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_332_17_50()
+  private boolean jj_3R_comparisonExpression_419_25_58()
  {
-    if (jj_scan_token(31)) return true;
-    if (jj_3R_addExpression_420_5_41()) return true;
+    if (jj_scan_token(33)) return true;
+    if (jj_3R_stringLitteral_639_5_36()) return true;
     return false;
   }
 
-  private boolean jj_3R_addExpression_429_13_55()
+  private boolean jj_3R_equalityExpression_336_13_45()
  {
-    if (jj_scan_token(36)) return true;
-    if (jj_3R_multExpr_447_5_9()) return true;
+    if (jj_scan_token(IS)) return true;
+    if (jj_scan_token(NOT)) return true;
+    if (jj_scan_token(NULL)) return true;
     return false;
   }
 
-  private boolean jj_3_5()
+  private boolean jj_3R_unaryExpr_526_9_13()
  {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (!jj_scan_token(35)) return false;
-    jj_scanpos = xsp;
     if (jj_scan_token(36)) return true;
-    if (jj_3R_multExpr_447_5_9()) return true;
+    if (jj_3R_unaryExpr_522_5_10()) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_526_9_26()
+  private boolean jj_3R_literal_620_9_33()
  {
-    if (jj_3R_stringLitteral_594_5_36()) return true;
+    if (jj_scan_token(NULL)) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_327_17_49()
+  private boolean jj_3_1()
  {
-    if (jj_scan_token(30)) return true;
-    if (jj_3R_addExpression_420_5_41()) return true;
+    if (jj_scan_token(IS)) return true;
+    if (jj_scan_token(NULL)) return true;
     return false;
   }
 
-  private boolean jj_3R_addExpression_424_13_54()
+  private boolean jj_3R_unaryExpr_523_9_12()
  {
     if (jj_scan_token(35)) return true;
-    if (jj_3R_multExpr_447_5_9()) return true;
+    if (jj_3R_unaryExpr_522_5_10()) return true;
     return false;
   }
 
-  private boolean jj_3R_orExpression_232_13_35()
+  private boolean jj_3R_equalityExpression_325_13_44()
  {
-    if (jj_scan_token(OR)) return true;
-    if (jj_3R_andExpression_251_5_34()) return true;
+    if (jj_scan_token(27)) return true;
+    if (jj_3R_comparisonExpression_358_5_39()) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_525_5_23()
+  private boolean jj_3R_unaryExpr_522_5_10()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (!jj_3R_literal_526_9_26()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_literal_533_9_27()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_literal_540_9_28()) return false;
+    if (!jj_3R_unaryExpr_523_9_12()) return false;
     jj_scanpos = xsp;
-    if (!jj_3R_literal_547_9_29()) return false;
+    if (!jj_3R_unaryExpr_526_9_13()) return false;
     jj_scanpos = xsp;
-    if (!jj_3R_literal_554_9_30()) return false;
+    if (!jj_3R_unaryExpr_531_9_14()) return false;
     jj_scanpos = xsp;
-    if (!jj_3R_literal_561_9_31()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_literal_568_9_32()) return false;
-    jj_scanpos = xsp;
-    if (jj_3R_literal_575_9_33()) return true;
+    if (jj_3R_unaryExpr_536_9_15()) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_322_17_48()
+  private boolean jj_3R_literal_613_9_32()
  {
-    if (jj_scan_token(29)) return true;
-    if (jj_3R_addExpression_420_5_41()) return true;
+    if (jj_scan_token(FALSE)) return true;
     return false;
   }
 
-  private boolean jj_3R_addExpression_422_9_46()
+  private boolean jj_3R_comparisonExpression_411_17_53()
  {
+    if (jj_scan_token(IN)) return true;
+    if (jj_scan_token(32)) return true;
+    if (jj_3R_stringLitteral_639_5_36()) return true;
     Token xsp;
-    xsp = jj_scanpos;
-    if (!jj_3R_addExpression_424_13_54()) return false;
-    jj_scanpos = xsp;
-    if (jj_3R_addExpression_429_13_55()) return true;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_comparisonExpression_419_25_58()) { jj_scanpos = xsp; break; }
+    }
+    if (jj_scan_token(34)) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_317_17_47()
+  private boolean jj_3R_equalityExpression_320_13_43()
  {
-    if (jj_scan_token(28)) return true;
-    if (jj_3R_addExpression_420_5_41()) return true;
+    if (jj_scan_token(26)) return true;
+    if (jj_3R_comparisonExpression_358_5_39()) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_317_17_42()
+  private boolean jj_3R_equalityExpression_320_13_40()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (!jj_3R_comparisonExpression_317_17_47()) return false;
+    if (!jj_3R_equalityExpression_320_13_43()) return false;
     jj_scanpos = xsp;
-    if (!jj_3R_comparisonExpression_322_17_48()) return false;
+    if (!jj_3R_equalityExpression_325_13_44()) return false;
     jj_scanpos = xsp;
-    if (!jj_3R_comparisonExpression_327_17_49()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_comparisonExpression_332_17_50()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_comparisonExpression_337_17_51()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3_2()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_comparisonExpression_355_17_52()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3_3()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_comparisonExpression_366_17_53()) return false;
+    if (!jj_3_1()) return false;
     jj_scanpos = xsp;
-    if (jj_3_4()) return true;
+    if (jj_3R_equalityExpression_336_13_45()) return true;
     return false;
   }
 
-  private boolean jj_3R_variable_614_5_24()
+  private boolean jj_3R_literal_606_9_31()
  {
-    if (jj_scan_token(ID)) return true;
+    if (jj_scan_token(TRUE)) return true;
     return false;
   }
 
-  private boolean jj_3R_addExpression_420_5_41()
+  private boolean jj_3_3()
  {
-    if (jj_3R_multExpr_447_5_9()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_addExpression_422_9_46()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_scan_token(NOT)) return true;
+    if (jj_scan_token(BETWEEN)) return true;
+    if (jj_3R_addExpression_465_5_41()) return true;
+    if (jj_scan_token(AND)) return true;
+    if (jj_3R_addExpression_465_5_41()) return true;
     return false;
   }
 
-  private boolean jj_3R_orExpression_229_5_25()
+  private boolean jj_3R_multExpr_504_9_18()
  {
-    if (jj_3R_andExpression_251_5_34()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_orExpression_232_13_35()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_scan_token(39)) return true;
+    if (jj_3R_unaryExpr_522_5_10()) return true;
     return false;
   }
 
-  private boolean jj_3R_primaryExpr_509_9_22()
+  private boolean jj_3R_literal_599_9_30()
  {
-    if (jj_scan_token(32)) return true;
-    if (jj_3R_orExpression_229_5_25()) return true;
-    if (jj_scan_token(34)) return true;
+    if (jj_scan_token(FLOATING_POINT_LITERAL)) return true;
+    return false;
+  }
+
+  private boolean jj_3R_comparisonExpression_400_17_52()
+ {
+    if (jj_scan_token(BETWEEN)) return true;
+    if (jj_3R_addExpression_465_5_41()) return true;
+    if (jj_scan_token(AND)) return true;
+    if (jj_3R_addExpression_465_5_41()) return true;
     return false;
   }
 
-  private boolean jj_3R_primaryExpr_507_9_21()
+  private boolean jj_3R_equalityExpression_316_5_37()
  {
-    if (jj_3R_variable_614_5_24()) return true;
+    if (jj_3R_comparisonExpression_358_5_39()) return true;
+    Token xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_equalityExpression_320_13_40()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_395_25_59()
+  private boolean jj_3R_multExpr_499_9_17()
  {
-    if (jj_scan_token(33)) return true;
-    if (jj_3R_stringLitteral_594_5_36()) return true;
+    if (jj_scan_token(38)) return true;
+    if (jj_3R_unaryExpr_522_5_10()) return true;
     return false;
   }
 
-  private boolean jj_3R_primaryExpr_505_9_20()
+  private boolean jj_3R_literal_592_9_29()
  {
-    if (jj_3R_literal_525_5_23()) return true;
+    if (jj_scan_token(OCTAL_LITERAL)) return true;
     return false;
   }
 
-  private boolean jj_3R_primaryExpr_504_5_19()
+  private boolean jj_3R_comparisonExpression_386_23_56()
  {
+    if (jj_scan_token(ESCAPE)) return true;
+    if (jj_3R_stringLitteral_639_5_36()) return true;
+    return false;
+  }
+
+  private boolean jj_3_2()
+ {
+    if (jj_scan_token(NOT)) return true;
+    if (jj_scan_token(LIKE)) return true;
+    if (jj_3R_stringLitteral_639_5_36()) return true;
     Token xsp;
     xsp = jj_scanpos;
-    if (!jj_3R_primaryExpr_505_9_20()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_primaryExpr_507_9_21()) return false;
-    jj_scanpos = xsp;
-    if (jj_3R_primaryExpr_509_9_22()) return true;
+    if (jj_3R_comparisonExpression_395_53_57()) jj_scanpos = xsp;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_313_5_39()
+  private boolean jj_3R_multExpr_494_9_16()
  {
-    if (jj_3R_addExpression_420_5_41()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_comparisonExpression_317_17_42()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_scan_token(37)) return true;
+    if (jj_3R_unaryExpr_522_5_10()) return true;
     return false;
   }
 
-  private boolean jj_3R_stringLitteral_594_5_36()
+  private boolean jj_3R_multExpr_494_9_11()
  {
-    if (jj_scan_token(STRING_LITERAL)) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (!jj_3R_multExpr_494_9_16()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_multExpr_499_9_17()) return false;
+    jj_scanpos = xsp;
+    if (jj_3R_multExpr_504_9_18()) return true;
     return false;
   }
 
-  private boolean jj_3R_unaryExpr_491_9_15()
+  private boolean jj_3R_andExpression_299_13_38()
  {
-    if (jj_3R_primaryExpr_504_5_19()) return true;
+    if (jj_scan_token(AND)) return true;
+    if (jj_3R_equalityExpression_316_5_37()) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_350_53_57()
+  private boolean jj_3R_literal_585_9_28()
  {
-    if (jj_scan_token(ESCAPE)) return true;
-    if (jj_3R_stringLitteral_594_5_36()) return true;
+    if (jj_scan_token(HEX_LITERAL)) return true;
     return false;
   }
 
-  private boolean jj_3_4()
+  private boolean jj_3R_multExpr_492_5_9()
  {
-    if (jj_scan_token(NOT)) return true;
-    if (jj_scan_token(IN)) return true;
-    if (jj_scan_token(32)) return true;
-    if (jj_3R_stringLitteral_594_5_36()) return true;
+    if (jj_3R_unaryExpr_522_5_10()) return true;
     Token xsp;
     while (true) {
       xsp = jj_scanpos;
-      if (jj_3R_comparisonExpression_395_25_59()) { jj_scanpos = xsp; break; }
+      if (jj_3R_multExpr_494_9_11()) { jj_scanpos = xsp; break; }
     }
-    if (jj_scan_token(34)) return true;
     return false;
   }
 
-  private boolean jj_3_6()
+  private boolean jj_3R_comparisonExpression_382_17_51()
  {
-    if (jj_scan_token(35)) return true;
-    if (jj_3R_unaryExpr_477_5_10()) return true;
+    if (jj_scan_token(LIKE)) return true;
+    if (jj_3R_stringLitteral_639_5_36()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_comparisonExpression_386_23_56()) jj_scanpos = xsp;
     return false;
   }
 
-  private boolean jj_3R_unaryExpr_486_9_14()
+  private boolean jj_3R_literal_578_9_27()
  {
-    if (jj_scan_token(NOT)) return true;
-    if (jj_3R_unaryExpr_477_5_10()) return true;
+    if (jj_scan_token(DECIMAL_LITERAL)) return true;
     return false;
   }
 
-  private boolean jj_3R_comparisonExpression_374_25_58()
+  private boolean jj_3R_andExpression_296_5_34()
  {
-    if (jj_scan_token(33)) return true;
-    if (jj_3R_stringLitteral_594_5_36()) return true;
+    if (jj_3R_equalityExpression_316_5_37()) return true;
+    Token xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_andExpression_299_13_38()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  private boolean jj_3R_equalityExpression_291_13_45()
+  private boolean jj_3R_comparisonExpression_377_17_50()
  {
-    if (jj_scan_token(IS)) return true;
-    if (jj_scan_token(NOT)) return true;
-    if (jj_scan_token(NULL)) return true;
+    if (jj_scan_token(31)) return true;
+    if (jj_3R_addExpression_465_5_41()) return true;
     return false;
   }
 
-  private boolean jj_3R_unaryExpr_481_9_13()
+  private boolean jj_3R_addExpression_474_13_55()
  {
     if (jj_scan_token(36)) return true;
-    if (jj_3R_unaryExpr_477_5_10()) return true;
+    if (jj_3R_multExpr_492_5_9()) return true;
     return false;
   }
 
-  private boolean jj_3R_literal_575_9_33()
+  private boolean jj_3_5()
  {
-    if (jj_scan_token(NULL)) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (!jj_scan_token(35)) return false;
+    jj_scanpos = xsp;
+    if (jj_scan_token(36)) return true;
+    if (jj_3R_multExpr_492_5_9()) return true;
     return false;
   }
 
-  private boolean jj_3_1()
+  private boolean jj_3R_literal_571_9_26()
  {
-    if (jj_scan_token(IS)) return true;
-    if (jj_scan_token(NULL)) return true;
+    if (jj_3R_stringLitteral_639_5_36()) return true;
     return false;
   }
 
-  private boolean jj_3R_unaryExpr_478_9_12()
+  private boolean jj_3R_comparisonExpression_372_17_49()
+ {
+    if (jj_scan_token(30)) return true;
+    if (jj_3R_addExpression_465_5_41()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_addExpression_469_13_54()
  {
     if (jj_scan_token(35)) return true;
-    if (jj_3R_unaryExpr_477_5_10()) return true;
+    if (jj_3R_multExpr_492_5_9()) return true;
     return false;
   }
 
-  private boolean jj_3R_equalityExpression_280_13_44()
+  private boolean jj_3R_orExpression_277_13_35()
  {
-    if (jj_scan_token(27)) return true;
-    if (jj_3R_comparisonExpression_313_5_39()) return true;
+    if (jj_scan_token(OR)) return true;
+    if (jj_3R_andExpression_296_5_34()) return true;
     return false;
   }
 
-  private boolean jj_3R_unaryExpr_477_5_10()
+  private boolean jj_3R_literal_570_5_23()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (!jj_3R_unaryExpr_478_9_12()) return false;
+    if (!jj_3R_literal_571_9_26()) return false;
     jj_scanpos = xsp;
-    if (!jj_3R_unaryExpr_481_9_13()) return false;
+    if (!jj_3R_literal_578_9_27()) return false;
     jj_scanpos = xsp;
-    if (!jj_3R_unaryExpr_486_9_14()) return false;
+    if (!jj_3R_literal_585_9_28()) return false;
     jj_scanpos = xsp;
-    if (jj_3R_unaryExpr_491_9_15()) return true;
-    return false;
-  }
-
-  private boolean jj_3R_literal_568_9_32()
- {
-    if (jj_scan_token(FALSE)) return true;
-    return false;
-  }
-
-  private boolean jj_3R_comparisonExpression_366_17_53()
- {
-    if (jj_scan_token(IN)) return true;
-    if (jj_scan_token(32)) return true;
-    if (jj_3R_stringLitteral_594_5_36()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_comparisonExpression_374_25_58()) { jj_scanpos = xsp; break; }
-    }
-    if (jj_scan_token(34)) return true;
+    if (!jj_3R_literal_592_9_29()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_literal_599_9_30()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_literal_606_9_31()) return false;
+    jj_scanpos = xsp;
+    if (!jj_3R_literal_613_9_32()) return false;
+    jj_scanpos = xsp;
+    if (jj_3R_literal_620_9_33()) return true;
     return false;
   }
 
-  private boolean jj_3R_equalityExpression_275_13_43()
+  private boolean jj_3R_comparisonExpression_367_17_48()
  {
-    if (jj_scan_token(26)) return true;
-    if (jj_3R_comparisonExpression_313_5_39()) return true;
+    if (jj_scan_token(29)) return true;
+    if (jj_3R_addExpression_465_5_41()) return true;
     return false;
   }
 
-  private boolean jj_3R_equalityExpression_275_13_40()
+  private boolean jj_3R_addExpression_467_9_46()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (!jj_3R_equalityExpression_275_13_43()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3R_equalityExpression_280_13_44()) return false;
-    jj_scanpos = xsp;
-    if (!jj_3_1()) return false;
+    if (!jj_3R_addExpression_469_13_54()) return false;
     jj_scanpos = xsp;
-    if (jj_3R_equalityExpression_291_13_45()) return true;
-    return false;
-  }
-
-  private boolean jj_3R_literal_561_9_31()
- {
-    if (jj_scan_token(TRUE)) return true;
+    if (jj_3R_addExpression_474_13_55()) return true;
     return false;
   }
 
   /** Generated Token Manager. */
   public SelectorParserTokenManager token_source;
-  SimpleCharStream jj_input_stream;
   /** Current token. */
   public Token token;
   /** Next token. */
@@ -1199,14 +1242,9 @@ left = new PropertyExpression(t.image);
   private boolean jj_rescan = false;
   private int jj_gc = 0;
 
-  /** Constructor with InputStream. */
-  public SelectorParser(java.io.InputStream stream) {
-	  this(stream, null);
-  }
-  /** Constructor with InputStream and supplied encoding */
-  public SelectorParser(java.io.InputStream stream, String encoding) {
-	 try { jj_input_stream = new SimpleCharStream(stream, encoding, 1, 1); } catch(java.io.UnsupportedEncodingException e) { throw new RuntimeException(e); }
-	 token_source = new SelectorParserTokenManager(jj_input_stream);
+  /** Constructor with user supplied CharStream. */
+  public SelectorParser(CharStream stream) {
+	 token_source = new SelectorParserTokenManager(stream);
 	 token = new Token();
 	 jj_ntk = -1;
 	 jj_gen = 0;
@@ -1215,43 +1253,8 @@ left = new PropertyExpression(t.image);
   }
 
   /** Reinitialise. */
-  public void ReInit(java.io.InputStream stream) {
-	  ReInit(stream, null);
-  }
-  /** Reinitialise. */
-  public void ReInit(java.io.InputStream stream, String encoding) {
-	 try { jj_input_stream.ReInit(stream, encoding, 1, 1); } catch(java.io.UnsupportedEncodingException e) { throw new RuntimeException(e); }
-	 token_source.ReInit(jj_input_stream);
-	 token = new Token();
-	 jj_ntk = -1;
-	 jj_gen = 0;
-	 for (int i = 0; i < 19; i++) jj_la1[i] = -1;
-	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
-  }
-
-  /** Constructor. */
-  public SelectorParser(java.io.Reader stream) {
-	 jj_input_stream = new SimpleCharStream(stream, 1, 1);
-	 token_source = new SelectorParserTokenManager(jj_input_stream);
-	 token = new Token();
-	 jj_ntk = -1;
-	 jj_gen = 0;
-	 for (int i = 0; i < 19; i++) jj_la1[i] = -1;
-	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
-  }
-
-  /** Reinitialise. */
-  public void ReInit(java.io.Reader stream) {
-	if (jj_input_stream == null) {
-	   jj_input_stream = new SimpleCharStream(stream, 1, 1);
-	} else {
-	   jj_input_stream.ReInit(stream, 1, 1);
-	}
-	if (token_source == null) {
- token_source = new SelectorParserTokenManager(jj_input_stream);
-	}
-
-	 token_source.ReInit(jj_input_stream);
+  public void ReInit(CharStream stream) {
+	 token_source.ReInit(stream);
 	 token = new Token();
 	 jj_ntk = -1;
 	 jj_gen = 0;
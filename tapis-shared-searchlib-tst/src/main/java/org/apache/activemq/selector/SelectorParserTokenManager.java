@@ -18,7 +18,6 @@
  */
 
 package org.apache.activemq.selector;
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Map;
@@ -31,7 +30,7 @@ import org.apache.activemq.filter.Expression;
 import org.apache.activemq.filter.LogicExpression;
 import org.apache.activemq.filter.PropertyExpression;
 import org.apache.activemq.filter.UnaryExpression;
-import org.apache.activemq.util.LRUCache;
+import edu.utexas.tacc.tapis.search.ParseCache;
 
 /** Token Manager. */
 @SuppressWarnings ("unused")
@@ -995,23 +994,21 @@ private void jjCheckNAddStates(int start, int end)
 }
 
     /** Constructor. */
-    public SelectorParserTokenManager(SimpleCharStream stream){
+    public SelectorParserTokenManager(CharStream stream){
 
-      if (SimpleCharStream.staticFlag)
-            throw new Error("ERROR: Cannot use a static CharStream class with a non-static lexical analyzer.");
 
     input_stream = stream;
   }
 
   /** Constructor. */
-  public SelectorParserTokenManager (SimpleCharStream stream, int lexState){
+  public SelectorParserTokenManager (CharStream stream, int lexState){
     ReInit(stream);
     SwitchTo(lexState);
   }
 
   /** Reinitialise parser. */
   
-  public void ReInit(SimpleCharStream stream)
+  public void ReInit(CharStream stream)
   {
 
 
@@ -1032,7 +1029,7 @@ private void jjCheckNAddStates(int start, int end)
   }
 
   /** Reinitialise parser. */
-  public void ReInit(SimpleCharStream stream, int lexState)
+  public void ReInit(CharStream stream, int lexState)
   
   {
     ReInit(stream);
@@ -1071,7 +1068,7 @@ static final long[] jjtoSpecial = {
 static final long[] jjtoMore = {
    0x0L, 
 };
-    protected SimpleCharStream  input_stream;
+    protected CharStream  input_stream;
 
     private final int[] jjrounds = new int[43];
     private final int[] jjstateSet = new int[2 * 43];
@@ -0,0 +1,93 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.parser.ASTNode;
+import edu.utexas.tacc.tapis.search.parser.ASTParser;
+import edu.utexas.tacc.tapis.search.parser.ASTParserConstants;
+import edu.utexas.tacc.tapis.search.parser.ASTParserTokenManager;
+import edu.utexas.tacc.tapis.search.parser.StringCharStream;
+import edu.utexas.tacc.tapis.search.parser.Token;
+import org.apache.activemq.selector.SelectorParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for CharSequenceCharStream and reuse of parser instances
+ */
+@Test(groups= {"unit"})
+public class CharSequenceCharStreamTest
+{
+  /*
+   * Test token images and positions, including line terminators and tabs
+   */
+  @Test(groups={"unit"})
+  public void testTokenPositions()
+  {
+    String sqlStr = "a = 1\n  AND\tb = 'x'\r\nOR c <= 2\r";
+    List<String> tokens = tokenize(new StringCharStream(sqlStr));
+    assertEquals(tokens, List.of("a@1:1-1:1", "=@1:3-1:3", "1@1:5-1:5",
+                                 "AND@2:3-2:5", "b@2:7-2:7", "=@2:9-2:9", "'x'@2:11-2:13",
+                                 "OR@3:1-3:2", "c@3:4-3:4", "<=@3:6-3:7", "2@3:9-3:9"));
+
+    // Reuse the stream for a new input, passing a StringBuilder rather than a string
+    var stream = new StringCharStream("");
+    assertEquals(tokenize(stream), List.of());
+    stream.ReInit(new StringBuilder("x\n\n  y"));
+    assertEquals(tokenize(stream), List.of("x@1:1-1:1", "y@3:3-3:3"));
+  }
+
+  /*
+   * Test that parse errors report the position of the bad token
+   */
+  @Test(groups={"unit"})
+  public void testErrorPosition()
+  {
+    try { ASTParser.parse("a = 1 AND\n  b = = 2"); fail("Expected UnsupportedOperationException"); }
+    catch (UnsupportedOperationException e)
+    {
+      System.out.println("Expected exception: " + e.getCause().getMessage());
+      Assert.assertTrue(e.getCause().getMessage().contains("line 2, column 7"), e.getCause().getMessage());
+    }
+  }
+
+  /*
+   * Test that the parser reused by a thread gives the same results as a new parser, including after errors
+   */
+  @Test(groups={"unit"})
+  public void testParserReuse() throws Exception
+  {
+    for (int i = 0; i < 50; i++)
+    {
+      // Unique strings so that the cache is not used
+      String sqlStr = "reuse_" + i + " = " + i + " AND (x < 'a" + i + "' OR y BETWEEN '" + i + "' AND '100')";
+      ASTNode node = ASTParser.parse(sqlStr);
+      assertEquals(node.toString(), "((reuse_" + i + ".EQ." + i + ").AND.((x.LT.a" + i + ").OR.(y.BETWEEN." + i + ",100)))");
+      try { ASTParser.parse("reuse_" + i + " = = " + i); fail("Expected UnsupportedOperationException"); }
+      catch (UnsupportedOperationException e) { /* expected */ }
+
+      String selector = "reuse_" + i + " = " + i + " AND z LIKE 'a%'";
+      assertEquals(SelectorParser.parse(selector).toString(), "((reuse_" + i + " = " + i + ") AND (LIKE z))");
+      try { SelectorParser.parse("reuse_" + i + " = = " + i); fail("Expected InvalidSelectorException"); }
+      catch (Exception e) { /* expected */ }
+    }
+  }
+
+  /*
+   * Read all tokens, formatted as image@beginLine:beginColumn-endLine:endColumn
+   */
+  private static List<String> tokenize(StringCharStream stream)
+  {
+    var tokenMgr = new ASTParserTokenManager(stream);
+    var tokens = new ArrayList<String>();
+    for (Token t = tokenMgr.getNextToken(); t.kind != ASTParserConstants.EOF; t = tokenMgr.getNextToken())
+    {
+      tokens.add(t.image + "@" + t.beginLine + ":" + t.beginColumn + "-" + t.endLine + ":" + t.endColumn);
+    }
+    return tokens;
+  }
+}
@@ -0,0 +1,164 @@
+package edu.utexas.tacc.tapis.search;
+
+import org.apache.activemq.command.ActiveMQMessage;
+import org.apache.activemq.filter.BooleanExpression;
+import org.apache.activemq.filter.MessageEvaluationContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the CompiledSelector class.
+ */
+@Test(groups={"unit"})
+public class CompiledSelectorTest
+{
+  // Selectors covering three valued logic, mixed types, folding and interpreted parts
+  private static final List<String> SELECTORS = List.of(
+    "tenant = 'dev'",
+    "'dev' = tenant",
+    "tenant <> 'dev'",
+    "NOT ('dev' = tenant)",
+    "tenant = 'dev' AND size > 10",
+    "tenant = 'dev' OR size > 10",
+    "NOT (tenant = 'dev' OR size > 10)",
+    "size BETWEEN 5 AND 15",
+    "size NOT BETWEEN 5 AND 15",
+    "size >= 2 * 5 AND size < -(-20)",
+    "10 < size",
+    "size = 10",
+    "size = 10.0",
+    "ratio <= 0.5",
+    "ratio > size / 4",
+    "size + ratio > 12",
+    "size * 2 - 1 = 19",
+    "size % 3 = 1",
+    "-size < -10",
+    "size = ratio",
+    "tenant < type",
+    "urgent",
+    "NOT urgent",
+    "urgent = TRUE",
+    "urgent = FALSE OR size = 3",
+    "tenant IS NULL",
+    "tenant IS NOT NULL AND size IS NULL",
+    "type LIKE 'jo%'",
+    "type IN ('job', 'app')",
+    "tenant = 'dev' AND type NOT IN ('job')",
+    "tenant + 'x' = 'devx'",
+    "size = '10'",
+    "1 = 1 AND tenant = 'dev'",
+    "1 = 2 OR urgent",
+    "TRUE");
+
+  /*
+   * Test that compiled selectors give the same result as the parsed selectors
+   */
+  @Test(groups={"unit"})
+  public void testMatchesAgainstEvaluation() throws Exception
+  {
+    var random = new Random(4321);
+    List<Object> tenants = List.of("dev", "admin", "job");
+    List<Object> types = List.of("job", "app", "dev");
+    List<Object> sizes = List.of(3L, 5L, 10L, 10.0, 11L, 19.0, 20L, -0.0, "10", true);
+    List<Object> ratios = List.of(-1.5, 0.0, 0.5, 2.5, 3L, 10L, Double.NaN);
+    List<Object> urgents = List.of(true, false, "true", 1L);
+
+    for (String text : SELECTORS)
+    {
+      BooleanExpression parsed = TapisSelectorParser.parse(text);
+      CompiledSelector selector = CompiledSelector.compile(parsed);
+      CompiledSelector.Values values = selector.newValues();
+      for (int n = 0; n < 500; n++)
+      {
+        var event = new HashMap<String, Object>();
+        put(event, random, "tenant", tenants);
+        put(event, random, "type", types);
+        put(event, random, "size", sizes);
+        put(event, random, "ratio", ratios);
+        put(event, random, "urgent", urgents);
+
+        // Reuse values for each event
+        values.clear();
+        for (Map.Entry<String, Object> entry : event.entrySet()) values.set(entry.getKey(), entry.getValue());
+        String expected = outcome(() -> parsed.matches(context(event)));
+        assertEquals(outcome(() -> selector.matches(values)), expected, "Selector: " + text + " Event: " + event);
+        assertEquals(outcome(() -> selector.matches(event)), expected, "Selector: " + text + " Event: " + event);
+      }
+    }
+  }
+
+  /*
+   * Test slots and which selectors are fully compiled
+   */
+  @Test(groups={"unit"})
+  public void testCompile() throws Exception
+  {
+    CompiledSelector selector = CompiledSelector.compile("size > 2 * 5 AND tenant = 'dev' AND size < 20");
+    assertEquals(selector.getPropertyNames(), List.of("size", "tenant"));
+    assertEquals(selector.getSlot("tenant"), 1);
+    assertEquals(selector.getSlot("other"), -1);
+    Assert.assertTrue(selector.isFullyCompiled());
+
+    int size = selector.getSlot("size");
+    int tenant = selector.getSlot("tenant");
+    CompiledSelector.Values values = selector.newValues();
+    Assert.assertTrue(selector.matches(values.setLong(size, 11).setString(tenant, "dev")));
+    Assert.assertFalse(selector.matches(values.setLong(size, 10)));
+    Assert.assertFalse(selector.matches(values.clear().setString(tenant, "dev")));
+    // Slots of properties not in the selector are ignored
+    Assert.assertTrue(selector.matches(values.setDouble(size, 10.5).setLong(selector.getSlot("other"), 1)));
+
+    Assert.assertFalse(CompiledSelector.compile("type LIKE 'j%'").isFullyCompiled());
+    Assert.assertFalse(CompiledSelector.compile("type IN ('a', 'b')").isFullyCompiled());
+    Assert.assertTrue(CompiledSelector.compile("NOT (a = 1) OR b IS NULL OR c").isFullyCompiled());
+
+    // Values belong to one selector
+    try
+    {
+      CompiledSelector.compile("size > 1").matches(values);
+      fail("Expected IllegalArgumentException for values of another selector");
+    }
+    catch (IllegalArgumentException e)
+    {
+      Assert.assertTrue(e.getMessage().startsWith("SEARCH_SELECTOR_WRONG_VALUES"), e.getMessage());
+    }
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  private static void put(Map<String, Object> event, Random random, String name, List<Object> values)
+  {
+    // Leave some properties absent
+    int i = random.nextInt(values.size() + 1);
+    if (i < values.size()) event.put(name, values.get(i));
+  }
+
+  /*
+   * Result of matching, or the exception thrown, e.g. for arithmetic on a string
+   */
+  private static String outcome(Callable<Boolean> match)
+  {
+    try { return String.valueOf(match.call()); }
+    catch (Exception e) { return e.toString(); }
+  }
+
+  private static MessageEvaluationContext context(Map<String, Object> event) throws Exception
+  {
+    var message = new ActiveMQMessage();
+    for (Map.Entry<String, Object> entry : event.entrySet())
+      message.setObjectProperty(entry.getKey(), entry.getValue());
+    var context = new MessageEvaluationContext();
+    context.setMessageReference(message);
+    return context;
+  }
+}
@@ -0,0 +1,145 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.JdbcStubs.Executed;
+import edu.utexas.tacc.tapis.search.parser.ASTParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the CountStrategy class.
+ */
+@Test(groups={"unit"})
+public class CountStrategyTest
+{
+  private static final SqlGenerator generator =
+          new SqlGenerator("jobs", Map.of("owner", Types.VARCHAR, "status_code", Types.INTEGER));
+  private static final SqlFragment where = generator.generate(ASTParser.parse("owner = 'jdoe' AND statusCode > 1"));
+
+  /*
+   * Test exact counts
+   */
+  @Test(groups={"unit"})
+  public void testExact() throws Exception
+  {
+    var executed = new ArrayList<Executed>();
+    Connection conn = stubConnection(executed, 12345, 1000000, "rows=5000");
+    TotalCount c = CountStrategy.EXACT.count(conn, "jobs", where);
+    assertEquals(c.getCount(), 12345);
+    Assert.assertFalse(c.isApproximate());
+    assertEquals(executed.size(), 1);
+    assertEquals(executed.get(0).sql, "SELECT COUNT(*) FROM jobs WHERE (owner = ? AND status_code > ?)");
+    assertEquals(executed.get(0).bindValues, List.of("jdoe", 1));
+
+    // A small result is counted exactly by the estimating strategy
+    executed.clear();
+    c = CountStrategy.estimated(100).count(conn(executed, 42), "tapis.jobs", where);
+    assertEquals(c.toString(), "42");
+    assertEquals(executed.size(), 1);
+    assertEquals(executed.get(0).sql,
+                 "SELECT COUNT(*) FROM (SELECT 1 FROM tapis.jobs WHERE (owner = ? AND status_code > ?) LIMIT 101) c");
+  }
+
+  /*
+   * Test estimated counts for large results
+   */
+  @Test(groups={"unit"})
+  public void testEstimated() throws Exception
+  {
+    // Filtered search uses the EXPLAIN estimate
+    var executed = new ArrayList<Executed>();
+    CountStrategy strategy = CountStrategy.estimated(100);
+    TotalCount c = strategy.count(stubConnection(executed, 101, 1000000, "rows=5000"), "jobs", where);
+    assertEquals(c.getCount(), 5000);
+    Assert.assertTrue(c.isApproximate());
+    assertEquals(c.toString(), "~5000");
+    assertEquals(executed.get(1).sql, "EXPLAIN SELECT 1 FROM jobs WHERE (owner = ? AND status_code > ?)");
+    assertEquals(executed.get(1).bindValues, List.of("jdoe", 1));
+
+    // An estimate is never below the rows known to match
+    c = strategy.count(stubConnection(executed, 101, 1000000, "rows=7"), "jobs", where);
+    assertEquals(c.getCount(), 101);
+    Assert.assertTrue(c.isApproximate());
+
+    // No conditions uses reltuples
+    executed.clear();
+    c = strategy.count(stubConnection(executed, 101, 1000000, "rows=5000"), "jobs", SqlFragment.EMPTY);
+    assertEquals(c.getCount(), 1000000);
+    Assert.assertTrue(c.isApproximate());
+    assertEquals(executed.get(0).sql, "SELECT COUNT(*) FROM (SELECT 1 FROM jobs LIMIT 101) c");
+    assertEquals(executed.get(1).bindValues, List.of("jobs"));
+
+    // Never analyzed falls back to an exact count
+    executed.clear();
+    c = strategy.count(stubConnection(executed, 101, -1, "rows=5000"), "jobs", null);
+    assertEquals(executed.size(), 3);
+    assertEquals(executed.get(2).sql, "SELECT COUNT(*) FROM jobs");
+    Assert.assertFalse(c.isApproximate());
+  }
+
+  /*
+   * Test invalid arguments
+   */
+  @Test(groups={"unit"})
+  public void testInvalid() throws Exception
+  {
+    Connection conn = conn(new ArrayList<>(), 0);
+    for (String tableName : new String[] {null, "", "jobs; drop table jobs", "a.b.c", "1jobs", "jobs j"})
+    {
+      try
+      {
+        CountStrategy.EXACT.count(conn, tableName, where);
+        fail("Expected IllegalArgumentException for table: " + tableName);
+      }
+      catch (IllegalArgumentException e)
+      {
+        Assert.assertTrue(e.getMessage().startsWith("SEARCH_COUNT_INVALID_TABLE"), e.getMessage());
+      }
+    }
+    try
+    {
+      CountStrategy.estimated(-1);
+      fail("Expected IllegalArgumentException for negative limit");
+    }
+    catch (IllegalArgumentException e) { /* expected */ }
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  /*
+   * Connection returning the same count for every query
+   */
+  private static Connection conn(List<Executed> executed, long count)
+  {
+    return JdbcStubs.connection(sql -> JdbcStubs.resultSet(List.of("count"), new Object[] {count}), executed);
+  }
+
+  /*
+   * Connection returning a count, reltuples and an EXPLAIN plan
+   */
+  private static Connection stubConnection(List<Executed> executed, long count, double relTuples, String rows)
+  {
+    return JdbcStubs.connection(sql ->
+    {
+      ResultSet rs;
+      if (sql.startsWith("EXPLAIN"))
+      {
+        String plan = "Seq Scan on jobs  (cost=0.00..155.00 " + rows + " width=4)";
+        rs = JdbcStubs.resultSet(List.of("QUERY PLAN"), new Object[] {plan}, new Object[] {"  Filter: x"});
+      }
+      else if (sql.contains("pg_class")) rs = JdbcStubs.resultSet(List.of("reltuples"), new Object[] {relTuples});
+      else rs = JdbcStubs.resultSet(List.of("count"), new Object[] {count});
+      return rs;
+    }, executed);
+  }
+}
@@ -0,0 +1,119 @@
+package edu.utexas.tacc.tapis.search;
+
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Minimal implementations of the JDBC interfaces used by the search library, for tests without a database.
+ * Only the methods used by the library are implemented, any other method throws UnsupportedOperationException.
+ */
+final class JdbcStubs
+{
+  private JdbcStubs() { }
+
+  /**
+   * Handler for the methods of a stub
+   */
+  interface Handler { Object invoke(String name, Object[] args) throws Exception; }
+
+  /**
+   * A statement executed through a stub connection
+   */
+  static final class Executed
+  {
+    final String sql;
+    final List<Object> bindValues = new ArrayList<>();
+
+    private Executed(String sql) { this.sql = sql; }
+  }
+
+  static <I> I proxy(Class<I> iface, Handler handler)
+  {
+    Object p = Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[] {iface},
+                                      (obj, m, args) -> handler.invoke(m.getName(), args));
+    return iface.cast(p);
+  }
+
+  /**
+   * Connection whose prepared statements return the result set given by a function of the SQL.
+   * Each executed statement is added to a list. Arrays created by the connection are bound as the string
+   *   typeName[elements].
+   */
+  static Connection connection(Function<String, ResultSet> results, List<Executed> executed)
+  {
+    Connection[] conn = new Connection[1];
+    conn[0] = proxy(Connection.class, (name, args) ->
+    {
+      if (name.equals("createArrayOf")) return array((String) args[0], (Object[]) args[1]);
+      if (!name.equals("prepareStatement")) throw new UnsupportedOperationException(name);
+      var stmt = new Executed((String) args[0]);
+      return proxy(PreparedStatement.class, (psName, psArgs) ->
+      {
+        switch (psName)
+        {
+          case "setObject":
+          case "setString":
+            stmt.bindValues.add(psArgs[1]);
+            return null;
+          case "setArray":
+            stmt.bindValues.add(psArgs[1].toString());
+            return null;
+          case "getConnection": return conn[0];
+          case "executeQuery":
+            executed.add(stmt);
+            return results.apply(stmt.sql);
+          case "close": return null;
+          default: throw new UnsupportedOperationException(psName);
+        }
+      });
+    });
+    return conn[0];
+  }
+
+  /**
+   * SQL array of elements
+   */
+  static Array array(String typeName, Object[] elements)
+  {
+    return proxy(Array.class, (name, args) ->
+    {
+      switch (name)
+      {
+        case "getBaseTypeName": return typeName;
+        case "getArray": return elements;
+        case "toString": return typeName + Arrays.toString(elements);
+        default: throw new UnsupportedOperationException(name);
+      }
+    });
+  }
+
+  /**
+   * Result set over rows of values. Values may be read by column label or by index.
+   */
+  static ResultSet resultSet(List<String> labels, Object[]... rows)
+  {
+    int[] rowIdx = {-1};
+    return proxy(ResultSet.class, (name, args) ->
+    {
+      if (name.equals("next")) return ++rowIdx[0] < rows.length;
+      if (name.equals("close")) return null;
+      int col = (args[0] instanceof String) ? labels.indexOf(args[0]) : (Integer) args[0] - 1;
+      Object v = rows[rowIdx[0]][col];
+      switch (name)
+      {
+        case "getString": return v == null ? null : v.toString();
+        case "getInt": return ((Number) v).intValue();
+        case "getLong": return ((Number) v).longValue();
+        case "getDouble": return ((Number) v).doubleValue();
+        default: throw new UnsupportedOperationException(name);
+      }
+    });
+  }
+}
@@ -0,0 +1,197 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchUtils.SearchOperator;
+import edu.utexas.tacc.tapis.search.parser.ASTParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for searching paths into jsonb columns.
+ */
+@Test(groups={"unit"})
+public class JsonPathSearchTest
+{
+  private static final SearchColumnCatalog catalog =
+          SearchColumnCatalog.of("jobs", Map.of("owner", Types.VARCHAR, "job_notes", Types.OTHER, "tags", Types.OTHER),
+                                 Set.of("job_notes"));
+  private static final SqlGenerator generator = new SqlGenerator(catalog);
+
+  /*
+   * Test scanning conditions containing a path
+   */
+  @Test(groups={"unit"})
+  public void testScan()
+  {
+    SearchCondition cond = SearchUtils.parseSearchCondition("jobNotes.project.eq.x.y");
+    assertEquals(cond.getAttribute(), "jobNotes.project");
+    assertEquals(cond.getOperator(), SearchOperator.EQ);
+    assertEquals(cond.getValues(), List.of("x.y"));
+
+    cond = SearchUtils.parseSearchCondition("jobNotes.Run_1.Size.between.1,10");
+    assertEquals(cond.getAttribute(), "jobNotes.Run_1.Size");
+    assertEquals(cond.getValues(), List.of("1", "10"));
+
+    List<SearchCondition> conds = SearchUtils.extractSearchConditions("(jobNotes.a.b.neq.1)~(owner.eq.jdoe)");
+    assertEquals(conds.get(0).getAttribute(), "jobNotes.a.b");
+    assertEquals(conds.get(1).getAttribute(), "owner");
+
+    // The part following the attribute is the operator when it is one, whatever the value contains
+    checkScan("host.eq.login.in.tacc.edu", "host", SearchOperator.EQ, "login.in.tacc.edu");
+    checkScan("name.eq.my.like.value", "name", SearchOperator.EQ, "my.like.value");
+    checkScan("version.eq.1.0.lt.2", "version", SearchOperator.EQ, "1.0.lt.2");
+    checkScan("description.like.see.eq.x", "description", SearchOperator.LIKE, "see.eq.x");
+    checkScan("jobNotes.project.eq.a.in.b", "jobNotes.project", SearchOperator.EQ, "a.in.b");
+    checkScan("jobNotes.a.in.eq.b", "jobNotes.a", SearchOperator.IN, "eq.b");
+    conds = SearchUtils.extractSearchConditions("(host.neq.a.in.b)~(jobNotes.a.lt.1.gt.2)");
+    assertEquals(conds.get(0).getAttribute(), "host");
+    assertEquals(conds.get(0).getValues(), List.of("a.in.b"));
+    assertEquals(conds.get(1).getAttribute(), "jobNotes.a");
+    assertEquals(conds.get(1).getValues(), List.of("1.gt.2"));
+
+    // A segment that is not a key followed by an operator is still reported as the operator
+    checkInvalidForm("name.foo.bar");
+    checkInvalidForm("jobNotes.a-b.eq.x");
+    checkInvalidForm("jobNotes..eq.x");
+  }
+
+  /*
+   * Test validating conditions on a path
+   */
+  @Test(groups={"unit"})
+  public void testValidate()
+  {
+    assertEquals(catalog.validate(cond("jobNotes.project", SearchOperator.EQ, "x")).getName(), "job_notes");
+    Assert.assertTrue(catalog.getColumn("jobNotes").isJson());
+    Assert.assertFalse(catalog.getColumn("tags").isJson());
+    Assert.assertTrue(catalog.validateTypeAndValueList("job_notes.size", SearchOperator.IN, "1,a"));
+    Assert.assertFalse(catalog.validateTypeAndValueList("owner.size", SearchOperator.EQ, "1"));
+
+    checkInvalid(cond("notes.project", SearchOperator.EQ, "x"), "SEARCH_DB_NO_COLUMN");
+    checkInvalid(cond("tags.project", SearchOperator.EQ, "x"), "SEARCH_JSON_NOT_JSON_COLUMN");
+    checkInvalid(cond("owner.project", SearchOperator.EQ, "x"), "SEARCH_JSON_NOT_JSON_COLUMN");
+    checkInvalid(cond("jobNotes.pro'ject", SearchOperator.EQ, "x"), "SEARCH_JSON_INVALID_KEY");
+    checkInvalid(cond("jobNotes.project", SearchOperator.LIKE, "x%"), "SEARCH_DB_INVALID_OP_FOR_TYPE");
+    checkInvalid(cond("jobNotes", SearchOperator.EQ, "x"), "SEARCH_DB_UNSUPPORTED_SQLTYPE");
+  }
+
+  /*
+   * Test containment SQL for EQ and IN
+   */
+  @Test(groups={"unit"})
+  public void testContainment()
+  {
+    SqlFragment f = generator.generate(List.of(cond("jobNotes.project.name", SearchOperator.EQ, "a\"b\\c")));
+    assertEquals(f.getSql(), "job_notes @> CAST(? AS jsonb)");
+    assertEquals(f.getBindValues(), List.of("{\"project\":{\"name\":\"a\\\"b\\\\c\"}}"));
+    assertEquals(f.getBindTypes(), List.of(Types.VARCHAR));
+
+    // Numbers and booleans also match their string form
+    f = generator.generate(List.of(cond("jobNotes.size", SearchOperator.IN, "10", "x", "true"),
+                                   cond("owner", SearchOperator.EQ, "jdoe")));
+    assertEquals(f.getSql(), "((job_notes @> CAST(? AS jsonb) OR job_notes @> CAST(? AS jsonb) OR " +
+                             "job_notes @> CAST(? AS jsonb) OR job_notes @> CAST(? AS jsonb) OR " +
+                             "job_notes @> CAST(? AS jsonb)) AND owner = ?)");
+    assertEquals(f.getBindValues(), List.of("{\"size\":\"10\"}", "{\"size\":10}", "{\"size\":\"x\"}",
+                                            "{\"size\":\"true\"}", "{\"size\":true}", "jdoe"));
+  }
+
+  /*
+   * Test path filter SQL for the other operators
+   */
+  @Test(groups={"unit"})
+  public void testPathFilter()
+  {
+    SqlFragment f = generator.generate(List.of(cond("jobNotes.run.size", SearchOperator.GT, "1.5e3")));
+    assertEquals(f.getSql(), "jsonb_path_exists(job_notes, CAST(? AS jsonpath), CAST(? AS jsonb))");
+    assertEquals(f.getBindValues(), List.of("$.\"run\".\"size\" ? (@ > $v1)", "{\"v1\":1.5e3}"));
+    assertEquals(f.getBindTypes(), List.of(Types.VARCHAR, Types.VARCHAR));
+
+    f = generator.generate(List.of(cond("jobNotes.d", SearchOperator.NBETWEEN, "2024-01-01", "2024-12-31")));
+    assertEquals(f.getBindValues(), List.of("$.\"d\" ? (@ < $v1 || @ > $v2)",
+                                            "{\"v1\":\"2024-01-01\",\"v2\":\"2024-12-31\"}"));
+
+    f = generator.generate(List.of(cond("jobNotes.status", SearchOperator.NIN, "A", "01", "\n")));
+    assertEquals(f.getBindValues(), List.of("$.\"status\" ? (@ != $v1 && @ != $v2 && @ != $v3)",
+                                            "{\"v1\":\"A\",\"v2\":\"01\",\"v3\":\"\\n\"}"));
+  }
+
+  /*
+   * Test paths in an AST and in canonical keys
+   */
+  @Test(groups={"unit"})
+  public void testAST()
+  {
+    SqlFragment f = generator.generate(ASTParser.parse("jobNotes.Project = 'x' AND job_notes.size >= 2"));
+    assertEquals(f.getSql(), "(job_notes @> CAST(? AS jsonb) AND " +
+                             "jsonb_path_exists(job_notes, CAST(? AS jsonpath), CAST(? AS jsonb)))");
+    assertEquals(f.getBindValues(), Arrays.asList("{\"Project\":\"x\"}", "$.\"size\" ? (@ >= $v1)", "{\"v1\":2}"));
+
+    // Keys are case sensitive, only the column part is converted
+    assertEquals(SearchUtils.attributeToColumnKey("jobNotes.projectName"), "job_notes.projectName");
+    assertEquals(SearchCanonicalizer.canonicalize(cond("jobNotes.Project", SearchOperator.EQ, "x"), null)
+                                    .getAttribute(), "job_notes.Project");
+
+    // Paths are not searched in memory
+    try
+    {
+      PredicateCompiler.forMap(catalog).compile(List.of(cond("jobNotes.project", SearchOperator.EQ, "x")));
+      fail("Expected IllegalArgumentException for path in memory");
+    }
+    catch (IllegalArgumentException e)
+    {
+      Assert.assertTrue(e.getMessage().startsWith("SEARCH_MEM_JSON_PATH_UNSUPPORTED"), e.getMessage());
+    }
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  private static SearchCondition cond(String attr, SearchOperator op, String... values)
+  {
+    return new SearchCondition(attr, op, List.of(values));
+  }
+
+  private static void checkInvalid(SearchCondition cond, String msgKey)
+  {
+    try
+    {
+      catalog.validate(cond);
+      fail("Expected IllegalArgumentException for condition: " + cond);
+    }
+    catch (IllegalArgumentException e)
+    {
+      System.out.println("Expected exception: " + e.getMessage());
+      Assert.assertTrue(e.getMessage().startsWith(msgKey), e.getMessage());
+    }
+  }
+
+  private static void checkScan(String condStr, String attr, SearchOperator op, String value)
+  {
+    SearchCondition cond = SearchUtils.parseSearchCondition(condStr);
+    assertEquals(cond.getAttribute(), attr, condStr);
+    assertEquals(cond.getOperator(), op, condStr);
+    assertEquals(cond.getValues(), List.of(value), condStr);
+  }
+
+  private static void checkInvalidForm(String condStr)
+  {
+    try
+    {
+      SearchUtils.parseSearchCondition(condStr);
+      fail("Expected IllegalArgumentException for condition: " + condStr);
+    }
+    catch (IllegalArgumentException e)
+    {
+      System.out.println("Expected exception: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.OrderBy.Direction;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the OrderBy class and keyset pagination cursors.
+ */
+@Test(groups={"unit"})
+public class OrderByTest
+{
+  private static final SearchColumnCatalog catalog =
+          SearchColumnCatalog.of("jobs", Map.of("id", Types.BIGINT,
+                                                "owner", Types.VARCHAR,
+                                                "created", Types.TIMESTAMP,
+                                                "status_code", Types.INTEGER,
+                                                "notes", Types.BLOB));
+
+  /*
+   * Test parsing valid orderBy parameters
+   */
+  @Test(groups={"unit"})
+  public void testParse()
+  {
+    OrderBy o = OrderBy.parse("owner, created(DESC),statusCode(asc)", catalog);
+    assertEquals(o.getKeys().size(), 3);
+    assertEquals(o.getKeys().get(1).getDirection(), Direction.DESC);
+    assertEquals(o.getKeys().get(2).getColumn().getName(), "status_code");
+    assertEquals(o.toString(), "owner(asc),created(desc),status_code(asc)");
+    assertEquals(o.toSql(), "ORDER BY owner ASC, created DESC, status_code ASC");
+
+    Assert.assertTrue(OrderBy.parse(null, catalog).isEmpty());
+    Assert.assertTrue(OrderBy.parse("  ", catalog).isEmpty());
+    assertEquals(OrderBy.parse("", catalog).toSql(), "");
+
+    // A tiebreaker is added only if not already a key
+    assertEquals(OrderBy.parse("owner", catalog).withTiebreaker("id").toSql(), "ORDER BY owner ASC, id ASC");
+    assertEquals(OrderBy.parse("id(desc)", catalog).withTiebreaker("id").toSql(), "ORDER BY id DESC");
+  }
+
+  /*
+   * Test parsing invalid orderBy parameters
+   */
+  @Test(groups={"unit"})
+  public void testParseInvalid()
+  {
+    checkInvalid("owner,", "SEARCH_ORDERBY_INVALID");
+    checkInvalid("owner(up)", "SEARCH_ORDERBY_INVALID");
+    checkInvalid("owner(asc", "SEARCH_ORDERBY_INVALID");
+    checkInvalid("(asc)", "SEARCH_ORDERBY_INVALID");
+    checkInvalid("owner;drop table jobs", "SEARCH_DB_NO_COLUMN");
+    checkInvalid("notes", "SEARCH_ORDERBY_UNSUPPORTED_TYPE");
+    checkInvalid("owner,OWNER(desc)", "SEARCH_ORDERBY_DUPLICATE");
+  }
+
+  /*
+   * Test the seek predicate for a cursor
+   */
+  @Test(groups={"unit"})
+  public void testSeekPredicate()
+  {
+    // Same direction uses a row value comparison
+    OrderBy o = OrderBy.parse("owner", catalog).withTiebreaker("id");
+    String cursor = o.encodeCursor(List.of("jdoe", 17L));
+    SqlFragment f = o.seekPredicate(cursor);
+    assertEquals(f.getSql(), "(owner, id) > (?, ?)");
+    assertEquals(f.getBindValues(), Arrays.asList("jdoe", 17L));
+    assertEquals(f.getBindTypes(), Arrays.asList(Types.VARCHAR, Types.BIGINT));
+
+    o = OrderBy.parse("id(desc)", catalog);
+    f = o.seekPredicate(o.encodeCursor(List.of(5)));
+    assertEquals(f.getSql(), "id < ?");
+    assertEquals(f.getBindValues(), List.of(5L));
+
+    // Mixed directions use the expanded form
+    o = OrderBy.parse("created(desc),owner,id", catalog);
+    var ts = Timestamp.valueOf("2200-04-29 14:15:52.5");
+    f = o.seekPredicate(o.encodeCursor(List.of(ts, "", 3)));
+    assertEquals(f.getSql(), "(created < ? OR (created = ? AND owner > ?) OR (created = ? AND owner = ? AND id > ?))");
+    assertEquals(f.getBindValues(), Arrays.asList(ts, ts, "", ts, "", 3L));
+
+    // Timestamps from other types are in UTC
+    o = OrderBy.parse("created", catalog);
+    f = o.seekPredicate(o.encodeCursor(List.of(Instant.parse("2200-04-29T14:15:00Z"))));
+    assertEquals(f.getBindValues(), List.of(Timestamp.valueOf("2200-04-29 14:15:00")));
+
+    // No cursor for the first page
+    Assert.assertTrue(o.seekPredicate(null).isEmpty());
+    Assert.assertTrue(o.seekPredicate("").isEmpty());
+  }
+
+  /*
+   * Test invalid cursors
+   */
+  @Test(groups={"unit"})
+  public void testInvalidCursor()
+  {
+    OrderBy o = OrderBy.parse("owner,id", catalog);
+    String cursor = o.encodeCursor(List.of("jdoe", 17));
+    // Cursor for a different order
+    checkInvalidCursor(OrderBy.parse("owner(desc),id", catalog), cursor);
+    checkInvalidCursor(OrderBy.parse("owner", catalog), cursor);
+    // Malformed
+    checkInvalidCursor(o, "not base64!");
+    checkInvalidCursor(o, encode("1;owner(asc),id(asc);4:jdoe"));
+    checkInvalidCursor(o, encode("1;owner(asc),id(asc);4:jdoe2:17x"));
+    checkInvalidCursor(o, encode("1;owner(asc),id(asc);4:jdoe2:1x"));
+    checkInvalidCursor(o, encode("1;owner(asc),id(asc);4:jdoe9:17"));
+    checkInvalidCursor(o, encode("1;owner(asc),id(asc);4:jdoe2:172:18"));
+    checkInvalidCursor(o, encode("2;owner(asc),id(asc);4:jdoe2:17"));
+    assertEquals(o.seekPredicate(encode("1;owner(asc),id(asc);4:jdoe2:17")).getBindValues(), List.of("jdoe", 17L));
+
+    // Values that cannot be encoded
+    for (List<?> values : List.of(List.of("jdoe"), Arrays.asList("jdoe", null), List.of("jdoe", "x")))
+    {
+      try
+      {
+        o.encodeCursor(values);
+        fail("Expected IllegalArgumentException for values: " + values);
+      }
+      catch (IllegalArgumentException e) { System.out.println("Expected exception: " + e.getMessage()); }
+    }
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  private static void checkInvalid(String orderByStr, String msgKey)
+  {
+    try
+    {
+      OrderBy.parse(orderByStr, catalog);
+      fail("Expected IllegalArgumentException for orderBy: " + orderByStr);
+    }
+    catch (IllegalArgumentException e)
+    {
+      System.out.println("Expected exception: " + e.getMessage());
+      Assert.assertTrue(e.getMessage().startsWith(msgKey), e.getMessage());
+    }
+  }
+
+  private static void checkInvalidCursor(OrderBy o, String cursor)
+  {
+    try
+    {
+      o.seekPredicate(cursor);
+      fail("Expected IllegalArgumentException for cursor: " + cursor);
+    }
+    catch (IllegalArgumentException e)
+    {
+      Assert.assertTrue(e.getMessage().startsWith("SEARCH_CURSOR_INVALID"), e.getMessage());
+    }
+  }
+
+  private static String encode(String content)
+  {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(content.getBytes());
+  }
+}
@@ -0,0 +1,154 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.parser.ASTNode;
+import edu.utexas.tacc.tapis.search.parser.ASTParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the ParseCache class.
+ */
+@Test(groups={"unit"})
+public class ParseCacheTest
+{
+  /*
+   * Test hits, misses and caching of failures
+   */
+  @Test(groups={"unit"})
+  public void testHitsAndFailures()
+  {
+    var cache = new ParseCache<Integer>("test", 10, 2);
+    var parseCount = new AtomicInteger();
+    ParseCache.Parser<Integer, IllegalArgumentException> parser = key -> {
+      parseCount.incrementAndGet();
+      return Integer.valueOf(key);
+    };
+    assertEquals(cache.get("1", parser), Integer.valueOf(1));
+    assertEquals(cache.get("1", parser), Integer.valueOf(1));
+    assertEquals(parseCount.get(), 1);
+
+    // Failure is cached and the same exception is rethrown
+    IllegalArgumentException first = null;
+    for (int i = 0; i < 2; i++)
+    {
+      try
+      {
+        cache.get("abc", parser);
+        fail("Expected NumberFormatException");
+      }
+      catch (NumberFormatException e)
+      {
+        if (first == null) first = e; else assertSame(e, first);
+      }
+    }
+    assertEquals(parseCount.get(), 2);
+
+    ParseCache.Stats stats = cache.getStats();
+    System.out.println("Stats: " + stats);
+    assertEquals(stats.getHitCount(), 1);
+    assertEquals(stats.getMissCount(), 2);
+    assertEquals(stats.getFailureHitCount(), 1);
+    assertEquals(stats.getSize(), 1);
+    assertEquals(stats.getFailureSize(), 1);
+    assertEquals(stats.getHitRatio(), 0.5);
+
+    // Failure cache is bounded
+    for (String s : new String[] {"x", "y", "z"})
+    {
+      try { cache.get(s, parser); fail("Expected NumberFormatException"); }
+      catch (NumberFormatException e) { /* expected */ }
+    }
+    assertEquals(cache.getStats().getFailureSize(), 2);
+
+    cache.clear();
+    assertEquals(cache.size(), 0);
+    assertEquals(cache.getStats().getFailureSize(), 0);
+  }
+
+  /*
+   * Test that the cache is bounded and that frequently used entries survive a burst of one-off keys
+   */
+  @Test(groups={"unit"})
+  public void testEvictionAndAdmission()
+  {
+    int max = 100;
+    var cache = new ParseCache<String>("test", max, 0);
+    ParseCache.Parser<String, RuntimeException> parser = key -> key;
+    for (int i = 0; i < max; i++) cache.get("hot" + i, parser);
+    for (int n = 0; n < 5; n++) for (int i = 0; i < max; i++) cache.get("hot" + i, parser);
+    for (int i = 0; i < 5 * max; i++) cache.get("cold" + i, parser);
+    Assert.assertTrue(cache.size() <= max, "Cache size exceeds maximum: " + cache.size());
+    Assert.assertTrue(cache.getStats().getEvictionCount() > 0);
+
+    long hitsBefore = cache.getStats().getHitCount();
+    for (int i = 0; i < max; i++) cache.get("hot" + i, parser);
+    long hits = cache.getStats().getHitCount() - hitsBefore;
+    System.out.println("Hot entries retained: " + hits + " Stats: " + cache.getStats());
+    Assert.assertTrue(hits >= max * 9 / 10, "Expected hot entries to be retained. Hits: " + hits);
+
+    // A size of 0 disables caching
+    var noCache = new ParseCache<String>("none", 0, 0);
+    noCache.get("a", parser);
+    assertEquals(noCache.size(), 0);
+  }
+
+  /*
+   * Test that concurrent hits keep the frequency counters of hot keys saturated at 15. Unsynchronized
+   *   increments could carry a counter past 15 into its neighbor, wrapping the hot key's count to a low value.
+   */
+  @Test(groups={"unit"})
+  public void testConcurrentFrequency() throws Exception
+  {
+    var cache = new ParseCache<String>("test", 1000, 0);
+    ParseCache.Parser<String, RuntimeException> parser = key -> key;
+    String[] keys = new String[64];
+    for (int i = 0; i < keys.length; i++) keys[i] = "key" + i;
+
+    var threads = new Thread[8];
+    var errors = new AtomicInteger();
+    for (int t = 0; t < threads.length; t++)
+    {
+      threads[t] = new Thread(() ->
+      {
+        try { for (int n = 0; n < 20000; n++) cache.get(keys[n % keys.length], parser); }
+        catch (RuntimeException e) { errors.incrementAndGet(); }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) thread.join();
+    assertEquals(errors.get(), 0);
+
+    for (String key : keys)
+    {
+      int freq = cache.frequency(key);
+      Assert.assertTrue(freq <= 15, "Counter exceeds 15 for " + key + ": " + freq);
+      assertEquals(freq, 15, "Frequency of hot key " + key);
+    }
+    assertEquals(cache.frequency("never used"), 0);
+  }
+
+  /*
+   * Test the cache used by ASTParser
+   */
+  @Test(groups={"unit"})
+  public void testASTParserCache()
+  {
+    ASTParser.clearCache();
+    long hitsBefore = ASTParser.getCacheStats().getHitCount();
+    ASTNode node = ASTParser.parse("name = 'parse_cache_test'");
+    assertSame(ASTParser.parse("name = 'parse_cache_test'"), node);
+    assertEquals(ASTParser.getCacheStats().getHitCount() - hitsBefore, 1);
+    for (int i = 0; i < 2; i++)
+    {
+      try { ASTParser.parse("name = = 'x'"); fail("Expected UnsupportedOperationException"); }
+      catch (UnsupportedOperationException e) { /* expected */ }
+    }
+    Assert.assertTrue(ASTParser.getCacheStats().getFailureHitCount() >= 1);
+  }
+}
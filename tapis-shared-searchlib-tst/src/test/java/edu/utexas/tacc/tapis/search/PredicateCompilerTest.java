@@ -0,0 +1,214 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.parser.ASTOptimizer;
+import edu.utexas.tacc.tapis.search.parser.ASTParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the PredicateCompiler and LikeMatcher classes.
+ */
+@Test(groups={"unit"})
+public class PredicateCompilerTest
+{
+  private static final Map<String, Integer> columnTypes =
+          Map.of("name", Types.VARCHAR,
+                 "owner", Types.VARCHAR,
+                 "system_type", Types.VARCHAR,
+                 "enabled", Types.BOOLEAN,
+                 "port", Types.INTEGER,
+                 "cost", Types.NUMERIC,
+                 "created", Types.TIMESTAMP);
+
+  public enum SystemType {LINUX, S3}
+
+  // Bean used for testing. Must be public so that getters are accessible.
+  public static final class TSystem
+  {
+    private final String name; private final String owner; private final SystemType systemType;
+    private final Boolean enabled; private final Integer port; private final BigDecimal cost; private final Instant created;
+    TSystem(String n, String o, SystemType t, Boolean e, Integer p, String c, String cr)
+    {
+      name = n; owner = o; systemType = t; enabled = e; port = p;
+      cost = (c == null) ? null : new BigDecimal(c); created = (cr == null) ? null : Instant.parse(cr);
+    }
+    public String getName() { return name; }
+    public String getOwner() { return owner; }
+    public SystemType getSystemType() { return systemType; }
+    public Boolean isEnabled() { return enabled; }
+    public Integer getPort() { return port; }
+    public BigDecimal getCost() { return cost; }
+    public Instant getCreated() { return created; }
+  }
+
+  private static final List<TSystem> systems = List.of(
+          new TSystem("sys1", "jdoe", SystemType.LINUX, true, 22, "1.50", "2021-01-01T00:00:00Z"),
+          new TSystem("sys2", "msmith", SystemType.S3, false, 443, "2", "2021-06-01T12:00:00Z"),
+          new TSystem("my_sys3", "jdoe", SystemType.S3, true, 1024, "10.0", "2022-01-01T00:00:00Z"),
+          new TSystem("sys4", null, SystemType.LINUX, null, null, null, null));
+
+  private static final PredicateCompiler<TSystem> beanCompiler = PredicateCompiler.forBean(TSystem.class, columnTypes);
+
+  /*
+   * Test compiling an AST for beans
+   */
+  @Test(groups={"unit"})
+  public void testCompileASTForBean()
+  {
+    checkNames("enabled = 'true' AND (owner = 'jdoe' OR port > 1024)", "sys1", "my_sys3");
+    checkNames("owner <> 'jdoe'", "sys2");
+    checkNames("port >= 443", "sys2", "my_sys3");
+    checkNames("port BETWEEN '22' AND '443'", "sys1", "sys2");
+    checkNames("port NOT BETWEEN '22' AND '443'", "my_sys3");
+    checkNames("system_type IN ('S3')", "sys2", "my_sys3");
+    checkNames("systemType NOT IN ('S3', 'X')", "sys1", "sys4");
+    checkNames("name LIKE 'sys%'", "sys1", "sys2", "sys4");
+    checkNames("name NOT LIKE 'sys_'", "my_sys3");
+    checkNames("name LIKE 'my\\_%3'", "my_sys3");
+    checkNames("cost = 1.5 OR cost > 9", "sys1", "my_sys3");
+    checkNames("cost IN ('2.0', '10')", "sys2", "my_sys3");
+    checkNames("created < '2021-06-01T13:00:00+02:00'", "sys1");
+    checkNames("created >= '2021-06'", "sys2", "my_sys3");
+  }
+
+  /*
+   * Test NOT and negative literals. As in SQL a condition on a null attribute matches neither it nor its negation.
+   */
+  @Test(groups={"unit"})
+  public void testCompileNot()
+  {
+    checkNames("NOT (owner = 'jdoe')", "sys2");
+    checkNames("NOT (port > 100 AND cost < 5)", "sys1", "my_sys3");
+    checkNames("NOT (owner = 'jdoe' OR port < 0)", "sys2");
+    checkNames("NOT NOT (enabled = 'true')", "sys1", "my_sys3");
+    checkNames("NOT (name LIKE 'sys%') OR NOT (port NOT IN ('22'))", "sys1", "my_sys3");
+    checkNames("NOT (created BETWEEN '2021-01-01' AND '2021-12-31')", "my_sys3");
+    checkNames("port > -1 AND cost > -1.5", "sys1", "sys2", "my_sys3");
+    checkNames("NOT (port <> -22) OR cost = - -2", "sys2");
+    // Same results once optimized, which creates n-ary nodes
+    Predicate<TSystem> p = beanCompiler.compile(
+            ASTOptimizer.optimize(ASTParser.parse("NOT (port > 100 AND cost < 5 AND enabled = 'true')"), columnTypes));
+    assertEquals(systems.stream().filter(p).map(TSystem::getName).collect(Collectors.toList()),
+                 List.of("sys1", "sys2", "my_sys3"));
+  }
+
+  /*
+   * Test compiling search conditions for Map rows
+   */
+  @Test(groups={"unit"})
+  public void testCompileConditionsForMap()
+  {
+    var rows = new ArrayList<Map<String, Object>>();
+    for (TSystem s : systems)
+    {
+      var row = new HashMap<String, Object>();
+      row.put("name", s.getName()); row.put("owner", s.getOwner()); row.put("enabled", s.isEnabled());
+      row.put("port", s.getPort() == null ? null : s.getPort().toString()); row.put("created", s.getCreated());
+      rows.add(row);
+    }
+    Predicate<Map<String, Object>> p = PredicateCompiler.forMap(columnTypes).compile(
+            SearchUtils.extractSearchConditions("(name.like.*sys*)~(port.in.22,1024)~(enabled.eq.TRUE)"));
+    List<Object> names = rows.stream().filter(p).map(r -> r.get("name")).collect(Collectors.toList());
+    assertEquals(names, List.of("sys1", "my_sys3"));
+    Assert.assertTrue(PredicateCompiler.forMap(columnTypes).compile(List.of()).test(rows.get(0)));
+  }
+
+  /*
+   * Test array operators on Collection and array attributes
+   */
+  @Test(groups={"unit"})
+  public void testCompileArrayOperators()
+  {
+    var compiler = PredicateCompiler.forMap(Map.of("name", Types.VARCHAR, "tags", Types.ARRAY));
+    List<Map<String, Object>> rows = List.of(Map.of("name", "a", "tags", List.of("x", "y")),
+                                             Map.of("name", "b", "tags", new String[] {"y", "z"}),
+                                             Map.of("name", "c", "tags", List.of()),
+                                             Map.of("name", "d"));
+    String[][] cases = {
+      {"tags.contains.y", "a,b"},
+      {"tags.contains_all.y,x", "a"},
+      {"tags.contains_any.x,z", "a,b"},
+      {"tags.contains_any.q", ""}
+    };
+    for (String[] c : cases)
+    {
+      Predicate<Map<String, Object>> p = compiler.compile(SearchUtils.extractSearchConditions(c[0]));
+      String names = rows.stream().filter(p).map(r -> (String) r.get("name")).collect(Collectors.joining(","));
+      assertEquals(names, c[1], c[0]);
+    }
+  }
+
+  /*
+   * Test compile - invalid cases
+   */
+  @Test(groups={"unit"})
+  public void testCompileInvalid()
+  {
+    String[] invalidCases = {"nosuchcol = 'a'", "enabled > 'true'", "port = 'abc'", "port = owner"};
+    for (String sqlStr : invalidCases)
+    {
+      try
+      {
+        beanCompiler.compile(ASTParser.parse(sqlStr));
+        fail("Expected IllegalArgumentException for: " + sqlStr);
+      }
+      catch (IllegalArgumentException e)
+      {
+        System.out.println("Expected exception: " + e.getMessage());
+      }
+    }
+    // Column in catalog but no getter
+    try
+    {
+      PredicateCompiler.forBean(String.class, columnTypes).compile(ASTParser.parse("port = 1"));
+      fail("Expected IllegalArgumentException");
+    }
+    catch (IllegalArgumentException e)
+    {
+      System.out.println("Expected exception: " + e.getMessage());
+    }
+  }
+
+  /*
+   * Test LikeMatcher for each pattern shape
+   */
+  @Test(groups={"unit"})
+  public void testLikeMatcher()
+  {
+    Assert.assertTrue(LikeMatcher.compile("abc").matches("abc"));
+    Assert.assertFalse(LikeMatcher.compile("abc").matches("abcd"));
+    Assert.assertTrue(LikeMatcher.compile("ab%").matches("abcd"));
+    Assert.assertTrue(LikeMatcher.compile("%cd").matches("abcd"));
+    Assert.assertTrue(LikeMatcher.compile("%bc%").matches("abcd"));
+    Assert.assertTrue(LikeMatcher.compile("%").matches(""));
+    Assert.assertTrue(LikeMatcher.compile("a_c%").matches("abcd"));
+    Assert.assertTrue(LikeMatcher.compile("a%c%e").matches("abcdcde"));
+    Assert.assertFalse(LikeMatcher.compile("a%c%e").matches("abcdcd"));
+    Assert.assertTrue(LikeMatcher.compile("50\\%%").matches("50%off"));
+    Assert.assertFalse(LikeMatcher.compile("50\\%%").matches("500"));
+    Assert.assertTrue(LikeMatcher.compile("a\\_b").matches("a_b"));
+    Assert.assertFalse(LikeMatcher.compile("a\\_b").matches("axb"));
+    Assert.assertFalse(LikeMatcher.compile("_").matches(""));
+  }
+
+  private static void checkNames(String sqlStr, String... expected)
+  {
+    Predicate<TSystem> p = beanCompiler.compile(ASTParser.parse(sqlStr));
+    List<String> names = systems.stream().filter(p).map(TSystem::getName).collect(Collectors.toList());
+    System.out.println("Search: " + sqlStr + " Result: " + names);
+    assertEquals(names, List.of(expected), sqlStr);
+  }
+}
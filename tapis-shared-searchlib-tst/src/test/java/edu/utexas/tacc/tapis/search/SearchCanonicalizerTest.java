@@ -0,0 +1,126 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.parser.ASTCanonicalizer;
+import edu.utexas.tacc.tapis.search.parser.ASTNode;
+import edu.utexas.tacc.tapis.search.parser.ASTParser;
+import org.testng.annotations.Test;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+/**
+ * Tests for the SearchCanonicalizer and ASTCanonicalizer classes.
+ */
+@Test(groups={"unit"})
+public class SearchCanonicalizerTest
+{
+  private static final Map<String, Integer> columnTypes =
+          Map.of("name", Types.VARCHAR,
+                 "system_type", Types.VARCHAR,
+                 "enabled", Types.BOOLEAN,
+                 "port", Types.INTEGER,
+                 "cost", Types.NUMERIC,
+                 "created", Types.TIMESTAMP);
+
+  /*
+   * Test that equivalent search lists have the same canonical key
+   */
+  @Test(groups={"unit"})
+  public void testSearchListEquivalent()
+  {
+    String[][] equivalentCases = {
+      {"(name.eq.a)~(port.eq.1)", "(port.eq.1)~(name.eq.a)", "(PORT.EQ.1)~(name.Eq.a)~(port.eq.1)"},
+      {"systemType.in.S3,LINUX", "system_type.IN.LINUX,S3,S3", "SystemType.in.LINUX,S3"},
+      {"cost.gt.1.50", "cost.gt.1.5", "cost.gt.01.500"},
+      {"enabled.eq.TRUE", "enabled.eq.true"},
+      {"created.lt.2021-06-01T13:00:00+02:00", "created.lt.2021-06-01T11:00Z", "created.lt.2021-06-01T11:00:00.000Z"},
+      {"name.in.a\\,b,c", "name.in.c,a\\,b"},
+    };
+    for (String[] cases : equivalentCases)
+    {
+      String expected = key(cases[0]);
+      System.out.println("Canonical key: " + expected);
+      for (String c : cases) assertEquals(key(c), expected, c);
+    }
+  }
+
+  /*
+   * Test that searches that are not equivalent have different canonical keys
+   */
+  @Test(groups={"unit"})
+  public void testSearchListDistinct()
+  {
+    String[][] distinctCases = {
+      {"name.eq.a\\,b", "name.in.a,b"},
+      {"name.in.a\\,b", "name.in.a,b"},
+      {"port.between.1,2", "port.between.2,1"},
+      {"name.like.A*", "name.like.a*"},
+      {"(name.eq.x)~(port.eq.1)", "name.eq.x\\)\\~\\(port.eq.1"},
+    };
+    for (String[] cases : distinctCases) assertNotEquals(key(cases[0]), key(cases[1]), cases[0]);
+  }
+
+  /*
+   * Test values that are not valid for the column type are not normalized
+   */
+  @Test(groups={"unit"})
+  public void testInvalidValuesKept()
+  {
+    SearchCondition cond = SearchUtils.parseSearchCondition("port.eq.1.0");
+    SearchCondition canonical = SearchCanonicalizer.canonicalize(cond, columnTypes);
+    assertEquals(canonical.getValue(), "1.0");
+    // Already canonical conditions are reused
+    cond = SearchUtils.parseSearchCondition("name.eq.x");
+    assertEquals(SearchCanonicalizer.canonicalize(cond, columnTypes), cond);
+    assertEquals(SearchCanonicalizer.canonicalize(List.of()), List.of());
+  }
+
+  /*
+   * Test that equivalent ASTs have the same canonical form
+   */
+  @Test(groups={"unit"})
+  public void testASTEquivalent()
+  {
+    String[][] equivalentCases = {
+      {"name = 'a' AND port = 1", "port = 1 AND name = 'a'", "port = 1 and (name = 'a' AND port = 1)"},
+      {"(a = 1 OR b = 2) AND c = 3", "c = 3 AND (b = 2 OR a = 1)", "c=3 AND ((b = 2) or a = 1)"},
+      {"systemType IN ('S3', 'LINUX')", "system_type IN ('LINUX', 'S3', 'S3')"},
+      {"cost > 1.50 AND enabled = 'TRUE'", "enabled = 'true' AND cost > 1.5"},
+      {"created < '2021-06-01T13:00:00+02:00'", "created < '2021-06-01T11:00Z'"},
+      {"a = 1 OR a = 1", "a = 1"},
+    };
+    for (String[] cases : equivalentCases)
+    {
+      String expected = astKey(cases[0]);
+      System.out.println("Canonical AST key: " + expected);
+      for (String c : cases) assertEquals(astKey(c), expected, c);
+    }
+    assertNotEquals(astKey("a = 1 AND b = 2 OR c = 3"), astKey("a = 1 AND (b = 2 OR c = 3)"));
+    assertNotEquals(astKey("port BETWEEN '1' AND '2'"), astKey("port BETWEEN '2' AND '1'"));
+
+    // Canonical tree generates the same SQL for equivalent queries
+    var gen = new SqlGenerator("systems", Map.of("a", Types.INTEGER, "b", Types.INTEGER, "c", Types.INTEGER));
+    assertEquals(gen.generate(ASTCanonicalizer.canonicalize(ASTParser.parse("c = 3 AND (b = 2 OR a = 1)"))).getSql(),
+                 gen.generate(ASTCanonicalizer.canonicalize(ASTParser.parse("(a = 1 OR b = 2) AND c = 3"))).getSql());
+
+    // Input tree is not modified
+    ASTNode node = ASTParser.parse("b = 2 AND a = 1");
+    ASTCanonicalizer.canonicalize(node);
+    assertEquals(node.toString(), ASTParser.parse("b = 2 AND a = 1").toString());
+  }
+
+  private static String key(String searchList)
+  {
+    return SearchCanonicalizer.canonicalKey(
+            SearchCanonicalizer.canonicalize(SearchUtils.extractSearchConditions(searchList), columnTypes));
+  }
+
+  private static String astKey(String sqlStr)
+  {
+    return ASTCanonicalizer.canonicalKey(ASTCanonicalizer.canonicalize(ASTParser.parse(sqlStr), columnTypes));
+  }
+}
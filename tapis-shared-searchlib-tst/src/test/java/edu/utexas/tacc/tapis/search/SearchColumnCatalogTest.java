@@ -0,0 +1,192 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchColumnCatalog.Column;
+import edu.utexas.tacc.tapis.search.SearchUtils.SearchOperator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the SearchColumnCatalog class.
+ */
+@Test(groups={"unit"})
+public class SearchColumnCatalogTest
+{
+  private static final Map<String, Integer> columnTypes =
+          Map.of("name", Types.VARCHAR,
+                 "enabled", Types.BOOLEAN,
+                 "proxy_port", Types.INTEGER,
+                 "s3_bucket", Types.VARCHAR,
+                 "created", Types.TIMESTAMP,
+                 "notes", Types.BLOB);
+  private static final SearchColumnCatalog catalog = SearchColumnCatalog.of("systems", columnTypes);
+
+  /*
+   * Test finding the column for an attribute
+   */
+  @Test(groups={"unit"})
+  public void testGetColumn()
+  {
+    Column col = catalog.getColumn("proxyPort");
+    assertEquals(col.getName(), "proxy_port");
+    assertEquals(col.getAttribute(), "proxyPort");
+    assertEquals(col.getSqlType(), Types.INTEGER);
+    assertEquals(col.getSqlTypeName(), "INTEGER");
+    assertSame(catalog.getColumn("proxy_port"), col);
+    assertSame(catalog.getColumn("ProxyPort"), col);
+    assertSame(catalog.getColumn("PROXY_PORT"), col);
+    // The camel case form of s3_bucket does not convert back, so only conversions that do are accepted
+    assertEquals(catalog.getColumn("s3_bucket").getName(), "s3_bucket");
+    assertNull(catalog.getColumn("s3Bucket"));
+    assertNull(catalog.getColumn("port"));
+    assertNull(catalog.getColumn(null));
+    Assert.assertTrue(col.isAllowed(SearchOperator.IN));
+    Assert.assertFalse(col.isAllowed(SearchOperator.LIKE));
+    Assert.assertFalse(catalog.getColumn("notes").isSupported());
+    assertEquals(catalog.getColumnTypes(), columnTypes);
+  }
+
+  /*
+   * Test validating conditions
+   */
+  @Test(groups={"unit"})
+  public void testValidate()
+  {
+    assertEquals(catalog.validate(cond("proxyPort", SearchOperator.BETWEEN, "1", "1024")).getName(), "proxy_port");
+    assertEquals(catalog.validate(cond("created", SearchOperator.LT, "2200-04-29T14:15Z")).getName(), "created");
+    assertEquals(catalog.validate(cond("name", SearchOperator.LIKE, "test%")).getName(), "name");
+
+    checkInvalid(cond("port", SearchOperator.EQ, "1"), "SEARCH_DB_NO_COLUMN");
+    checkInvalid(cond("notes", SearchOperator.EQ, "x"), "SEARCH_DB_UNSUPPORTED_SQLTYPE");
+    checkInvalid(cond("enabled", SearchOperator.GT, "true"), "SEARCH_DB_INVALID_OP_FOR_TYPE");
+    checkInvalid(cond("proxyPort", SearchOperator.IN, "1", "x"), "SEARCH_DB_INVALID_SEARCH_VALUE");
+    checkInvalid(cond("created", SearchOperator.EQ, "2200-04-29 14:15"), "SEARCH_DB_INVALID_SEARCH_VALUE");
+
+    Assert.assertTrue(catalog.validateTypeAndValueList("proxyPort", SearchOperator.IN, "1,2,3"));
+    Assert.assertTrue(catalog.validateTypeAndValueList("proxyPort", SearchOperator.EQ, ""));
+    Assert.assertFalse(catalog.validateTypeAndValueList("proxyPort", SearchOperator.EQ, "1,2"));
+    Assert.assertFalse(catalog.validateTypeAndValueList("enabled", SearchOperator.EQ, "yes"));
+    Assert.assertFalse(catalog.validateTypeAndValueList("port", SearchOperator.EQ, "1"));
+  }
+
+  /*
+   * Test loading a catalog from JDBC metadata. The catalog is loaded once per table.
+   */
+  @Test(groups={"unit"})
+  public void testForTable() throws Exception
+  {
+    var metaDataCalls = new AtomicInteger();
+    var patterns = new StringBuilder();
+    var schemas = new StringBuilder();
+    var schema = new AtomicReference<>("public");
+    Connection conn = JdbcStubs.proxy(Connection.class, (name, args) ->
+    {
+      switch (name)
+      {
+        case "getMetaData":
+          metaDataCalls.incrementAndGet();
+          return JdbcStubs.proxy(DatabaseMetaData.class, (mdName, mdArgs) ->
+          {
+            if (mdName.equals("getSearchStringEscape")) return "\\";
+            if (mdName.equals("getIndexInfo"))
+              return JdbcStubs.resultSet(List.of("COLUMN_NAME", "ORDINAL_POSITION"),
+                                         new Object[] {"tenant", 1}, new Object[] {"is_deleted", 2},
+                                         new Object[] {null, 1});
+            patterns.append(mdArgs[2]);
+            schemas.append(mdArgs[1]).append(';');
+            return JdbcStubs.resultSet(List.of("COLUMN_NAME", "DATA_TYPE", "TYPE_NAME"),
+                                       new Object[] {"tenant", Types.VARCHAR, "varchar"},
+                                       new Object[] {"is_deleted", Types.BOOLEAN, "bool"},
+                                       new Object[] {"notes", Types.OTHER, "jsonb"});
+          });
+        case "getCatalog": return null;
+        case "getSchema": return schema.get();
+        default: throw new UnsupportedOperationException(name);
+      }
+    });
+
+    SearchColumnCatalog.invalidate("test_systems");
+    SearchColumnCatalog c = SearchColumnCatalog.forTable(conn, "test_systems");
+    assertEquals(patterns.toString(), "test\\_systems");
+    assertEquals(c.getTableName(), "test_systems");
+    assertEquals(c.getColumnTypes(),
+                 Map.of("tenant", Types.VARCHAR, "is_deleted", Types.BOOLEAN, "notes", Types.OTHER));
+    assertEquals(c.validate(cond("isDeleted", SearchOperator.EQ, "false")).getName(), "is_deleted");
+    assertEquals(c.validate(cond("notes.project", SearchOperator.EQ, "x")).getName(), "notes");
+    Assert.assertFalse(c.getColumn("tenant").isJson());
+    Assert.assertTrue(c.hasIndexInfo());
+    Assert.assertTrue(c.isIndexed(c.getColumn("tenant")));
+    Assert.assertFalse(c.isIndexed(c.getColumn("isDeleted")));
+    assertSame(SearchColumnCatalog.forTable(conn, "test_systems"), c);
+    assertEquals(metaDataCalls.get(), 1);
+    SearchColumnCatalog.invalidate("test_systems");
+    Assert.assertNotSame(SearchColumnCatalog.forTable(conn, "test_systems"), c);
+    assertEquals(metaDataCalls.get(), 2);
+
+    // A table of the same name in another schema has its own catalog. The schema name is a pattern.
+    schema.set("tenant_a");
+    SearchColumnCatalog other = SearchColumnCatalog.forTable(conn, "test_systems");
+    Assert.assertNotSame(other, SearchColumnCatalog.forTable(conn, "public", "test_systems"));
+    assertSame(SearchColumnCatalog.forTable(conn, "tenant_a", "test_systems"), other);
+    assertEquals(metaDataCalls.get(), 3);
+    assertEquals(schemas.toString(), "public;public;tenant\\_a;");
+    SearchColumnCatalog.invalidate("test_systems");
+    Assert.assertNotSame(SearchColumnCatalog.forTable(conn, "tenant_a", "test_systems"), other);
+    SearchColumnCatalog.invalidate("test_systems");
+  }
+
+  /*
+   * Test that camelCaseToSnakeCase gives the same result as the regular expressions it replaced
+   */
+  @Test(groups={"unit"})
+  public void testCamelCaseToSnakeCase()
+  {
+    String chars = "aBzZ09_AbcXY";
+    var rand = new Random(1234);
+    for (int n = 0; n < 50000; n++)
+    {
+      var sb = new StringBuilder();
+      int len = 1 + rand.nextInt(10);
+      for (int i = 0; i < len; i++) sb.append(chars.charAt(rand.nextInt(chars.length())));
+      String s = sb.toString();
+      String expected = s.replaceAll("([A-Z]+)([A-Z][a-z])", "$1_$2").replaceAll("([a-z])([A-Z])", "$1_$2")
+                         .toLowerCase();
+      assertEquals(SearchUtils.camelCaseToSnakeCase(s), expected, "Input: " + s);
+    }
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  private static SearchCondition cond(String attr, SearchOperator op, String... values)
+  {
+    return new SearchCondition(attr, op, List.of(values));
+  }
+
+  private static void checkInvalid(SearchCondition cond, String msgKey)
+  {
+    try
+    {
+      catalog.validate(cond);
+      fail("Expected IllegalArgumentException for condition: " + cond);
+    }
+    catch (IllegalArgumentException e)
+    {
+      System.out.println("Expected exception: " + e.getMessage());
+      Assert.assertTrue(e.getMessage().startsWith(msgKey), e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchBudget.Decision;
+import edu.utexas.tacc.tapis.search.SearchCostModel.Estimate;
+import edu.utexas.tacc.tapis.search.SearchUtils.SearchOperator;
+import edu.utexas.tacc.tapis.search.parser.ASTParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the SearchCostModel and SearchBudget classes.
+ */
+@Test(groups={"unit"})
+public class SearchCostModelTest
+{
+  private static final SearchColumnCatalog catalog;
+  static
+  {
+    var columnTypes = new LinkedHashMap<String, Integer>();
+    columnTypes.put("id", Types.BIGINT);
+    columnTypes.put("owner", Types.VARCHAR);
+    columnTypes.put("name", Types.VARCHAR);
+    columnTypes.put("port", Types.INTEGER);
+    columnTypes.put("notes", Types.OTHER);
+    catalog = SearchColumnCatalog.of("jobs", columnTypes, Set.of("notes"));
+  }
+  private static final SearchCostModel model =
+          new SearchCostModel(catalog.withIndexedColumns(List.of("id", "owner", "notes")));
+
+  // leaves 6, list values 4, depth 2, one leading wildcard, scans on name, port and NEQ
+  private static final List<SearchCondition> costlyConditions =
+          List.of(cond("name", SearchOperator.LIKE, "%abc"), cond("port", SearchOperator.IN, "1", "2", "3", "4", "5"),
+                  cond("owner", SearchOperator.NEQ, "x"));
+
+  /*
+   * Test estimating a list of conditions
+   */
+  @Test(groups={"unit"})
+  public void testEstimateConditions()
+  {
+    Estimate est = model.estimate(List.of(cond("owner", SearchOperator.EQ, "jdoe")));
+    assertEquals(est.getCost(), 4);
+    assertEquals(est.getScans(), 0);
+    assertEquals(model.estimate((List<SearchCondition>) null).getCost(), 0);
+
+    est = model.estimate(costlyConditions);
+    assertEquals(est.getLeaves(), 6);
+    assertEquals(est.getListValues(), 4);
+    assertEquals(est.getLeadingWildcards(), 1);
+    assertEquals(est.getScans(), 3);
+    assertEquals(est.getCost(), 6 + 4 + 2 + 100 + 3 * 25);
+
+    // Without index information only the negated operator needs a scan
+    assertEquals(new SearchCostModel(catalog).estimate(costlyConditions).getScans(), 1);
+
+    // Containment on a path can use the index of the column, a path filter cannot
+    assertEquals(model.estimate(List.of(cond("notes.project", SearchOperator.EQ, "x"))).getScans(), 0);
+    assertEquals(model.estimate(List.of(cond("notes.size", SearchOperator.GT, "1"))).getScans(), 1);
+    // An escaped wildcard is a literal prefix
+    assertEquals(model.estimate(List.of(cond("owner", SearchOperator.LIKE, "\\%a%"))).getLeadingWildcards(), 0);
+
+    // Weights
+    SearchCostModel weighted = model.withSizeWeights(0, 10, 0).withScanWeights(1000, 0);
+    assertEquals(weighted.estimate(costlyConditions).getCost(), 40 + 1000);
+    try
+    {
+      model.withScanWeights(-1, 0);
+      fail("Expected IllegalArgumentException for negative weight");
+    }
+    catch (IllegalArgumentException e)
+    {
+      Assert.assertTrue(e.getMessage().startsWith("SEARCH_COST_INVALID_WEIGHT"), e.getMessage());
+    }
+  }
+
+  /*
+   * Test estimating an expression
+   */
+  @Test(groups={"unit"})
+  public void testEstimateAST()
+  {
+    Estimate est = model.estimate(ASTParser.parse("owner = 'x' AND (name LIKE '%a' OR id IN ('1', '2', '3'))"));
+    assertEquals(est.getLeaves(), 6);
+    assertEquals(est.getDepth(), 4);
+    assertEquals(est.getListValues(), 2);
+    assertEquals(est.getLeadingWildcards(), 1);
+    assertEquals(est.getScans(), 1);
+    assertEquals(est.getCost(), 6 + 2 + 4 + 100 + 25);
+
+    // Deep nesting is walked without recursion and adds to the cost
+    var sb = new StringBuilder("id = 0");
+    for (int i = 1; i < 500; i++) sb.insert(0, "id = " + i + " AND (").append(')');
+    est = model.estimate(ASTParser.parse(sb.toString()));
+    assertEquals(est.getLeaves(), 1000);
+    Assert.assertTrue(est.getDepth() > 500, est.toString());
+  }
+
+  /*
+   * Test admitting, downgrading and rejecting searches
+   */
+  @Test(groups={"unit"})
+  public void testBudget()
+  {
+    var budget = new SearchBudget(100, 200);
+    Estimate cheap = model.estimate(List.of(cond("owner", SearchOperator.EQ, "jdoe")));
+    Estimate costly = model.estimate(costlyConditions);
+    assertEquals(budget.admit("tenant1", cheap), Decision.ADMIT);
+    assertEquals(budget.admit("tenant1", costly), Decision.DOWNGRADE);
+
+    // Tenant limits replace the default
+    budget.setTenantLimits("tenant2", 0, 150);
+    assertEquals(budget.getLimits("tenant2").getRejectCost(), 150);
+    assertEquals(budget.getLimits("tenant1").getRejectCost(), 200);
+    assertEquals(budget.admit("tenant2", cheap), Decision.DOWNGRADE);
+    try
+    {
+      budget.admit("tenant2", costly);
+      fail("Expected IllegalArgumentException for costly search");
+    }
+    catch (IllegalArgumentException e)
+    {
+      System.out.println("Expected exception: " + e.getMessage());
+      Assert.assertTrue(e.getMessage().startsWith("SEARCH_COST_EXCEEDED"), e.getMessage());
+    }
+    budget.removeTenantLimits("tenant2");
+    assertEquals(budget.admit("tenant2", costly), Decision.DOWNGRADE);
+
+    SearchBudget.Stats stats = budget.getStats("tenant1");
+    assertEquals(stats.getAdmittedCount(), 1);
+    assertEquals(stats.getDowngradedCount(), 1);
+    assertEquals(stats.getNearLimitCount(), 1);
+    assertEquals(stats.getMaxCost(), costly.getCost());
+    stats = budget.getStats("tenant2");
+    assertEquals(stats.getDowngradedCount(), 2);
+    assertEquals(stats.getRejectedCount(), 1);
+    assertEquals(budget.getStats("tenant3").getAdmittedCount(), 0);
+
+    // Invalid limits
+    try
+    {
+      budget.setTenantLimits("tenant2", 10, 5);
+      fail("Expected IllegalArgumentException for invalid limits");
+    }
+    catch (IllegalArgumentException e)
+    {
+      Assert.assertTrue(e.getMessage().startsWith("SEARCH_COST_INVALID_LIMIT"), e.getMessage());
+    }
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  private static SearchCondition cond(String attr, SearchOperator op, String... values)
+  {
+    return new SearchCondition(attr, op, List.of(values));
+  }
+}
@@ -0,0 +1,138 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchUtils.SearchOperator;
+import edu.utexas.tacc.tapis.search.parser.ASTParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the SearchResultCache class.
+ */
+@Test(groups={"unit"})
+public class SearchResultCacheTest
+{
+  private static final SearchColumnCatalog catalog =
+          SearchColumnCatalog.of("systems", Map.of("id", Types.BIGINT, "owner", Types.VARCHAR, "port", Types.INTEGER));
+
+  /*
+   * Test building query keys from equivalent and different searches
+   */
+  @Test(groups={"unit"})
+  public void testQueryKey()
+  {
+    SelectList select = SelectList.parse("id,owner", catalog);
+    OrderBy orderBy = OrderBy.parse("owner", catalog);
+    String key = SearchResultCache.queryKey(List.of(cond("port", SearchOperator.IN, "2", "1"),
+                                                    cond("owner", SearchOperator.EQ, "jdoe")), select, orderBy, "10");
+    assertEquals(SearchResultCache.queryKey(List.of(cond("owner", SearchOperator.EQ, "jdoe"),
+                                                    cond("port", SearchOperator.IN, "1", "2", "1")), select, orderBy,
+                                            "10"), key);
+    assertNotEquals(SearchResultCache.queryKey(List.of(cond("owner", SearchOperator.EQ, "jdoe")), select, orderBy,
+                                               "10"), key);
+    assertNotEquals(SearchResultCache.queryKey(List.of(cond("port", SearchOperator.IN, "2", "1"),
+                                                       cond("owner", SearchOperator.EQ, "jdoe")), select, orderBy,
+                                               "20"), key);
+    assertEquals(SearchResultCache.queryKey(ASTParser.parse("b = 2 AND a = 1"), null, null, null),
+                 SearchResultCache.queryKey(ASTParser.parse("a = 1 AND b = 2"), null, null, null));
+    assertNotEquals(SearchResultCache.queryKey((List<SearchCondition>) null, select, null, null),
+                    SearchResultCache.queryKey((List<SearchCondition>) null, null, null, null));
+  }
+
+  /*
+   * Test hits, misses and invalidation by version
+   */
+  @Test(groups={"unit"})
+  public void testInvalidate()
+  {
+    var cache = new SearchResultCache<String>("test", 100000, String::length);
+    var loadCount = new AtomicInteger();
+    SearchResultCache.Loader<String, RuntimeException> loader = () -> "result" + loadCount.incrementAndGet();
+
+    assertEquals(cache.get("t1", "systems", "q", loader), "result1");
+    assertEquals(cache.get("t1", "systems", "q", loader), "result1");
+    assertEquals(cache.get("t2", "systems", "q", loader), "result2");
+    assertEquals(cache.get("t1", "apps", "q", loader), "result3");
+
+    // Only the results of the tenant and resource type written are invalidated
+    cache.invalidate("t1", "systems");
+    assertEquals(cache.getVersion("t1", "systems"), 1);
+    assertEquals(cache.get("t1", "systems", "q", loader), "result4");
+    assertEquals(cache.get("t2", "systems", "q", loader), "result2");
+    assertEquals(cache.get("t1", "apps", "q", loader), "result3");
+
+    // A result loaded while a writer invalidates is not returned later
+    assertEquals(cache.get("t1", "systems", "q2", () -> { cache.invalidate("t1", "systems"); return "stale"; }),
+                 "stale");
+    assertEquals(cache.get("t1", "systems", "q2", loader), "result5");
+
+    // Failures and null results are not cached
+    try
+    {
+      cache.get("t1", "systems", "q3", () -> { throw new IllegalStateException("failed"); });
+      fail("Expected IllegalStateException");
+    }
+    catch (IllegalStateException e) { /* expected */ }
+    Assert.assertNull(cache.get("t1", "systems", "q3", () -> null));
+    assertEquals(cache.get("t1", "systems", "q3", loader), "result6");
+
+    SearchResultCache.Stats stats = cache.getStats();
+    System.out.println("Stats: " + stats);
+    assertEquals(stats.getHitCount(), 3);
+    assertEquals(stats.getMissCount(), 9);
+    assertEquals(stats.getInvalidationCount(), 2);
+    assertEquals(stats.getHitRatio(), 0.25);
+    Assert.assertTrue(stats.getBytes() > 0);
+  }
+
+  /*
+   * Test the size bound. Entries of old versions are evicted first, then entries not recently hit.
+   */
+  @Test(groups={"unit"})
+  public void testEviction()
+  {
+    // Each entry is about 1000 bytes of value plus its key and overhead
+    var cache = new SearchResultCache<String>("test", 3500, v -> 1000);
+    for (int i = 0; i < 3; i++) cache.get("t1", "jobs", "q" + i, () -> "v");
+    assertEquals(cache.size(), 3);
+    cache.get("t1", "jobs", "q0", () -> "reloaded");
+    cache.get("t1", "jobs", "q3", () -> "v");
+    assertEquals(cache.size(), 3);
+    // q0 was hit so q1 was evicted
+    assertEquals(cache.get("t1", "jobs", "q0", () -> "reloaded"), "v");
+    assertEquals(cache.get("t1", "jobs", "q1", () -> "reloaded"), "reloaded");
+
+    // Entries of an old version go first even if hit
+    var versioned = new SearchResultCache<String>("test", 3500, v -> 1000);
+    versioned.get("t1", "apps", "a", () -> "v");
+    versioned.get("t1", "apps", "a", () -> "v");
+    versioned.get("t2", "apps", "b", () -> "v");
+    versioned.get("t2", "apps", "c", () -> "v");
+    versioned.get("t2", "apps", "b", () -> "v");
+    versioned.get("t2", "apps", "c", () -> "v");
+    versioned.invalidate("t1", "apps");
+    versioned.get("t2", "apps", "d", () -> "v");
+    assertEquals(versioned.get("t2", "apps", "b", () -> "reloaded"), "v");
+    assertEquals(versioned.get("t2", "apps", "c", () -> "reloaded"), "v");
+    assertEquals(versioned.getStats().getEvictionCount(), 1);
+
+    // A value larger than the bound is not cached
+    var small = new SearchResultCache<String>("test", 500, v -> 1000);
+    small.get("t1", "jobs", "q", () -> "v");
+    assertEquals(small.size(), 0);
+    assertEquals(small.getStats().getBytes(), 0);
+  }
+
+  private static SearchCondition cond(String attr, SearchOperator op, String... values)
+  {
+    return new SearchCondition(attr, op, List.of(values));
+  }
+}
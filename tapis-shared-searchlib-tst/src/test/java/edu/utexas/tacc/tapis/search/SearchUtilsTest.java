@@ -120,8 +120,7 @@ public class SearchUtilsTest
             Map.entry(25, new CaseInputData(2, "(description.like.my'\\\"system)~(port.lte.7)")), // more potentially problem chars ' "
             Map.entry(26, new CaseInputData(1, "description.like." + multiEscapeIn1)), // multiple escapes <1> <2> <2>
             Map.entry(27, new CaseInputData(1, "description.like." + multiEscapeIn2)), // multiple escapes <3> <1> <2> <4>
-// TODO Figure out why this one fails. Looks like final escape at end of line is getting eaten when there are an odd number.
-//    validCases.put(28,new CaseInputData(1, "description.like." + multiEscapeIn3)); // multiple escapes <1> <2> <3> <4> <5>
+            Map.entry(28, new CaseInputData(1, "description.like." + multiEscapeIn3)), // multiple escapes <1> <2> <3> <4> <5>
             Map.entry(29, new CaseInputData(0, "()~( )~()")),
             Map.entry(30, new CaseInputData(0, "()~()")),
             Map.entry(31, new CaseInputData(0, "~()~")),
@@ -344,6 +343,46 @@ public class SearchUtilsTest
     }
   }
 
+  /*
+   * Test extractSearchConditions - valid cases
+   * Typed conditions must match the processed condition strings and have values split and unescaped.
+   */
+  @Test(groups={"unit"})
+  public void testExtractSearchConditionsValid()
+  {
+    Assert.assertTrue(validCaseInputs.size() > 0);
+    for (Map.Entry<Integer,CaseInputData> item : validCaseInputs.entrySet())
+    {
+      CaseInputData ci = item.getValue();
+      int caseNum = item.getKey();
+      System.out.println("Checking valid case # "+ caseNum + " Input: " + ci.searchListStr);
+      List<SearchCondition> condList = SearchUtils.extractSearchConditions(ci.searchListStr);
+      assertEquals(condList.size(), ci.count);
+      for (int j = 0; j < ci.count; j++)
+      {
+        SearchCondition cond = condList.get(j);
+        System.out.println("  Result condition # " + j + " = " + cond);
+        assertEquals(cond.toString(), validCaseOutputs.get(caseNum).strList.get(j));
+      }
+    }
+
+    // Check values of list operators are split with escapes removed
+    SearchCondition cond = SearchUtils.parseSearchCondition("name.in.a\\,b,c\\(d\\),e,,");
+    assertEquals(cond.getAttribute(), "name");
+    assertEquals(cond.getOperator(), SearchUtils.SearchOperator.IN);
+    assertEquals(cond.getValues(), Arrays.asList("a,b", "c(d)", "e"));
+    assertEquals(cond.toString(), SearchUtils.validateAndProcessSearchCondition("name.in.a\\,b,c\\(d\\),e,,"));
+    cond = SearchUtils.parseSearchCondition("port.between.0,1024");
+    assertEquals(cond.getValues(), Arrays.asList("0", "1024"));
+    cond = SearchUtils.parseSearchCondition("name.neq.a\\~b");
+    assertEquals(cond.getValue(), "a~b");
+    cond = SearchUtils.parseSearchCondition("name.LIKE.a*b!c%");
+    assertEquals(cond.getValues(), Collections.singletonList("a%b_c\\%"));
+    Assert.assertNull(SearchUtils.parseSearchCondition(" "));
+    try { cond.getValues().add("x"); fail("Expected UnsupportedOperationException"); }
+    catch (UnsupportedOperationException e) { System.out.println("Expected exception: " + e); }
+  }
+
   /*
    * Test isTimestamp - valid cases
    */
@@ -0,0 +1,148 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.SearchValueValidators.ValueValidator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests for SearchValueValidators
+ */
+@Test(groups= {"unit"})
+public class SearchValueValidatorsTest
+{
+  // Conversions that the validators must agree with
+  private static final Map<Integer, Predicate<String>> conversions =
+          Map.of(Types.INTEGER, s -> converts(() -> Integer.parseInt(s)),
+                 Types.BIGINT, s -> converts(() -> Long.parseLong(s)),
+                 Types.SMALLINT, s -> converts(() -> Short.parseShort(s)),
+                 Types.DOUBLE, s -> converts(() -> Double.parseDouble(s)),
+                 Types.REAL, s -> converts(() -> Float.parseFloat(s)),
+                 Types.NUMERIC, s -> converts(() -> new BigDecimal(s.trim())),
+                 Types.BOOLEAN, s -> s.equalsIgnoreCase("true") || s.equalsIgnoreCase("false"));
+
+  /*
+   * Test values at the limits of each type
+   */
+  @Test(groups={"unit"})
+  public void testLimits()
+  {
+    checkType(Types.INTEGER, "2147483647", "-2147483648", "+1", "007", "\u0661\u0662");
+    checkType(Types.INTEGER, "2147483648", "-2147483649", "1.0", "+", "-", " 1", "1L", "0x10");
+    checkType(Types.BIGINT, "9223372036854775807", "-9223372036854775808", "99999999999");
+    checkType(Types.BIGINT, "9223372036854775808", "-9223372036854775809", "1e3");
+    checkType(Types.SMALLINT, "32767", "-32768");
+    checkType(Types.SMALLINT, "32768", "-32769", "100000");
+    checkType(Types.DOUBLE, "1", "-1.5", ".5", "5.", "1e10", "1E-10", "1.5f", "2d", " 3 ", "NaN", "-Infinity",
+              "0x1p3", "0X.8P-1", "0x1.p2f", "1e999");
+    checkType(Types.DOUBLE, ".", "e5", "1e", "1.5ff", "nan", "infinity", "0x1", "0x1p", "1,5", "1 5", "\u0661");
+    checkType(Types.REAL, "3.5e38", "1.5F");
+    checkType(Types.NUMERIC, "1.5e3", "010", "-.5", "5.", " 2 ", "1e+5", "1e2147483647", "1.5e-2147483646");
+    checkType(Types.NUMERIC, "1.5.3", "0x10", "1f", "2d", ".", "1e", "e5", "NaN", "1e2147483648", "1e-2147483648");
+    checkType(Types.BOOLEAN, "true", "FALSE", "tRuE");
+    checkType(Types.BOOLEAN, "yes", "1", "true ", "t");
+    ValueValidator v = SearchValueValidators.forType(Types.VARCHAR);
+    Assert.assertTrue(v.isValid("x"));
+    Assert.assertFalse(v.isValid(" \t"));
+    Assert.assertFalse(v.isValid(null));
+    v = SearchValueValidators.forType(Types.TIMESTAMP);
+    Assert.assertTrue(v.isValid("2200-04-29T14:15:52Z"));
+    Assert.assertFalse(v.isValid("2200-04-29 14:15:52"));
+    assertNull(SearchValueValidators.forType(Types.BLOB));
+    assertNull(SearchValueValidators.forType(Integer.MIN_VALUE));
+    assertNull(SearchValueValidators.forType(Integer.MAX_VALUE));
+  }
+
+  /*
+   * Test that validators agree with the conversions for random strings
+   */
+  @Test(groups={"unit"})
+  public void testRandom()
+  {
+    String chars = "0123456789+-.eExXpPfFdDaAnNIi \ttTrRuUsSlL";
+    var rand = new Random(1234);
+    for (int n = 0; n < 100000; n++)
+    {
+      var sb = new StringBuilder();
+      int len = 1 + rand.nextInt(12);
+      for (int i = 0; i < len; i++) sb.append(chars.charAt(rand.nextInt(chars.length())));
+      String s = sb.toString();
+      if (s.isBlank()) continue;
+      for (var entry : conversions.entrySet())
+      {
+        assertEquals(SearchValueValidators.forType(entry.getKey()).isValid(s), entry.getValue().test(s),
+                     "Type: " + entry.getKey() + " Value: [" + s + "]");
+      }
+    }
+  }
+
+  /*
+   * Test checking the values of a list in place against splitting it
+   */
+  @Test(groups={"unit"})
+  public void testFindInvalidValue()
+  {
+    ValueValidator v = SearchValueValidators.forType(Types.INTEGER);
+    assertNull(SearchValueValidators.findInvalidValue(v, "1", false));
+    assertNull(SearchValueValidators.findInvalidValue(v, "1,2,3", true));
+    assertNull(SearchValueValidators.findInvalidValue(v, "1,2,,,", true));
+    assertNull(SearchValueValidators.findInvalidValue(v, ",,", true));
+    assertEquals(SearchValueValidators.findInvalidValue(v, "1,2", false), "1,2");
+    assertEquals(SearchValueValidators.findInvalidValue(v, "1,x,y", true), "x");
+    assertEquals(SearchValueValidators.findInvalidValue(v, "1,,2", true), "");
+    assertEquals(SearchValueValidators.findInvalidValue(v, ",1", true), "");
+    assertEquals(SearchValueValidators.findInvalidValue(v, "1,2\\,3", true), "2\\,3");
+
+    // Random lists must give the same result as splitting
+    String chars = "1a,\\ ";
+    var rand = new Random(1234);
+    ValueValidator sv = SearchValueValidators.forType(Types.VARCHAR);
+    for (int n = 0; n < 20000; n++)
+    {
+      var sb = new StringBuilder();
+      int len = 1 + rand.nextInt(8);
+      for (int i = 0; i < len; i++) sb.append(chars.charAt(rand.nextInt(chars.length())));
+      String s = sb.toString();
+      for (ValueValidator validator : List.of(v, sv))
+      {
+        String expected = null;
+        for (String val : SearchUtils.getValueList(s))
+        {
+          if (!validator.isValid(val)) { expected = val; break; }
+        }
+        assertEquals(SearchValueValidators.findInvalidValue(validator, s, true), expected, "List: [" + s + "]");
+      }
+    }
+  }
+
+  /*
+   * Check that the validator and the conversion agree on each value
+   */
+  private static void checkType(int sqlType, String... values)
+  {
+    ValueValidator v = SearchValueValidators.forType(sqlType);
+    for (String val : values)
+    {
+      assertEquals(v.isValid(val), conversions.get(sqlType).test(val), "Type: " + sqlType + " Value: [" + val + "]");
+      // Also check the value in the middle of a longer string
+      String padded = "xx" + val + "yy";
+      assertEquals(v.isValid(padded, 2, 2 + val.length()), v.isValid(val), "Value: [" + val + "]");
+    }
+  }
+
+  private static boolean converts(Runnable conversion)
+  {
+    try { conversion.run(); }
+    catch (NumberFormatException e) { return false; }
+    return true;
+  }
+}
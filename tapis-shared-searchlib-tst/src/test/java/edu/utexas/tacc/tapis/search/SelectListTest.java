@@ -0,0 +1,109 @@
+package edu.utexas.tacc.tapis.search;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the SelectList class.
+ */
+@Test(groups={"unit"})
+public class SelectListTest
+{
+  private static final SearchColumnCatalog catalog;
+  static
+  {
+    var columnTypes = new LinkedHashMap<String, Integer>();
+    columnTypes.put("id", Types.BIGINT);
+    columnTypes.put("owner", Types.VARCHAR);
+    columnTypes.put("created", Types.TIMESTAMP);
+    columnTypes.put("job_type", Types.VARCHAR);
+    columnTypes.put("notes", Types.OTHER);
+    catalog = SearchColumnCatalog.of("jobs", columnTypes);
+  }
+  private static final List<String> summary = List.of("id", "owner", "jobType");
+
+  /*
+   * Test parsing select parameters
+   */
+  @Test(groups={"unit"})
+  public void testParse()
+  {
+    SelectList s = SelectList.parse("owner, jobType,notes,job_type", catalog);
+    assertEquals(s.toSql(), "owner, job_type, notes");
+    assertEquals(s.getFieldMask(), Set.of("owner", "jobType", "notes"));
+    Assert.assertTrue(s.isSelected("jobType"));
+    Assert.assertTrue(s.isSelected("job_type"));
+    Assert.assertFalse(s.isSelected("created"));
+    Assert.assertFalse(s.isAllSelected());
+
+    // Keywords and defaults
+    assertEquals(SelectList.parse("allAttributes", catalog).toSql(), "id, owner, created, job_type, notes");
+    assertEquals(SelectList.parse(null, catalog).toSql(), "id, owner, created, job_type, notes");
+    Assert.assertTrue(SelectList.parse("", catalog).isAllSelected());
+    assertEquals(SelectList.parse(" ", catalog, summary).toSql(), "id, owner, job_type");
+    assertEquals(SelectList.parse("summaryattributes,created", catalog, summary).toSql(),
+                 "id, owner, job_type, created");
+    assertEquals(SelectList.parse("created,SUMMARYATTRIBUTES", catalog, summary).toSql(),
+                 "created, id, owner, job_type");
+  }
+
+  /*
+   * Test adding required columns to the projection
+   */
+  @Test(groups={"unit"})
+  public void testRequired()
+  {
+    SelectList s = SelectList.parse("owner", catalog);
+    SelectList r = s.withRequired("id", "owner");
+    assertEquals(r.toSql(), "owner, id");
+    assertEquals(r.getFieldMask(), Set.of("owner"));
+    Assert.assertFalse(r.isSelected("id"));
+    assertEquals(r.getProjection().get(1).getName(), "id");
+    Assert.assertSame(r.withRequired("owner"), r);
+
+    OrderBy o = OrderBy.parse("created(desc)", catalog).withTiebreaker("id");
+    assertEquals(s.withRequired(o).toSql(), "owner, created, id");
+    assertEquals(s.withRequired(o).getFieldMask(), Set.of("owner"));
+  }
+
+  /*
+   * Test invalid select parameters
+   */
+  @Test(groups={"unit"})
+  public void testInvalid()
+  {
+    checkInvalid("owner,", "SEARCH_SELECT_INVALID");
+    checkInvalid(",owner", "SEARCH_SELECT_INVALID");
+    checkInvalid("owner,secret", "SEARCH_SELECT_NO_COLUMN");
+    checkInvalid("owner;drop table jobs", "SEARCH_SELECT_NO_COLUMN");
+    checkInvalid("*", "SEARCH_SELECT_NO_COLUMN");
+    try
+    {
+      SelectList.parse("owner", catalog).withRequired("secret");
+      fail("Expected IllegalArgumentException for required attribute");
+    }
+    catch (IllegalArgumentException e) { /* expected */ }
+  }
+
+  private static void checkInvalid(String selectStr, String msgKey)
+  {
+    try
+    {
+      SelectList.parse(selectStr, catalog, summary);
+      fail("Expected IllegalArgumentException for select: " + selectStr);
+    }
+    catch (IllegalArgumentException e)
+    {
+      System.out.println("Expected exception: " + e.getMessage());
+      Assert.assertTrue(e.getMessage().startsWith(msgKey), e.getMessage());
+    }
+  }
+}
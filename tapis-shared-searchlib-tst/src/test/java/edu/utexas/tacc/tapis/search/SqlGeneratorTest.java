@@ -0,0 +1,316 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.parser.ASTNode;
+import edu.utexas.tacc.tapis.search.parser.ASTParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the SqlGenerator class.
+ */
+@Test(groups={"unit"})
+public class SqlGeneratorTest
+{
+  private static final Map<String, Integer> columnTypes =
+          Map.of("name", Types.VARCHAR,
+                 "owner", Types.VARCHAR,
+                 "enabled", Types.BOOLEAN,
+                 "port", Types.INTEGER,
+                 "proxy_port", Types.INTEGER,
+                 "size", Types.BIGINT,
+                 "cost", Types.NUMERIC,
+                 "created", Types.TIMESTAMP,
+                 "tags", Types.ARRAY);
+  private static final SqlGenerator generator = new SqlGenerator("systems", columnTypes);
+
+  /*
+   * Test generate from an AST - valid cases
+   */
+  @Test(groups={"unit"})
+  public void testGenerateFromAST()
+  {
+    SqlFragment f = generator.generate(ASTParser.parse("enabled = 'true' AND (owner = 'jdoe' OR proxyPort > 1024)"));
+    System.out.println("Fragment: " + f);
+    assertEquals(f.getSql(), "(enabled = ? AND (owner = ? OR proxy_port > ?))");
+    assertEquals(f.getBindValues(), Arrays.asList(Boolean.TRUE, "jdoe", 1024));
+    assertEquals(f.getBindTypes(), Arrays.asList(Types.BOOLEAN, Types.VARCHAR, Types.INTEGER));
+
+    f = generator.generate(ASTParser.parse("owner NOT IN ('jdoe', 'msmith') AND name LIKE 'test%'"));
+    assertEquals(f.getSql(), "(owner NOT IN (?, ?) AND (name ~>=~ ? AND name ~<~ ?))");
+    assertEquals(f.getBindValues(), Arrays.asList("jdoe", "msmith", "test", "tesu"));
+
+    f = generator.generate(ASTParser.parse("port NOT BETWEEN '0' AND '1024'"));
+    assertEquals(f.getSql(), "port NOT BETWEEN ? AND ?");
+    assertEquals(f.getBindValues(), Arrays.asList(0, 1024));
+
+    f = generator.generate(ASTParser.parse("created >= '2200-04-29T14:15:52-01:00' AND cost < 1.5 AND size <> 7"));
+    assertEquals(f.getSql(), "((created >= ? AND cost < ?) AND size <> ?)");
+    assertEquals(f.getBindValues(),
+                 Arrays.asList(Timestamp.valueOf("2200-04-29 15:15:52"), new BigDecimal("1.5"), 7L));
+
+    f = generator.generate(ASTParser.parse("NOT (name = 'x') AND cost = 3"));
+    assertEquals(f.getSql(), "(NOT (name = ?) AND cost = ?)");
+    assertEquals(f.getBindValues(), Arrays.asList("x", new BigDecimal("3")));
+
+    // A negative literal is bound as a negative value
+    f = generator.generate(ASTParser.parse("port = -5 OR cost > -1.5 OR size < - -2"));
+    assertEquals(f.getSql(), "((port = ? OR cost > ?) OR size < ?)");
+    assertEquals(f.getBindValues(), Arrays.asList(-5, new BigDecimal("-1.5"), 2L));
+
+    // Same shape with different literals must produce the same SQL
+    assertEquals(generator.generate(ASTParser.parse("port < 9 OR owner = 'b'")).getSql(),
+                 generator.generate(ASTParser.parse("port < 1 OR owner = 'x'")).getSql());
+
+    Assert.assertTrue(generator.generate((ASTNode) null).isEmpty());
+  }
+
+  /*
+   * Test generate from a list of search conditions
+   */
+  @Test(groups={"unit"})
+  public void testGenerateFromConditions()
+  {
+    List<SearchCondition> conds = SearchUtils.extractSearchConditions(
+            "(name.like.my\\,sys*)~(port.between.0,1024)~(owner.in.a\\,b,c)");
+    SqlFragment f = generator.generate(conds);
+    System.out.println("Fragment: " + f);
+    assertEquals(f.getSql(), "((name ~>=~ ? AND name ~<~ ?) AND port BETWEEN ? AND ? AND owner IN (?, ?))");
+    assertEquals(f.getBindValues(), Arrays.asList("my,sys", "my,syt", 0, 1024, "a,b", "c"));
+    Assert.assertTrue(generator.generate(SearchUtils.extractSearchConditions("")).isEmpty());
+
+    // Numeric values are plain decimals, a leading zero does not make a value octal
+    f = generator.generate(SearchUtils.extractSearchConditions("cost.eq.010"));
+    assertEquals(f.getBindValues(), List.of(new BigDecimal("10")));
+  }
+
+  /*
+   * Test that LIKE with a literal prefix becomes a range on the prefix
+   */
+  @Test(groups={"unit"})
+  public void testGeneratePrefixLike()
+  {
+    String[][] cases = {
+      // pattern, sql, bind values
+      {"abc%", "(name ~>=~ ? AND name ~<~ ?)", "[abc, abd]"},
+      {"ab\\_c%%", "(name ~>=~ ? AND name ~<~ ?)", "[ab_c, ab_d]"},
+      {"ab_d%", "(name ~>=~ ? AND name ~<~ ? AND name LIKE ?)", "[ab, ac, ab_d%]"},
+      {"sys%.log", "(name ~>=~ ? AND name ~<~ ? AND name LIKE ?)", "[sys, syt, sys%.log]"},
+      {"exact", "(name ~>=~ ? AND name ~<~ ? AND name LIKE ?)", "[exact, exacu, exact]"},
+      {"%abc", "name LIKE ?", "[%abc]"},
+      {"_abc%", "name LIKE ?", "[_abc%]"},
+      {"a\ud83d\ude00%", "name LIKE ?", "[a\ud83d\ude00%]"},
+      {"a\uffff%", "name LIKE ?", "[a\uffff%]"}
+    };
+    for (String[] c : cases)
+    {
+      SqlFragment f = generator.generate(List.of(new SearchCondition("name", SearchUtils.SearchOperator.LIKE,
+                                                                     List.of(c[0]))));
+      assertEquals(f.getSql(), c[1], c[0]);
+      assertEquals(f.getBindValues().toString(), c[2], c[0]);
+    }
+    // NOT LIKE cannot use a range
+    SqlFragment f = generator.generate(List.of(new SearchCondition("name", SearchUtils.SearchOperator.NLIKE,
+                                                                   List.of("abc%"))));
+    assertEquals(f.getSql(), "name NOT LIKE ?");
+  }
+
+  /*
+   * Test binding long IN/NIN lists as a single array
+   */
+  @Test(groups={"unit"})
+  public void testGenerateArrayBinding() throws Exception
+  {
+    SqlGenerator g = generator.withArrayBindThreshold(3);
+    SqlFragment f = g.generate(ASTParser.parse("port IN ('1','2','3') AND owner NOT IN ('a','b','c','b')"));
+    assertEquals(f.getSql(), "(port IN (?, ?, ?) AND owner <> ALL(?))");
+    assertEquals(f.getBindTypes(), Arrays.asList(Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.ARRAY));
+    Assert.assertTrue(f.getBindValues().get(3) instanceof String[]);
+    assertEquals(f.toString(), "(port IN (?, ?, ?) AND owner <> ALL(?)) [1, 2, 3, [a, b, c, b]]");
+
+    // The SQL does not depend on the length of the list
+    f = g.generate(ASTParser.parse("port IN ('1','2','3','4') AND cost IN ('1.5','2','3','4')"));
+    assertEquals(f.getSql(), "(port = ANY(?) AND cost = ANY(?))");
+    assertEquals(g.generate(ASTParser.parse("port IN ('1','2','3','4','5','6','7')")).getSql(), "port = ANY(?)");
+    assertEquals(generator.withArrayBindThreshold(0).generate(ASTParser.parse("port IN ('1')")).getSql(),
+                 "port = ANY(?)");
+    Assert.assertTrue(f.getBindValues().get(0) instanceof Integer[]);
+    Assert.assertTrue(f.getBindValues().get(1) instanceof BigDecimal[]);
+
+    // Arrays are created using the connection of the statement
+    var executed = new ArrayList<JdbcStubs.Executed>();
+    Connection conn = JdbcStubs.connection(sql -> JdbcStubs.resultSet(List.of("n")), executed);
+    try (PreparedStatement ps = conn.prepareStatement(f.getSql()))
+    {
+      assertEquals(f.bind(ps, 1), 3);
+      ps.executeQuery();
+    }
+    assertEquals(executed.get(0).bindValues.get(0), "integer[1, 2, 3, 4]");
+    assertEquals(executed.get(0).bindValues.get(1), "numeric[1.5, 2, 3, 4]");
+
+    try
+    {
+      generator.withArrayBindThreshold(-1);
+      fail("Expected IllegalArgumentException for negative threshold");
+    }
+    catch (IllegalArgumentException e) { /* expected */ }
+  }
+
+  /*
+   * Test padding lists to bucket sizes so that lists of different lengths share a shape
+   */
+  @Test(groups={"unit"})
+  public void testGenerateListBuckets()
+  {
+    SqlGenerator g = generator.withListBuckets(true).withArrayBindThreshold(6);
+    SqlFragment f = g.generate(ASTParser.parse("port IN ('1','2','3') AND owner NOT IN ('a')"));
+    assertEquals(f.getSql(), "(port IN (?, ?, ?, ?) AND owner NOT IN (?))");
+    assertEquals(f.getBindValues(), Arrays.asList(1, 2, 3, 3, "a"));
+    assertEquals(g.generate(ASTParser.parse("port IN ('4','5','6','7') AND owner NOT IN ('b')")).getSql(),
+                 f.getSql());
+    // Never padded beyond the array bind threshold
+    assertEquals(g.generate(ASTParser.parse("port IN ('1','2','3','4','5')")).getSql(),
+                 "port IN (?, ?, ?, ?, ?, ?)");
+    assertEquals(g.generate(ASTParser.parse("port IN ('1','2','3','4','5','6','7')")).getSql(), "port = ANY(?)");
+    var cond = new SearchCondition("tags", SearchUtils.SearchOperator.CONTAINS_ANY, List.of("a", "b", "c"));
+    assertEquals(g.generate(List.of(cond)).getSql(), "tags && ARRAY[?, ?, ?, ?]");
+    assertEquals(g.generate(List.of(cond)).getBindValues(), Arrays.asList("a", "b", "c", "c"));
+    // Off by default
+    assertEquals(generator.generate(ASTParser.parse("port IN ('1','2','3')")).getSql(), "port IN (?, ?, ?)");
+
+    assertEquals(SqlGenerator.getListBucket(0), 0);
+    assertEquals(SqlGenerator.getListBucket(1), 1);
+    assertEquals(SqlGenerator.getListBucket(2), 2);
+    assertEquals(SqlGenerator.getListBucket(5), 8);
+    assertEquals(SqlGenerator.getListBucket(1024), 1024);
+    assertEquals(SqlGenerator.getListBucket(Integer.MAX_VALUE), Integer.MAX_VALUE);
+  }
+
+  /*
+   * Test generate for array columns
+   */
+  @Test(groups={"unit"})
+  public void testGenerateArrayOperators()
+  {
+    List<SearchCondition> conds = SearchUtils.extractSearchConditions(
+            "(tags.contains.a\\,b)~(tags.CONTAINS_ALL.x,y)~(tags.contains_any.p,q,r)");
+    SqlFragment f = generator.generate(conds);
+    assertEquals(f.getSql(), "(tags @> ARRAY[?] AND tags @> ARRAY[?, ?] AND tags && ARRAY[?, ?, ?])");
+    assertEquals(f.getBindValues(), Arrays.asList("a,b", "x", "y", "p", "q", "r"));
+    assertEquals(f.getBindTypes(), Arrays.asList(Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                                                 Types.VARCHAR, Types.VARCHAR));
+
+    // Array operators apply only to arrays and arrays support only array operators
+    for (SearchCondition cond : List.of(new SearchCondition("name", SearchUtils.SearchOperator.CONTAINS, List.of("a")),
+                                        new SearchCondition("tags", SearchUtils.SearchOperator.EQ, List.of("a"))))
+    {
+      try
+      {
+        generator.generate(List.of(cond));
+        fail("Expected IllegalArgumentException for: " + cond);
+      }
+      catch (IllegalArgumentException e)
+      {
+        Assert.assertTrue(e.getMessage().startsWith("SEARCH_DB_INVALID_OP_FOR_TYPE"), e.getMessage());
+      }
+    }
+  }
+
+  /*
+   * Test full text search using MATCH
+   */
+  @Test(groups={"unit"})
+  public void testGenerateTextSearch()
+  {
+    SearchColumnCatalog catalog = SearchColumnCatalog.of("systems", columnTypes)
+                                                     .withTextSearch("name", "english", "name_tsv")
+                                                     .withTextSearch("owner", "pg_catalog.simple", null);
+    var g = new SqlGenerator(catalog);
+    ASTNode ast = ASTParser.parse("name @@ 'fast linux' AND (owner @@ 'doe' OR port = 22)");
+    SqlFragment f = g.generate(ast);
+    assertEquals(f.getSql(), "(name_tsv @@ plainto_tsquery('english', ?) AND " +
+                             "(to_tsvector('pg_catalog.simple', owner) @@ plainto_tsquery('pg_catalog.simple', ?) OR " +
+                             "port = ?))");
+    assertEquals(f.getBindValues(), Arrays.asList("fast linux", "doe", 22));
+
+    SqlFragment rank = g.generateRankOrder(ast);
+    assertEquals(rank.getSql(), "ts_rank(name_tsv, plainto_tsquery('english', ?)) + " +
+                                "ts_rank(to_tsvector('pg_catalog.simple', owner), " +
+                                "plainto_tsquery('pg_catalog.simple', ?)) DESC");
+    assertEquals(rank.getBindValues(), Arrays.asList("fast linux", "doe"));
+
+    List<SearchCondition> conds = SearchUtils.extractSearchConditions("(name.match.fast linux)~(port.eq.22)");
+    assertEquals(g.generate(conds).getSql(), "(name_tsv @@ plainto_tsquery('english', ?) AND port = ?)");
+    assertEquals(g.generateRankOrder(conds).getSql(), "ts_rank(name_tsv, plainto_tsquery('english', ?)) DESC");
+    Assert.assertTrue(g.generateRankOrder(ASTParser.parse("port = 22")).isEmpty());
+
+    // MATCH must be enabled for the column and only string columns may be enabled
+    String[][] invalid = {{"name", "english';drop", "name_tsv"}, {"name", "english", "name tsv"},
+                          {"port", "english", null}, {"nosuchcol", "english", null}};
+    for (String[] args : invalid)
+    {
+      try
+      {
+        catalog.withTextSearch(args[0], args[1], args[2]);
+        fail("Expected IllegalArgumentException for: " + Arrays.toString(args));
+      }
+      catch (IllegalArgumentException e) { /* expected */ }
+    }
+    try
+    {
+      generator.generate(ASTParser.parse("name @@ 'linux'"));
+      fail("Expected IllegalArgumentException for MATCH without text search");
+    }
+    catch (IllegalArgumentException e)
+    {
+      Assert.assertTrue(e.getMessage().startsWith("SEARCH_DB_INVALID_OP_FOR_TYPE"), e.getMessage());
+    }
+  }
+
+  /*
+   * Test generate - invalid cases
+   */
+  @Test(groups={"unit"})
+  public void testGenerateInvalid()
+  {
+    String[] invalidCases = {
+      "nosuchcol = 'a'",         // Column not in catalog
+      "enabled > 'true'",        // Operator not allowed for boolean
+      "created LIKE '2020%'",    // Operator not allowed for timestamp
+      "port = 'abc'",            // Value not an integer
+      "port IN ('1','x')",       // Value in list not an integer
+      "enabled = 'yes'",         // Value not a boolean
+      "created < 'abc'",         // Value not a timestamp
+      "port IS NULL",            // Operator not supported
+      "port = proxy_port",       // Value must be a literal
+      "'a' = name",              // Attribute must be on the left
+      "name = -'abc'",           // Only a number can be negated
+      "NOT name"                 // Not a condition
+    };
+    for (String sqlStr : invalidCases)
+    {
+      System.out.println("Checking invalid case: " + sqlStr);
+      try
+      {
+        generator.generate(ASTParser.parse(sqlStr));
+        fail("Expected IllegalArgumentException for: " + sqlStr);
+      }
+      catch (IllegalArgumentException e)
+      {
+        System.out.println("Expected exception: " + e.getMessage());
+      }
+    }
+  }
+}
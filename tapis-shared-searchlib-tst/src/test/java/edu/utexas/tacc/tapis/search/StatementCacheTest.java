@@ -0,0 +1,112 @@
+package edu.utexas.tacc.tapis.search;
+
+import edu.utexas.tacc.tapis.search.parser.ASTParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the StatementCache class.
+ */
+@Test(groups={"unit"})
+public class StatementCacheTest
+{
+  private static final SqlGenerator generator =
+          new SqlGenerator("systems", Map.of("owner", Types.VARCHAR, "port", Types.INTEGER)).withListBuckets(true);
+
+  /*
+   * Test reuse of statements for searches with the same shape and eviction of the least recently used
+   */
+  @Test(groups={"unit"})
+  public void testPrepare() throws Exception
+  {
+    var prepared = new ArrayList<String>();
+    var closed = new ArrayList<String>();
+    Connection conn = connection(prepared, closed);
+    var cache = new StatementCache(conn, 2);
+
+    // Searches differing only in values have the same shape
+    String sql1 = select(generator.generate(ASTParser.parse("owner = 'a' AND port IN ('1','2','3')")));
+    String sql2 = select(generator.generate(ASTParser.parse("owner = 'b' AND port IN ('4','5','6','7')")));
+    assertEquals(sql2, sql1);
+    PreparedStatement ps = cache.prepare(sql1);
+    Assert.assertTrue(cache.prepare(sql2) == ps);
+    assertEquals(prepared.size(), 1);
+
+    // The least recently used statement is closed when the cache is full
+    String sql3 = select(generator.generate(ASTParser.parse("owner = 'a'")));
+    String sql4 = select(generator.generate(ASTParser.parse("port = '1'")));
+    cache.prepare(sql3);
+    cache.prepare(sql1);
+    cache.prepare(sql4);
+    assertEquals(closed, List.of(sql3));
+    assertEquals(cache.size(), 2);
+
+    StatementCache.Stats stats = cache.getStats();
+    System.out.println("Stats: " + stats);
+    assertEquals(stats.getHitCount(), 2);
+    assertEquals(stats.getMissCount(), 3);
+    assertEquals(stats.getEvictionCount(), 1);
+
+    // A statement closed elsewhere is prepared again
+    ps.close();
+    Assert.assertTrue(cache.prepare(sql1) != ps);
+
+    cache.close();
+    assertEquals(closed.size(), 4);
+    try
+    {
+      cache.prepare(sql1);
+      fail("Expected SQLException for closed cache");
+    }
+    catch (SQLException e)
+    {
+      Assert.assertTrue(e.getMessage().startsWith("SEARCH_STMT_CACHE_CLOSED"), e.getMessage());
+    }
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  private static String select(SqlFragment where)
+  {
+    return "SELECT owner, port FROM systems WHERE " + where.getSql();
+  }
+
+  /*
+   * Connection recording the SQL of each statement prepared and closed
+   */
+  private static Connection connection(List<String> prepared, List<String> closed)
+  {
+    return JdbcStubs.proxy(Connection.class, (name, args) ->
+    {
+      if (!name.equals("prepareStatement")) throw new UnsupportedOperationException(name);
+      String sql = (String) args[0];
+      prepared.add(sql);
+      boolean[] isClosed = new boolean[1];
+      return JdbcStubs.proxy(PreparedStatement.class, (psName, psArgs) ->
+      {
+        switch (psName)
+        {
+          case "clearParameters": return null;
+          case "isClosed": return isClosed[0];
+          case "close":
+            isClosed[0] = true;
+            closed.add(sql);
+            return null;
+          default: throw new UnsupportedOperationException(psName);
+        }
+      });
+    });
+  }
+}
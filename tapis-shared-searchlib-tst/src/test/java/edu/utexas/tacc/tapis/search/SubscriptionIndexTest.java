@@ -0,0 +1,180 @@
+package edu.utexas.tacc.tapis.search;
+
+import org.apache.activemq.command.ActiveMQMessage;
+import org.apache.activemq.filter.BooleanExpression;
+import org.apache.activemq.filter.MessageEvaluationContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the SubscriptionIndex class.
+ */
+@Test(groups={"unit"})
+public class SubscriptionIndexTest
+{
+  // Selectors covering indexed, merged and unindexed predicates
+  private static final List<String> SELECTORS = List.of(
+    "tenant = 'dev'",
+    "tenant = 'dev' AND type = 'job'",
+    "'job' = type AND tenant = 'dev' AND tenant = 'dev'",
+    "tenant = 'dev' AND (type = 'job' OR type = 'app')",
+    "size > 10",
+    "size >= 10 AND size < 20",
+    "size BETWEEN 5 AND 15",
+    "size NOT BETWEEN 5 AND 15",
+    "15 < size AND tenant = 'admin'",
+    "size > 10 AND size > 12",
+    "size > 20 AND size < 10",
+    "ratio <= 0.5",
+    "ratio > -1.5 AND ratio < 2.5",
+    "urgent = TRUE",
+    "urgent = FALSE OR size = 3",
+    "tenant <> 'dev'",
+    "type LIKE 'jo%'",
+    "tenant = 'dev' AND type LIKE 'a%'",
+    "type IN ('job', 'app')",
+    "size IS NULL",
+    "tenant = 'dev' AND NOT (size > 10)",
+    "size + 1 = 11",
+    "size = ratio",
+    "size = 10",
+    "size = 10.0");
+
+  /*
+   * Test that the index finds the same subscriptions as evaluating each selector
+   */
+  @Test(groups={"unit"})
+  public void testMatchAgainstEvaluation() throws Exception
+  {
+    var index = new SubscriptionIndex<Integer>();
+    var selectors = new HashMap<Integer, BooleanExpression>();
+    for (int i = 0; i < SELECTORS.size(); i++)
+    {
+      index.add(i, SELECTORS.get(i));
+      selectors.put(i, TapisSelectorParser.parse(SELECTORS.get(i)));
+    }
+
+    var random = new Random(1234);
+    List<Object> tenants = List.of("dev", "admin", "other");
+    List<Object> types = List.of("job", "app", "system");
+    List<Object> sizes = List.of(3, 5L, 10, 10.0, 11L, 12, 15.0f, 20L, -0.0, 9007199254740993L, 25.5);
+    List<Object> ratios = List.of(-1.5, 0.0, 0.5, 0.5f, 2.5, 3L, Double.NaN);
+    for (int n = 0; n < 2000; n++)
+    {
+      var event = new HashMap<String, Object>();
+      put(event, random, "tenant", tenants);
+      put(event, random, "type", types);
+      put(event, random, "size", sizes);
+      put(event, random, "ratio", ratios);
+      put(event, random, "urgent", List.of(true, false));
+      assertEquals(index.match(event), evaluate(selectors, event), "Event: " + event);
+    }
+
+    SubscriptionIndex.Stats stats = index.getStats();
+    System.out.println("Stats: " + stats);
+    assertEquals(stats.getSubscriptionCount(), SELECTORS.size());
+    assertEquals(stats.getMatchCount(), 2000);
+    // Only selectors with predicates that cannot be indexed are always evaluated
+    assertEquals(stats.getUnindexedCount(), 6);
+  }
+
+  /*
+   * Test adding, replacing and removing subscriptions
+   */
+  @Test(groups={"unit"})
+  public void testAddRemove() throws Exception
+  {
+    var index = new SubscriptionIndex<String>();
+    index.add("s1", "tenant = 'dev' AND size > 10");
+    index.add("s2", "tenant = 'dev' OR size > 10");
+    index.add("s3", "type LIKE 'j%'");
+    Map<String, Object> event = Map.of("tenant", "dev", "size", 11, "type", "job");
+    assertEquals(index.match(event), Set.of("s1", "s2", "s3"));
+
+    // Replace
+    index.add("s1", "tenant = 'admin'");
+    assertEquals(index.match(event), Set.of("s2", "s3"));
+    assertEquals(index.size(), 3);
+
+    Assert.assertTrue(index.remove("s2"));
+    Assert.assertTrue(index.remove("s3"));
+    Assert.assertFalse(index.remove("s3"));
+    assertEquals(index.match(event), Set.of());
+    assertEquals(index.match(Map.of("tenant", "admin")), Set.of("s1"));
+    Assert.assertTrue(index.remove("s1"));
+    assertEquals(index.getStats().getConjunctionCount(), 0);
+
+    // Many subscriptions sharing predicates are matched without evaluating selectors
+    long verified = index.getStats().getVerifyCount();
+    for (int i = 0; i < 1000; i++) index.add("r" + i, "tenant = 'dev' AND size >= " + i + " AND size < " + (i + 10));
+    assertEquals(index.match(Map.of("tenant", "dev", "size", 500)).size(), 10);
+    for (int i = 0; i < 1000; i += 2) index.remove("r" + i);
+    assertEquals(index.match(Map.of("tenant", "dev", "size", 500)).size(), 5);
+    assertEquals(index.getStats().getVerifyCount(), verified);
+  }
+
+  /*
+   * Test invalid input
+   */
+  @Test(groups={"unit"})
+  public void testInvalid() throws Exception
+  {
+    var index = new SubscriptionIndex<String>();
+    index.add("s1", "tenant = 'dev'");
+    try
+    {
+      index.match(Map.of("tenant", new Object()));
+      fail("Expected IllegalArgumentException for unsupported value");
+    }
+    catch (IllegalArgumentException e)
+    {
+      Assert.assertTrue(e.getMessage().startsWith("SEARCH_SUBSCRIPTION_INVALID_VALUE"), e.getMessage());
+    }
+    try
+    {
+      index.add(null, "tenant = 'dev'");
+      fail("Expected IllegalArgumentException for null id");
+    }
+    catch (IllegalArgumentException e) { /* expected */ }
+  }
+
+  /* ********************************************************************** */
+  /*                             Private Methods                            */
+  /* ********************************************************************** */
+  private static void put(Map<String, Object> event, Random random, String name, List<Object> values)
+  {
+    // Leave some properties absent
+    int i = random.nextInt(values.size() + 1);
+    if (i < values.size()) event.put(name, values.get(i));
+  }
+
+  /*
+   * Evaluate each selector against an event with Float values widened as by the index
+   */
+  private static Set<Integer> evaluate(Map<Integer, BooleanExpression> selectors, Map<String, Object> event)
+    throws Exception
+  {
+    var message = new ActiveMQMessage();
+    for (Map.Entry<String, Object> entry : event.entrySet())
+    {
+      Object value = entry.getValue();
+      message.setObjectProperty(entry.getKey(), (value instanceof Float) ? ((Float) value).doubleValue() : value);
+    }
+    var context = new MessageEvaluationContext();
+    context.setMessageReference(message);
+    var matched = new HashSet<Integer>();
+    for (Map.Entry<Integer, BooleanExpression> entry : selectors.entrySet())
+      if (entry.getValue().matches(context)) matched.add(entry.getKey());
+    return matched;
+  }
+}
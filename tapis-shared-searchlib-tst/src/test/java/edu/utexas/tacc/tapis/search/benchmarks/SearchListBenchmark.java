@@ -0,0 +1,180 @@
+package edu.utexas.tacc.tapis.search.benchmarks;
+
+import edu.utexas.tacc.tapis.search.SearchUtils;
+import edu.utexas.tacc.tapis.search.SearchUtils.SearchOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compare the hand written search list scanner used by SearchUtils with the regex based implementation it replaced.
+ * Each invocation extracts and validates a search list as done on the front end and then processes each
+ *   condition as done on the back end.
+ *
+ * To run:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main \
+ *       -Dexec.args="SearchListBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchListBenchmark
+{
+  @Param({
+    "enabled.eq.true",
+    "(enabled.eq.true)~(owner.eq.jdoe)~(proxy_port.lt.7)~(system_type.in.OBJECT_STORE,LINUX)",
+    "(description.like.my\\,\\(\\)\\~\\*\\!\\\\system)~(port.lte.7)~(system_type.in.OBJECT_STORE)~(port.between.0,1024)"
+  })
+  public String searchList;
+
+  @Benchmark
+  public void scanner(Blackhole bh)
+  {
+    for (String cond : SearchUtils.extractAndValidateSearchList(searchList))
+    {
+      bh.consume(SearchUtils.validateAndProcessSearchCondition(cond));
+    }
+  }
+
+  @Benchmark
+  public void regex(Blackhole bh)
+  {
+    for (String cond : RegexSearchList.extractAndValidateSearchList(searchList))
+    {
+      bh.consume(RegexSearchList.validateAndProcessSearchCondition(cond));
+    }
+  }
+
+  /*
+   * The regex based implementation previously in SearchUtils. Kept here only as a baseline for comparison.
+   * Message formatting has been dropped since only valid search lists are benchmarked.
+   */
+  static final class RegexSearchList
+  {
+    private static final String SEARCH_REGEX = "(?:\\\\.|[^~\\\\]++)+";
+    private static final List<Character> SEARCH_VAL_SPECIAL_CHARS = Arrays.asList('~', ',', '(', ')');
+
+    static List<String> extractAndValidateSearchList(String searchListStr)
+    {
+      var searchList = new ArrayList<String>();
+      Matcher regexMatcher = Pattern.compile(SEARCH_REGEX).matcher(searchListStr);
+      while (regexMatcher.find()) { searchList.add(regexMatcher.group()); }
+      if (searchList.size() == 1)
+      {
+        String cond = searchList.get(0);
+        if (!cond.startsWith("(") && !cond.endsWith(")")) cond = "(" + cond + ")";
+        searchList.set(0, cond);
+      }
+      var retList = new ArrayList<String>();
+      for (String cond : searchList)
+      {
+        if (cond.isBlank() || !cond.startsWith("(") || !cond.endsWith(")")) throw new IllegalArgumentException(cond);
+        String bareCond = cond.substring(1, cond.length() - 1);
+        if (!bareCond.isBlank())
+        {
+          extractAttribute(bareCond);
+          extractFullValueStr(bareCond, extractOperator(bareCond));
+        }
+        retList.add(bareCond);
+      }
+      retList.removeIf(String::isBlank);
+      return retList;
+    }
+
+    static String validateAndProcessSearchCondition(String cond)
+    {
+      String attr = extractAttribute(cond);
+      SearchOperator operator = extractOperator(cond);
+      String fullValueStr = extractFullValueStr(cond, operator);
+      boolean isListOperator = SearchUtils.listOpSet.contains(operator);
+      List<String> valList = isListOperator ? getValueList(fullValueStr) : Collections.singletonList(fullValueStr);
+      if (operator == SearchOperator.LIKE || operator == SearchOperator.NLIKE)
+      {
+        fullValueStr = fullValueStr.replaceAll("(?<!\\\\)%", "\\\\%");
+        fullValueStr = fullValueStr.replaceAll("(?<!\\\\)_", "\\\\_");
+        fullValueStr = fullValueStr.replaceAll("(?<!\\\\)\\*", "%");
+        fullValueStr = fullValueStr.replaceAll("(?<!\\\\)!", "_");
+        valList = Collections.singletonList(fullValueStr);
+      }
+      else
+      {
+        var valListTmp = new ArrayList<String>();
+        for (String val : valList) valListTmp.add(unescapeSpecialChars(val, isListOperator));
+        valList = valListTmp;
+      }
+      StringJoiner sj = new StringJoiner(",");
+      for (String v : valList) { sj.add(v); }
+      return attr + "." + operator.name() + "." + sj;
+    }
+
+    private static List<String> getValueList(String valStr) { return Arrays.asList(valStr.split("(?<!\\\\),")); }
+
+    private static String extractAttribute(String condStr)
+    {
+      String attr = condStr.substring(0, condStr.indexOf('.'));
+      if (!Pattern.compile("^[a-zA-Z][a-zA-Z0-9_]*$").matcher(attr).find()) throw new IllegalArgumentException(condStr);
+      return attr;
+    }
+
+    private static SearchOperator extractOperator(String condStr)
+    {
+      int dot1 = condStr.indexOf('.');
+      int dot2 = condStr.indexOf('.', dot1 + 1);
+      return SearchOperator.valueOf(condStr.substring(dot1 + 1, dot2).toUpperCase());
+    }
+
+    private static String extractFullValueStr(String condStr, SearchOperator operator)
+    {
+      int dot1 = condStr.indexOf('.');
+      String fullValueStr = condStr.substring(condStr.indexOf('.', dot1 + 1) + 1);
+      List<String> valList =
+              SearchUtils.listOpSet.contains(operator) ? getValueList(fullValueStr) : Collections.singletonList(fullValueStr);
+      for (String val : valList)
+      {
+        if (!validateValueSpecialChars(val)) throw new IllegalArgumentException(condStr);
+      }
+      return fullValueStr;
+    }
+
+    private static boolean validateValueSpecialChars(String valStr)
+    {
+      String regex = "(?<!" + Pattern.quote("\\") + ")";
+      for (Character c : SEARCH_VAL_SPECIAL_CHARS)
+      {
+        if (Pattern.compile(regex + Pattern.quote(c.toString())).matcher(valStr).find()) return false;
+      }
+      return true;
+    }
+
+    private static String unescapeSpecialChars(String valStr, boolean isListOp)
+    {
+      String retVal = valStr;
+      for (Character c : SEARCH_VAL_SPECIAL_CHARS)
+      {
+        if (isListOp && c.equals(',')) continue;
+        retVal = retVal.replaceAll("\\\\" + Pattern.quote(c.toString()), c.toString());
+      }
+      return retVal;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package edu.utexas.tacc.tapis.search.benchmarks;
+
+import edu.utexas.tacc.tapis.search.CompiledSelector;
+import edu.utexas.tacc.tapis.search.TapisSelectorParser;
+import org.apache.activemq.command.ActiveMQMessage;
+import org.apache.activemq.filter.BooleanExpression;
+import org.apache.activemq.filter.MessageEvaluationContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare evaluating a parsed message selector with evaluating the same selector compiled by CompiledSelector.
+ * Each invocation filters one message with the properties of a notification event. The interpreted and compiled
+ *   cases evaluate properties already set, in a message or in a Values object. The compiledSetValues case also
+ *   sets the values from fields of the event, as a consumer filtering events before building messages would.
+ *
+ * To run:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main \
+ *       -Dexec.args="SelectorBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectorBenchmark
+{
+  @Param({
+    "tenant = 'dev'",
+    "tenant = 'dev' AND type = 'jobs.JOB_NEW_STATUS' AND size > 10",
+    "(tenant = 'dev' OR tenant = 'admin') AND size BETWEEN 5 AND 2 * 50 AND ratio < 0.75 AND NOT urgent",
+    "tenant = 'dev' AND type LIKE 'jobs.%'"
+  })
+  public String selector;
+
+  // Event fields
+  private final String tenant = "dev";
+  private final String type = "jobs.JOB_NEW_STATUS";
+  private final long size = 42;
+  private final double ratio = 0.5;
+  private final boolean urgent = false;
+
+  private BooleanExpression parsed;
+  private MessageEvaluationContext context;
+  private CompiledSelector compiled;
+  private CompiledSelector.Values values;
+  private int tenantSlot, typeSlot, sizeSlot, ratioSlot, urgentSlot;
+
+  @Setup
+  public void setup() throws Exception
+  {
+    parsed = TapisSelectorParser.parse(selector);
+    var message = new ActiveMQMessage();
+    message.setStringProperty("tenant", tenant);
+    message.setStringProperty("type", type);
+    message.setLongProperty("size", size);
+    message.setDoubleProperty("ratio", ratio);
+    message.setBooleanProperty("urgent", urgent);
+    context = new MessageEvaluationContext();
+    context.setMessageReference(message);
+
+    compiled = CompiledSelector.compile(parsed);
+    values = compiled.newValues();
+    tenantSlot = compiled.getSlot("tenant");
+    typeSlot = compiled.getSlot("type");
+    sizeSlot = compiled.getSlot("size");
+    ratioSlot = compiled.getSlot("ratio");
+    urgentSlot = compiled.getSlot("urgent");
+    compiledSetValues();
+  }
+
+  @Benchmark
+  public boolean interpreted() throws Exception
+  {
+    return parsed.matches(context);
+  }
+
+  @Benchmark
+  public boolean compiled() throws Exception
+  {
+    return compiled.matches(values);
+  }
+
+  @Benchmark
+  public boolean compiledSetValues() throws Exception
+  {
+    values.clear()
+          .setString(tenantSlot, tenant)
+          .setString(typeSlot, type)
+          .setLong(sizeSlot, size)
+          .setDouble(ratioSlot, ratio)
+          .setBoolean(urgentSlot, urgent);
+    return compiled.matches(values);
+  }
+}
@@ -0,0 +1,122 @@
+package edu.utexas.tacc.tapis.search.benchmarks;
+
+import edu.utexas.tacc.tapis.shared.utils.TapisTimestampParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE;
+
+/**
+ * Compare the hand written Tapis timestamp parser with the java.time based implementation it replaced,
+ *   which tried several formatters in turn and used the exceptions to move on to the next one.
+ * Includes an invalid value since validation of search values is a common use.
+ *
+ * To run:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main \
+ *       -Dexec.args="TimestampBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimestampBenchmark
+{
+  @Param({
+    "2200-04-29T14:15:52.123456Z",
+    "2200-04-29T14:15:52.123456-06:00",
+    "2200-04-29T14:15+01:00",
+    "2200-04",
+    "2200-04-29 14:15:52"
+  })
+  public String timeStr;
+
+  @Benchmark
+  public LocalDateTime parser()
+  {
+    return TapisTimestampParser.tryParse(timeStr);
+  }
+
+  @Benchmark
+  public boolean parserIsValid()
+  {
+    return TapisTimestampParser.isValid(timeStr);
+  }
+
+  @Benchmark
+  public LocalDateTime javaTime()
+  {
+    try { return LegacyTimestamp.getUTCTimeFromString(timeStr); }
+    catch (DateTimeParseException e) { return null; }
+  }
+
+  /*
+   * The java.time based implementation previously in TapisUtils. Kept here only as a baseline for comparison.
+   */
+  static final class LegacyTimestamp
+  {
+    private static final DateTimeFormatter[] UTC_IN_FORMATTERS = {
+      new DateTimeFormatterBuilder().parseCaseInsensitive().append(ISO_LOCAL_DATE)
+              .appendLiteral('T').appendPattern("HH").appendLiteral(":").appendPattern("mm")
+              .appendLiteral(":").appendPattern("ss").appendLiteral(".").appendPattern("nnnnnn")
+              .optionalStart().appendOffset("+HH:MM", "Z").toFormatter(),
+      new DateTimeFormatterBuilder().parseCaseInsensitive().append(ISO_LOCAL_DATE)
+            .appendLiteral('T').appendPattern("HH").appendLiteral(":").appendPattern("mm")
+            .optionalStart().appendOffset("+HH:MM", "Z").toFormatter(),
+      new DateTimeFormatterBuilder().parseCaseInsensitive().append(ISO_LOCAL_DATE)
+            .appendLiteral('T').appendPattern("HH")
+            .optionalStart().appendOffset("+HH:MM", "Z").toFormatter()
+    };
+
+    static LocalDateTime getUTCTimeFromString(String timeStr) throws DateTimeParseException
+    {
+      if (timeStr == null || timeStr.isBlank()) throw new DateTimeParseException("Empty timestamp string", "", 0);
+      if (timeStr.endsWith("Z")) timeStr = timeStr.substring(0, timeStr.length()-1);
+      if (timeStr.length() < 4) throw new DateTimeParseException("Less than 4 characters in string", timeStr, 0);
+      if (timeStr.length() == 4) timeStr += "-01-01T00:00:00";
+      else if (timeStr.length() == 7) timeStr += "-01T00:00:00";
+      else if (timeStr.length() == 10)
+      {
+        if (timeStr.charAt(7) != ':') timeStr += "T00:00:00";
+        else timeStr = timeStr.substring(0,4) + "-01-01T00:00:00" + timeStr.substring(4,10);
+      }
+      else if (timeStr.length() == 13)
+      {
+        if (timeStr.charAt(10) == ':' && (timeStr.charAt(7) == '+' || timeStr.charAt(7) == '-'))
+          timeStr = timeStr.substring(0, 7) + "-01T00:00:00" + timeStr.substring(7, 13);
+      }
+      else if (timeStr.length() == 16)
+      {
+        if (timeStr.charAt(13) == ':' && (timeStr.charAt(10) == '+' || timeStr.charAt(10) == '-'))
+          timeStr = timeStr.substring(0, 10) + "T00:00:00" + timeStr.substring(10, 16);
+      }
+      try { return LocalDateTime.ofInstant(Instant.parse(timeStr), ZoneOffset.UTC); }
+      catch (DateTimeParseException e) { }
+      try { return LocalDateTime.parse(timeStr); }
+      catch (DateTimeParseException e) { }
+      for (DateTimeFormatter formatter : UTC_IN_FORMATTERS)
+      {
+        try { return LocalDateTime.parse(timeStr, formatter); }
+        catch (DateTimeParseException e) { }
+      }
+      throw new DateTimeParseException("Not a valid Tapis Timestamp", timeStr, 0);
+    }
+  }
+}
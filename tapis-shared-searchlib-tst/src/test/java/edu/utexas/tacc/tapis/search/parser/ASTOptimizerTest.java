@@ -0,0 +1,221 @@
+package edu.utexas.tacc.tapis.search.parser;
+
+import edu.utexas.tacc.tapis.search.PredicateCompiler;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Tests for ASTOptimizer
+ */
+@Test(groups= {"unit"})
+public class ASTOptimizerTest
+{
+  private static final Map<String, Integer> columnTypes =
+          Map.of("name", Types.VARCHAR,
+                 "enabled", Types.BOOLEAN,
+                 "port", Types.INTEGER,
+                 "cost", Types.NUMERIC,
+                 "created", Types.TIMESTAMP);
+
+  /*
+   * Test each rewrite
+   */
+  @Test(groups={"unit"})
+  public void testRewrites()
+  {
+    // Flatten chains, including parenthesized ones
+    checkOptimized("a = 1 AND b = 2 AND (c = 3 AND d = 4)", "((a.EQ.1).AND.(b.EQ.2).AND.(c.EQ.3).AND.(d.EQ.4))");
+    checkOptimized("a = 1 OR (b = 2 OR c = 3) AND d = 4",
+                   "((a.EQ.1).OR.(((b.EQ.2).OR.(c.EQ.3)).AND.(d.EQ.4)))");
+    // Duplicates
+    checkOptimized("a = 1 AND b = 2 AND a = 1", "((a.EQ.1).AND.(b.EQ.2))");
+    checkOptimized("a = 1 or a = 1", "(a.EQ.1)");
+    // OR of EQ into IN
+    checkOptimized("name = 'x' OR name = 'y' OR port = 1 OR name IN ('z', 'x')",
+                   "((name.IN.x,y,z).OR.(port.EQ.1))");
+    checkOptimized("name = 'x,y' OR name = 'z'", "((name.EQ.x,y).OR.(name.EQ.z))");
+    // GTE/LTE into BETWEEN. GT/LT only for integer columns.
+    checkOptimized("port >= 1 AND name = 'x' AND port <= 10", "((port.BETWEEN.1,10).AND.(name.EQ.x))");
+    checkOptimized("port > 1 AND port < 10", "(port.BETWEEN.2,9)");
+    checkOptimized("cost > 1 AND cost <= 10", "((cost.GT.1).AND.(cost.LTE.10))");
+    checkOptimized("port >= 1 AND port >= 2 AND port <= 10", "((port.GTE.1).AND.(port.GTE.2).AND.(port.LTE.10))");
+    // Contradictions
+    checkOptimized("port = 1 AND port = 2", "FALSE");
+    checkOptimized("port = 1 AND port = 1.0", "((port.EQ.1).AND.(port.EQ.1.0))");
+    checkOptimized("cost = 1 AND cost = 1.0", "((cost.EQ.1).AND.(cost.EQ.1.0))");
+    checkOptimized("cost = 1 AND cost = 1.5", "FALSE");
+    checkOptimized("port > 5 AND port < 3", "FALSE");
+    checkOptimized("port > 5 AND port < 6", "FALSE");
+    checkOptimized("cost > 5 AND cost < 6", "((cost.GT.5).AND.(cost.LT.6))");
+    checkOptimized("port IN ('1', '2') AND port NOT IN ('1', '2')", "FALSE");
+    checkOptimized("port IN ('1', '2', '3') AND port > 3", "FALSE");
+    checkOptimized("port BETWEEN '5' AND '1'", "(port.BETWEEN.5,1)");
+    checkOptimized("port BETWEEN '5' AND '1' AND port = 2", "FALSE");
+    checkOptimized("name = 'a' AND name = 'b'", "FALSE");
+    checkOptimized("name > 'b' AND name < 'a'", "((name.GT.b).AND.(name.LT.a))");
+    checkOptimized("enabled = 'true' AND enabled = 'FALSE'", "FALSE");
+    checkOptimized("created > '2021-06-01T13:00:00+02:00' AND created < '2021-06-01T11:00Z'", "FALSE");
+    checkOptimized("port = 'abc' AND port = 2", "((port.EQ.abc).AND.(port.EQ.2))");
+    // Constant folding
+    checkOptimized("(port = 1 AND port = 2) OR name = 'x'", "(name.EQ.x)");
+    checkOptimized("(port = 1 AND port = 2) OR (cost = 1 AND cost = 2)", "FALSE");
+    checkOptimized("(port = 1 AND port = 2) AND name = 'x'", "FALSE");
+    Assert.assertTrue(ASTOptimizer.isAlwaysFalse(ASTOptimizer.optimize(ASTParser.parse("port = 1 AND port = 2"),
+                                                                       columnTypes)));
+    Assert.assertFalse(ASTOptimizer.isAlwaysFalse(ASTOptimizer.optimize(ASTParser.parse("port = 1 AND port = 2"))));
+    Assert.assertNull(ASTOptimizer.optimize(null));
+  }
+
+  /*
+   * Test that optimized trees match the same rows as the original trees
+   */
+  @Test(groups={"unit"})
+  public void testEquivalence()
+  {
+    var rows = new ArrayList<Map<String, Object>>();
+    for (int p = 0; p < 6; p++) for (int c = 0; c < 6; c++) rows.add(Map.of("port", p, "cost", c));
+    PredicateCompiler<Map<String, Object>> compiler = PredicateCompiler.forMap(columnTypes);
+    String[] ops = {"=", "<>", "<", "<=", ">", ">="};
+    var rand = new Random(1234);
+    for (int n = 0; n < 2000; n++)
+    {
+      // Random query of up to 8 comparisons combined with AND/OR and parentheses
+      var sb = new StringBuilder();
+      int terms = 1 + rand.nextInt(8);
+      int open = 0;
+      for (int t = 0; t < terms; t++)
+      {
+        if (t > 0) sb.append(rand.nextBoolean() ? " AND " : " OR ");
+        if (rand.nextInt(4) == 0) { sb.append('('); open++; }
+        String attr = rand.nextBoolean() ? "port" : "cost";
+        int kind = rand.nextInt(8);
+        if (kind == 0) sb.append(attr).append(" IN ('").append(rand.nextInt(6)).append("', '").append(rand.nextInt(6)).append("')");
+        else if (kind == 1) sb.append(attr).append(" BETWEEN '").append(rand.nextInt(6)).append("' AND '").append(rand.nextInt(6)).append('\'');
+        else sb.append(attr).append(' ').append(ops[rand.nextInt(ops.length)]).append(' ').append(rand.nextInt(6));
+        if (open > 0 && rand.nextInt(3) == 0) { sb.append(')'); open--; }
+      }
+      while (open-- > 0) sb.append(')');
+      String sqlStr = sb.toString();
+      ASTNode node = ASTParser.parse(sqlStr);
+      ASTNode optimized = ASTOptimizer.optimize(node, columnTypes);
+      Predicate<Map<String, Object>> expected = compiler.compile(node);
+      Predicate<Map<String, Object>> actual = compiler.compile(optimized);
+      for (Map<String, Object> row : rows)
+        assertEquals(actual.test(row), expected.test(row), sqlStr + " optimized: " + optimized + " row: " + row);
+    }
+  }
+
+  /*
+   * Test that contradictions within NOT are kept, so rows where the attribute is NULL match the same way.
+   *   For such a row port = 1 AND port = 2 is NULL, and so is NOT of it, while NOT FALSE would be TRUE.
+   */
+  @Test(groups={"unit"})
+  public void testNotWithNullAttribute()
+  {
+    checkOptimized("NOT (port = 1 AND port = 2)", ".NOT.((port.EQ.1).AND.(port.EQ.2))");
+    checkOptimized("NOT ((port > 5 AND port < 3) OR name = 'x')", ".NOT.((port.BETWEEN.6,2).OR.(name.EQ.x))");
+    // Rewrites that hold in three valued logic are still done within NOT
+    checkOptimized("NOT (port > 1 AND port < 10)", ".NOT.(port.BETWEEN.2,9)");
+    // Outside NOT the contradiction is folded
+    checkOptimized("NOT (name = 'x') AND port = 1 AND port = 2", "FALSE");
+
+    var nullPort = new HashMap<String, Object>();
+    nullPort.put("port", null);
+    nullPort.put("name", "y");
+    for (String sqlStr : new String[] {"NOT (port = 1 AND port = 2)", "NOT ((port > 5 AND port < 3) OR name = 'x')",
+                                       "NOT (NOT (port = 1 AND port = 2))", "NOT (port > 1 AND port < 10)"})
+    {
+      ASTNode node = ASTParser.parse(sqlStr);
+      ASTNode optimized = ASTOptimizer.optimize(node, columnTypes);
+      Assert.assertNull(evaluate(node, nullPort), sqlStr);
+      assertEquals(evaluate(optimized, nullPort), evaluate(node, nullPort), sqlStr + " optimized: " + optimized);
+      assertEquals(evaluate(optimized, Map.of("port", 3, "name", "y")),
+                   evaluate(node, Map.of("port", 3, "name", "y")), sqlStr + " optimized: " + optimized);
+    }
+  }
+
+  /*
+   * Test that very deep trees do not overflow the stack
+   */
+  @Test(groups={"unit"})
+  public void testDeepTree()
+  {
+    int n = 200000;
+    ASTNode node = comparison("a0", "1");
+    for (int i = 1; i < n; i++) node = new ASTBinaryExpression(i % 2 == 0 ? "AND" : "and", node, comparison("a" + i, "1"));
+    // Also nest on the right
+    for (int i = 0; i < n; i++) node = new ASTBinaryExpression("OR", comparison("b" + i, "2"), node);
+    assertEquals(node.countLeaves(), 4 * n);
+    ASTNode optimized = ASTOptimizer.optimize(node);
+    Assert.assertTrue(optimized instanceof ASTNaryExpression);
+    assertEquals(((ASTNaryExpression) optimized).getOperands().size(), n + 1);
+    assertEquals(optimized.countLeaves(), 4 * n);
+    Assert.assertFalse(ASTCanonicalizer.canonicalKey(optimized).isEmpty());
+  }
+
+  private static ASTNode comparison(String attr, String val)
+  {
+    return new ASTBinaryExpression("EQ", new ASTUnaryExpression("", new ASTLeaf(attr)), new ASTLeaf(val));
+  }
+
+  /*
+   * Evaluate a tree of comparisons of integer and string attributes using SQL three valued logic.
+   *   NULL is returned as null.
+   */
+  private static Boolean evaluate(ASTNode node, Map<String, Object> row)
+  {
+    if (node instanceof ASTConstant) return ((ASTConstant) node).getValue();
+    if (node instanceof ASTUnaryExpression)
+    {
+      Boolean b = evaluate(((ASTUnaryExpression) node).getNode(), row);
+      return (b == null) ? null : !b;
+    }
+    if (node instanceof ASTNaryExpression)
+    {
+      boolean isAnd = "AND".equalsIgnoreCase(((ASTNaryExpression) node).getOp());
+      Boolean result = isAnd;
+      for (ASTNode n : ((ASTNaryExpression) node).getOperands())
+      {
+        Boolean b = evaluate(n, row);
+        if (b != null && b != isAnd) return b;
+        if (b == null) result = null;
+      }
+      return result;
+    }
+    var bNode = (ASTBinaryExpression) node;
+    String op = bNode.getOp().toUpperCase();
+    if (op.equals("AND") || op.equals("OR"))
+      return evaluate(new ASTNaryExpression(op, List.of(bNode.getLeft(), bNode.getRight())), row);
+    Object value = row.get(bNode.getLeft().toString());
+    if (value == null) return null;
+    String[] vals = bNode.getRight().toString().split(",");
+    if (value instanceof String) return op.equals("EQ") ? value.equals(vals[0]) : !value.equals(vals[0]);
+    int v = (Integer) value;
+    switch (op)
+    {
+      case "EQ": return v == Integer.parseInt(vals[0]);
+      case "NEQ": return v != Integer.parseInt(vals[0]);
+      case "GT": return v > Integer.parseInt(vals[0]);
+      case "LT": return v < Integer.parseInt(vals[0]);
+      case "BETWEEN": return v >= Integer.parseInt(vals[0]) && v <= Integer.parseInt(vals[1]);
+      default: throw new IllegalArgumentException(op);
+    }
+  }
+
+  private static void checkOptimized(String sqlStr, String expected)
+  {
+    ASTNode optimized = ASTOptimizer.optimize(ASTParser.parse(sqlStr), columnTypes);
+    System.out.println("Optimize: " + sqlStr + " Result: " + optimized);
+    assertEquals(optimized.toString(), expected, sqlStr);
+  }
+}